@@ -0,0 +1,819 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.apache.olingo.odata2.annotation.processor.core.datasource.ValueAccess;
+import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleType;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
+import org.apache.olingo.odata2.api.edm.EdmType;
+import org.apache.olingo.odata2.api.edm.EdmTypeKind;
+import org.apache.olingo.odata2.api.edm.EdmTyped;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.exception.ODataNotImplementedException;
+import org.apache.olingo.odata2.api.uri.expression.BinaryExpression;
+import org.apache.olingo.odata2.api.uri.expression.BinaryOperator;
+import org.apache.olingo.odata2.api.uri.expression.CommonExpression;
+import org.apache.olingo.odata2.api.uri.expression.ExpressionKind;
+import org.apache.olingo.odata2.api.uri.expression.FilterExpression;
+import org.apache.olingo.odata2.api.uri.expression.LiteralExpression;
+import org.apache.olingo.odata2.api.uri.expression.MemberExpression;
+import org.apache.olingo.odata2.api.uri.expression.MethodExpression;
+import org.apache.olingo.odata2.api.uri.expression.MethodOperator;
+import org.apache.olingo.odata2.api.uri.expression.OrderByExpression;
+import org.apache.olingo.odata2.api.uri.expression.OrderExpression;
+import org.apache.olingo.odata2.api.uri.expression.PropertyExpression;
+import org.apache.olingo.odata2.api.uri.expression.SortOrder;
+import org.apache.olingo.odata2.api.uri.expression.UnaryExpression;
+
+/**
+ * Compiles <code>$filter</code> and <code>$orderby</code> expressions into a tree of
+ * typed operands which is evaluated directly against the Java data objects.
+ * <p>The expression tree is inspected only once per request: literals are parsed,
+ * property paths are resolved, and the way two values are compared or combined
+ * is chosen from their EDM types while compiling. Evaluating the compiled tree
+ * works on the property values as they are and needs no string conversion.</p>
+ */
+class ExpressionCompiler {
+
+  private static final TimeZone TIME_ZONE_GMT = TimeZone.getTimeZone("GMT");
+
+  private final ValueAccess valueAccess;
+
+  ExpressionCompiler(final ValueAccess valueAccess) {
+    this.valueAccess = valueAccess;
+  }
+
+  /**
+   * Compiles a filter expression.
+   * @param filter the filter expression
+   * @return the compiled filter
+   * @throws ODataNotImplementedException if the expression contains parts which cannot be compiled
+   * @throws ODataException if a literal could not be parsed
+   */
+  CompiledFilter compileFilter(final FilterExpression filter) throws ODataException {
+    return new CompiledFilter(compile(filter.getExpression()));
+  }
+
+  /**
+   * Compiles an orderby expression.
+   * @param orderBy the orderby expression
+   * @return the compiled sort order
+   * @throws ODataNotImplementedException if the expression contains parts which cannot be compiled
+   * @throws ODataException if a literal could not be parsed
+   */
+  CompiledOrderBy compileOrderBy(final OrderByExpression orderBy) throws ODataException {
+    final List<OrderExpression> orders = orderBy.getOrders();
+    final Operand[] keys = new Operand[orders.size()];
+    final Category[] categories = new Category[keys.length];
+    final boolean[] descending = new boolean[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      final OrderExpression order = orders.get(i);
+      keys[i] = compile(order.getExpression());
+      categories[i] = categoryOf(order.getExpression());
+      descending[i] = order.getSortOrder() == SortOrder.desc;
+    }
+    return new CompiledOrderBy(keys, categories, descending);
+  }
+
+  private Operand compile(final CommonExpression expression) throws ODataException {
+    switch (expression.getKind()) {
+    case UNARY:
+      final UnaryExpression unaryExpression = (UnaryExpression) expression;
+      final Operand operand = compile(unaryExpression.getOperand());
+      switch (unaryExpression.getOperator()) {
+      case NOT:
+        return new NotOperand(operand);
+      case MINUS:
+        return new MinusOperand(operand, categoryOf(unaryExpression.getOperand()));
+      default:
+        throw new ODataNotImplementedException();
+      }
+
+    case BINARY:
+      return compileBinary((BinaryExpression) expression);
+
+    case PROPERTY:
+      final EdmProperty property = (EdmProperty) ((PropertyExpression) expression).getEdmProperty();
+      return new PropertyOperand(valueAccess, new EdmProperty[] { property });
+
+    case MEMBER:
+      final List<EdmProperty> propertyPath = new ArrayList<EdmProperty>();
+      CommonExpression currentExpression = expression;
+      while (currentExpression != null) {
+        final PropertyExpression currentPropertyExpression =
+            (PropertyExpression) (currentExpression.getKind() == ExpressionKind.MEMBER ?
+                ((MemberExpression) currentExpression).getProperty() : currentExpression);
+        final EdmTyped currentProperty = currentPropertyExpression.getEdmProperty();
+        final EdmTypeKind kind = currentProperty.getType().getKind();
+        if (kind == EdmTypeKind.SIMPLE || kind == EdmTypeKind.COMPLEX) {
+          propertyPath.add(0, (EdmProperty) currentProperty);
+        } else {
+          throw new ODataNotImplementedException();
+        }
+        currentExpression =
+            currentExpression.getKind() == ExpressionKind.MEMBER ? ((MemberExpression) currentExpression).getPath()
+                : null;
+      }
+      return new PropertyOperand(valueAccess, propertyPath.toArray(new EdmProperty[propertyPath.size()]));
+
+    case LITERAL:
+      final LiteralExpression literal = (LiteralExpression) expression;
+      final EdmSimpleType literalType = (EdmSimpleType) literal.getEdmType();
+      return new ConstantOperand(literalType.valueOfString(literal.getUriLiteral(), EdmLiteralKind.URI, null,
+          literalType.getDefaultType()));
+
+    case METHOD:
+      final MethodExpression methodExpression = (MethodExpression) expression;
+      final List<CommonExpression> parameters = methodExpression.getParameters();
+      final Operand[] compiledParameters = new Operand[parameters.size()];
+      for (int i = 0; i < compiledParameters.length; i++) {
+        compiledParameters[i] = compile(parameters.get(i));
+      }
+      final MethodOperator method = methodExpression.getMethod();
+      switch (method) {
+      case ENDSWITH:
+      case INDEXOF:
+      case STARTSWITH:
+      case TOLOWER:
+      case TOUPPER:
+      case TRIM:
+      case SUBSTRING:
+      case SUBSTRINGOF:
+      case CONCAT:
+      case LENGTH:
+        return new StringMethodOperand(method, compiledParameters);
+      case YEAR:
+      case MONTH:
+      case DAY:
+      case HOUR:
+      case MINUTE:
+      case SECOND:
+        final EdmType parameterType = parameters.get(0).getEdmType();
+        return new DateMethodOperand(method, compiledParameters[0],
+            parameterType != EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance());
+      case ROUND:
+      case FLOOR:
+      case CEILING:
+        return new RoundingMethodOperand(method, compiledParameters[0], Category.of(methodExpression.getEdmType()));
+      default:
+        throw new ODataNotImplementedException();
+      }
+
+    default:
+      throw new ODataNotImplementedException();
+    }
+  }
+
+  private Operand compileBinary(final BinaryExpression binaryExpression) throws ODataException {
+    final BinaryOperator operator = binaryExpression.getOperator();
+    if (operator == BinaryOperator.PROPERTY_ACCESS) {
+      throw new ODataNotImplementedException();
+    }
+    final Operand left = compile(binaryExpression.getLeftOperand());
+    final Operand right = compile(binaryExpression.getRightOperand());
+
+    switch (operator) {
+    case AND:
+      return new AndOperand(left, right);
+    case OR:
+      return new OrOperand(left, right);
+    case EQ:
+    case NE:
+    case LT:
+    case LE:
+    case GT:
+    case GE:
+      return new ComparisonOperand(operator, left, right, Category.common(
+          categoryOf(binaryExpression.getLeftOperand()), categoryOf(binaryExpression.getRightOperand())));
+    case ADD:
+    case SUB:
+    case MUL:
+    case DIV:
+    case MODULO:
+      return new ArithmeticOperand(operator, left, right, Category.common(
+          categoryOf(binaryExpression.getLeftOperand()), categoryOf(binaryExpression.getRightOperand())));
+    default:
+      throw new ODataNotImplementedException();
+    }
+  }
+
+  /**
+   * Returns the category the values of an expression are evaluated in.
+   * A division always yields a floating-point number, also for integral operands.
+   */
+  private static Category categoryOf(final CommonExpression expression) {
+    final Category category = Category.of(expression.getEdmType());
+    return category == Category.INTEGRAL && expression.getKind() == ExpressionKind.BINARY
+        && ((BinaryExpression) expression).getOperator() == BinaryOperator.DIV ? Category.FLOATING : category;
+  }
+
+  /**
+   * A compiled filter expression.
+   */
+  static final class CompiledFilter {
+
+    private final Operand condition;
+
+    private CompiledFilter(final Operand condition) {
+      this.condition = condition;
+    }
+
+    /**
+     * Evaluates the filter for the given data object.
+     * @param data the Java data object
+     * @return <code>true</code> if the filter applies for the data object
+     * @throws ODataException if a property value could not be retrieved
+     */
+    boolean matches(final Object data) throws ODataException {
+      try {
+        return data != null && Boolean.TRUE.equals(condition.evaluate(data));
+      } catch (final RuntimeException e) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * A compiled orderby expression. The sort keys of every data object
+   * are evaluated only once per sort.
+   */
+  static final class CompiledOrderBy implements Comparator<Object[]> {
+
+    private final Operand[] keys;
+    private final Category[] categories;
+    private final boolean[] descending;
+
+    private CompiledOrderBy(final Operand[] keys, final Category[] categories, final boolean[] descending) {
+      this.keys = keys;
+      this.categories = categories;
+      this.descending = descending;
+    }
+
+    /**
+     * Sorts the given list in place.
+     * @param data the list of Java data objects
+     * @throws ODataException if a property value could not be retrieved
+     */
+    <T> void sort(final List<T> data) throws ODataException {
+      // Each row holds the sort keys followed by the data object itself.
+      List<Object[]> rows = new ArrayList<Object[]>(data.size());
+      for (final T entity : data) {
+        Object[] row = new Object[keys.length + 1];
+        for (int i = 0; i < keys.length; i++) {
+          try {
+            row[i] = keys[i].evaluate(entity);
+          } catch (final RuntimeException e) {
+            row[i] = null;
+          }
+        }
+        row[keys.length] = entity;
+        rows.add(row);
+      }
+
+      Collections.sort(rows, this);
+
+      ListIterator<T> iterator = data.listIterator();
+      for (final Object[] row : rows) {
+        iterator.next();
+        @SuppressWarnings("unchecked")
+        final T entity = (T) row[keys.length];
+        iterator.set(entity);
+      }
+    }
+
+    @Override
+    public int compare(final Object[] row1, final Object[] row2) {
+      for (int i = 0; i < keys.length; i++) {
+        final Object first = row1[i];
+        final Object second = row2[i];
+        int result;
+        if (first == null) {
+          result = second == null ? 0 : 1;
+        } else if (second == null) {
+          result = -1;
+        } else {
+          try {
+            result = categories[i].compare(first, second);
+          } catch (final RuntimeException e) {
+            result = 0;
+          }
+        }
+        if (result != 0) {
+          return descending[i] ? -result : result;
+        }
+      }
+      return 0;
+    }
+  }
+
+  /**
+   * The way values of an EDM type are compared and combined,
+   * derived from the default Java type of the EDM simple type.
+   */
+  enum Category {
+    INTEGRAL, FLOATING, DECIMAL, STRING, GUID, TEMPORAL, BOOLEAN, BINARY, NULL, OTHER;
+
+    static Category of(final EdmType type) {
+      if (type == null || type.getKind() != EdmTypeKind.SIMPLE) {
+        return OTHER;
+      }
+      final Class<?> defaultType = ((EdmSimpleType) type).getDefaultType();
+      if (defaultType == null) {
+        return NULL;
+      } else if (defaultType == Long.class || defaultType == Integer.class
+          || defaultType == Short.class || defaultType == Byte.class) {
+        return INTEGRAL;
+      } else if (defaultType == Double.class || defaultType == Float.class) {
+        return FLOATING;
+      } else if (defaultType == BigDecimal.class) {
+        return DECIMAL;
+      } else if (defaultType == String.class) {
+        return STRING;
+      } else if (Calendar.class.isAssignableFrom(defaultType)) {
+        return TEMPORAL;
+      } else if (defaultType == Boolean.class) {
+        return BOOLEAN;
+      } else if (defaultType == byte[].class) {
+        return BINARY;
+      } else if (type == EdmSimpleTypeKind.Guid.getEdmSimpleTypeInstance()) {
+        return GUID;
+      } else {
+        return OTHER;
+      }
+    }
+
+    static Category common(final Category left, final Category right) {
+      if (left == right || right == NULL) {
+        return left;
+      } else if (left == NULL) {
+        return right;
+      } else if (left.isNumeric() && right.isNumeric()) {
+        return left == FLOATING || right == FLOATING ? FLOATING :
+            left == DECIMAL || right == DECIMAL ? DECIMAL : INTEGRAL;
+      } else {
+        return OTHER;
+      }
+    }
+
+    boolean isNumeric() {
+      return this == INTEGRAL || this == FLOATING || this == DECIMAL;
+    }
+
+    /**
+     * Compares two non-null values of this category.
+     */
+    int compare(final Object first, final Object second) {
+      switch (this) {
+      case INTEGRAL:
+        final long firstLong = ((Number) first).longValue();
+        final long secondLong = ((Number) second).longValue();
+        return firstLong < secondLong ? -1 : firstLong == secondLong ? 0 : 1;
+      case FLOATING:
+        if (first instanceof Float || second instanceof Float) {
+          // Single values are compared with single precision; otherwise 1.1f would not equal 1.1.
+          final float firstFloat = ((Number) first).floatValue();
+          final float secondFloat = ((Number) second).floatValue();
+          return firstFloat < secondFloat ? -1 : firstFloat == secondFloat ? 0 : 1;
+        }
+        final double firstDouble = ((Number) first).doubleValue();
+        final double secondDouble = ((Number) second).doubleValue();
+        return firstDouble < secondDouble ? -1 : firstDouble == secondDouble ? 0 : 1;
+      case DECIMAL:
+        return toBigDecimal(first).compareTo(toBigDecimal(second));
+      case TEMPORAL:
+        final long firstMillis = toMillis(first);
+        final long secondMillis = toMillis(second);
+        return firstMillis < secondMillis ? -1 : firstMillis == secondMillis ? 0 : 1;
+      case BOOLEAN:
+        final boolean firstBoolean = (Boolean) first;
+        return firstBoolean == (Boolean) second ? 0 : firstBoolean ? 1 : -1;
+      case BINARY:
+        final byte[] firstBytes = (byte[]) first;
+        final byte[] secondBytes = (byte[]) second;
+        for (int i = 0; i < firstBytes.length && i < secondBytes.length; i++) {
+          final int difference = (firstBytes[i] & 0xFF) - (secondBytes[i] & 0xFF);
+          if (difference != 0) {
+            return difference;
+          }
+        }
+        return firstBytes.length - secondBytes.length;
+      case GUID:
+        return first.toString().compareToIgnoreCase(second.toString());
+      default:
+        return first.toString().compareTo(second.toString());
+      }
+    }
+  }
+
+  private static BigDecimal toBigDecimal(final Object value) {
+    if (value instanceof BigDecimal) {
+      return (BigDecimal) value;
+    } else if (value instanceof BigInteger) {
+      return new BigDecimal((BigInteger) value);
+    } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return BigDecimal.valueOf(((Number) value).longValue());
+    } else if (value instanceof Float) {
+      return new BigDecimal(value.toString());
+    } else {
+      return BigDecimal.valueOf(((Number) value).doubleValue());
+    }
+  }
+
+  private static long toMillis(final Object value) {
+    if (value instanceof Calendar) {
+      return ((Calendar) value).getTimeInMillis();
+    } else if (value instanceof Date) {
+      return ((Date) value).getTime();
+    } else {
+      return ((Number) value).longValue();
+    }
+  }
+
+  private static String toString(final Object value) {
+    return value == null ? null : value.toString();
+  }
+
+  /**
+   * A node of the compiled expression tree.
+   */
+  abstract static class Operand {
+    abstract Object evaluate(Object data) throws ODataException;
+  }
+
+  private static final class ConstantOperand extends Operand {
+    private final Object value;
+
+    private ConstantOperand(final Object value) {
+      this.value = value;
+    }
+
+    @Override
+    Object evaluate(final Object data) {
+      return value;
+    }
+  }
+
+  private static final class PropertyOperand extends Operand {
+    private final ValueAccess valueAccess;
+    private final EdmProperty[] propertyPath;
+
+    private PropertyOperand(final ValueAccess valueAccess, final EdmProperty[] propertyPath) {
+      this.valueAccess = valueAccess;
+      this.propertyPath = propertyPath;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      Object value = data;
+      for (int i = 0; i < propertyPath.length && value != null; i++) {
+        value = valueAccess.getPropertyValue(value, propertyPath[i]);
+      }
+      return value;
+    }
+  }
+
+  private static final class NotOperand extends Operand {
+    private final Operand operand;
+
+    private NotOperand(final Operand operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      return !Boolean.TRUE.equals(operand.evaluate(data));
+    }
+  }
+
+  private static final class MinusOperand extends Operand {
+    private final Operand operand;
+    private final Category category;
+
+    private MinusOperand(final Operand operand, final Category category) {
+      this.operand = operand;
+      this.category = category;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      final Object value = operand.evaluate(data);
+      if (value == null) {
+        return null;
+      }
+      switch (category) {
+      case INTEGRAL:
+        return -((Number) value).longValue();
+      case DECIMAL:
+        return toBigDecimal(value).negate();
+      default:
+        return -((Number) value).doubleValue();
+      }
+    }
+  }
+
+  private static final class AndOperand extends Operand {
+    private final Operand left;
+    private final Operand right;
+
+    private AndOperand(final Operand left, final Operand right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      return Boolean.TRUE.equals(left.evaluate(data)) && Boolean.TRUE.equals(right.evaluate(data));
+    }
+  }
+
+  private static final class OrOperand extends Operand {
+    private final Operand left;
+    private final Operand right;
+
+    private OrOperand(final Operand left, final Operand right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      return Boolean.TRUE.equals(left.evaluate(data)) || Boolean.TRUE.equals(right.evaluate(data));
+    }
+  }
+
+  private static final class ComparisonOperand extends Operand {
+    private final BinaryOperator operator;
+    private final Operand left;
+    private final Operand right;
+    private final Category category;
+
+    private ComparisonOperand(final BinaryOperator operator, final Operand left, final Operand right,
+        final Category category) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+      this.category = category;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      final Object first = left.evaluate(data);
+      final Object second = right.evaluate(data);
+      if (first == null || second == null) {
+        final boolean bothNull = first == null && second == null;
+        return operator == BinaryOperator.EQ ? bothNull : operator == BinaryOperator.NE && !bothNull;
+      }
+      final int result = category.compare(first, second);
+      switch (operator) {
+      case EQ:
+        return result == 0;
+      case NE:
+        return result != 0;
+      case LT:
+        return result < 0;
+      case LE:
+        return result <= 0;
+      case GT:
+        return result > 0;
+      default:
+        return result >= 0;
+      }
+    }
+  }
+
+  private static final class ArithmeticOperand extends Operand {
+    private final BinaryOperator operator;
+    private final Operand left;
+    private final Operand right;
+    private final Category category;
+
+    private ArithmeticOperand(final BinaryOperator operator, final Operand left, final Operand right,
+        final Category category) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+      this.category = category;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      final Object first = left.evaluate(data);
+      final Object second = right.evaluate(data);
+      if (first == null || second == null) {
+        return null;
+      }
+      // Integral divisions are done in floating point; dividing by zero
+      // results in infinity or NaN instead of an exception.
+      switch (category) {
+      case INTEGRAL:
+        if (operator != BinaryOperator.DIV) {
+          return evaluate(((Number) first).longValue(), ((Number) second).longValue());
+        }
+        break;
+      case DECIMAL:
+        final BigDecimal secondDecimal = toBigDecimal(second);
+        if (operator != BinaryOperator.DIV || secondDecimal.signum() != 0) {
+          return evaluate(toBigDecimal(first), secondDecimal);
+        }
+        break;
+      default:
+        break;
+      }
+      return evaluate(((Number) first).doubleValue(), ((Number) second).doubleValue());
+    }
+
+    private long evaluate(final long first, final long second) {
+      switch (operator) {
+      case ADD:
+        return first + second;
+      case SUB:
+        return first - second;
+      case MUL:
+        return first * second;
+      default:
+        return first % second;
+      }
+    }
+
+    private double evaluate(final double first, final double second) {
+      switch (operator) {
+      case ADD:
+        return first + second;
+      case SUB:
+        return first - second;
+      case MUL:
+        return first * second;
+      case DIV:
+        return first / second;
+      default:
+        return first % second;
+      }
+    }
+
+    private BigDecimal evaluate(final BigDecimal first, final BigDecimal second) {
+      switch (operator) {
+      case ADD:
+        return first.add(second);
+      case SUB:
+        return first.subtract(second);
+      case MUL:
+        return first.multiply(second);
+      case DIV:
+        return first.divide(second, MathContext.DECIMAL128);
+      default:
+        return first.remainder(second);
+      }
+    }
+  }
+
+  private static final class StringMethodOperand extends Operand {
+    private final MethodOperator method;
+    private final Operand[] parameters;
+
+    private StringMethodOperand(final MethodOperator method, final Operand[] parameters) {
+      this.method = method;
+      this.parameters = parameters;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      final String first = ExpressionCompiler.toString(parameters[0].evaluate(data));
+      final Object second = parameters.length > 1 ? parameters[1].evaluate(data) : null;
+      if (first == null || parameters.length > 1 && second == null) {
+        return null;
+      }
+
+      switch (method) {
+      case ENDSWITH:
+        return first.endsWith(second.toString());
+      case INDEXOF:
+        return first.indexOf(second.toString());
+      case STARTSWITH:
+        return first.startsWith(second.toString());
+      case TOLOWER:
+        return first.toLowerCase(Locale.ROOT);
+      case TOUPPER:
+        return first.toUpperCase(Locale.ROOT);
+      case TRIM:
+        return first.trim();
+      case SUBSTRING:
+        final int offset = Math.min(((Number) second).intValue(), first.length());
+        if (parameters.length > 2) {
+          final Object length = parameters[2].evaluate(data);
+          return length == null ? null :
+              first.substring(offset, Math.min(offset + ((Number) length).intValue(), first.length()));
+        }
+        return first.substring(offset);
+      case SUBSTRINGOF:
+        return second.toString().contains(first);
+      case CONCAT:
+        return first.concat(second.toString());
+      default:
+        return first.length();
+      }
+    }
+  }
+
+  private static final class DateMethodOperand extends Operand {
+    private final MethodOperator method;
+    private final Operand parameter;
+    private final boolean keepTimeZone;
+
+    private DateMethodOperand(final MethodOperator method, final Operand parameter, final boolean keepTimeZone) {
+      this.method = method;
+      this.parameter = parameter;
+      this.keepTimeZone = keepTimeZone;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      final Object value = parameter.evaluate(data);
+      if (value == null) {
+        return null;
+      }
+      Calendar calendar;
+      if (keepTimeZone && value instanceof Calendar) {
+        calendar = (Calendar) value;
+      } else {
+        // Date and time values without offset are represented in GMT, see EdmDateTime.
+        calendar = Calendar.getInstance(TIME_ZONE_GMT);
+        calendar.setTimeInMillis(toMillis(value));
+      }
+
+      switch (method) {
+      case YEAR:
+        return calendar.get(Calendar.YEAR);
+      case MONTH:
+        return calendar.get(Calendar.MONTH) + 1;
+      case DAY:
+        return calendar.get(Calendar.DAY_OF_MONTH);
+      case HOUR:
+        return calendar.get(Calendar.HOUR_OF_DAY);
+      case MINUTE:
+        return calendar.get(Calendar.MINUTE);
+      default:
+        return calendar.get(Calendar.SECOND);
+      }
+    }
+  }
+
+  private static final class RoundingMethodOperand extends Operand {
+    private final MethodOperator method;
+    private final Operand parameter;
+    private final Category category;
+
+    private RoundingMethodOperand(final MethodOperator method, final Operand parameter, final Category category) {
+      this.method = method;
+      this.parameter = parameter;
+      this.category = category;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      final Object value = parameter.evaluate(data);
+      if (value == null) {
+        return null;
+      }
+      if (category == Category.DECIMAL) {
+        return toBigDecimal(value).setScale(0,
+            method == MethodOperator.ROUND ? RoundingMode.HALF_UP :
+                method == MethodOperator.FLOOR ? RoundingMode.FLOOR : RoundingMode.CEILING);
+      }
+      final double number = ((Number) value).doubleValue();
+      return method == MethodOperator.ROUND ? Math.floor(number + 0.5) :
+          method == MethodOperator.FLOOR ? Math.floor(number) : Math.ceil(number);
+    }
+  }
+}
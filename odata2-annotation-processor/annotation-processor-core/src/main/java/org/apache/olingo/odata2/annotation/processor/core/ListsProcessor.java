@@ -21,17 +21,21 @@ package org.apache.olingo.odata2.annotation.processor.core;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.apache.olingo.odata2.annotation.processor.core.ExpressionCompiler.CompiledFilter;
+import org.apache.olingo.odata2.annotation.processor.core.ExpressionCompiler.CompiledOrderBy;
 import org.apache.olingo.odata2.annotation.processor.core.datasource.DataSource;
 import org.apache.olingo.odata2.annotation.processor.core.datasource.DataSource.BinaryData;
+import org.apache.olingo.odata2.annotation.processor.core.datasource.IndexedDataSource;
 import org.apache.olingo.odata2.annotation.processor.core.datasource.ValueAccess;
 import org.apache.olingo.odata2.api.ODataCallback;
 import org.apache.olingo.odata2.api.batch.BatchHandler;
@@ -88,6 +92,7 @@ import org.apache.olingo.odata2.api.uri.NavigationSegment;
 import org.apache.olingo.odata2.api.uri.PathInfo;
 import org.apache.olingo.odata2.api.uri.UriParser;
 import org.apache.olingo.odata2.api.uri.expression.BinaryExpression;
+import org.apache.olingo.odata2.api.uri.expression.BinaryOperator;
 import org.apache.olingo.odata2.api.uri.expression.CommonExpression;
 import org.apache.olingo.odata2.api.uri.expression.ExpressionKind;
 import org.apache.olingo.odata2.api.uri.expression.FilterExpression;
@@ -140,7 +145,8 @@ public class ListsProcessor extends DataSourceProcessor {
           uriInfo.getKeyPredicates(),
           uriInfo.getFunctionImport(),
           mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-          uriInfo.getNavigationSegments()));
+          uriInfo.getNavigationSegments(),
+          uriInfo.getFilter()));
     } catch (final ODataNotFoundException e) {
       data.clear();
     }
@@ -226,7 +232,8 @@ public class ListsProcessor extends DataSourceProcessor {
           uriInfo.getKeyPredicates(),
           uriInfo.getFunctionImport(),
           mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-          uriInfo.getNavigationSegments()));
+          uriInfo.getNavigationSegments(),
+          uriInfo.getFilter()));
     } catch (final ODataNotFoundException e) {
       data.clear();
     }
@@ -254,7 +261,8 @@ public class ListsProcessor extends DataSourceProcessor {
           uriInfo.getKeyPredicates(),
           uriInfo.getFunctionImport(),
           mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-          uriInfo.getNavigationSegments()));
+          uriInfo.getNavigationSegments(),
+          uriInfo.getFilter()));
     } catch (final ODataNotFoundException e) {
       data.clear();
     }
@@ -418,6 +426,7 @@ public class ListsProcessor extends DataSourceProcessor {
     final ODataEntry entryValues = parseEntry(entitySet, content, requestContentType, properties);
 
     setStructuralTypeValuesFromMap(data, entityType, entryValues.getProperties(), merge);
+    announceUpdate(entitySet, data);
 
     return ODataResponse.newBuilder().eTag(constructETag(entitySet, data)).build();
   }
@@ -625,9 +634,11 @@ public class ListsProcessor extends DataSourceProcessor {
     final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
     final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
 
+    final Object entity = data;
     data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
     valueAccess.setPropertyValue(data, property, null);
     valueAccess.setMappingValue(data, property.getMapping(), null);
+    announceUpdate(uriInfo.getTargetEntitySet(), entity);
 
     return ODataResponse.newBuilder().build();
   }
@@ -649,6 +660,7 @@ public class ListsProcessor extends DataSourceProcessor {
     final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
     final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
 
+    final Object entity = data;
     data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
 
     ODataContext context = getContext();
@@ -674,6 +686,7 @@ public class ListsProcessor extends DataSourceProcessor {
       setStructuralTypeValuesFromMap(valueAccess.getPropertyValue(data, property),
           (EdmStructuralType) property.getType(), propertyValue, merge);
     }
+    announceUpdate(uriInfo.getTargetEntitySet(), entity);
 
     return ODataResponse.newBuilder().eTag(constructETag(uriInfo.getTargetEntitySet(), data)).build();
   }
@@ -701,6 +714,7 @@ public class ListsProcessor extends DataSourceProcessor {
     final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
     final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
 
+    final Object entity = data;
     data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
 
     ODataContext context = getContext();
@@ -717,6 +731,7 @@ public class ListsProcessor extends DataSourceProcessor {
 
     valueAccess.setPropertyValue(data, property, value);
     valueAccess.setMappingValue(data, property.getMapping(), requestContentType);
+    announceUpdate(uriInfo.getTargetEntitySet(), entity);
 
     return ODataResponse.newBuilder().eTag(constructETag(uriInfo.getTargetEntitySet(), data)).build();
   }
@@ -889,6 +904,85 @@ public class ListsProcessor extends DataSourceProcessor {
     }
   }
 
+  /**
+   * Retrieves data like {@link #retrieveData(EdmEntitySet, List, EdmFunctionImport, Map, List)}
+   * but lets an {@link IndexedDataSource} narrow down a whole entity set with a
+   * condition of the filter. The complete filter still has to be applied to the result.
+   */
+  private Object retrieveData(final EdmEntitySet startEntitySet, final List<KeyPredicate> keyPredicates,
+      final EdmFunctionImport functionImport, final Map<String, Object> functionImportParameters,
+      final List<NavigationSegment> navigationSegments, final FilterExpression filter) throws ODataException {
+    if (filter != null && functionImport == null && keyPredicates.isEmpty() && navigationSegments.isEmpty()
+        && dataSource instanceof IndexedDataSource) {
+      final List<?> data = readIndexedData((IndexedDataSource) dataSource, startEntitySet, filter.getExpression());
+      if (data != null) {
+        return data;
+      }
+    }
+    return retrieveData(startEntitySet, keyPredicates, functionImport, functionImportParameters,
+        navigationSegments);
+  }
+
+  /**
+   * Looks for a condition comparing a property with a literal, either as the whole
+   * expression or as part of a conjunction, and lets the data source evaluate it.
+   * @return the data found by the data source or <code>null</code>
+   */
+  private List<?> readIndexedData(final IndexedDataSource indexedDataSource, final EdmEntitySet entitySet,
+      final CommonExpression expression) throws ODataException {
+    if (expression.getKind() != ExpressionKind.BINARY) {
+      return null;
+    }
+    final BinaryExpression binaryExpression = (BinaryExpression) expression;
+    CommonExpression left = binaryExpression.getLeftOperand();
+    CommonExpression right = binaryExpression.getRightOperand();
+    BinaryOperator operator = binaryExpression.getOperator();
+
+    switch (operator) {
+    case AND:
+      final List<?> data = readIndexedData(indexedDataSource, entitySet, left);
+      return data == null ? readIndexedData(indexedDataSource, entitySet, right) : data;
+    case EQ:
+    case LT:
+    case LE:
+    case GT:
+    case GE:
+      if (left.getKind() == ExpressionKind.LITERAL && right.getKind() == ExpressionKind.PROPERTY) {
+        final CommonExpression swap = left;
+        left = right;
+        right = swap;
+        operator = operator == BinaryOperator.LT ? BinaryOperator.GT :
+            operator == BinaryOperator.LE ? BinaryOperator.GE :
+                operator == BinaryOperator.GT ? BinaryOperator.LT :
+                    operator == BinaryOperator.GE ? BinaryOperator.LE : operator;
+      }
+      if (left.getKind() != ExpressionKind.PROPERTY || right.getKind() != ExpressionKind.LITERAL) {
+        return null;
+      }
+      final EdmTyped property = ((PropertyExpression) left).getEdmProperty();
+      if (property.getType().getKind() != EdmTypeKind.SIMPLE) {
+        return null;
+      }
+      final EdmSimpleType literalType = (EdmSimpleType) right.getEdmType();
+      final Object value = literalType.valueOfString(((LiteralExpression) right).getUriLiteral(),
+          EdmLiteralKind.URI, null, literalType.getDefaultType());
+      // Only values with a natural order can be looked up reliably.
+      if (value instanceof Number || value instanceof String || value instanceof Boolean
+          || value instanceof Calendar || value instanceof Date) {
+        return indexedDataSource.readData(entitySet, (EdmProperty) property, operator, value);
+      }
+      return null;
+    default:
+      return null;
+    }
+  }
+
+  private void announceUpdate(final EdmEntitySet entitySet, final Object data) throws ODataException {
+    if (dataSource instanceof IndexedDataSource) {
+      ((IndexedDataSource) dataSource).updateData(entitySet, data);
+    }
+  }
+
   private Object retrieveData(final EdmEntitySet startEntitySet, final List<KeyPredicate> keyPredicates,
       final EdmFunctionImport functionImport, final Map<String, Object> functionImportParameters,
       final List<NavigationSegment> navigationSegments) throws ODataException {
@@ -1179,43 +1273,45 @@ public class ListsProcessor extends DataSourceProcessor {
     final int timingHandle = context.startRuntimeMeasurement(getClass().getSimpleName(), "applySystemQueryOptions");
 
     if (filter != null) {
-      // Remove all elements the filter does not apply for.
-      // A for-each loop would not work with "remove", see Java documentation.
-      for (Iterator<T> iterator = data.iterator(); iterator.hasNext();) {
-        if (!appliesFilter(iterator.next(), filter)) {
-          iterator.remove();
+      // Keep only the elements the filter applies for; the filter is compiled once for all of them.
+      final CompiledFilter compiledFilter = compileFilter(filter);
+      List<T> matches = new ArrayList<T>();
+      for (final T entity : data) {
+        if (compiledFilter == null ? appliesFilter(entity, filter, null) : compiledFilter.matches(entity)) {
+          matches.add(entity);
         }
       }
+      data.clear();
+      data.addAll(matches);
     }
 
     final Integer count = inlineCount == InlineCount.ALLPAGES ? data.size() : null;
 
     if (orderBy != null) {
-      sort(data, orderBy);
+      final CompiledOrderBy compiledOrderBy = compileOrderBy(orderBy);
+      if (compiledOrderBy == null) {
+        sort(data, orderBy);
+      } else {
+        compiledOrderBy.sort(data);
+      }
     } else if (skipToken != null || skip != null || top != null) {
       sortInDefaultOrder(entitySet, data);
     }
 
     if (skipToken != null) {
-      while (!data.isEmpty() && !getSkipToken(entitySet, data.get(0)).equals(skipToken)) {
-        data.remove(0);
+      int index = 0;
+      while (index < data.size() && !getSkipToken(entitySet, data.get(index)).equals(skipToken)) {
+        index++;
       }
+      data.subList(0, index).clear();
     }
 
     if (skip != null) {
-      if (skip >= data.size()) {
-        data.clear();
-      } else {
-        for (int i = 0; i < skip; i++) {
-          data.remove(0);
-        }
-      }
+      data.subList(0, Math.min(skip, data.size())).clear();
     }
 
-    if (top != null) {
-      while (data.size() > top) {
-        data.remove(top.intValue());
-      }
+    if (top != null && data.size() > top) {
+      data.subList(top, data.size()).clear();
     }
 
     context.stopRuntimeMeasurement(timingHandle);
@@ -1271,11 +1367,18 @@ public class ListsProcessor extends DataSourceProcessor {
   }
 
   private <T> boolean appliesFilter(final T data, final FilterExpression filter) throws ODataException {
+    return appliesFilter(data, filter, filter == null ? null : compileFilter(filter));
+  }
+
+  private <T> boolean appliesFilter(final T data, final FilterExpression filter, final CompiledFilter compiledFilter)
+      throws ODataException {
     ODataContext context = getContext();
     final int timingHandle = context.startRuntimeMeasurement(getClass().getSimpleName(), "appliesFilter");
 
     try {
-      return data != null && (filter == null || "true".equals(evaluateExpression(data, filter.getExpression())));
+      return data != null
+          && (filter == null || (compiledFilter == null ?
+              "true".equals(evaluateExpression(data, filter.getExpression())) : compiledFilter.matches(data)));
     } catch (final RuntimeException e) {
       return false;
     } finally {
@@ -1283,6 +1386,32 @@ public class ListsProcessor extends DataSourceProcessor {
     }
   }
 
+  /**
+   * Compiles the filter expression.
+   * @return the compiled filter or <code>null</code> if the expression
+   * can only be interpreted, see {@link #evaluateExpression(Object, CommonExpression)}
+   */
+  private CompiledFilter compileFilter(final FilterExpression filter) throws ODataException {
+    try {
+      return new ExpressionCompiler(valueAccess).compileFilter(filter);
+    } catch (final ODataNotImplementedException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Compiles the orderby expression.
+   * @return the compiled sort order or <code>null</code> if the expression
+   * can only be interpreted, see {@link #sort(List, OrderByExpression)}
+   */
+  private CompiledOrderBy compileOrderBy(final OrderByExpression orderBy) throws ODataException {
+    try {
+      return new ExpressionCompiler(valueAccess).compileOrderBy(orderBy);
+    } catch (final ODataNotImplementedException e) {
+      return null;
+    }
+  }
+
   private <T> String evaluateExpression(final T data, final CommonExpression expression) throws ODataException {
     switch (expression.getKind()) {
     case UNARY:
@@ -1654,7 +1783,7 @@ public class ListsProcessor extends DataSourceProcessor {
     for (BatchRequestPart batchPart : batchParts) {
       batchResponseParts.add(handler.handleBatchPart(batchPart));
     }
-    batchResponse = EntityProvider.writeBatchResponse(batchResponseParts);
+    batchResponse = EntityProvider.writeBatchResponse(batchResponseParts.iterator());
     return batchResponse;
   }
 
@@ -35,14 +35,16 @@ import org.apache.olingo.odata2.api.edm.EdmEntitySet;
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmFunctionImport;
 import org.apache.olingo.odata2.api.edm.EdmMultiplicity;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
 import org.apache.olingo.odata2.api.exception.ODataApplicationException;
 import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.exception.ODataNotFoundException;
 import org.apache.olingo.odata2.api.exception.ODataNotImplementedException;
+import org.apache.olingo.odata2.api.uri.expression.BinaryOperator;
 
-public class AnnotationInMemoryDs implements DataSource {
+public class AnnotationInMemoryDs implements IndexedDataSource {
 
-  private static final AnnotationHelper ANNOTATION_HELPER = new AnnotationHelper();
+  private final AnnotationHelper annotationHelper = new AnnotationHelper();
   private final Map<String, DataStore<Object>> dataStores = new HashMap<String, DataStore<Object>>();
   private final boolean persistInMemory;
 
@@ -76,11 +78,11 @@ public class AnnotationInMemoryDs implements DataSource {
   private void init(final Collection<Class<?>> annotatedClasses) throws ODataException {
     try {
       for (Class<?> clz : annotatedClasses) {
-        String entitySetName = ANNOTATION_HELPER.extractEntitySetName(clz);
+        String entitySetName = annotationHelper.extractEntitySetName(clz);
         if (entitySetName != null) {
           DataStore<Object> dhs = (DataStore<Object>) DataStore.createInMemory(clz, persistInMemory);
           dataStores.put(entitySetName, dhs);
-        } else if (!ANNOTATION_HELPER.isEdmAnnotated(clz)) {
+        } else if (!annotationHelper.isEdmAnnotated(clz)) {
           throw new ODataException("Found not annotated class during DataStore initilization of type: "
               + clz.getName());
         }
@@ -92,7 +94,7 @@ public class AnnotationInMemoryDs implements DataSource {
 
   @SuppressWarnings("unchecked")
   public <T> DataStore<T> getDataStore(final Class<T> clazz) {
-    String entitySetName = ANNOTATION_HELPER.extractEntitySetName(clazz);
+    String entitySetName = annotationHelper.extractEntitySetName(clazz);
     return (DataStore<T>) dataStores.get(entitySetName);
   }
 
@@ -108,6 +110,29 @@ public class AnnotationInMemoryDs implements DataSource {
     throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
   }
 
+  @Override
+  public List<?> readData(final EdmEntitySet entitySet, final EdmProperty property, final BinaryOperator operator,
+      final Object value) throws ODataNotImplementedException, ODataNotFoundException, EdmException,
+      ODataApplicationException {
+
+    DataStore<Object> store = getDataStore(entitySet);
+    final String name = property.getName();
+    switch (operator) {
+    case EQ:
+      return store.readByIndex(name, value);
+    case LT:
+      return store.readByIndex(name, null, false, value, false);
+    case LE:
+      return store.readByIndex(name, null, false, value, true);
+    case GT:
+      return store.readByIndex(name, value, false, null, false);
+    case GE:
+      return store.readByIndex(name, value, true, null, false);
+    default:
+      return null;
+    }
+  }
+
   @Override
   public Object readData(final EdmEntitySet entitySet, final Map<String, Object> keys)
       throws ODataNotFoundException, EdmException, ODataApplicationException {
@@ -115,7 +140,7 @@ public class AnnotationInMemoryDs implements DataSource {
     DataStore<Object> store = getDataStore(entitySet);
     if (store != null) {
       Object keyInstance = store.createInstance();
-      ANNOTATION_HELPER.setKeyFields(keyInstance, keys);
+      annotationHelper.setKeyFields(keyInstance, keys);
 
       Object result = store.read(keyInstance);
       if (result != null) {
@@ -142,7 +167,7 @@ public class AnnotationInMemoryDs implements DataSource {
     DataStore<?> sourceStore = dataStores.get(sourceEntitySet.getName());
     DataStore<?> targetStore = dataStores.get(targetEntitySet.getName());
 
-    AnnotatedNavInfo navInfo = ANNOTATION_HELPER.getCommonNavigationInfo(
+    AnnotatedNavInfo navInfo = annotationHelper.getCommonNavigationInfo(
         sourceStore.getDataTypeClass(), targetStore.getDataTypeClass());
     final Field sourceField;
     if(navInfo.isBiDirectional()) {
@@ -175,21 +200,31 @@ public class AnnotationInMemoryDs implements DataSource {
       return Collections.emptyList();
     }
 
+    // Look up the referenced instances by their keys instead of scanning the whole target store.
     List<Object> resultData = new ArrayList<Object>();
-    for (Object targetInstance : targetStore.read()) {
-      if (navigationInstance instanceof Collection) {
-        for (Object object : (Collection<?>) navigationInstance) {
-          if (targetStore.isKeyEqualChecked(targetInstance, object)) {
-            resultData.add(targetInstance);
-          }
-        }
-      } else if (targetStore.isKeyEqualChecked(targetInstance, navigationInstance)) {
-        resultData.add(targetInstance);
+    if (navigationInstance instanceof Collection) {
+      for (Object object : (Collection<?>) navigationInstance) {
+        addStoredInstance(targetStore, object, resultData);
       }
+    } else {
+      addStoredInstance(targetStore, navigationInstance, resultData);
     }
     return resultData;
   }
 
+  @SuppressWarnings("unchecked")
+  private <T> void addStoredInstance(final DataStore<T> store, final Object instance, final List<Object> resultData)
+      throws DataStoreException {
+    if (instance == null || instance.getClass() != store.getDataTypeClass()) {
+      throw new DataStoreException("Related instance '" + instance + "' is no instance from required class '"
+          + store.getDataTypeClass() + "'.");
+    }
+    final T storedInstance = store.read((T) instance);
+    if (storedInstance != null) {
+      resultData.add(storedInstance);
+    }
+  }
+
   /**
    * Extract the <code>result data</code> from the <code>resultData</code> list based on
    * <code>navigation information</code> and <code>targetKeys</code>.
@@ -208,7 +243,7 @@ public class AnnotationInMemoryDs implements DataSource {
         return resultData;
       } else {
         Object keyInstance = targetStore.createInstance();
-        ANNOTATION_HELPER.setKeyFields(keyInstance, targetKeys);
+        annotationHelper.setKeyFields(keyInstance, targetKeys);
         for (Object result : resultData) {
           if (targetStore.isKeyEqualChecked(result, keyInstance)) {
             return result;
@@ -228,15 +263,15 @@ public class AnnotationInMemoryDs implements DataSource {
   public BinaryData readBinaryData(final EdmEntitySet entitySet, final Object mediaLinkEntryData)
       throws ODataNotImplementedException, ODataNotFoundException, EdmException, ODataApplicationException {
 
-    Object data = ANNOTATION_HELPER.getValueForField(mediaLinkEntryData, EdmMediaResourceContent.class);
-    Object mimeType = ANNOTATION_HELPER.getValueForField(mediaLinkEntryData, EdmMediaResourceMimeType.class);
+    Object data = annotationHelper.getValueForField(mediaLinkEntryData, EdmMediaResourceContent.class);
+    Object mimeType = annotationHelper.getValueForField(mediaLinkEntryData, EdmMediaResourceMimeType.class);
 
     if (data == null && mimeType == null) {
       DataStore<Object> dataStore = getDataStore(entitySet);
       Object readEntry = dataStore.read(mediaLinkEntryData);
       if (readEntry != null) {
-        data = ANNOTATION_HELPER.getValueForField(readEntry, EdmMediaResourceContent.class);
-        mimeType = ANNOTATION_HELPER.getValueForField(readEntry, EdmMediaResourceMimeType.class);
+        data = annotationHelper.getValueForField(readEntry, EdmMediaResourceContent.class);
+        mimeType = annotationHelper.getValueForField(readEntry, EdmMediaResourceMimeType.class);
       }
     }
 
@@ -266,9 +301,9 @@ public class AnnotationInMemoryDs implements DataSource {
       if (readEntry == null) {
         throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
       } else {
-        ANNOTATION_HELPER.setValueForAnnotatedField(
+        annotationHelper.setValueForAnnotatedField(
             mediaEntityInstance, EdmMediaResourceContent.class, binaryData.getData());
-        ANNOTATION_HELPER.setValueForAnnotatedField(
+        annotationHelper.setValueForAnnotatedField(
             mediaEntityInstance, EdmMediaResourceMimeType.class, binaryData.getMimeType());
       }
     } catch (ODataAnnotationException e) {
@@ -287,6 +322,7 @@ public class AnnotationInMemoryDs implements DataSource {
    * @throws org.apache.olingo.odata2.api.edm.EdmException
    * @throws org.apache.olingo.odata2.api.exception.ODataApplicationException
    */
+  @Override
   public Object updateData(final EdmEntitySet entitySet, final Object data)
       throws ODataNotImplementedException, EdmException, ODataApplicationException {
 
@@ -299,7 +335,7 @@ public class AnnotationInMemoryDs implements DataSource {
       throws ODataNotImplementedException, ODataNotFoundException, EdmException, ODataApplicationException {
     DataStore<Object> dataStore = getDataStore(entitySet);
     Object keyInstance = dataStore.createInstance();
-    ANNOTATION_HELPER.setKeyFields(keyInstance, keys);
+    annotationHelper.setKeyFields(keyInstance, keys);
     dataStore.delete(keyInstance);
   }
 
@@ -328,7 +364,7 @@ public class AnnotationInMemoryDs implements DataSource {
     DataStore<Object> sourceStore = dataStores.get(sourceEntitySet.getName());
     DataStore<Object> targetStore = dataStores.get(targetEntitySet.getName());
 
-    AnnotatedNavInfo commonNavInfo = ANNOTATION_HELPER.getCommonNavigationInfo(
+    AnnotatedNavInfo commonNavInfo = annotationHelper.getCommonNavigationInfo(
         sourceStore.getDataTypeClass(), targetStore.getDataTypeClass());
 
     // get and validate source fields
@@ -340,7 +376,7 @@ public class AnnotationInMemoryDs implements DataSource {
 
     // get related target entity
     Object targetEntity = targetStore.createInstance();
-    ANNOTATION_HELPER.setKeyFields(targetEntity, targetEntityValues);
+    annotationHelper.setKeyFields(targetEntity, targetEntityValues);
     targetEntity = targetStore.read(targetEntity);
 
     // set at source
@@ -366,7 +402,7 @@ public class AnnotationInMemoryDs implements DataSource {
     Class<?> fieldTypeClass = field.getType();
     if (Collection.class.isAssignableFrom(fieldTypeClass)) {
       @SuppressWarnings("unchecked")
-      Collection<Object> collection = (Collection<Object>) ANNOTATION_HELPER.getValueForField(
+      Collection<Object> collection = (Collection<Object>) annotationHelper.getValueForField(
           instance, field.getName(), EdmNavigationProperty.class);
       if (collection == null) {
         collection = new ArrayList<Object>();
@@ -20,7 +20,8 @@ package org.apache.olingo.odata2.annotation.processor.core.datasource;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmMapping;
@@ -32,9 +33,16 @@ import org.apache.olingo.odata2.api.exception.ODataNotFoundException;
 
 /**
  * Data access.
+ * <p>The getter and setter methods are looked up once per class and method name
+ * and cached by this instance.</p>
  */
 public class BeanPropertyAccess implements ValueAccess {
 
+  private final ConcurrentMap<Class<?>, ConcurrentMap<String, Method>> getters =
+      new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Method>>();
+  private final ConcurrentMap<Class<?>, ConcurrentMap<String, Method>> setters =
+      new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Method>>();
+
   @Override
   public <T> Object getPropertyValue(final T data, final EdmProperty property) throws ODataException {
     return getValue(data, getGetterMethodName(property));
@@ -91,7 +99,7 @@ public class BeanPropertyAccess implements ValueAccess {
     for (final String method : methodName.split("\\.", -1)) {
       if (dataObject != null) {
         try {
-          dataObject = dataObject.getClass().getMethod(method).invoke(dataObject);
+          dataObject = getGetter(dataObject.getClass(), method).invoke(dataObject);
         } catch (SecurityException e) {
           throw new ODataNotFoundException(ODataHttpException.COMMON, e);
         } catch (NoSuchMethodException e) {
@@ -112,31 +120,25 @@ public class BeanPropertyAccess implements ValueAccess {
   private <T, V> void setValue(final T data, final String methodName, final V value)
       throws ODataNotFoundException {
     try {
-      boolean found = false;
-      for (final Method method : Arrays.asList(data.getClass().getMethods())) {
-        if (method.getName().equals(methodName)) {
-          found = true;
-          final Class<?> type = method.getParameterTypes()[0];
-          if (value == null) {
-            if (type.equals(byte.class) || type.equals(short.class) || type.equals(int.class)
-                || type.equals(long.class) || type.equals(char.class)) {
-              method.invoke(data, 0);
-            } else if (type.equals(float.class) || type.equals(double.class)) {
-              method.invoke(data, 0.0);
-            } else if (type.equals(boolean.class)) {
-              method.invoke(data, false);
-            } else {
-              method.invoke(data, value);
-            }
-          } else {
-            method.invoke(data, value);
-          }
-          break;
-        }
-      }
-      if (!found) {
+      final Method method = getSetter(data.getClass(), methodName);
+      if (method == null) {
         throw new ODataNotFoundException(null);
       }
+      final Class<?> type = method.getParameterTypes()[0];
+      if (value == null) {
+        if (type.equals(byte.class) || type.equals(short.class) || type.equals(int.class)
+            || type.equals(long.class) || type.equals(char.class)) {
+          method.invoke(data, 0);
+        } else if (type.equals(float.class) || type.equals(double.class)) {
+          method.invoke(data, 0.0);
+        } else if (type.equals(boolean.class)) {
+          method.invoke(data, false);
+        } else {
+          method.invoke(data, value);
+        }
+      } else {
+        method.invoke(data, value);
+      }
     } catch (SecurityException e) {
       throw new ODataNotFoundException(null, e);
     } catch (IllegalArgumentException e) {
@@ -156,7 +158,7 @@ public class BeanPropertyAccess implements ValueAccess {
     Class<?> type = data.getClass();
     for (final String method : methodName.split("\\.", -1)) {
       try {
-        type = type.getMethod(method).getReturnType();
+        type = getGetter(type, method).getReturnType();
         if (type.isPrimitive()) {
           if (type == boolean.class) {
             type = Boolean.class;
@@ -182,4 +184,42 @@ public class BeanPropertyAccess implements ValueAccess {
     }
     return type;
   }
+
+  private Method getGetter(final Class<?> clazz, final String methodName) throws NoSuchMethodException {
+    final ConcurrentMap<String, Method> classGetters = getMethods(getters, clazz);
+    Method method = classGetters.get(methodName);
+    if (method == null) {
+      method = clazz.getMethod(methodName);
+      classGetters.putIfAbsent(methodName, method);
+    }
+    return method;
+  }
+
+  private Method getSetter(final Class<?> clazz, final String methodName) {
+    final ConcurrentMap<String, Method> classSetters = getMethods(setters, clazz);
+    Method method = classSetters.get(methodName);
+    if (method == null) {
+      for (final Method candidate : clazz.getMethods()) {
+        if (candidate.getName().equals(methodName)) {
+          method = candidate;
+          classSetters.putIfAbsent(methodName, method);
+          break;
+        }
+      }
+    }
+    return method;
+  }
+
+  private static ConcurrentMap<String, Method> getMethods(
+      final ConcurrentMap<Class<?>, ConcurrentMap<String, Method>> cache, final Class<?> clazz) {
+    ConcurrentMap<String, Method> methods = cache.get(clazz);
+    if (methods == null) {
+      methods = new ConcurrentHashMap<String, Method>();
+      final ConcurrentMap<String, Method> existing = cache.putIfAbsent(clazz, methods);
+      if (existing != null) {
+        methods = existing;
+      }
+    }
+    return methods;
+  }
 }
@@ -19,31 +19,53 @@
 package org.apache.olingo.odata2.annotation.processor.core.datasource;
 
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationHelper;
 import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationRuntimeException;
 import org.apache.olingo.odata2.annotation.processor.core.util.ClassHelper;
 import org.apache.olingo.odata2.api.annotation.edm.EdmKey;
+import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
 import org.apache.olingo.odata2.api.exception.ODataApplicationException;
 
 /**
- *
+ * In-memory store for the instances of one entity class.
+ * <p>Reads do not block. Writes for the same key are serialized by one of a fixed
+ * number of lock stripes, so that writes for different keys run concurrently.</p>
+ * <p>Secondary indexes on property values can be added with {@link #createIndex(String)}.
+ * They are kept up to date by {@link #create(Object)}, {@link #update(Object)}
+ * and {@link #delete(Object)}. Instances changed in place must be passed to
+ * {@link #update(Object)} afterwards, otherwise an index lookup could miss them;
+ * see {@link #readByIndex(String, Object, boolean, Object, boolean)}.</p>
  */
 public class DataStore<T> {
 
-  private static final AnnotationHelper ANNOTATION_HELPER = new AnnotationHelper();
-  private final Map<KeyElement, T> dataStore;
+  private final AnnotationHelper annotationHelper = new AnnotationHelper();
+  private static final int LOCK_STRIPES = 16;
+  private final ConcurrentMap<KeyElement, T> dataStore;
   private final Class<T> dataTypeClass;
   private final KeyAccess keyAccess;
+  private final ConcurrentMap<String, PropertyIndex> indexes;
+  private final Object[] locks;
 
   private static class InMemoryDataStore {
     private static final Map<Class<?>, DataStore<?>> c2ds = new HashMap<Class<?>, DataStore<?>>();
@@ -71,14 +93,16 @@ public class DataStore<T> {
     return (DataStore<T>) InMemoryDataStore.getInstance(clazz, !keepExisting);
   }
 
-  private DataStore(final Map<KeyElement, T> wrapStore, final Class<T> clz) throws DataStoreException {
-    dataStore = Collections.synchronizedMap(wrapStore);
+  private DataStore(final Class<T> clz) throws DataStoreException {
+    dataStore = new ConcurrentHashMap<KeyElement, T>();
     dataTypeClass = clz;
     keyAccess = new KeyAccess(clz);
-  }
+    indexes = new ConcurrentHashMap<String, PropertyIndex>();
 
-  private DataStore(final Class<T> clz) throws DataStoreException {
-    this(new HashMap<KeyElement, T>(), clz);
+    locks = new Object[LOCK_STRIPES];
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new Object();
+    }
   }
 
   public Class<T> getDataTypeClass() {
@@ -86,7 +110,7 @@ public class DataStore<T> {
   }
 
   public String getEntityTypeName() {
-    return ANNOTATION_HELPER.extractEntityTypeName(dataTypeClass);
+    return annotationHelper.extractEntityTypeName(dataTypeClass);
   }
 
   public T createInstance() {
@@ -108,6 +132,94 @@ public class DataStore<T> {
     return Collections.unmodifiableCollection(dataStore.values());
   }
 
+  /**
+   * Creates an index on the values of a property, for the instances already stored
+   * and all instances stored later. Does nothing if the property is already indexed.
+   * @param propertyName EDM name of a property of the entity class
+   * @throws DataStoreException if the entity class has no such property
+   */
+  public void createIndex(final String propertyName) throws DataStoreException {
+    if (indexes.containsKey(propertyName)) {
+      return;
+    }
+    for (Field field : annotationHelper.getAnnotatedFields(dataTypeClass, EdmProperty.class)) {
+      if (propertyName.equals(annotationHelper.getPropertyName(field))) {
+        final PropertyIndex index = new PropertyIndex(field);
+        if (indexes.putIfAbsent(propertyName, index) == null) {
+          for (Map.Entry<KeyElement, T> entry : dataStore.entrySet()) {
+            index.put(entry.getKey(), entry.getValue());
+          }
+        }
+        return;
+      }
+    }
+    throw new DataStoreException("No property '" + propertyName + "' found for class " + dataTypeClass);
+  }
+
+  /**
+   * Is an index maintained for the property with the given EDM name.
+   * @param propertyName EDM name of the property
+   * @return <code>true</code> if the property values are indexed
+   */
+  public boolean isIndexed(final String propertyName) {
+    return indexes.containsKey(propertyName);
+  }
+
+  /**
+   * Reads all instances whose indexed property has the given value.
+   * @param propertyName EDM name of the indexed property
+   * @param value the value; numbers of different types and date/time values of different
+   * types are compared by their numeric value
+   * @return the found instances or <code>null</code> if the property is not indexed
+   */
+  public List<T> readByIndex(final String propertyName, final Object value) {
+    final PropertyIndex index = indexes.get(propertyName);
+    if (index == null) {
+      return null;
+    }
+    return index.resolve(index.values.get(value), value, true, value, true);
+  }
+
+  /**
+   * Reads all instances whose indexed property lies in the given range.
+   * <p>The current property value of every instance found in the index is checked.
+   * If an instance has been changed in place without {@link #update(Object)}, so
+   * that its value no longer matches its index entry, all instances are scanned
+   * instead. An instance whose index entry lies outside the range is not found,
+   * though, until its change is announced with {@link #update(Object)}.</p>
+   * @param propertyName EDM name of the indexed property
+   * @param from lower bound or <code>null</code> for no lower bound
+   * @param fromInclusive whether the lower bound is part of the range
+   * @param to upper bound or <code>null</code> for no upper bound
+   * @param toInclusive whether the upper bound is part of the range
+   * @return the found instances or <code>null</code> if the property is not indexed
+   */
+  public List<T> readByIndex(final String propertyName, final Object from, final boolean fromInclusive,
+      final Object to, final boolean toInclusive) {
+    final PropertyIndex index = indexes.get(propertyName);
+    if (index == null) {
+      return null;
+    }
+    NavigableMap<Object, Set<KeyElement>> range;
+    if (from != null && to != null) {
+      if (VALUE_COMPARATOR.compare(from, to) > 0) {
+        return new ArrayList<T>();
+      }
+      range = index.values.subMap(from, fromInclusive, to, toInclusive);
+    } else if (from != null) {
+      range = index.values.tailMap(from, fromInclusive);
+    } else if (to != null) {
+      range = index.values.headMap(to, toInclusive);
+    } else {
+      range = index.values;
+    }
+    Set<KeyElement> keys = new HashSet<KeyElement>();
+    for (Set<KeyElement> valueKeys : range.values()) {
+      keys.addAll(valueKeys);
+    }
+    return index.resolve(keys, from, fromInclusive, to, toInclusive);
+  }
+
   public T create(final T object) throws DataStoreException {
     KeyElement keyElement = getKeys(object);
     return create(object, keyElement);
@@ -118,30 +230,48 @@ public class DataStore<T> {
    * existing and generated keys would produce a duplicate entry, replace all keys.
    */
   private T create(final T object, final KeyElement keyElement) throws DataStoreException {
-    synchronized (dataStore) {
-      final boolean replaceKeys = dataStore.containsKey(keyElement);
-      if (keyElement.keyValuesMissing() || replaceKeys) {
-        KeyElement newKey = createSetAndGetKeys(object, replaceKeys);
-        return this.create(object, newKey);
+    KeyElement key = keyElement;
+    if (key.keyValuesMissing()) {
+      key = createSetAndGetKeys(object, false);
+    }
+    while (true) {
+      synchronized (lockFor(key)) {
+        if (dataStore.putIfAbsent(key, object) == null) {
+          index(key, object);
+          return object;
+        }
       }
-      dataStore.put(keyElement, object);
+      key = createSetAndGetKeys(object, true);
     }
-    return object;
   }
 
   public T update(final T object) {
     KeyElement keyElement = getKeys(object);
-    synchronized (dataStore) {
-      dataStore.remove(keyElement);
+    synchronized (lockFor(keyElement)) {
       dataStore.put(keyElement, object);
+      index(keyElement, object);
     }
     return object;
   }
 
   public T delete(final T object) {
     KeyElement keyElement = getKeys(object);
-    synchronized (dataStore) {
-      return dataStore.remove(keyElement);
+    synchronized (lockFor(keyElement)) {
+      final T removed = dataStore.remove(keyElement);
+      for (PropertyIndex index : indexes.values()) {
+        index.remove(keyElement);
+      }
+      return removed;
+    }
+  }
+
+  private Object lockFor(final KeyElement keyElement) {
+    return locks[(keyElement.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+  }
+
+  private void index(final KeyElement keyElement, final T object) {
+    for (PropertyIndex index : indexes.values()) {
+      index.put(keyElement, object);
     }
   }
 
@@ -233,7 +363,7 @@ public class DataStore<T> {
     final AtomicInteger idCounter = new AtomicInteger(1);
 
     KeyAccess(final Class<?> clazz) throws DataStoreException {
-      keyFields = ANNOTATION_HELPER.getAnnotatedFields(clazz, EdmKey.class);
+      keyFields = annotationHelper.getAnnotatedFields(clazz, EdmKey.class);
       if (keyFields.isEmpty()) {
         throw new DataStoreException("No EdmKey annotated fields found for class " + clazz);
       }
@@ -281,6 +411,151 @@ public class DataStore<T> {
     }
   }
 
+  /**
+   * Index on the values of one property. Values are kept sorted so that range
+   * lookups are possible. For each key the indexed value is remembered, because
+   * an instance changed in place no longer tells its previously indexed value.
+   */
+  private class PropertyIndex {
+    private final Field field;
+    private final ConcurrentSkipListMap<Object, Set<KeyElement>> values =
+        new ConcurrentSkipListMap<Object, Set<KeyElement>>(VALUE_COMPARATOR);
+    private final ConcurrentMap<KeyElement, Object> indexedValues = new ConcurrentHashMap<KeyElement, Object>();
+
+    PropertyIndex(final Field field) {
+      this.field = field;
+    }
+
+    synchronized void put(final KeyElement keyElement, final T object) {
+      final Object value = ClassHelper.getFieldValue(object, field);
+      final Object previous = indexedValues.get(keyElement);
+      if (previous != null && value != null && VALUE_COMPARATOR.compare(previous, value) == 0) {
+        return;
+      }
+      remove(keyElement);
+      if (value != null) {
+        Set<KeyElement> keys = values.get(value);
+        if (keys == null) {
+          keys = Collections.newSetFromMap(new ConcurrentHashMap<KeyElement, Boolean>());
+          values.put(value, keys);
+        }
+        keys.add(keyElement);
+        indexedValues.put(keyElement, value);
+      }
+    }
+
+    synchronized void remove(final KeyElement keyElement) {
+      final Object previous = indexedValues.remove(keyElement);
+      if (previous != null) {
+        final Set<KeyElement> keys = values.get(previous);
+        if (keys != null) {
+          keys.remove(keyElement);
+          if (keys.isEmpty()) {
+            values.remove(previous);
+          }
+        }
+      }
+    }
+
+    /**
+     * Resolves keys to the stored instances. If the current value of an instance
+     * disagrees with its index entry (because it has been changed without update),
+     * the index is not trusted and all stored instances are scanned instead.
+     */
+    List<T> resolve(final Collection<KeyElement> keys, final Object from, final boolean fromInclusive,
+        final Object to, final boolean toInclusive) {
+      if (keys == null) {
+        return new ArrayList<T>();
+      }
+      List<T> result = new ArrayList<T>(keys.size());
+      for (KeyElement keyElement : keys) {
+        final T object = dataStore.get(keyElement);
+        if (object != null) {
+          final Object value = ClassHelper.getFieldValue(object, field);
+          final Object indexedValue = indexedValues.get(keyElement);
+          if (value == null || indexedValue == null || VALUE_COMPARATOR.compare(value, indexedValue) != 0) {
+            return scan(from, fromInclusive, to, toInclusive);
+          }
+          if (isInRange(value, from, fromInclusive, to, toInclusive)) {
+            result.add(object);
+          }
+        }
+      }
+      return result;
+    }
+
+    private List<T> scan(final Object from, final boolean fromInclusive, final Object to,
+        final boolean toInclusive) {
+      List<T> result = new ArrayList<T>();
+      for (T object : dataStore.values()) {
+        final Object value = ClassHelper.getFieldValue(object, field);
+        if (value != null && isInRange(value, from, fromInclusive, to, toInclusive)) {
+          result.add(object);
+        }
+      }
+      return result;
+    }
+
+    private boolean isInRange(final Object value, final Object from, final boolean fromInclusive,
+        final Object to, final boolean toInclusive) {
+      return (from == null || isAbove(VALUE_COMPARATOR.compare(value, from), fromInclusive))
+          && (to == null || isAbove(VALUE_COMPARATOR.compare(to, value), toInclusive));
+    }
+
+    private boolean isAbove(final int comparison, final boolean inclusive) {
+      return inclusive ? comparison >= 0 : comparison > 0;
+    }
+  }
+
+  /**
+   * Orders indexed values. Numbers are compared by their numeric value and date/time
+   * values by their point in time, independent of the concrete Java type.
+   */
+  private static final Comparator<Object> VALUE_COMPARATOR = new Comparator<Object>() {
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public int compare(final Object first, final Object second) {
+      if (first instanceof Number && second instanceof Number) {
+        if (isIntegral(first) && isIntegral(second)) {
+          final long firstLong = ((Number) first).longValue();
+          final long secondLong = ((Number) second).longValue();
+          return firstLong < secondLong ? -1 : firstLong == secondLong ? 0 : 1;
+        } else if (first instanceof BigDecimal || second instanceof BigDecimal
+            || first instanceof BigInteger || second instanceof BigInteger) {
+          return toBigDecimal((Number) first).compareTo(toBigDecimal((Number) second));
+        } else {
+          return Double.compare(((Number) first).doubleValue(), ((Number) second).doubleValue());
+        }
+      } else if (isTemporal(first) && isTemporal(second)) {
+        final long firstMillis = toMillis(first);
+        final long secondMillis = toMillis(second);
+        return firstMillis < secondMillis ? -1 : firstMillis == secondMillis ? 0 : 1;
+      } else if (first instanceof Comparable && first.getClass() == second.getClass()) {
+        return ((Comparable) first).compareTo(second);
+      } else {
+        return first.toString().compareTo(second.toString());
+      }
+    }
+
+    private boolean isIntegral(final Object value) {
+      return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    private boolean isTemporal(final Object value) {
+      return value instanceof Calendar || value instanceof Date;
+    }
+
+    private BigDecimal toBigDecimal(final Number value) {
+      return value instanceof BigDecimal ? (BigDecimal) value :
+          value instanceof BigInteger ? new BigDecimal((BigInteger) value) :
+              isIntegral(value) ? BigDecimal.valueOf(value.longValue()) : BigDecimal.valueOf(value.doubleValue());
+    }
+
+    private long toMillis(final Object value) {
+      return value instanceof Calendar ? ((Calendar) value).getTimeInMillis() : ((Date) value).getTime();
+    }
+  };
+
   private KeyElement getKeys(final T object) {
     return keyAccess.getKeyValues(object);
   }
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.datasource;
+
+import java.util.List;
+
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.exception.ODataApplicationException;
+import org.apache.olingo.odata2.api.exception.ODataNotFoundException;
+import org.apache.olingo.odata2.api.exception.ODataNotImplementedException;
+import org.apache.olingo.odata2.api.uri.expression.BinaryOperator;
+
+/**
+ * <p>Optional extension of a {@link DataSource} which can look up data objects
+ * by the value of a property without returning the whole entity set.</p>
+ * <p>The processor uses it for conditions of a <code>$filter</code> which compare a
+ * property with a literal value; the complete filter is applied to the result
+ * nevertheless, so the returned list may contain more data objects than requested
+ * but must not miss any.</p>
+ */
+public interface IndexedDataSource extends DataSource {
+
+  /**
+   * Retrieves the data objects of the specified entity set whose property value
+   * compares to the given value as specified.
+   * @param entitySet the requested {@link EdmEntitySet}
+   * @param property a simple property of the entity type of the entity set
+   * @param operator one of the comparison operators <code>EQ</code>, <code>LT</code>,
+   * <code>LE</code>, <code>GT</code>, and <code>GE</code>
+   * @param value the value to compare with, never <code>null</code>
+   * @return the found data objects or <code>null</code> if the data source cannot
+   * look up the property this way
+   */
+  List<?> readData(EdmEntitySet entitySet, EdmProperty property, BinaryOperator operator, Object value)
+      throws ODataNotImplementedException, ODataNotFoundException, EdmException, ODataApplicationException;
+
+  /**
+   * Announces that a data object of the specified entity set has been changed
+   * in place, so that the data source can update its lookup structures.
+   * @param entitySet the {@link EdmEntitySet} the object corresponds to
+   * @param data the changed data object
+   * @return the updated data object
+   */
+  Object updateData(EdmEntitySet entitySet, Object data)
+      throws ODataNotImplementedException, EdmException, ODataApplicationException;
+}
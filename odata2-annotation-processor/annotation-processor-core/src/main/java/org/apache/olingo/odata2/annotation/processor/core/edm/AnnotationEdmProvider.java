@@ -80,7 +80,7 @@ import org.apache.olingo.odata2.api.exception.ODataException;
  */
 public class AnnotationEdmProvider extends EdmProvider {
 
-  private static final AnnotationHelper ANNOTATION_HELPER = new AnnotationHelper();
+  private final AnnotationHelper annotationHelper = new AnnotationHelper();
 
   private final List<Class<?>> annotatedClasses;
   private final Map<String, EntityContainer> name2Container = new HashMap<String, EntityContainer>();
@@ -92,7 +92,7 @@ public class AnnotationEdmProvider extends EdmProvider {
 
     this.annotatedClasses = new ArrayList<Class<?>>(annotatedClasses.size());
     for (Class<?> aClass : annotatedClasses) {
-      if (ANNOTATION_HELPER.isEdmAnnotated(aClass)) {
+      if (annotationHelper.isEdmAnnotated(aClass)) {
         this.annotatedClasses.add(aClass);
       }
     }
@@ -104,7 +104,7 @@ public class AnnotationEdmProvider extends EdmProvider {
     annotatedClasses = ClassHelper.loadClasses(packageToScan, new ClassHelper.ClassValidator() {
       @Override
       public boolean isClassValid(final Class<?> c) {
-        return ANNOTATION_HELPER.isEdmAnnotated(c);
+        return annotationHelper.isEdmAnnotated(c);
       }
     });
 
@@ -259,7 +259,7 @@ public class AnnotationEdmProvider extends EdmProvider {
 
   private void updateSchema(final Class<?> aClass, final EdmEntityType et) {
     SchemaBuilder b = getSchemaBuilder(et.namespace(), aClass);
-    TypeBuilder typeBuilder = TypeBuilder.init(et, aClass);
+    TypeBuilder typeBuilder = TypeBuilder.init(et, aClass, annotationHelper);
     b.addEntityType(typeBuilder.buildEntityType());
     b.addAssociations(typeBuilder.buildAssociations());
   }
@@ -267,7 +267,7 @@ public class AnnotationEdmProvider extends EdmProvider {
   private SchemaBuilder getSchemaBuilder(final String namespace, final Class<?> aClass) {
     String usedNamespace = namespace;
     if (usedNamespace.isEmpty()) {
-      usedNamespace = ANNOTATION_HELPER.getCanonicalNamespace(aClass);
+      usedNamespace = annotationHelper.getCanonicalNamespace(aClass);
     }
     SchemaBuilder builder = namespace2SchemaBuilder.get(usedNamespace);
     if (builder == null) {
@@ -279,7 +279,7 @@ public class AnnotationEdmProvider extends EdmProvider {
 
   private void updateSchema(final Class<?> aClass, final EdmComplexType et) {
     SchemaBuilder b = getSchemaBuilder(et.namespace(), aClass);
-    TypeBuilder typeBuilder = TypeBuilder.init(et, aClass);
+    TypeBuilder typeBuilder = TypeBuilder.init(et, aClass, annotationHelper);
     b.addComplexType(typeBuilder.buildComplexType());
   }
 
@@ -287,7 +287,7 @@ public class AnnotationEdmProvider extends EdmProvider {
     EdmEntityType entityType = aClass.getAnnotation(EdmEntityType.class);
     if (entityType != null) {
       FullQualifiedName typeName = createFqnForEntityType(aClass);
-      String containerName = ANNOTATION_HELPER.extractContainerName(aClass);
+      String containerName = annotationHelper.extractContainerName(aClass);
       ContainerBuilder builder = containerName2ContainerBuilder.get(containerName);
       if (builder == null) {
         builder = ContainerBuilder.init(typeName.getNamespace(), containerName);
@@ -301,12 +301,12 @@ public class AnnotationEdmProvider extends EdmProvider {
   }
 
   private EntitySet createEntitySet(final FullQualifiedName typeName, final Class<?> entitySetClass) {
-    String entitySetName = ANNOTATION_HELPER.extractEntitySetName(entitySetClass);
+    String entitySetName = annotationHelper.extractEntitySetName(entitySetClass);
     return new EntitySet().setName(entitySetName).setEntityType(typeName);
   }
 
   private FullQualifiedName createFqnForEntityType(final Class<?> annotatedClass) {
-    return ANNOTATION_HELPER.extractEntityTypeFqn(annotatedClass);
+    return annotationHelper.extractEntityTypeFqn(annotatedClass);
   }
 
   private void finish() throws ODataException {
@@ -335,6 +335,7 @@ public class AnnotationEdmProvider extends EdmProvider {
   //
   static class TypeBuilder {
 
+    final private AnnotationHelper annotationHelper;
     final private String namespace;
     final private String name;
     private boolean isAbstract = false;
@@ -347,17 +348,22 @@ public class AnnotationEdmProvider extends EdmProvider {
     private final List<NavigationProperty> navProperties = new ArrayList<NavigationProperty>();
     private final List<Association> associations = new ArrayList<Association>();
 
-    public TypeBuilder(final FullQualifiedName fqn) {
+    public TypeBuilder(final FullQualifiedName fqn, final AnnotationHelper annotationHelper) {
+      this.annotationHelper = annotationHelper;
       namespace = fqn.getNamespace();
       name = fqn.getName();
     }
 
-    public static TypeBuilder init(final EdmEntityType entity, final Class<?> aClass) {
-      return new TypeBuilder(ANNOTATION_HELPER.extractEntityTypeFqn(entity, aClass)).withClass(aClass);
+    public static TypeBuilder init(final EdmEntityType entity, final Class<?> aClass,
+        final AnnotationHelper annotationHelper) {
+      return new TypeBuilder(annotationHelper.extractEntityTypeFqn(entity, aClass), annotationHelper)
+          .withClass(aClass);
     }
 
-    public static TypeBuilder init(final EdmComplexType entity, final Class<?> aClass) {
-      return new TypeBuilder(ANNOTATION_HELPER.extractComplexTypeFqn(entity, aClass)).withClass(aClass);
+    public static TypeBuilder init(final EdmComplexType entity, final Class<?> aClass,
+        final AnnotationHelper annotationHelper) {
+      return new TypeBuilder(annotationHelper.extractComplexTypeFqn(entity, aClass), annotationHelper)
+          .withClass(aClass);
     }
 
     private TypeBuilder withClass(final Class<?> aClass) {
@@ -390,7 +396,7 @@ public class AnnotationEdmProvider extends EdmProvider {
         if (enp != null) {
           Class<?> fromClass = field.getDeclaringClass();
           Class<?> toClass = ClassHelper.getFieldType(field);
-          AnnotationHelper.AnnotatedNavInfo info = ANNOTATION_HELPER.getCommonNavigationInfo(fromClass, toClass);
+          AnnotationHelper.AnnotatedNavInfo info = annotationHelper.getCommonNavigationInfo(fromClass, toClass);
 
           final NavigationProperty navProperty = createNavigationProperty(namespace, field, info);
           navProperties.add(navProperty);
@@ -476,14 +482,14 @@ public class AnnotationEdmProvider extends EdmProvider {
 
     private Property createSimpleProperty(final EdmProperty ep, final Field field) {
       SimpleProperty sp = new SimpleProperty();
-      String entityName = ANNOTATION_HELPER.getPropertyName(field);
+      String entityName = annotationHelper.getPropertyName(field);
       sp.setName(entityName);
       //
       EdmType type = ep.type();
       if (type == EdmType.NULL) {
         type = getEdmType(field.getType());
       }
-      sp.setType(ANNOTATION_HELPER.mapTypeKind(type));
+      sp.setType(annotationHelper.mapTypeKind(type));
       sp.setFacets(createFacets(ep.facets(), field.getAnnotation(EdmConcurrencyControl.class)));
       return sp;
     }
@@ -508,11 +514,11 @@ public class AnnotationEdmProvider extends EdmProvider {
     private Property createComplexProperty(EdmProperty ep, final Field field) {
       ComplexProperty cp = new ComplexProperty();
       // settings from property
-      String entityName = ANNOTATION_HELPER.getPropertyName(field);
+      String entityName = annotationHelper.getPropertyName(field);
       cp.setName(entityName);
 
       // settings from related complex entity
-      FullQualifiedName fqn = ANNOTATION_HELPER.extractComplexTypeFqn(field.getType());
+      FullQualifiedName fqn = annotationHelper.extractComplexTypeFqn(field.getType());
       cp.setType(fqn);
 
       cp.setFacets(createFacets(ep.facets(), field.getAnnotation(EdmConcurrencyControl.class)));
@@ -523,7 +529,7 @@ public class AnnotationEdmProvider extends EdmProvider {
     private NavigationProperty createNavigationProperty(final String namespace, Field field,
                                                         AnnotationHelper.AnnotatedNavInfo navInfo) {
       NavigationProperty navProp = new NavigationProperty();
-      navProp.setName(ANNOTATION_HELPER.getPropertyName(field));
+      navProp.setName(annotationHelper.getPropertyName(field));
       String fromRole = navInfo.getFromRoleName();
       navProp.setFromRole(fromRole);
       navProp.setToRole(navInfo.getToRoleName());
@@ -585,7 +591,7 @@ public class AnnotationEdmProvider extends EdmProvider {
       if (baseEntityClass == null) {
         return null;
       }
-      return ANNOTATION_HELPER.extractEntityTypeFqn(baseEntityClass);
+      return annotationHelper.extractEntityTypeFqn(baseEntityClass);
     }
 
     private Association createAssociation(final AnnotationHelper.AnnotatedNavInfo info) {
@@ -609,11 +615,11 @@ public class AnnotationEdmProvider extends EdmProvider {
     }
 
     private String getCanonicalName(final Field field) {
-      return ANNOTATION_HELPER.getCanonicalName(field);
+      return annotationHelper.getCanonicalName(field);
     }
 
     private boolean isAnnotatedEntity(final Class<?> clazz) {
-      return ANNOTATION_HELPER.isEdmTypeAnnotated(clazz);
+      return annotationHelper.isEdmTypeAnnotated(clazz);
     }
   }
 
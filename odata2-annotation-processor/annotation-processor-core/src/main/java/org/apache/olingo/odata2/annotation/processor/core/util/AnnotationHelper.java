@@ -24,6 +24,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.odata2.api.annotation.edm.EdmComplexType;
 import org.apache.olingo.odata2.api.annotation.edm.EdmEntitySet;
@@ -46,6 +48,9 @@ public class AnnotationHelper {
 
   public static final String DEFAULT_CONTAINER_NAME = "DefaultContainer";
 
+  private final ConcurrentMap<Class<?>, FieldAccessTable> fieldAccessTables =
+      new ConcurrentHashMap<Class<?>, FieldAccessTable>();
+
   /**
    * Compare keys of both instances.
    * 
@@ -502,7 +507,7 @@ public class AnnotationHelper {
       return null;
     }
 
-    Field field = getFieldForPropertyName(propertyName, clazz, true);
+    Field field = getFieldForPropertyName(propertyName, clazz);
     if (field == null) {
       throw new ODataAnnotationException("No field for property '" + propertyName
           + "' found at class '" + clazz + "'.");
@@ -524,7 +529,7 @@ public class AnnotationHelper {
       return null;
     }
 
-    Field field = getFieldForPropertyName(propertyName, instance.getClass(), true);
+    Field field = getFieldForPropertyName(propertyName, instance.getClass());
     if (field == null) {
       throw new ODataAnnotationException("No field for property '" + propertyName
           + "' found at class '" + instance.getClass() + "'.");
@@ -534,34 +539,27 @@ public class AnnotationHelper {
 
   public void setValueForProperty(final Object instance, final String propertyName, final Object propertyValue) {
     if (instance != null) {
-      Field field = getFieldForPropertyName(propertyName, instance.getClass(), true);
+      Field field = getFieldForPropertyName(propertyName, instance.getClass());
       if (field != null) {
         setFieldValue(instance, field, propertyValue);
       }
     }
   }
 
-  private Field getFieldForPropertyName(final String propertyName,
-      final Class<?> resultClass, final boolean inherited) {
-
-    Field[] fields = resultClass.getDeclaredFields();
-    for (Field field : fields) {
-      EdmProperty property = field.getAnnotation(EdmProperty.class);
-      if (property != null) {
-        if (property.name().isEmpty() && getCanonicalName(field).equals(propertyName)) {
-          return field;
-        } else if (property.name().equals(propertyName)) {
-          return field;
-        }
+  private FieldAccessTable getFieldAccessTable(final Class<?> clazz) {
+    FieldAccessTable table = fieldAccessTables.get(clazz);
+    if (table == null) {
+      table = new FieldAccessTable(clazz);
+      final FieldAccessTable existing = fieldAccessTables.putIfAbsent(clazz, table);
+      if (existing != null) {
+        table = existing;
       }
     }
+    return table;
+  }
 
-    Class<?> superClass = resultClass.getSuperclass();
-    if (inherited && superClass != Object.class) {
-      return getFieldForPropertyName(propertyName, superClass, true);
-    }
-
-    return null;
+  private Field getFieldForPropertyName(final String propertyName, final Class<?> resultClass) {
+    return getFieldAccessTable(resultClass).getPropertyField(propertyName);
   }
 
   public Object getValueForField(final Object instance, final String fieldName,
@@ -595,23 +593,10 @@ public class AnnotationHelper {
       return null;
     }
 
-    Field[] fields = resultClass.getDeclaredFields();
     Map<String, Object> fieldName2Value = new HashMap<String, Object>();
-
-    for (Field field : fields) {
-      if (field.getAnnotation(annotation) != null) {
-        Object value = getFieldValue(instance, field);
-        final String name = extractPropertyName(field);
-        fieldName2Value.put(name, value);
-      }
+    for (Field field : getAnnotatedFields(resultClass, annotation, inherited)) {
+      fieldName2Value.put(extractPropertyName(field), getFieldValue(instance, field));
     }
-
-    Class<?> superClass = resultClass.getSuperclass();
-    if (inherited && superClass != Object.class) {
-      Map<String, Object> tmp = getValueForAnnotatedFields(instance, superClass, annotation, true);
-      fieldName2Value.putAll(tmp);
-    }
-
     return fieldName2Value;
   }
 
@@ -678,22 +663,17 @@ public class AnnotationHelper {
       return null;
     }
 
-    Field[] fields = resultClass.getDeclaredFields();
-    List<Field> annotatedFields = new ArrayList<Field>();
-
-    for (Field field : fields) {
-      if (field.getAnnotation(annotation) != null) {
-        annotatedFields.add(field);
-      }
+    final List<Field> annotatedFields = getFieldAccessTable(resultClass).getAnnotatedFields(annotation);
+    if (inherited) {
+      return annotatedFields;
     }
-
-    Class<?> superClass = resultClass.getSuperclass();
-    if (inherited && superClass != Object.class) {
-      List<Field> tmp = getAnnotatedFields(superClass, annotation, true);
-      annotatedFields.addAll(tmp);
+    List<Field> declaredFields = new ArrayList<Field>();
+    for (Field field : annotatedFields) {
+      if (field.getDeclaringClass() == resultClass) {
+        declaredFields.add(field);
+      }
     }
-
-    return annotatedFields;
+    return declaredFields;
   }
 
   private Object getValueForField(final Object instance, final String fieldName, final Class<?> resultClass,
@@ -702,29 +682,17 @@ public class AnnotationHelper {
       return null;
     }
 
-    Field[] fields = resultClass.getDeclaredFields();
-    for (Field field : fields) {
-      if (field.getAnnotation(annotation) != null
-          && (fieldName == null || field.getName().equals(fieldName))) {
+    for (Field field : getAnnotatedFields(resultClass, annotation, inherited)) {
+      if (fieldName == null || field.getName().equals(fieldName)) {
         return getFieldValue(instance, field);
       }
     }
-
-    Class<?> superClass = resultClass.getSuperclass();
-    if (inherited && superClass != Object.class) {
-      return getValueForField(instance, fieldName, superClass, annotation, true);
-    }
-
     return null;
   }
 
   private Object getFieldValue(final Object instance, final Field field) {
     try {
-      boolean access = field.isAccessible();
-      field.setAccessible(true);
-      Object value = field.get(instance);
-      field.setAccessible(access);
-      return value;
+      return field.get(instance);
     } catch (IllegalArgumentException ex) { // should never happen
       throw new AnnotationRuntimeException(ex);
     } catch (IllegalAccessException ex) { // should never happen
@@ -740,10 +708,7 @@ public class AnnotationHelper {
           && value.getClass() == String.class) {
         usedValue = convert(field, (String) value);
       }
-      boolean access = field.isAccessible();
-      field.setAccessible(true);
       field.set(instance, usedValue);
-      field.setAccessible(access);
     } catch (IllegalArgumentException ex) { // should never happen
       throw new AnnotationRuntimeException(ex);
     } catch (IllegalAccessException ex) { // should never happen
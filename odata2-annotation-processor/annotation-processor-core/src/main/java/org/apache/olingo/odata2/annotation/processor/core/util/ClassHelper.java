@@ -203,6 +203,9 @@ public class ClassHelper {
 
   public static Object getFieldValue(final Object instance, final Field field) {
     try {
+      if (field.isAccessible()) {
+        return field.get(instance);
+      }
       synchronized (field) {
         boolean access = field.isAccessible();
         field.setAccessible(true);
@@ -219,6 +222,10 @@ public class ClassHelper {
 
   public static void setFieldValue(final Object instance, final Field field, final Object value) {
     try {
+      if (field.isAccessible()) {
+        field.set(instance, value);
+        return;
+      }
       synchronized (field) {
         boolean access = field.isAccessible();
         field.setAccessible(true);
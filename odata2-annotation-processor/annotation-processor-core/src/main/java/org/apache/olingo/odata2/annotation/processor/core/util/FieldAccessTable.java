@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.util;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
+
+/**
+ * Table of the fields of one class (including inherited fields).
+ * <p>The fields carrying EDM annotations are made accessible when the table is built,
+ * and the fields annotated with {@link EdmProperty} can be looked up by their EDM property
+ * name, so that reading and writing property values needs neither a search through the
+ * class hierarchy nor access checks.</p>
+ * <p>Tables are cached by the {@link AnnotationHelper} instance which builds them, so they
+ * live no longer than the data source or EDM provider using that helper.</p>
+ * <p>The values are read and written by reflection on the accessible fields. Method handles
+ * would only be faster if the JIT could treat them as constants, which it does not for
+ * handles created per model class at runtime and kept in a table like this one; generated
+ * accessor classes would need a byte code library this module does not depend on.</p>
+ */
+public final class FieldAccessTable {
+
+  private static final String EDM_ANNOTATION_PACKAGE = EdmProperty.class.getPackage().getName() + ".";
+
+  private final List<Field> fields;
+  private final Map<String, Field> propertyFields;
+  private final ConcurrentMap<Class<? extends Annotation>, List<Field>> annotatedFields =
+      new ConcurrentHashMap<Class<? extends Annotation>, List<Field>>();
+
+  FieldAccessTable(final Class<?> clazz) {
+    List<Field> allFields = new ArrayList<Field>();
+    Map<String, Field> nameToField = new HashMap<String, Field>();
+    for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (isEdmAnnotated(field)) {
+          makeAccessible(field);
+        }
+        allFields.add(field);
+        final EdmProperty property = field.getAnnotation(EdmProperty.class);
+        if (property != null) {
+          final String name = property.name().isEmpty() ? getCanonicalName(field) : property.name();
+          // fields of sub classes hide the fields of super classes with the same property name
+          if (!nameToField.containsKey(name)) {
+            nameToField.put(name, field);
+          }
+        }
+      }
+    }
+    fields = Collections.unmodifiableList(allFields);
+    propertyFields = Collections.unmodifiableMap(nameToField);
+  }
+
+  /**
+   * Returns the field annotated with {@link EdmProperty} for the given EDM property name.
+   * @param propertyName the name of the property in the EDM
+   * @return the field or <code>null</code> if there is none
+   */
+  public Field getPropertyField(final String propertyName) {
+    return propertyFields.get(propertyName);
+  }
+
+  /**
+   * Returns the fields with the given annotation; fields declared in sub classes
+   * come before those of their super classes.
+   * @param annotation the annotation
+   * @return unmodifiable list of the annotated fields
+   */
+  public List<Field> getAnnotatedFields(final Class<? extends Annotation> annotation) {
+    List<Field> result = annotatedFields.get(annotation);
+    if (result == null) {
+      List<Field> annotated = new ArrayList<Field>();
+      for (Field field : fields) {
+        if (field.getAnnotation(annotation) != null) {
+          annotated.add(field);
+        }
+      }
+      result = Collections.unmodifiableList(annotated);
+      annotatedFields.putIfAbsent(annotation, result);
+    }
+    return result;
+  }
+
+  private static boolean isEdmAnnotated(final Field field) {
+    for (Annotation annotation : field.getDeclaredAnnotations()) {
+      if (annotation.annotationType().getName().startsWith(EDM_ANNOTATION_PACKAGE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void makeAccessible(final Field field) {
+    try {
+      field.setAccessible(true);
+    } catch (RuntimeException e) {
+      // e.g. a SecurityException or a module restriction; the field stays inaccessible,
+      // so reading or writing it fails with an IllegalAccessException unless it is public
+    }
+  }
+
+  private static String getCanonicalName(final Field field) {
+    final String name = field.getName();
+    return name.substring(0, 1).toUpperCase(Locale.ENGLISH) + name.substring(1);
+  }
+}
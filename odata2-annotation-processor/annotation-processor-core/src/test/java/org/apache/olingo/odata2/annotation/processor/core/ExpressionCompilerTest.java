@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.apache.olingo.odata2.annotation.processor.core.ExpressionCompiler.CompiledFilter;
+import org.apache.olingo.odata2.annotation.processor.core.datasource.AnnotationValueAccess;
+import org.apache.olingo.odata2.annotation.processor.core.edm.AnnotationEdmProvider;
+import org.apache.olingo.odata2.annotation.processor.core.model.Building;
+import org.apache.olingo.odata2.annotation.processor.core.model.Employee;
+import org.apache.olingo.odata2.annotation.processor.core.model.Location;
+import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.exception.ODataNotImplementedException;
+import org.apache.olingo.odata2.api.rt.RuntimeDelegate;
+import org.apache.olingo.odata2.api.uri.UriParser;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class ExpressionCompilerTest {
+
+  private Edm edm;
+  private EdmEntityType employeeType;
+  private ExpressionCompiler compiler;
+  private List<Employee> employees;
+
+  @Before
+  public void setUp() throws ODataException {
+    edm = RuntimeDelegate.createEdm(new AnnotationEdmProvider(Building.class.getPackage().getName()));
+    employeeType = edm.getDefaultEntityContainer().getEntitySet("Employees").getEntityType();
+    compiler = new ExpressionCompiler(new AnnotationValueAccess());
+
+    employees = new ArrayList<Employee>();
+    employees.add(createEmployee("1", "Walter Winter", 52, "Walldorf", 1999));
+    employees.add(createEmployee("2", "Frederic Fall", 9, "Heidelberg", 2003));
+    employees.add(createEmployee("3", "Jonathan Smith", 100, "Walldorf", 2003));
+    employees.add(createEmployee("4", null, 10, "Berlin", 2010));
+  }
+
+  private Employee createEmployee(final String id, final String name, final int age, final String city,
+      final int entryYear) {
+    Employee employee = new Employee(id, name);
+    employee.setAge(age);
+    employee.setLocation(new Location("Germany", "69124", city));
+    Calendar entryDate = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    entryDate.clear();
+    entryDate.set(entryYear, Calendar.JANUARY, 1);
+    employee.setEntryDate(entryDate);
+    return employee;
+  }
+
+  private List<String> filter(final String expression) throws ODataException {
+    final CompiledFilter filter = compiler.compileFilter(UriParser.parseFilter(edm, employeeType, expression));
+    List<String> ids = new ArrayList<String>();
+    for (final Employee employee : employees) {
+      if (filter.matches(employee)) {
+        ids.add(employee.getId());
+      }
+    }
+    return ids;
+  }
+
+  private List<String> sort(final String expression) throws ODataException {
+    compiler.compileOrderBy(UriParser.parseOrderBy(edm, employeeType, expression)).sort(employees);
+    List<String> ids = new ArrayList<String>();
+    for (final Employee employee : employees) {
+      ids.add(employee.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void numericComparison() throws Exception {
+    assertEquals("[1, 3, 4]", filter("Age ge 10").toString());
+    assertEquals("[2]", filter("Age lt 10").toString());
+    assertEquals("[3]", filter("Age add 1 eq 101").toString());
+    assertEquals("[1, 3]", filter("Age gt 10 and not (Age eq 10)").toString());
+    assertEquals("[2, 3]", filter("Age mod 2 eq 1 or Age div 10 eq 10").toString());
+  }
+
+  @Test
+  public void division() throws Exception {
+    assertEquals("[1]", filter("Age div 8 eq 6.5d").toString());
+    assertEquals("[3]", filter("Age div 8 gt 12").toString());
+    assertEquals("[1]", filter("Age div 8M eq 6.5M").toString());
+    assertEquals("[1, 2, 3, 4]", filter("Age div 0 gt 0").toString());
+    assertEquals("[]", filter("Age mod 0 eq 0").toString());
+    assertEquals("[]", filter("Age div 0M eq 0").toString());
+  }
+
+  @Test
+  public void floatingPointComparison() throws Exception {
+    assertEquals("[1, 2, 3, 4]", filter("1.1f eq 1.1M").toString());
+    assertEquals("[1, 2, 3, 4]", filter("1.1f eq 1.1d").toString());
+    assertEquals("[1, 2, 3, 4]", filter("2.5d eq 2.5M").toString());
+    assertEquals("[1]", filter("Age add 0.5f eq 52.5M").toString());
+  }
+
+  @Test(expected = ODataNotImplementedException.class)
+  public void navigationNotCompiled() throws Exception {
+    filter("ne_Manager/EmployeeName eq 'Walter Winter'");
+  }
+
+  @Test
+  public void stringMethods() throws Exception {
+    assertEquals("[1]", filter("startswith(EmployeeName,'Wal')").toString());
+    assertEquals("[3]", filter("substringof('Smi',EmployeeName)").toString());
+    assertEquals("[2]", filter("substring(EmployeeName,9) eq 'Fall'").toString());
+    assertEquals("[2]", filter("substring(EmployeeName,0,3) eq 'Fre'").toString());
+    assertEquals("[1, 2]", filter("length(EmployeeName) eq 13").toString());
+    assertEquals("[3]", filter("toupper(EmployeeName) eq 'JONATHAN SMITH'").toString());
+  }
+
+  @Test
+  public void nullValues() throws Exception {
+    assertEquals("[4]", filter("EmployeeName eq null").toString());
+    assertEquals("[1, 2, 3]", filter("EmployeeName ne null").toString());
+    assertEquals("[]", filter("EmployeeName gt 'A' and startswith(EmployeeName,'X')").toString());
+    assertFalse(compiler.compileFilter(UriParser.parseFilter(edm, employeeType, "Age gt 0")).matches(null));
+  }
+
+  @Test
+  public void complexPropertyPath() throws Exception {
+    assertEquals("[1, 3]", filter("Location/City/CityName eq 'Walldorf'").toString());
+    assertTrue(filter("Location/Country ne 'Germany'").isEmpty());
+  }
+
+  @Test
+  public void dateTime() throws Exception {
+    assertEquals("[2, 3]", filter("year(EntryDate) eq 2003").toString());
+    assertEquals("[4]", filter("EntryDate gt datetime'2005-01-01T00:00'").toString());
+    assertEquals("[1, 2, 3, 4]", filter("month(EntryDate) eq 1 and day(EntryDate) eq 1").toString());
+  }
+
+  @Test
+  public void sortNumericValues() throws Exception {
+    assertEquals("[2, 4, 1, 3]", sort("Age").toString());
+    assertEquals("[3, 1, 4, 2]", sort("Age desc").toString());
+  }
+
+  @Test
+  public void sortByMoreKeys() throws Exception {
+    assertEquals("[4, 2, 3, 1]", sort("Location/City/CityName,EntryDate desc").toString());
+    assertEquals("[1, 2, 3, 4]", sort("year(EntryDate),EmployeeName").toString());
+    // null values come last
+    assertEquals("[2, 3, 1, 4]", sort("EmployeeName").toString());
+  }
+}
@@ -51,6 +51,7 @@ import org.apache.olingo.odata2.api.edm.FullQualifiedName;
 import org.apache.olingo.odata2.api.edm.provider.EntitySet;
 import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.exception.ODataNotFoundException;
+import org.apache.olingo.odata2.api.uri.expression.BinaryOperator;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -127,7 +128,6 @@ public class AnnotationsInMemoryDsTest {
   }
 
   @Test
-  @Ignore
   public void multiThreadedSyncOnBuildingsTest() throws Exception {
     final EdmEntitySet edmEntitySet = createMockedEdmEntitySet("Buildings");
     CountDownLatch latch;
@@ -561,6 +561,80 @@ public class AnnotationsInMemoryDsTest {
     Assert.assertEquals("Common Building", relatedRoom.getBuilding().getName());
   }
 
+  @Test
+  public void readByIndex() throws Exception {
+    EdmEntitySet roomsEntitySet = createMockedEdmEntitySet("Rooms");
+    org.apache.olingo.odata2.api.edm.EdmProperty seatsProperty =
+        Mockito.mock(org.apache.olingo.odata2.api.edm.EdmProperty.class);
+    Mockito.when(seatsProperty.getName()).thenReturn("Seats");
+    datasource.getDataStore(Room.class).createIndex("Seats");
+
+    for (int i = 1; i <= 20; i++) {
+      Room room = new Room(i, "Room " + i);
+      room.setSeats(i % 5);
+      datasource.createData(roomsEntitySet, room);
+    }
+
+    Assert.assertEquals(4, datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.EQ, 3).size());
+    Assert.assertEquals(4, datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.EQ, (short) 3).size());
+    Assert.assertEquals(8, datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.LT, 2).size());
+    Assert.assertEquals(12, datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.LE, 2L).size());
+    Assert.assertEquals(4, datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.GT, 3.5).size());
+    Assert.assertEquals(8, datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.GE, 3).size());
+    Assert.assertTrue(datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.EQ, 42).isEmpty());
+
+    // changed in place and announced
+    Map<String, Object> keys = new HashMap<String, Object>();
+    keys.put("Id", 5);
+    Room room = (Room) datasource.readData(roomsEntitySet, keys);
+    room.setSeats(42);
+    datasource.updateData(roomsEntitySet, room);
+    List<?> rooms = datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.EQ, 42);
+    Assert.assertEquals(1, rooms.size());
+    Assert.assertSame(room, rooms.get(0));
+    Assert.assertEquals(3, datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.EQ, 0).size());
+
+    // changed in place without announcement: the stale index hit leads to a scan
+    room.setSeats(43);
+    Assert.assertTrue(datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.EQ, 42).isEmpty());
+    rooms = datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.GE, 42);
+    Assert.assertEquals(1, rooms.size());
+    Assert.assertSame(room, rooms.get(0));
+    datasource.updateData(roomsEntitySet, room);
+
+    datasource.deleteData(roomsEntitySet, keys);
+    Assert.assertTrue(datasource.readData(roomsEntitySet, seatsProperty, BinaryOperator.EQ, 43).isEmpty());
+
+    // not indexed
+    org.apache.olingo.odata2.api.edm.EdmProperty nameProperty =
+        Mockito.mock(org.apache.olingo.odata2.api.edm.EdmProperty.class);
+    Mockito.when(nameProperty.getName()).thenReturn("Name");
+    Assert.assertNull(datasource.readData(roomsEntitySet, nameProperty, BinaryOperator.EQ, "Room 1"));
+  }
+
+  @Test
+  public void createIndexForStoredData() throws Exception {
+    EdmEntitySet roomsEntitySet = createMockedEdmEntitySet("Rooms");
+    for (int i = 1; i <= 5; i++) {
+      Room room = new Room(i, "Room " + i);
+      room.setSeats(i * 10);
+      datasource.createData(roomsEntitySet, room);
+    }
+    DataStore<Room> store = datasource.getDataStore(Room.class);
+    Assert.assertFalse(store.isIndexed("Seats"));
+    Assert.assertNull(store.readByIndex("Seats", 30));
+
+    store.createIndex("Seats");
+    Assert.assertTrue(store.isIndexed("Seats"));
+    Assert.assertEquals("Room 3", store.readByIndex("Seats", 30).get(0).getName());
+    Assert.assertEquals(2, store.readByIndex("Seats", 20, false, 40, true).size());
+  }
+
+  @Test(expected = DataStore.DataStoreException.class)
+  public void createIndexForUnknownProperty() throws Exception {
+    datasource.getDataStore(Room.class).createIndex("Unknown");
+  }
+
   @Test
   public void createSimpleEntity() throws Exception {
     EdmEntitySet edmEntitySet = createMockedEdmEntitySet("Buildings");
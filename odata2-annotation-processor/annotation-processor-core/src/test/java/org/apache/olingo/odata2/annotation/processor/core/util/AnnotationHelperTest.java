@@ -19,6 +19,7 @@ import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import junit.framework.Assert;
 
@@ -242,6 +243,39 @@ public class AnnotationHelperTest {
     Assert.assertEquals(Byte.valueOf("1"), cp.byteProp);
   }
 
+  @Test
+  public void inheritedAndRenamedProperties() throws Exception {
+    DescribedEntity entity = new DescribedEntity();
+    annotationHelper.setValueForProperty(entity, "Id", 7L);
+    annotationHelper.setValueForProperty(entity, "Name", "A Name");
+    annotationHelper.setValueForProperty(entity, "Text", "A Description");
+
+    Assert.assertEquals(Long.valueOf(7), annotationHelper.getValueForProperty(entity, "Id"));
+    Assert.assertEquals("A Name", annotationHelper.getValueForProperty(entity, "Name"));
+    Assert.assertEquals("A Description", entity.description);
+    Assert.assertEquals(String.class, annotationHelper.getFieldTypeForProperty(entity, "Text"));
+    Assert.assertEquals("{Id=7, Name=A Name, Text=A Description}",
+        new TreeMap<String, Object>(
+            annotationHelper.getValueForAnnotatedFields(entity, EdmProperty.class)).toString());
+  }
+
+  @Test
+  public void annotatedFieldsAreCached() throws Exception {
+    List<Field> fields = annotationHelper.getAnnotatedFields(DescribedEntity.class, EdmProperty.class);
+    Assert.assertEquals(3, fields.size());
+    Assert.assertEquals("description", fields.get(0).getName());
+    Assert.assertSame(fields, annotationHelper.getAnnotatedFields(new DescribedEntity(), EdmProperty.class));
+    Assert.assertEquals(1, annotationHelper.getAnnotatedFields(DescribedEntity.class, EdmKey.class).size());
+    Assert.assertTrue(fields.get(0).isAccessible());
+    // the cache belongs to the helper instance
+    Assert.assertNotSame(fields, new AnnotationHelper().getAnnotatedFields(DescribedEntity.class, EdmProperty.class));
+  }
+
+  @Test(expected = ODataException.class)
+  public void getValueForUnknownProperty() throws Exception {
+    annotationHelper.getValueForProperty(new DescribedEntity(), "Description");
+  }
+
   @EdmEntityType
   private class SimpleEntity {
     @EdmKey
@@ -259,6 +293,11 @@ public class AnnotationHelperTest {
   }
 
   @EdmEntityType
+  private class DescribedEntity extends SimpleEntity {
+    @EdmProperty(name = "Text")
+    String description;
+  }
+
   private class NavigationAnnotated {
     @EdmNavigationProperty(toType = SimpleEntity.class)
     SimpleEntity navigationPropertySimpleEntity;
@@ -147,6 +147,8 @@ public class AnnotationRefServiceFactory extends ODataServiceFactory {
     photoDs.create(createPhoto("Huge picture", ResourceHelper.Format.BMP));
 
     DataStore<Room> roomDs = getDataStore(Room.class);
+    // $filter conditions on the number of seats are looked up in the index instead of scanning all rooms
+    roomDs.createIndex("Seats");
     roomDs.create(createRoom("Tiny red room", 5, 1, redBuilding));
     roomDs.create(createRoom("Small red room", 20, 1, redBuilding));
     roomDs.create(createRoom("Small green room", 20, 1, greenBuilding));
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.ref;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+
+import org.apache.olingo.odata2.annotation.processor.core.datasource.DataStore;
+import org.apache.olingo.odata2.annotation.processor.ref.model.Room;
+import org.apache.olingo.odata2.api.commons.HttpContentType;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.testutil.server.ServletType;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests employing the reference scenario filtering entity sets by the indexed property <code>Seats</code>.
+ * 
+ */
+public class EntitySetFilterTest extends AbstractRefTest {
+
+  public EntitySetFilterTest(final ServletType servletType) {
+    super(servletType);
+  }
+
+  @Before
+  public void createIndex() throws Exception {
+    // the same index as in the sample data of the reference service factory
+    DataStore.createInMemory(Room.class, true).createIndex("Seats");
+  }
+
+  private String createRoom(final String name, final int seats) throws Exception {
+    final String id = UUID.randomUUID().toString();
+    postUri("Rooms", "{\"Id\":\"" + id + "\",\"Name\":\"" + name + "\",\"Seats\":" + seats + "}",
+        HttpContentType.APPLICATION_JSON, HttpStatusCodes.CREATED).getEntity().getContent().close();
+    return id;
+  }
+
+  private String count(final String filter, final String tag) throws Exception {
+    return getBody(callUri("Rooms/$count?$filter=" + filter + "%20and%20substringof('" + tag + "',Name)"));
+  }
+
+  @Test
+  public void filterIndexedProperty() throws Exception {
+    final String tag = UUID.randomUUID().toString().substring(0, 8);
+    createRoom("Small " + tag, 5);
+    final String id = createRoom("Medium " + tag, 20);
+    createRoom("Big " + tag, 40);
+    createRoom("Huge " + tag, 120);
+
+    assertEquals("2", count("Seats%20ge%2040", tag));
+    assertEquals("1", count("20%20eq%20Seats", tag));
+    assertEquals("3", count("Seats%20gt%205L", tag));
+    assertEquals("0", count("Seats%20lt%205", tag));
+
+    putUri("Rooms('" + id + "')/Seats", "{\"Seats\":50}", HttpContentType.APPLICATION_JSON,
+        HttpStatusCodes.NO_CONTENT);
+    assertEquals("0", count("Seats%20eq%2020", tag));
+    assertEquals("3", count("Seats%20ge%2040", tag));
+  }
+
+  @Test
+  public void filterUsesIndex() throws Exception {
+    final String tag = UUID.randomUUID().toString().substring(0, 8);
+    createRoom("Medium " + tag, 20);
+    createRoom("Big " + tag, 40);
+    assertEquals("1", count("Seats%20ge%2040", tag));
+
+    // A change in place without DataStore.update() leaves the index entry of the room at 20,
+    // so the room is not found by the index lookup while a scan of all rooms would find it.
+    final DataStore<Room> store = DataStore.createInMemory(Room.class, true);
+    Room medium = null;
+    for (final Room room : store.read()) {
+      if (room.getName().equals("Medium " + tag)) {
+        medium = room;
+      }
+    }
+    medium.setSeats(60);
+    assertEquals("1", count("Seats%20ge%2040", tag));
+
+    store.update(medium);
+    assertEquals("2", count("Seats%20ge%2040", tag));
+  }
+
+  @Test
+  public void filterAndSort() throws Exception {
+    final String tag = UUID.randomUUID().toString().substring(0, 8);
+    createRoom("Blue " + tag, 40);
+    createRoom("Red " + tag, 120);
+    createRoom("Yellow " + tag, 10);
+
+    final String body = getBody(callUri("Rooms?$filter=Seats%20gt%2020%20and%20substringof('" + tag + "',Name)"
+        + "&$orderby=Seats%20desc&$format=json"));
+    assertTrue(body.indexOf("Red " + tag) < body.indexOf("Blue " + tag));
+    assertTrue(body.indexOf("Blue " + tag) > 0);
+    assertTrue(body.indexOf("Yellow " + tag) < 0);
+  }
+}
@@ -24,7 +24,10 @@ import javax.persistence.EntityManagerFactory;
 import org.apache.olingo.odata2.api.edm.provider.EdmProvider;
 import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataProcessor;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAChangeSetBulkMode;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPACountStrategy;
 import org.apache.olingo.odata2.jpa.processor.api.access.JPAPaging;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatementCache;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmExtension;
 
 /**
@@ -38,6 +41,13 @@ import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmExtension;
  * <li>An instance of Java Persistence Entity Manager Factory</li>
  * </ol>
  * 
+ * <p>
+ * <b>Compatibility:</b> the context is created by the library, see
+ * {@link ODataJPAServiceFactory#getODataJPAContext()}, and is not meant to be implemented by applications.
+ * Methods are therefore added to this interface when the library gets new options, e.g., for keyset paging,
+ * <code>$select</code> projections, the count strategy, the JPQL statement cache, and the bulk mode of
+ * change sets; implementations outside the library, e.g., test doubles, have to implement them as well.
+ * </p>
  * <br>
  * @org.apache.olingo.odata2.DoNotImplement
  * @see org.apache.olingo.odata2.jpa.processor.api.factory.ODataJPAFactory
@@ -222,6 +232,105 @@ public interface ODataJPAContext {
    */
   public void setPageSize(int size);
 
+  /**
+   * The method sets whether server side paging continues after the key values of the last
+   * entity delivered (keyset paging) instead of after a number of entities.
+   * With keyset paging the <code>$skiptoken</code> of the next link encodes these key values,
+   * so that each page is read with a key condition in the database query, independent of the
+   * page's position, and entities created or deleted meanwhile do not shift the following pages.
+   * Keyset paging is used for entity sets ordered by their keys, i.e., for requests without
+   * <code>$orderby</code> and <code>$skip</code> and without navigation. (Default is <code>false</code>)
+   *
+   * @param keysetPaging <code>true</code> for keyset paging
+   */
+  public void setKeysetPaging(boolean keysetPaging);
+
+  /**
+   * The method returns <code>true</code> if server side paging continues after the key values of the
+   * last entity delivered.
+   * (Default is <code>false</code>)
+   *
+   * @return <code>true</code> for keyset paging
+   */
+  public boolean isKeysetPaging();
+
+  /**
+   * The method sets whether entity sets requested with <code>$select</code> are read with a
+   * projection query, i.e., only the selected properties, the key properties, and the properties
+   * used for the ETag are read from the database instead of complete JPA entities.
+   * The JPA processor then returns a list of
+   * {@link org.apache.olingo.odata2.jpa.processor.api.access.JPAProjectedEntity} instead of JPA entities.
+   * A projection is used for requests without <code>$expand</code> and navigation which select
+   * simple properties only. (Default is <code>false</code>)
+   *
+   * @param selectProjection <code>true</code> for projection queries
+   */
+  public void setSelectProjection(boolean selectProjection);
+
+  /**
+   * The method returns <code>true</code> if entity sets requested with <code>$select</code> are
+   * read with a projection query.
+   * (Default is <code>false</code>)
+   *
+   * @return <code>true</code> for projection queries
+   */
+  public boolean isSelectProjection();
+
+  /**
+   * The method sets the strategy providing the count of <code>$inlinecount=allpages</code>
+   * instead of a <code>COUNT</code> query; e.g., a strategy can return estimated counts for very large
+   * tables. (Default is <code>null</code>, i.e., the entities are counted with a query)
+   *
+   * @param countStrategy an instance of type
+   * {@link org.apache.olingo.odata2.jpa.processor.api.access.JPACountStrategy} or <code>null</code>
+   */
+  public void setCountStrategy(JPACountStrategy countStrategy);
+
+  /**
+   * The method returns the strategy providing the count of <code>$inlinecount=allpages</code>.
+   *
+   * @return an instance of type {@link org.apache.olingo.odata2.jpa.processor.api.access.JPACountStrategy}
+   * or <code>null</code>
+   */
+  public JPACountStrategy getCountStrategy();
+
+  /**
+   * The method sets the cache for the JPQL statements generated for reading entity sets.
+   * The cache should be shared by all requests of the service. (Default is <code>null</code>,
+   * i.e., the statement is built for each request)
+   *
+   * @param statementCache an instance of type
+   * {@link org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatementCache} or <code>null</code>
+   */
+  public void setJPQLStatementCache(JPQLStatementCache statementCache);
+
+  /**
+   * The method returns the cache for the JPQL statements generated for reading entity sets.
+   *
+   * @return an instance of type {@link org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatementCache}
+   * or <code>null</code>
+   */
+  public JPQLStatementCache getJPQLStatementCache();
+
+  /**
+   * The method sets the bulk mode for the execution of <code>$batch</code> change sets: the changes
+   * of consecutive requests with the same method on the same entity set are flushed together instead
+   * of per request. The bulk mode should be shared by all requests of the service.
+   * (Default is <code>null</code>, i.e., changes are flushed per request)
+   *
+   * @param bulkMode an instance of type
+   * {@link org.apache.olingo.odata2.jpa.processor.api.access.JPAChangeSetBulkMode} or <code>null</code>
+   */
+  public void setChangeSetBulkMode(JPAChangeSetBulkMode bulkMode);
+
+  /**
+   * The method returns the bulk mode for the execution of <code>$batch</code> change sets.
+   *
+   * @return an instance of type {@link org.apache.olingo.odata2.jpa.processor.api.access.JPAChangeSetBulkMode}
+   * or <code>null</code>
+   */
+  public JPAChangeSetBulkMode getChangeSetBulkMode();
+
   /**
    * The method sets the server side paging object
    * @param paging an instance of type {@link org.apache.olingo.odata2.jpa.processor.api.access.JPAPaging}
@@ -18,7 +18,9 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.jpa.processor.api;
 
+import org.apache.olingo.odata2.api.ODataServiceFactory;
 import org.apache.olingo.odata2.api.batch.BatchHandler;
+import org.apache.olingo.odata2.api.batch.BatchQueryExecution;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
 import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
@@ -38,6 +40,8 @@ import org.apache.olingo.odata2.api.uri.info.GetEntityUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetFunctionImportUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PostUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PutMergePatchUriInfo;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAChangeSetBulkMode;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
@@ -250,6 +254,12 @@ public abstract class ODataJPADefaultProcessor extends ODataJPAProcessor {
       throws ODataException {
     try {
       oDataJPAContext.setODataContext(getContext());
+      ODataServiceFactory serviceFactory = getContext().getServiceFactory();
+      if (serviceFactory != null && serviceFactory.getCallback(BatchQueryExecution.class) != null) {
+        // the JPA context and its entity manager are bound to the request thread and to the service factory
+        throw ODataJPARuntimeException.throwException(
+            ODataJPARuntimeException.BATCH_QUERY_EXECUTION_NOT_SUPPORTED, null);
+      }
 
       ODataResponse batchResponse;
       List<BatchResponsePart> batchResponseParts = new ArrayList<BatchResponsePart>();
@@ -260,7 +270,7 @@ public abstract class ODataJPADefaultProcessor extends ODataJPAProcessor {
       for (BatchRequestPart batchPart : batchParts) {
         batchResponseParts.add(handler.handleBatchPart(batchPart));
       }
-      batchResponse = EntityProvider.writeBatchResponse(batchResponseParts);
+      batchResponse = EntityProvider.writeBatchResponse(batchResponseParts.iterator());
       return batchResponse;
     } finally {
       close(true);
@@ -271,10 +281,26 @@ public abstract class ODataJPADefaultProcessor extends ODataJPAProcessor {
   public BatchResponsePart executeChangeSet(final BatchHandler handler, final List<ODataRequest> requests)
       throws ODataException {
     List<ODataResponse> responses = new ArrayList<ODataResponse>();
+    final JPAChangeSetBulkMode bulkMode = oDataJPAContext.getChangeSetBulkMode();
     try {
       oDataJPAContext.getODataJPATransaction().begin();
+      if (bulkMode != null) {
+        bulkMode.beginChangeSet(oDataJPAContext.getEntityManager());
+      }
 
+      String sequenceKey = null;
+      int pendingRequests = 0;
       for (ODataRequest request : requests) {
+        if (bulkMode != null) {
+          // Changes of a sequence of requests of the same kind are flushed together
+          final String requestSequenceKey = JPAChangeSetBulkMode.getSequenceKey(request);
+          if (!requestSequenceKey.equals(sequenceKey)) {
+            bulkMode.flush(oDataJPAContext.getEntityManager(), pendingRequests);
+            sequenceKey = requestSequenceKey;
+            pendingRequests = 0;
+          }
+          pendingRequests++;
+        }
         oDataJPAContext.setODataContext(getContext());
         ODataResponse response = handler.handleRequest(request);
         if (response.getStatus().getStatusCode() >= HttpStatusCodes.BAD_REQUEST.getStatusCode()) {
@@ -286,10 +312,17 @@ public abstract class ODataJPADefaultProcessor extends ODataJPAProcessor {
         }
         responses.add(response);
       }
+      if (bulkMode != null) {
+        bulkMode.flush(oDataJPAContext.getEntityManager(), pendingRequests);
+      }
       oDataJPAContext.getODataJPATransaction().commit();
 
       return BatchResponsePart.responses(responses).changeSet(true).build();
     } catch (Exception e) {
+      // e.g., the flush of a sequence of requests in bulk mode failed
+      if (oDataJPAContext.getODataJPATransaction().isActive()) {
+        oDataJPAContext.getODataJPATransaction().rollback();
+      }
       throw new ODataException("Error on processing request content:" + e.getMessage(), e);
     } finally {
       close(true);
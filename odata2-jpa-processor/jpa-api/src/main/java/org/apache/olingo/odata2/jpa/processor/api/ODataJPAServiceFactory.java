@@ -18,10 +18,25 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.jpa.processor.api;
 
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.olingo.odata2.api.ODataCallback;
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
+import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.edm.FullQualifiedName;
+import org.apache.olingo.odata2.api.edm.provider.AliasInfo;
+import org.apache.olingo.odata2.api.edm.provider.Association;
+import org.apache.olingo.odata2.api.edm.provider.AssociationSet;
+import org.apache.olingo.odata2.api.edm.provider.ComplexType;
 import org.apache.olingo.odata2.api.edm.provider.EdmProvider;
+import org.apache.olingo.odata2.api.edm.provider.EntityContainerInfo;
+import org.apache.olingo.odata2.api.edm.provider.EntitySet;
+import org.apache.olingo.odata2.api.edm.provider.EntityType;
+import org.apache.olingo.odata2.api.edm.provider.FunctionImport;
+import org.apache.olingo.odata2.api.edm.provider.Schema;
 import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataErrorCallback;
@@ -77,11 +92,16 @@ import org.apache.olingo.odata2.jpa.processor.api.factory.ODataJPAFactory;
 
 public abstract class ODataJPAServiceFactory extends ODataServiceFactory {
 
+  /** cached entity data models per factory class and persistence unit */
+  private static final ConcurrentMap<Class<?>, ConcurrentMap<String, Edm>> EDM_CACHE =
+      new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Edm>>();
+
   private ODataJPAContext oDataJPAContext;
   private ODataContext oDataContext;
   private boolean setDetailErrors = false;
   private OnJPAWriteContent onJPAWriteContent = null;
   private ODataJPATransaction oDataJPATransaction = null;
+  private boolean cacheEdm = false;
 
   /**
    * Implement this method and initialize OData JPA Context. It is mandatory
@@ -138,6 +158,24 @@ public abstract class ODataJPAServiceFactory extends ODataServiceFactory {
     if(odataJPAProcessor == null) {
       odataJPAProcessor = accessFactory.createODataProcessor(oDataJPAContext);
     }
+    String persistenceUnitName = oDataJPAContext.getPersistenceUnitName();
+    if (cacheEdm && persistenceUnitName != null) {
+      ConcurrentMap<String, Edm> edmCache = getEdmCache();
+      Edm edm = edmCache.get(persistenceUnitName);
+      if (edm == null) {
+        // the frozen model must not keep the request scoped JPA context reachable through the provider
+        final DetachableEdmProvider edmProvider =
+            new DetachableEdmProvider(accessFactory.createJPAEdmProvider(oDataJPAContext));
+        edm = createFrozenEdm(edmProvider);
+        edmProvider.detach();
+        Edm cachedEdm = edmCache.putIfAbsent(persistenceUnitName, edm);
+        if (cachedEdm != null) {
+          edm = cachedEdm;
+        }
+      }
+      return createODataSingleProcessorService(edm, odataJPAProcessor);
+    }
+
     // OData Entity Data Model Provider based on JPA
     EdmProvider edmProvider = accessFactory.createJPAEdmProvider(oDataJPAContext);
 
@@ -217,6 +255,55 @@ public abstract class ODataJPAServiceFactory extends ODataServiceFactory {
     this.setDetailErrors = setDetailErrors;
   }
 
+  /**
+   * The method sets the context whether the entity data model derived from the JPA metamodel
+   * is built only once per persistence unit and then shared by all requests served by this factory
+   * class. The model is built from the context of the first request; all further requests for the
+   * same persistence unit (see {@link ODataJPAContext#getPersistenceUnitName()}) reuse it. Request specific
+   * values like the entity manager or the page size are not part of the cached model.
+   * <p>The cache is kept per factory class and persistence unit, so it also takes effect if the runtime
+   * creates a factory instance for each request. Factories of the same class must therefore derive the
+   * same model for a persistence unit, i.e., use the same mapping model and JPA EDM extension.</p>
+   * @param cacheEdm takes
+   * <ul><li>true - to indicate that the entity data model shall be cached per persistence unit</li>
+   * <li>false - to indicate that the entity data model shall be built for every request</li>
+   * </ul>
+   * 
+   */
+  protected void setEdmCaching(final boolean cacheEdm) {
+    this.cacheEdm = cacheEdm;
+  }
+
+  /**
+   * Removes the cached entity data model of the given persistence unit. The model is built again
+   * with the next request, e.g. after the JPA metamodel or the mapping model has changed.
+   * @param persistenceUnitName name of the persistence unit
+   */
+  public void invalidateEdmCache(final String persistenceUnitName) {
+    if (persistenceUnitName != null) {
+      getEdmCache().remove(persistenceUnitName);
+    }
+  }
+
+  /**
+   * Removes the cached entity data models of all persistence units of this factory class.
+   */
+  public void clearEdmCache() {
+    EDM_CACHE.remove(getClass());
+  }
+
+  private ConcurrentMap<String, Edm> getEdmCache() {
+    ConcurrentMap<String, Edm> edmCache = EDM_CACHE.get(getClass());
+    if (edmCache == null) {
+      edmCache = new ConcurrentHashMap<String, Edm>();
+      ConcurrentMap<String, Edm> existingEdmCache = EDM_CACHE.putIfAbsent(getClass(), edmCache);
+      if (existingEdmCache != null) {
+        edmCache = existingEdmCache;
+      }
+    }
+    return edmCache;
+  }
+
   private void validatePreConditions() throws ODataJPARuntimeException {
 
     if (oDataJPAContext.getEntityManager() == null) {
@@ -224,4 +311,72 @@ public abstract class ODataJPAServiceFactory extends ODataServiceFactory {
     }
 
   }
+
+  /**
+   * Passes the requests of the entity data model to the JPA provider while the model is built.
+   * Afterwards the JPA provider and with it the JPA context of the first request is released;
+   * the frozen model only needs the schemas for late lookups.
+   */
+  private static class DetachableEdmProvider extends EdmProvider {
+    private EdmProvider delegate;
+    private List<Schema> schemas;
+    private List<AliasInfo> aliasInfos;
+
+    DetachableEdmProvider(final EdmProvider delegate) {
+      this.delegate = delegate;
+    }
+
+    void detach() throws ODataException {
+      schemas = delegate.getSchemas();
+      aliasInfos = delegate.getAliasInfos();
+      delegate = null;
+    }
+
+    @Override
+    public EntityContainerInfo getEntityContainerInfo(final String name) throws ODataException {
+      return delegate == null ? null : delegate.getEntityContainerInfo(name);
+    }
+
+    @Override
+    public EntityType getEntityType(final FullQualifiedName edmFQName) throws ODataException {
+      return delegate == null ? null : delegate.getEntityType(edmFQName);
+    }
+
+    @Override
+    public ComplexType getComplexType(final FullQualifiedName edmFQName) throws ODataException {
+      return delegate == null ? null : delegate.getComplexType(edmFQName);
+    }
+
+    @Override
+    public Association getAssociation(final FullQualifiedName edmFQName) throws ODataException {
+      return delegate == null ? null : delegate.getAssociation(edmFQName);
+    }
+
+    @Override
+    public EntitySet getEntitySet(final String entityContainer, final String name) throws ODataException {
+      return delegate == null ? null : delegate.getEntitySet(entityContainer, name);
+    }
+
+    @Override
+    public AssociationSet getAssociationSet(final String entityContainer, final FullQualifiedName association,
+        final String sourceEntitySetName, final String sourceEntitySetRole) throws ODataException {
+      return delegate == null ? null
+          : delegate.getAssociationSet(entityContainer, association, sourceEntitySetName, sourceEntitySetRole);
+    }
+
+    @Override
+    public FunctionImport getFunctionImport(final String entityContainer, final String name) throws ODataException {
+      return delegate == null ? null : delegate.getFunctionImport(entityContainer, name);
+    }
+
+    @Override
+    public List<Schema> getSchemas() throws ODataException {
+      return delegate == null ? schemas : delegate.getSchemas();
+    }
+
+    @Override
+    public List<AliasInfo> getAliasInfos() throws ODataException {
+      return delegate == null ? aliasInfos : delegate.getAliasInfos();
+    }
+  }
 }
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.api.access;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
+import org.apache.olingo.odata2.api.processor.ODataRequest;
+import org.apache.olingo.odata2.api.uri.PathSegment;
+
+/**
+ * The class configures the bulk execution of <code>$batch</code> change sets.
+ * <p>By default each update and delete of a change set is flushed to the database on its own.
+ * In bulk mode the changes of consecutive requests with the same method on the same entity set,
+ * e.g., a sequence of POST requests creating entities of one entity set, are flushed together when
+ * the sequence ends, so that the JPA provider can write them with JDBC batches. Properties of the
+ * entity manager can be set for the change set, e.g., to enable the JDBC batching of the provider.</p>
+ * <p>As the changes are written at the end of a sequence, a database error is reported for the change
+ * set as a whole, which is rolled back in any case, and values assigned when the changes are written,
+ * e.g., version attributes, are not contained in the responses. Bulk mode applies to resource local
+ * transactions.</p>
+ * <p>The instance counts the change sets, requests, and flushes; it is thread-safe and meant to be
+ * shared by all requests of one service, e.g., as a field of the service factory which is set on each
+ * {@link org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext}.</p>
+ */
+public class JPAChangeSetBulkMode {
+
+  private final Map<String, Object> entityManagerProperties;
+  private final AtomicLong changeSetCount = new AtomicLong();
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong flushCount = new AtomicLong();
+
+  public JPAChangeSetBulkMode() {
+    this(Collections.<String, Object> emptyMap());
+  }
+
+  /**
+   * @param entityManagerProperties the properties set on the entity manager for each change set;
+   * the names and values are specific to the JPA provider
+   */
+  public JPAChangeSetBulkMode(final Map<String, Object> entityManagerProperties) {
+    this.entityManagerProperties = new LinkedHashMap<String, Object>(entityManagerProperties);
+  }
+
+  /**
+   * @return the properties set on the entity manager for each change set
+   */
+  public Map<String, Object> getEntityManagerProperties() {
+    return Collections.unmodifiableMap(entityManagerProperties);
+  }
+
+  /**
+   * The method is called when the execution of a change set begins.
+   * @param entityManager the entity manager of the change set
+   */
+  public void beginChangeSet(final EntityManager entityManager) {
+    changeSetCount.incrementAndGet();
+    for (Entry<String, Object> property : entityManagerProperties.entrySet()) {
+      entityManager.setProperty(property.getKey(), property.getValue());
+    }
+  }
+
+  /**
+   * The method flushes the changes of the requests executed since the last flush.
+   * @param entityManager the entity manager of the change set
+   * @param requests the number of requests whose changes are flushed
+   */
+  public void flush(final EntityManager entityManager, final int requests) {
+    if (requests > 0) {
+      entityManager.flush();
+      flushCount.incrementAndGet();
+      requestCount.addAndGet(requests);
+    }
+  }
+
+  /**
+   * Returns the key of the sequence a request of a change set belongs to; consecutive requests
+   * with the same key are flushed together.
+   * @param request a request of a change set
+   * @return the key consisting of the method and the first path segment without key predicate
+   */
+  public static String getSequenceKey(final ODataRequest request) {
+    final ODataHttpMethod method = request.getMethod();
+    final List<PathSegment> segments = request.getPathInfo() == null ? null
+        : request.getPathInfo().getODataSegments();
+    if (segments == null || segments.isEmpty()) {
+      return String.valueOf(method);
+    }
+    final String path = segments.get(0).getPath();
+    final int keyStart = path.indexOf('(');
+    return method + " " + (keyStart < 0 ? path : path.substring(0, keyStart));
+  }
+
+  /**
+   * @return the number of change sets executed in bulk mode
+   */
+  public long getChangeSetCount() {
+    return changeSetCount.get();
+  }
+
+  /**
+   * @return the number of requests whose changes have been flushed
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * @return the number of flushes writing the changes of change sets to the database
+   */
+  public long getFlushCount() {
+    return flushCount.get();
+  }
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.api.access;
+
+import javax.persistence.EntityManager;
+
+import org.apache.olingo.odata2.api.uri.info.GetEntitySetUriInfo;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+
+/**
+ * The interface can be implemented to provide the count of <code>$inlinecount=allpages</code>
+ * in another way than with an exact <code>COUNT</code> query, e.g., as an estimate read from
+ * database statistics for very large tables.
+ * <p>The strategy is registered with
+ * {@link org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext#setCountStrategy(JPACountStrategy)}.
+ * It is not asked if the count is known from the page read already, i.e., if the page contains the
+ * last entity of the entity set.</p>
+ */
+public interface JPACountStrategy {
+
+  /**
+   * Returns the number of entities for <code>$inlinecount=allpages</code>.
+   * @param uriInfo the request for the entity set
+   * @param entityManager the entity manager of the request
+   * @return the number of entities or <code>null</code> to let the JPA processor count the
+   * entities with a query
+   * @throws ODataJPARuntimeException
+   */
+  public Long getCount(GetEntitySetUriInfo uriInfo, EntityManager entityManager) throws ODataJPARuntimeException;
+
+}
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.api.access;
+
+import java.util.Map;
+
+/**
+ * The interface represents an entity read with a projection query for <code>$select</code>
+ * (see {@link org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext#setSelectProjection(boolean)}).
+ * It replaces the JPA entity in the results of the JPA processor and contains the values
+ * of the selected, the key, and the ETag properties only.
+ */
+public interface JPAProjectedEntity {
+
+  /**
+   * @return the property values of the entity keyed by EDM property name
+   */
+  public Map<String, Object> getPropertyValues();
+
+}
@@ -53,6 +53,11 @@ public abstract class JPQLContext implements JPQLContextView {
    */
   protected JPQLContextType type;
   protected boolean pagingRequested = false;
+  /**
+   * @deprecated the library no longer reads the context bound to the thread;
+   * use the context returned by {@link JPQLContextBuilder#build()} instead
+   */
+  @Deprecated
   protected static final ThreadLocal<JPQLContext> jpqlContext = new ThreadLocal<JPQLContext>();
 
   /**
@@ -128,7 +133,7 @@ public abstract class JPQLContext implements JPQLContextView {
    */
   public final static JPQLContextBuilder createBuilder(final JPQLContextType contextType, final Object resultsView)
       throws ODataJPARuntimeException {
-    return JPQLContextBuilder.create(contextType, resultsView, false);
+    return JPQLContextBuilder.create(contextType, resultsView, false, false);
   }
 
   /**
@@ -149,20 +154,60 @@ public abstract class JPQLContext implements JPQLContextView {
   public final static JPQLContextBuilder createBuilder(final JPQLContextType contextType, final Object resultsView,
       final boolean withPaging)
       throws ODataJPARuntimeException {
-    return JPQLContextBuilder.create(contextType, resultsView, withPaging);
+    return JPQLContextBuilder.create(contextType, resultsView, withPaging, false);
   }
-  
-  protected static void setJPQLContext(JPQLContext context) {
+
+  /**
+   * the method returns an instance of type
+   * {@link org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContext.JPQLContextBuilder} based on the
+   * JPQLContextType. The context builder can be used for
+   * building different JPQL contexts.
+   * 
+   * @param contextType
+   * is the JPQLContextType
+   * @param resultsView
+   * is the OData request view
+   * @param withPaging
+   * indicates whether to build the context with paging
+   * @param withProjection
+   * indicates whether to select the properties requested with <code>$select</code> only
+   * @return an instance of type {@link org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContext.JPQLContextBuilder}
+   * @throws ODataJPARuntimeException
+   */
+  public final static JPQLContextBuilder createBuilder(final JPQLContextType contextType, final Object resultsView,
+      final boolean withPaging, final boolean withProjection)
+      throws ODataJPARuntimeException {
+    return JPQLContextBuilder.create(contextType, resultsView, withPaging, withProjection);
+  }
+
+  /**
+   * binds the context to the current thread
+   * @deprecated the library no longer reads the context bound to the thread;
+   * it is bound for callers of {@link #getJPQLContext()} only and will no longer be bound in a future release
+   */
+  @Deprecated
+  protected static void setJPQLContext(final JPQLContext context) {
     jpqlContext.set(context);
   }
-  
+
+  /**
+   * returns the context built last on the current thread while the library builds a query
+   * @deprecated use the context returned by {@link JPQLContextBuilder#build()} instead
+   */
+  @Deprecated
   public final static JPQLContext getJPQLContext() {
     return jpqlContext.get();
   }
-  
+
+  /**
+   * removes the context bound to the current thread
+   * @deprecated the library removes the context after building a query itself
+   */
+  @Deprecated
   public final static void removeJPQLContext() {
     jpqlContext.remove();
   }
+
   /**
    * The abstract class is extended by specific JPQLContext builder for
    * building JPQLContexts.
@@ -182,6 +227,8 @@ public abstract class JPQLContext implements JPQLContextView {
 
     protected boolean withPaging = false;
 
+    protected boolean withProjection = false;
+
     protected JPQLContextBuilder() {}
 
     /**
@@ -191,12 +238,16 @@ public abstract class JPQLContext implements JPQLContextView {
      * indicates the type of JPQLContextBuilder to instantiate.
      * @param resultsView
      * is the OData request view
+     * @param withPaging
+     * indicates whether to build the context with paging
+     * @param withProjection
+     * indicates whether to select the properties requested with <code>$select</code> only
      * @return an instance of type
      * {@link org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContext.JPQLContextBuilder}
      * @throws ODataJPARuntimeException
      */
     private static JPQLContextBuilder create(final JPQLContextType contextType, final Object resultsView,
-        final boolean withPaging)
+        final boolean withPaging, final boolean withProjection)
         throws ODataJPARuntimeException {
       JPQLContextBuilder contextBuilder =
           ODataJPAFactory.createFactory().getJPQLBuilderFactory().getContextBuilder(contextType);
@@ -205,6 +256,7 @@ public abstract class JPQLContext implements JPQLContextView {
       }
       contextBuilder.setResultsView(resultsView);
       contextBuilder.withPaging = withPaging;
+      contextBuilder.withProjection = withProjection;
       return contextBuilder;
     }
 
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.api.jpql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The class caches the JPQL statements generated for reading entity sets.
+ * <p>Statements are cached by the shape of the request, i.e., the entity set, the navigation path,
+ * and the system query options with all literals replaced by parameters; requests of the same shape
+ * are answered with the cached statement and only the literal values of the request are bound to it,
+ * without building the JPQL statement again. As the statements are identical, the JPA provider can
+ * reuse its compiled query as well.</p>
+ * <p>The cache holds at most the given number of statements and evicts the least recently used one.
+ * It is thread-safe and meant to be shared by all requests of one service, e.g., as a field of the
+ * service factory which is set on each {@link org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext};
+ * the statements depend on the entity data model and the persistence unit, so a cache must not be
+ * shared by different services.</p>
+ */
+public class JPQLStatementCache {
+
+  /** Default maximum number of cached statements. */
+  public static final int DEFAULT_MAX_ENTRIES = 256;
+
+  private final Map<String, CachedStatement> statements;
+  private long hitCount;
+  private long missCount;
+
+  public JPQLStatementCache() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * @param maxEntries the maximum number of cached statements
+   */
+  public JPQLStatementCache(final int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive");
+    }
+    statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, CachedStatement> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * The method returns the statement cached for the given request shape.
+   * @param shape the shape of the request
+   * @return the cached statement or <code>null</code>
+   */
+  public synchronized CachedStatement get(final String shape) {
+    final CachedStatement statement = statements.get(shape);
+    if (statement == null) {
+      missCount++;
+    } else {
+      hitCount++;
+    }
+    return statement;
+  }
+
+  /**
+   * The method caches the statement for the given request shape.
+   * @param shape the shape of the request
+   * @param statement the statement
+   */
+  public synchronized void put(final String shape, final CachedStatement statement) {
+    statements.put(shape, statement);
+  }
+
+  /**
+   * @return the number of requests answered with a cached statement
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return the number of requests for which the statement has been built
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return the number of cached statements
+   */
+  public synchronized int size() {
+    return statements.size();
+  }
+
+  /**
+   * The method removes all statements from the cache, e.g., after the entity data model has changed.
+   */
+  public synchronized void clear() {
+    statements.clear();
+  }
+
+  /**
+   * A cached JPQL statement together with its binding plan.
+   */
+  public static final class CachedStatement {
+
+    private final String statement;
+    private final String countStatement;
+    private final int[] parameterIndexes;
+
+    /**
+     * @param statement the JPQL statement
+     * @param countStatement the JPQL statement counting the entities of the statement, or <code>null</code>
+     * @param parameterIndexes the binding plan: the index of the positional parameter for each literal
+     * of the request in the order they are visited, or 0 if the literal is part of the statement
+     */
+    public CachedStatement(final String statement, final String countStatement, final int[] parameterIndexes) {
+      this.statement = statement;
+      this.countStatement = countStatement;
+      this.parameterIndexes = parameterIndexes;
+    }
+
+    public String getStatement() {
+      return statement;
+    }
+
+    public String getCountStatement() {
+      return countStatement;
+    }
+
+    public int[] getParameterIndexes() {
+      return parameterIndexes;
+    }
+  }
+}
@@ -26,7 +26,6 @@ import java.util.Calendar;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -60,6 +59,9 @@ import org.apache.olingo.odata2.api.uri.expression.PropertyExpression;
 import org.apache.olingo.odata2.api.uri.expression.SortOrder;
 import org.apache.olingo.odata2.api.uri.expression.UnaryExpression;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContext;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLSelectContextView;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLSelectSingleContextView;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatement;
 import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmMappingImpl;
 
@@ -72,29 +74,71 @@ import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmMappingImpl;
 public class ODataExpressionParser {
 
   public static final String EMPTY = ""; //$NON-NLS-1$
+  /**
+   * @deprecated no longer read or written by the parser
+   */
+  @Deprecated
   public static final ThreadLocal<Integer> methodFlag = new ThreadLocal<Integer>();
   public static final Character[] EMPTY_CHARACTER_ARRAY = new Character[0];
-  public static final ThreadLocal<Map<Integer, Object>> positionalParameters = new ThreadLocal<Map<Integer,Object>>();
-  
+  /**
+   * @deprecated the JPQL contexts own the positional parameters of their statement; see
+   * {@link #getPositionalParametersThreadLocal()}
+   */
+  @Deprecated
+  public static final ThreadLocal<Map<Integer, Object>> positionalParameters =
+      new ThreadLocal<Map<Integer, Object>>();
+
   /**
    * This method returns the parsed where condition corresponding to the filter input in the user query.
+   * The literals of the filter are bound as positional parameters starting with <code>?1</code>; as before,
+   * their values are provided by {@link #getPositionalParametersThreadLocal()} of the calling thread.
    *
    * @param whereExpression
-   * @param concurrentHashMap 
-   * @param index 
+   * @param tableAlias
    *
    * @return Parsed where condition String
    * @throws ODataException
+   * @deprecated binds the parameter values to the thread; use
+   * {@link #parseToJPAWhereExpression(CommonExpression, String, int, Map, EdmMapping)} with a map owned by the
+   * caller instead
    */
+  @Deprecated
   public static String parseToJPAWhereExpression(final CommonExpression whereExpression, final String tableAlias)
       throws ODataException {
     EdmMapping edmMapping = null;
-    return parseToJPAWhereExpression(whereExpression, tableAlias, 1, 
-        new ConcurrentHashMap<Integer,Object>(), edmMapping);
+    final Map<Integer, Object> parameters = new ConcurrentHashMap<Integer, Object>();
+    final String whereCondition = parseToJPAWhereExpression(whereExpression, tableAlias, 1, parameters, edmMapping);
+    bindPositionalParameters(parameters);
+    return whereCondition;
   }
   
-  public static String parseToJPAWhereExpression(final CommonExpression whereExpression, final String tableAlias, 
+  /**
+   * This method returns the parsed where condition corresponding to the filter input in the user query.
+   * The literals of the filter are bound as positional parameters; the parameters are numbered from the
+   * given index on, or from the index following the highest one contained in the map already, and are
+   * added to the map. Callers building one statement from several expressions pass the same map to number
+   * the parameters of the statement consecutively.
+   *
+   * @param whereExpression
+   * @param tableAlias
+   * @param index the index of the first positional parameter
+   * @param positionalParameters the positional parameters of the statement
+   * @param edmMapping
+   * @return Parsed where condition String
+   * @throws ODataException
+   */
+  public static String parseToJPAWhereExpression(final CommonExpression whereExpression, final String tableAlias,
       int index, Map<Integer,Object> positionalParameters,EdmMapping edmMapping) throws ODataException {
+    return parseToJPAWhereExpression(whereExpression, tableAlias, index, positionalParameters, edmMapping, false);
+  }
+
+  /*
+   * isComparedMethod is set for the left operand of an EQ or NE comparison, so that SUBSTRINGOF
+   * is not compared with true once more
+   */
+  private static String parseToJPAWhereExpression(final CommonExpression whereExpression, final String tableAlias,
+      int index, Map<Integer, Object> positionalParameters, EdmMapping edmMapping, final boolean isComparedMethod)
+      throws ODataException {
     switch (whereExpression.getKind()) {
     case UNARY:
       final UnaryExpression unaryExpression = (UnaryExpression) whereExpression;
@@ -124,14 +168,11 @@ public class ODataExpressionParser {
       if (binaryExpression.getLeftOperand().getKind() == ExpressionKind.METHOD) {
         operator = ((MethodExpression) binaryExpression.getLeftOperand()).getMethod();
       }
-      if (operator != null && ((binaryExpression.getOperator() == BinaryOperator.EQ) ||
-          (binaryExpression.getOperator() == BinaryOperator.NE))) {
-        if (operator == MethodOperator.SUBSTRINGOF) {
-          methodFlag.set(1);
-        }
-      }
+      final boolean isComparison = binaryExpression.getOperator() == BinaryOperator.EQ
+          || binaryExpression.getOperator() == BinaryOperator.NE;
       final String left = parseToJPAWhereExpression(binaryExpression.getLeftOperand(), tableAlias, 
-          getIndexValue(index, positionalParameters), positionalParameters, edmMapping);
+          getIndexValue(index, positionalParameters), positionalParameters, edmMapping,
+          operator == MethodOperator.SUBSTRINGOF && isComparison);
       edmMapping = getEdmMapping(binaryExpression);
       final String right = parseToJPAWhereExpression(binaryExpression.getRightOperand(), tableAlias, 
           getIndexValue(index, positionalParameters), positionalParameters, edmMapping);
@@ -262,8 +303,7 @@ public class ODataExpressionParser {
         third = third != null ? ", " + third : "";
         return String.format("SUBSTRING(%s, %s + 1 %s)", first, second, third);
       case SUBSTRINGOF:
-        if (methodFlag.get() != null && methodFlag.get() == 1) {
-          methodFlag.set(null);
+        if (isComparedMethod) {
           return String.format("(CASE WHEN (%s LIKE CONCAT('%%',CONCAT(%s,'%%')) ESCAPE '\\') "
               + "THEN TRUE ELSE FALSE END)",
               second, first);
@@ -289,7 +329,14 @@ public class ODataExpressionParser {
     }
   }
   
-  private static EdmMapping getEdmMapping(BinaryExpression binaryExpression) throws EdmException {
+  /**
+   * Returns the mapping of the property on the left side of a binary expression; literals on the
+   * right side are converted to the JPA type of this property.
+   * @param binaryExpression
+   * @return the mapping or <code>null</code> if the left operand is not a property
+   * @throws EdmException
+   */
+  public static EdmMapping getEdmMapping(BinaryExpression binaryExpression) throws EdmException {
     if(binaryExpression!=null && binaryExpression.getLeftOperand() instanceof PropertyExpression){
       PropertyExpression left = (PropertyExpression)binaryExpression.getLeftOperand();
       if(left != null && left.getEdmProperty() instanceof EdmElement){
@@ -301,14 +348,14 @@ public class ODataExpressionParser {
   }
   
   private static int getIndexValue(int index, Map<Integer, Object> map) {
-    if (map != null && !map.isEmpty()) {
-      for (Entry<Integer, Object> entry : map.entrySet()) {
-        index = entry.getKey();
+    if (map != null) {
+      for (Integer key : map.keySet()) {
+        if (key >= index) {
+          index = key + 1;
+        }
       }
-      return index + 1;
-    } else {
-      return index;
     }
+    return index;
   }
 
   /**
@@ -414,14 +461,39 @@ public class ODataExpressionParser {
 
   /**
    * This method evaluated the where expression for read of an entity based on the keys specified in the query.
+   * The key values are bound as positional parameters following the ones bound to the thread; as before,
+   * their values are provided by {@link #getPositionalParametersThreadLocal()} of the calling thread.
    *
    * @param keyPredicates
    * @return the evaluated where expression
+   * @deprecated reads and binds the parameter values of the thread; use
+   * {@link #parseKeyPredicates(List, String, Map)} with a map owned by the caller instead
    */
-
+  @Deprecated
   public static String parseKeyPredicates(final List<KeyPredicate> keyPredicates, final String tableAlias)
       throws ODataJPARuntimeException {
-    Map<Integer, Object> positionalParameters = new ConcurrentHashMap<Integer, Object>(); 
+    // the key values follow the parameters bound to the thread already
+    final Map<Integer, Object> parameters = new TreeMap<Integer, Object>();
+    if (positionalParameters.get() != null) {
+      parameters.putAll(positionalParameters.get());
+    }
+    final String keyFilters = parseKeyPredicates(keyPredicates, tableAlias, parameters);
+    bindPositionalParameters(parameters);
+    return keyFilters;
+  }
+
+  /**
+   * This method evaluated the where expression for read of an entity based on the keys specified in the query.
+   * The key values are bound as positional parameters following the ones contained in the map already,
+   * and are added to the map.
+   *
+   * @param keyPredicates
+   * @param tableAlias
+   * @param positionalParameters the positional parameters of the statement
+   * @return the evaluated where expression
+   */
+  public static String parseKeyPredicates(final List<KeyPredicate> keyPredicates, final String tableAlias,
+      final Map<Integer, Object> positionalParameters) throws ODataJPARuntimeException {
     String literal = null;
     String propertyName = null;
     EdmSimpleType edmSimpleType = null;
@@ -429,9 +501,7 @@ public class ODataExpressionParser {
     StringBuilder keyFilters = new StringBuilder();
     int i = 0;
     for (KeyPredicate keyPredicate : keyPredicates) {
-	  int index = null == getPositionalParametersThreadLocal() ||
-	    getPositionalParametersThreadLocal().size() == 0 ? 1 :
-		getIndexValue(1, getPositionalParametersThreadLocal());
+      int index = getIndexValue(1, positionalParameters);
       if (i > 0) {
         keyFilters.append(JPQLStatement.DELIMITER.SPACE + JPQLStatement.Operator.AND + JPQLStatement.DELIMITER.SPACE);
       }
@@ -569,11 +639,25 @@ public class ODataExpressionParser {
       uriLiteral = evaluateExpressionForNumbers(uriLiteral, edmSimpleType, edmMappedType, 
           positionalParameters, index);
     }
-    removePositionalParametersThreadLocal();
-    setPositionalParametersThreadLocal(positionalParameters);
     return uriLiteral;
   }
 
+  /**
+   * Returns the value a literal is bound to as positional parameter of a JPQL statement.
+   *
+   * @param uriLiteral the literal without type prefix and quotes
+   * @param edmSimpleType the type of the literal
+   * @param edmMappedType the JPA type of the compared property or <code>null</code>
+   * @return the value or <code>null</code> if the literal is written into the statement
+   * @throws ODataJPARuntimeException
+   */
+  public static Object getParameterValue(final String uriLiteral, final EdmSimpleType edmSimpleType,
+      final Class<?> edmMappedType) throws ODataJPARuntimeException {
+    Map<Integer, Object> parameters = new TreeMap<Integer, Object>();
+    evaluateComparingExpression(uriLiteral, edmSimpleType, edmMappedType, parameters, 1);
+    return parameters.get(1);
+  }
+
   private static String evaluateExpressionForNumbers(String uriLiteral, EdmSimpleType edmSimpleType,
       Class<?> edmMappedType, Map<Integer, Object> positionalParameters, int index) {
     Class<? extends Object> type = edmMappedType==null? edmSimpleType.getDefaultType():
@@ -661,20 +745,61 @@ public class ODataExpressionParser {
 
     return mapping != null ? mapping.getInternalName() : edmProperty.getName();
   }
+
+  /**
+   * @deprecated only the deprecated overloads without a parameter map read the parameters bound to the thread
+   */
+  @Deprecated
   public static void setPositionalParametersThreadLocal(final Map<Integer, Object> parameter) {
-    if (null != getPositionalParametersThreadLocal() && 
-        getPositionalParametersThreadLocal().size() > 0) {
-      parameter.putAll(getPositionalParametersThreadLocal());
+    if (null != positionalParameters.get() && positionalParameters.get().size() > 0) {
+      parameter.putAll(positionalParameters.get());
     }
     TreeMap<Integer, Object> map = new TreeMap<Integer, Object>(parameter);
     positionalParameters.set(map);
   }
-  
+
+  /**
+   * Returns the parameters set by {@link #setPositionalParametersThreadLocal(Map)} or by the deprecated overloads
+   * without a parameter map, or else the positional parameters of the JPQL context bound to the thread while
+   * a query is built.
+   * @deprecated use the parameterized query map of the JPQL context instead
+   */
+  @Deprecated
   public static Map<Integer, Object> getPositionalParametersThreadLocal() {
-    return positionalParameters.get();
+    if (positionalParameters.get() != null) {
+      return positionalParameters.get();
+    }
+    final JPQLContext context = JPQLContext.getJPQLContext();
+    Map<String, Map<Integer, Object>> parameterizedQueryMap = null;
+    if (context instanceof JPQLSelectContextView) {
+      parameterizedQueryMap = ((JPQLSelectContextView) context).getParameterizedQueryMap();
+    } else if (context instanceof JPQLSelectSingleContextView) {
+      parameterizedQueryMap = ((JPQLSelectSingleContextView) context).getParameterizedQueryMap();
+    }
+    if (parameterizedQueryMap == null || parameterizedQueryMap.isEmpty()) {
+      return null;
+    }
+    Map<Integer, Object> parameters = new TreeMap<Integer, Object>();
+    for (Map<Integer, Object> queryParameters : parameterizedQueryMap.values()) {
+      parameters.putAll(queryParameters);
+    }
+    return parameters;
   }
-  
+
+  /**
+   * @deprecated only the deprecated overloads without a parameter map bind parameters to the thread
+   */
+  @Deprecated
   public static void removePositionalParametersThreadLocal() {
     positionalParameters.remove();
   }
+
+  /*
+   * Provides the parameters of the deprecated overloads through getPositionalParametersThreadLocal()
+   */
+  private static void bindPositionalParameters(final Map<Integer, Object> parameters) {
+    if (!parameters.isEmpty()) {
+      positionalParameters.set(new TreeMap<Integer, Object>(parameters));
+    }
+  }
 }
@@ -26,7 +26,10 @@ import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataProcessor;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATransaction;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAChangeSetBulkMode;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPACountStrategy;
 import org.apache.olingo.odata2.jpa.processor.api.access.JPAPaging;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatementCache;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmExtension;
 
 public class ODataJPAContextImpl implements ODataJPAContext {
@@ -40,6 +43,11 @@ public class ODataJPAContextImpl implements ODataJPAContext {
   private String jpaEdmMappingModelName;
   private JPAEdmExtension jpaEdmExtension;
   private int pageSize = 0;
+  private boolean keysetPaging = false;
+  private boolean selectProjection = false;
+  private JPACountStrategy countStrategy;
+  private JPQLStatementCache statementCache;
+  private JPAChangeSetBulkMode changeSetBulkMode;
   private JPAPaging jpaPaging;
   private static final ThreadLocal<ODataContext> oDataContextThreadLocal = new ThreadLocal<ODataContext>();
   private boolean defaultNaming = true;
@@ -160,6 +168,56 @@ public class ODataJPAContextImpl implements ODataJPAContext {
     pageSize = size;
   }
 
+  @Override
+  public void setKeysetPaging(final boolean keysetPaging) {
+    this.keysetPaging = keysetPaging;
+  }
+
+  @Override
+  public boolean isKeysetPaging() {
+    return keysetPaging;
+  }
+
+  @Override
+  public void setSelectProjection(final boolean selectProjection) {
+    this.selectProjection = selectProjection;
+  }
+
+  @Override
+  public boolean isSelectProjection() {
+    return selectProjection;
+  }
+
+  @Override
+  public void setCountStrategy(final JPACountStrategy countStrategy) {
+    this.countStrategy = countStrategy;
+  }
+
+  @Override
+  public JPACountStrategy getCountStrategy() {
+    return countStrategy;
+  }
+
+  @Override
+  public void setJPQLStatementCache(final JPQLStatementCache statementCache) {
+    this.statementCache = statementCache;
+  }
+
+  @Override
+  public JPQLStatementCache getJPQLStatementCache() {
+    return statementCache;
+  }
+
+  @Override
+  public void setChangeSetBulkMode(final JPAChangeSetBulkMode bulkMode) {
+    changeSetBulkMode = bulkMode;
+  }
+
+  @Override
+  public JPAChangeSetBulkMode getChangeSetBulkMode() {
+    return changeSetBulkMode;
+  }
+
   @Override
   public void setPaging(final JPAPaging paging) {
     jpaPaging = paging;
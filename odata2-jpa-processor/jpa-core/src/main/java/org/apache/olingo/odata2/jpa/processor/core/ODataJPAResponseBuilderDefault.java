@@ -67,8 +67,11 @@ import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAResponseBuilder;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneContext;
 import org.apache.olingo.odata2.jpa.processor.api.access.JPAPaging;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAProjectedEntity;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
 import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAEntityParser;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAExpandPrefetcher;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAPage;
 import org.apache.olingo.odata2.jpa.processor.core.callback.JPAExpandCallBack;
 import org.apache.olingo.odata2.jpa.processor.core.callback.JPATombstoneCallBack;
 import org.apache.olingo.odata2.jpa.processor.core.callback.JPATombstoneCallBackFI;
@@ -96,7 +99,12 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
       List<Map<String, Object>> edmEntityList = null;
       JPAEntityParser jpaResultParser = new JPAEntityParser();
       final List<SelectItem> selectedItems = resultsView.getSelect();
-      if (selectedItems != null && !selectedItems.isEmpty()) {
+      if (!jpaEntities.isEmpty() && jpaEntities.get(0) instanceof JPAProjectedEntity) {
+        edmEntityList = new ArrayList<Map<String, Object>>(jpaEntities.size());
+        for (Object jpaEntity : jpaEntities) {
+          edmEntityList.add(((JPAProjectedEntity) jpaEntity).getPropertyValues());
+        }
+      } else if (selectedItems != null && !selectedItems.isEmpty()) {
         edmEntityList =
             jpaResultParser.parse2EdmEntityList(jpaEntities, buildSelectItemList(selectedItems, edmEntityType));
       } else {
@@ -105,6 +113,7 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
       expandList = resultsView.getExpand();
       if (expandList != null && !expandList.isEmpty()) {
         int count = 0;
+        new JPAExpandPrefetcher(oDataJPAContext.getEntityManager()).prefetch(jpaEntities, edmEntityType, expandList);
         List<EdmNavigationProperty> edmNavPropertyList = constructListofNavProperty(expandList);
         for (Object jpaEntity : jpaEntities) {
           Map<String, Object> relationShipMap = edmEntityList.get(count);
@@ -512,12 +521,13 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
       entityFeedPropertiesBuilder =
           EntityProviderWriteProperties.serviceRoot(pathInfo.getServiceRoot());
       JPAPaging paging = odataJPAContext.getPaging();
-      if (odataJPAContext.getPageSize() > 0 && paging != null && paging.getNextPage() > 0) {
+      final String nextSkipToken = getNextSkipToken(paging);
+      if (odataJPAContext.getPageSize() > 0 && nextSkipToken != null) {
         String nextLink =
             serviceRoot.relativize(pathInfo.getRequestUri()).toString();
         nextLink = percentEncodeNextLink(nextLink);
         nextLink += (nextLink != null ? nextLink.contains("?") ? "&" : "?" : "?")
-            + "$skiptoken=" + odataJPAContext.getPaging().getNextPage();
+            + "$skiptoken=" + nextSkipToken;
         entityFeedPropertiesBuilder.nextLink(nextLink);
       }
       entityFeedPropertiesBuilder.inlineCount(count);
@@ -569,12 +579,13 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
       entityFeedPropertiesBuilder =
           EntityProviderWriteProperties.serviceRoot(pathInfo.getServiceRoot());
       JPAPaging paging = odataJPAContext.getPaging();
-      if (odataJPAContext.getPageSize() > 0 && paging != null && paging.getNextPage() > 0) {
+      final String nextSkipToken = getNextSkipToken(paging);
+      if (odataJPAContext.getPageSize() > 0 && nextSkipToken != null) {
         String nextLink =
             serviceRoot.relativize(pathInfo.getRequestUri()).toString();
         nextLink = percentEncodeNextLink(nextLink);
         nextLink += (nextLink != null ? nextLink.contains("?") ? "&" : "?" : "?")
-            + "$skiptoken=" + odataJPAContext.getPaging().getNextPage();
+            + "$skiptoken=" + nextSkipToken;
         entityFeedPropertiesBuilder.nextLink(nextLink);
       }
       entityFeedPropertiesBuilder.inlineCount(count);
@@ -604,6 +615,17 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
     return entityFeedPropertiesBuilder.build();
   }
 
+  /*
+   * The skip token of a JPAPage may encode key values (keyset paging); any other paging continues with
+   * the number of its next page
+   */
+  private static String getNextSkipToken(final JPAPaging paging) {
+    if (paging instanceof JPAPage) {
+      return ((JPAPage) paging).getNextSkipToken();
+    }
+    return paging != null && paging.getNextPage() > 0 ? String.valueOf(paging.getNextPage()) : null;
+  }
+
   private static String percentEncodeNextLink(final String link) {
     if (link == null) {
       return null;
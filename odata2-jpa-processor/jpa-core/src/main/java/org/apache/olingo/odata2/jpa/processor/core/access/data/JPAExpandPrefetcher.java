@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Query;
+
+import org.apache.olingo.odata2.api.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmMapping;
+import org.apache.olingo.odata2.api.edm.EdmNavigationProperty;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.uri.NavigationPropertySegment;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatement;
+
+/**
+ * Loads the relationships requested with <code>$expand</code> for a list of JPA entities
+ * with one query per navigation property and level instead of one lazy load per entity.
+ * <p>For each navigation property the entities are read again by their keys with a
+ * <code>LEFT JOIN FETCH</code> on the relationship; the persistence context returns the
+ * same entity instances, so the relationships of the given entities are initialized
+ * afterwards and can be read without further database round trips. The targets of a
+ * navigation property are collected and prefetched in the same way for the next level
+ * of the expand tree.</p>
+ * <p>Prefetching is an optimization only: entity types without a single simple key and
+ * relationships which are already loaded are skipped and loaded lazily as before.</p>
+ */
+public class JPAExpandPrefetcher {
+
+  /** Maximum number of keys in one <code>IN</code> list. */
+  static final int MAX_KEYS_PER_QUERY = 500;
+
+  private static final String KEYS_PARAMETER = "keys";
+
+  private final EntityManager entityManager;
+  private final JPAEntityParser parser = new JPAEntityParser();
+  private PersistenceUnitUtil persistenceUnitUtil;
+
+  public JPAExpandPrefetcher(final EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  /**
+   * Prefetches the expanded relationships of the given JPA entities.
+   * @param jpaEntities JPA entities of the given entity type
+   * @param entityType the EDM entity type of the JPA entities
+   * @param expandList the expand paths as returned by the URI info
+   * @throws ODataJPARuntimeException
+   */
+  public void prefetch(final List<Object> jpaEntities, final EdmEntityType entityType,
+      final List<ArrayList<NavigationPropertySegment>> expandList) throws ODataJPARuntimeException {
+    if (entityManager == null || jpaEntities == null || jpaEntities.size() < 2
+        || expandList == null || expandList.isEmpty()) {
+      return;
+    }
+    try {
+      prefetch(jpaEntities, entityType, new ArrayList<List<NavigationPropertySegment>>(expandList), 0);
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+  }
+
+  private void prefetch(final List<Object> jpaEntities, final EdmEntityType entityType,
+      final List<List<NavigationPropertySegment>> paths, final int level)
+      throws EdmException, ODataJPARuntimeException {
+    // Group the paths by their navigation property on this level, keeping the request order.
+    Map<String, List<List<NavigationPropertySegment>>> pathsByNavigation =
+        new LinkedHashMap<String, List<List<NavigationPropertySegment>>>();
+    Map<String, NavigationPropertySegment> segments = new LinkedHashMap<String, NavigationPropertySegment>();
+    for (List<NavigationPropertySegment> path : paths) {
+      if (path.size() > level) {
+        final NavigationPropertySegment segment = path.get(level);
+        final String name = segment.getNavigationProperty().getName();
+        if (!pathsByNavigation.containsKey(name)) {
+          pathsByNavigation.put(name, new ArrayList<List<NavigationPropertySegment>>());
+          segments.put(name, segment);
+        }
+        pathsByNavigation.get(name).add(path);
+      }
+    }
+
+    for (Map.Entry<String, NavigationPropertySegment> entry : segments.entrySet()) {
+      final EdmNavigationProperty navigationProperty = entry.getValue().getNavigationProperty();
+      fetch(jpaEntities, entityType, navigationProperty);
+
+      final List<List<NavigationPropertySegment>> deeperPaths = pathsByNavigation.get(entry.getKey());
+      boolean hasDeeperLevel = false;
+      for (List<NavigationPropertySegment> path : deeperPaths) {
+        hasDeeperLevel |= path.size() > level + 1;
+      }
+      if (hasDeeperLevel) {
+        final List<Object> targets = collectTargets(jpaEntities, navigationProperty);
+        if (targets.size() > 1) {
+          prefetch(targets, entry.getValue().getTargetEntitySet().getEntityType(), deeperPaths, level + 1);
+        }
+      }
+    }
+  }
+
+  private void fetch(final List<Object> jpaEntities, final EdmEntityType entityType,
+      final EdmNavigationProperty navigationProperty) throws EdmException {
+    final List<EdmProperty> keyProperties = entityType.getKeyProperties();
+    final EdmMapping entityMapping = entityType.getMapping();
+    final EdmMapping navigationMapping = navigationProperty.getMapping();
+    if (keyProperties.size() != 1 || navigationMapping == null || navigationMapping.getInternalName() == null) {
+      return;
+    }
+    final String keyName = getInternalName(keyProperties.get(0));
+    if (keyName.indexOf('.') >= 0) {
+      return;
+    }
+    final String relationshipName = navigationMapping.getInternalName();
+
+    List<Object> keys = new ArrayList<Object>();
+    for (Object jpaEntity : jpaEntities) {
+      if (!isLoaded(jpaEntity, relationshipName)) {
+        final Object key = getIdentifier(jpaEntity);
+        if (key == null) {
+          return;
+        }
+        keys.add(key);
+      }
+    }
+    if (keys.size() < 2) {
+      return;
+    }
+
+    final String alias = "E1";
+    final String jpql = JPQLStatement.KEYWORD.SELECT + JPQLStatement.DELIMITER.SPACE + alias
+        + JPQLStatement.DELIMITER.SPACE + JPQLStatement.KEYWORD.FROM + JPQLStatement.DELIMITER.SPACE
+        + (entityMapping != null && entityMapping.getInternalName() != null ?
+            entityMapping.getInternalName() : entityType.getName())
+        + JPQLStatement.DELIMITER.SPACE + alias
+        + JPQLStatement.DELIMITER.SPACE + JPQLStatement.KEYWORD.LEFT_OUTER_JOIN
+        + JPQLStatement.DELIMITER.SPACE + "FETCH" + JPQLStatement.DELIMITER.SPACE
+        + alias + JPQLStatement.DELIMITER.PERIOD + relationshipName
+        + JPQLStatement.DELIMITER.SPACE + JPQLStatement.KEYWORD.WHERE + JPQLStatement.DELIMITER.SPACE
+        + alias + JPQLStatement.DELIMITER.PERIOD + keyName
+        + JPQLStatement.DELIMITER.SPACE + "IN" + JPQLStatement.DELIMITER.SPACE + ":" + KEYS_PARAMETER;
+
+    for (int start = 0; start < keys.size(); start += MAX_KEYS_PER_QUERY) {
+      final Query query = entityManager.createQuery(jpql);
+      query.setParameter(KEYS_PARAMETER, keys.subList(start, Math.min(start + MAX_KEYS_PER_QUERY, keys.size())));
+      query.getResultList();
+    }
+  }
+
+  private List<Object> collectTargets(final List<Object> jpaEntities, final EdmNavigationProperty navigationProperty)
+      throws ODataJPARuntimeException, EdmException {
+    final List<EdmNavigationProperty> navigationProperties = new ArrayList<EdmNavigationProperty>(1);
+    navigationProperties.add(navigationProperty);
+    // The same target may be reached from several entities; collect it only once.
+    Map<Object, Object> targets = new IdentityHashMap<Object, Object>();
+    List<Object> result = new ArrayList<Object>();
+    for (Object jpaEntity : jpaEntities) {
+      final Object value =
+          parser.parse2EdmNavigationValueMap(jpaEntity, navigationProperties).get(navigationProperty.getName());
+      if (value instanceof Collection<?>) {
+        for (Object target : (Collection<?>) value) {
+          if (target != null && targets.put(target, target) == null) {
+            result.add(target);
+          }
+        }
+      } else if (value != null && targets.put(value, value) == null) {
+        result.add(value);
+      }
+    }
+    return result;
+  }
+
+  private String getInternalName(final EdmProperty property) throws EdmException {
+    final EdmMapping mapping = property.getMapping();
+    return mapping != null && mapping.getInternalName() != null ? mapping.getInternalName() : property.getName();
+  }
+
+  private boolean isLoaded(final Object jpaEntity, final String attributeName) {
+    try {
+      return getPersistenceUnitUtil().isLoaded(jpaEntity, attributeName);
+    } catch (PersistenceException e) {
+      return false;
+    }
+  }
+
+  private Object getIdentifier(final Object jpaEntity) {
+    try {
+      return getPersistenceUnitUtil().getIdentifier(jpaEntity);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private PersistenceUnitUtil getPersistenceUnitUtil() {
+    if (persistenceUnitUtil == null) {
+      persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+    }
+    return persistenceUnitUtil;
+  }
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
+import org.apache.olingo.odata2.api.edm.EdmMapping;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleType;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeException;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAProjectedEntity;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
+
+/**
+ * <code>$skiptoken</code> for keyset paging. The token contains the key values of the last
+ * entity of a page; the next page starts after these key values.
+ * <p>The key values are written as EDM literals (each prefixed with its length) and encoded
+ * URL-safe in Base64. The token starts with a letter so that it can be distinguished from the
+ * numeric tokens of offset paging.</p>
+ */
+public final class JPAKeysetToken {
+
+  private static final String PREFIX = "K";
+  private static final String CHARSET = "UTF-8";
+  private static final char LENGTH_SEPARATOR = ':';
+
+  private JPAKeysetToken() {}
+
+  /**
+   * Checks whether the given <code>$skiptoken</code> is a keyset token.
+   * @param skipToken the <code>$skiptoken</code> or <code>null</code>
+   * @return <code>true</code> for a keyset token
+   */
+  public static boolean isKeysetToken(final String skipToken) {
+    return skipToken != null && skipToken.startsWith(PREFIX);
+  }
+
+  /**
+   * Creates the token for the given JPA entity.
+   * @param jpaEntity the last JPA entity of a page
+   * @param keyProperties the key properties of the entity type
+   * @return the token or <code>null</code> if a key value is <code>null</code>
+   * @throws ODataJPARuntimeException
+   */
+  public static String create(final Object jpaEntity, final List<EdmProperty> keyProperties)
+      throws ODataJPARuntimeException {
+    final Map<String, Object> keyValues = jpaEntity instanceof JPAProjectedEntity ?
+        ((JPAProjectedEntity) jpaEntity).getPropertyValues() :
+        new JPAEntityParser().parse2EdmPropertyValueMap(jpaEntity, keyProperties);
+    StringBuilder token = new StringBuilder();
+    try {
+      for (EdmProperty keyProperty : keyProperties) {
+        final Object value = keyValues.get(keyProperty.getName());
+        if (value == null) {
+          return null;
+        }
+        final String literal = ((EdmSimpleType) keyProperty.getType()).valueToString(value, EdmLiteralKind.DEFAULT,
+            null);
+        token.append(literal.length()).append(LENGTH_SEPARATOR).append(literal);
+      }
+      return PREFIX + Base64.encodeBase64URLSafeString(token.toString().getBytes(CHARSET));
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
+    } catch (UnsupportedEncodingException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
+    }
+  }
+
+  /**
+   * Reads the key values from the given token.
+   * @param skipToken a keyset token
+   * @param keyProperties the key properties of the entity type
+   * @return the key values in the order of the key properties, with the Java types of the JPA attributes
+   * @throws ODataJPARuntimeException if the token does not fit to the key properties
+   */
+  public static List<Object> parse(final String skipToken, final List<EdmProperty> keyProperties)
+      throws ODataJPARuntimeException {
+    List<Object> keyValues = new ArrayList<Object>();
+    try {
+      final String token = new String(Base64.decodeBase64(skipToken.substring(PREFIX.length())), CHARSET);
+      int position = 0;
+      for (EdmProperty keyProperty : keyProperties) {
+        final int separator = token.indexOf(LENGTH_SEPARATOR, position);
+        final int end = separator + 1 + Integer.parseInt(token.substring(position, separator));
+        keyValues.add(getValue(keyProperty, token.substring(separator + 1, end)));
+        position = end;
+      }
+      if (position != token.length()) {
+        throw invalidToken(skipToken, null);
+      }
+    } catch (RuntimeException e) { // malformed length or too short
+      throw invalidToken(skipToken, e);
+    } catch (EdmException e) {
+      throw invalidToken(skipToken, e);
+    } catch (UnsupportedEncodingException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
+    }
+    return keyValues;
+  }
+
+  private static Object getValue(final EdmProperty keyProperty, final String literal) throws EdmException {
+    final EdmSimpleType type = (EdmSimpleType) keyProperty.getType();
+    final EdmMapping mapping = keyProperty.getMapping();
+    if (mapping instanceof JPAEdmMapping && ((JPAEdmMapping) mapping).getJPAType() != null) {
+      try {
+        return type.valueOfString(literal, EdmLiteralKind.DEFAULT, null, ((JPAEdmMapping) mapping).getJPAType());
+      } catch (EdmSimpleTypeException e) {
+        // the JPA type is not supported by the EDM type; use its default type
+      }
+    }
+    return type.valueOfString(literal, EdmLiteralKind.DEFAULT, null, type.getDefaultType());
+  }
+
+  private static ODataJPARuntimeException invalidToken(final String skipToken, final Exception cause) {
+    return ODataJPARuntimeException.throwException(
+        ODataJPARuntimeException.GENERAL.addContent("Invalid $skiptoken " + skipToken), cause);
+  }
+}
@@ -31,6 +31,8 @@ public class JPAPage implements JPAPaging {
   private int startPage;
   private int nextPage;
   private List<Object> pagedEntries;
+  private String nextSkipToken;
+  private Long totalCount;
 
   protected JPAPage(final int startPage, final int nextPage, final List<Object> pagedEntities, final int pageSize) {
     this.pageSize = pageSize;
@@ -59,6 +61,43 @@ public class JPAPage implements JPAPaging {
     return startPage;
   }
 
+  /**
+   * Returns the <code>$skiptoken</code> of the next page; with keyset paging it encodes the key values
+   * of the last entity of this page, otherwise it is the number of the next page.
+   * @return the <code>$skiptoken</code> of the next page or <code>null</code> if there is no next page
+   */
+  public String getNextSkipToken() {
+    if (nextSkipToken != null) {
+      return nextSkipToken;
+    }
+    return nextPage > 0 ? String.valueOf(nextPage) : null;
+  }
+
+  /**
+   * Returns the number of all entities of the query if it is known from the page,
+   * i.e., if the query has returned less entities than requested.
+   * @return the number of entities or <code>null</code> if unknown
+   */
+  Long getTotalCount() {
+    return totalCount;
+  }
+
+  /**
+   * Replaces the entities of the page, e.g., by the entities converted from the rows of a projection.
+   * @param pagedEntities the entities of the page
+   */
+  void setPagedEntities(final List<Object> pagedEntities) {
+    pagedEntries = pagedEntities;
+  }
+
+  /**
+   * Sets the <code>$skiptoken</code> of the next page, replacing the number of the next page.
+   * @param nextSkipToken the token, e.g., a {@link JPAKeysetToken}
+   */
+  void setNextSkipToken(final String nextSkipToken) {
+    this.nextSkipToken = nextSkipToken;
+  }
+
   public static class JPAPageBuilder {
 
     private int pageSize;
@@ -67,6 +106,7 @@ public class JPAPage implements JPAPaging {
     private int top = -1;
     private int skip;
     private int skipToken;
+    private boolean keysetToken;
     private Query query;
     private List<Object> entities;
     private List<Object> pagedEntities;
@@ -125,7 +165,16 @@ public class JPAPage implements JPAPaging {
       }
       pagedEntities = query.getResultList();
       formulateNextPage();
-      return new JPAPage(startPage, nextPage, pagedEntities, pageSize);
+      JPAPage page = new JPAPage(startPage, nextPage, pagedEntities, pageSize);
+      // The query has been exhausted, so the entities before and on this page are all entities;
+      // an empty page after the first one does not tell how many entities have been skipped,
+      // and neither does a page following the keys of a keyset token.
+      final int firstResult = topSkip.skip == null ? 0 : topSkip.skip;
+      if (!keysetToken && (topSkip.top == null || pagedEntities.size() < topSkip.top)
+          && (!pagedEntities.isEmpty() || firstResult == 0)) {
+        page.totalCount = Long.valueOf(firstResult + pagedEntities.size());
+      }
+      return page;
     }
 
     private TopSkip formulateTopSkip() {
@@ -191,8 +240,10 @@ public class JPAPage implements JPAPaging {
     }
 
     public JPAPageBuilder skipToken(final String skipToken) throws NumberFormatException {
-      if (skipToken == null) {
+      if (skipToken == null || JPAKeysetToken.isKeysetToken(skipToken)) {
+        // a keyset token is resolved by the query itself
         this.skipToken = 0;
+        keysetToken = skipToken != null;
       } else {
         this.skipToken = new Integer(skipToken).intValue();
         if (this.skipToken < 0) {
@@ -35,6 +35,7 @@ import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmMapping;
 import org.apache.olingo.odata2.api.edm.EdmMultiplicity;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
 import org.apache.olingo.odata2.api.ep.entry.ODataEntry;
 import org.apache.olingo.odata2.api.exception.ODataBadRequestException;
 import org.apache.olingo.odata2.api.uri.UriInfo;
@@ -157,19 +158,24 @@ public class JPAProcessorImpl implements JPAProcessor {
       if (deltaToken != null) {
         ODataJPATombstoneContext.setDeltaToken(deltaToken);
       }
+      Long totalCount = null;
       if (listener != null && (!queryInfo.isTombstoneQuery() && listener.isTombstoneSupported())) {
         query.getResultList();
         List<Object> deltaResult =
             (List<Object>) ODataJPATombstoneContext.getDeltaResult(((EdmMapping) mapping).getInternalName());
         result = handlePaging(deltaResult, uriParserResultView);
       } else {
-        result = handlePaging(query, uriParserResultView);
+        JPAPage page = handlePaging(query, uriParserResultView, listener == null, queryInfo.getProjectedProperties());
+        result = page.getPagedEntities();
+        if (listener == null) {
+          totalCount = page.getTotalCount();
+        }
       }
       if (listener != null && listener.isTombstoneSupported()) {
         ODataJPATombstoneContext.setDeltaToken(listener.generateDeltaToken((List<Object>) result, query));
       }
       if(InlineCount.ALLPAGES.equals(uriParserResultView.getInlineCount())){
-        queryBuilder.getCount(uriParserResultView);
+        handleInlineCount(queryBuilder, queryInfo, uriParserResultView, listener == null, totalCount);
       }
       return result == null ? new ArrayList<Object>() : result;
     } catch (EdmException e) {
@@ -261,7 +267,7 @@ public class JPAProcessorImpl implements JPAProcessor {
       try{
         boolean isLocalTransaction = setTransaction();
         em.remove(selectedObject);
-        em.flush(); 
+        flush(isLocalTransaction);
         if (isLocalTransaction) {
           oDataJPAContext.getODataJPATransaction().commit();
         }
@@ -389,7 +395,7 @@ public class JPAProcessorImpl implements JPAProcessor {
       } else {
         return null;
       }
-      em.flush();
+      flush(isLocalTransaction);
       if (isLocalTransaction) {
         oDataJPAContext.getODataJPATransaction().commit();
       }
@@ -442,7 +448,9 @@ public class JPAProcessorImpl implements JPAProcessor {
     return page.getPagedEntities();
   }
 
-  private List<Object> handlePaging(final Query query, final GetEntitySetUriInfo uriParserResultView) {
+  private JPAPage handlePaging(final Query query, final GetEntitySetUriInfo uriParserResultView,
+      final boolean keysetPossible, final List<EdmProperty> projectedProperties)
+      throws ODataJPARuntimeException, EdmException {
 
     JPAPageBuilder pageBuilder = new JPAPageBuilder();
     pageBuilder.pageSize(oDataJPAContext.getPageSize())
@@ -459,10 +467,61 @@ public class JPAProcessorImpl implements JPAProcessor {
     }
 
     JPAPage page = pageBuilder.build();
+    if (projectedProperties != null) {
+      page.setPagedEntities(JPAProjection.fromRows(page.getPagedEntities(), projectedProperties));
+    }
+    if (keysetPossible && page.getNextPage() > 0 && isKeysetPaging(uriParserResultView)) {
+      final List<Object> pagedEntities = page.getPagedEntities();
+      page.setNextSkipToken(JPAKeysetToken.create(pagedEntities.get(pagedEntities.size() - 1),
+          uriParserResultView.getTargetEntitySet().getEntityType().getKeyProperties()));
+    }
     oDataJPAContext.setPaging(page);
 
-    return page.getPagedEntities();
+    return page;
+
+  }
 
+  /*
+   * The count of $inlinecount=allpages is taken from the page if the page contains the last entity,
+   * from the count strategy if there is one, or else counted with a query derived from the data query.
+   */
+  private void handleInlineCount(final JPAQueryBuilder queryBuilder, final JPAQueryInfo queryInfo,
+      final GetEntitySetUriInfo uriParserResultView, final boolean countWithDataQuery, final Long totalCount)
+      throws ODataJPARuntimeException {
+    Long count = totalCount;
+    if (count == null && oDataJPAContext.getCountStrategy() != null) {
+      count = oDataJPAContext.getCountStrategy().getCount(uriParserResultView, oDataJPAContext.getEntityManager());
+    }
+    if (count != null) {
+      queryBuilder.setInlineCount(uriParserResultView, count.toString());
+    } else if (countWithDataQuery) {
+      queryBuilder.getCount(uriParserResultView, queryInfo);
+    } else {
+      queryBuilder.getCount(uriParserResultView);
+    }
+  }
+
+  /*
+   * Keyset paging is possible if the entities are ordered by their keys only and the query
+   * has been built from the URI, so that it contains the key condition (see JPQLSelectContext).
+   */
+  private boolean isKeysetPaging(final GetEntitySetUriInfo uriParserResultView) {
+    return oDataJPAContext.getPageSize() > 0 && oDataJPAContext.isKeysetPaging()
+        && uriParserResultView.getOrderBy() == null && uriParserResultView.getSkip() == null
+        && (uriParserResultView.getNavigationSegments() == null
+        || uriParserResultView.getNavigationSegments().isEmpty());
+  }
+
+  /*
+   * Changes of a change set executed in bulk mode are flushed by the processor for a sequence
+   * of requests (see ODataJPADefaultProcessor.executeChangeSet); changes requested outside of
+   * a $batch request are flushed at once in any case.
+   */
+  private void flush(final boolean isLocalTransaction) {
+    if (isLocalTransaction || oDataJPAContext.getChangeSetBulkMode() == null
+        || oDataJPAContext.getODataContext() == null || !oDataJPAContext.getODataContext().isInBatchMode()) {
+      em.flush();
+    }
   }
 
   private boolean setTransaction() {
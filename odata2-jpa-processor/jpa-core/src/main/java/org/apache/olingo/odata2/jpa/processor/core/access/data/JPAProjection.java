@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.sql.Blob;
+import java.sql.Clob;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.odata2.api.edm.EdmConcurrencyMode;
+import org.apache.olingo.odata2.api.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmMapping;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmTypeKind;
+import org.apache.olingo.odata2.api.uri.SelectItem;
+import org.apache.olingo.odata2.api.uri.info.GetEntitySetUriInfo;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAProjectedEntity;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
+
+/**
+ * Entity read with a projection query for <code>$select</code>.
+ * <p>The projection selects the properties requested with <code>$select</code>, the key
+ * properties, and the properties used for the ETag, in this order and each once
+ * (see {@link #getProjectedProperties(GetEntitySetUriInfo)}); the rows of the projection
+ * query are converted into instances of this class with {@link #fromRows(List, List)}.</p>
+ */
+public final class JPAProjection implements JPAProjectedEntity {
+
+  private final Map<String, Object> propertyValues;
+
+  private JPAProjection(final Map<String, Object> propertyValues) {
+    this.propertyValues = propertyValues;
+  }
+
+  @Override
+  public Map<String, Object> getPropertyValues() {
+    return propertyValues;
+  }
+
+  /**
+   * Determines the properties to be read for the given request.
+   * @param uriInfo the request for an entity set
+   * @return the properties or <code>null</code> if the request cannot be answered with a projection,
+   * e.g., because it contains <code>$expand</code>, navigation, or selects complex properties
+   * @throws EdmException
+   */
+  public static List<EdmProperty> getProjectedProperties(final GetEntitySetUriInfo uriInfo) throws EdmException {
+    final List<SelectItem> selectItems = uriInfo.getSelect();
+    if (selectItems == null || selectItems.isEmpty()
+        || uriInfo.getExpand() != null && !uriInfo.getExpand().isEmpty()
+        || uriInfo.getNavigationSegments() != null && !uriInfo.getNavigationSegments().isEmpty()
+        || uriInfo.getFunctionImport() != null) {
+      return null;
+    }
+    final EdmEntityType entityType = uriInfo.getTargetEntitySet().getEntityType();
+    if (entityType.hasStream()) {
+      return null;
+    }
+
+    List<EdmProperty> properties = new ArrayList<EdmProperty>();
+    for (SelectItem selectItem : selectItems) {
+      if (selectItem.isStar() || !selectItem.getNavigationPropertySegments().isEmpty()) {
+        return null;
+      }
+      if (!add(properties, selectItem.getProperty())) {
+        return null;
+      }
+    }
+    for (EdmProperty keyProperty : entityType.getKeyProperties()) {
+      if (!add(properties, keyProperty)) {
+        return null;
+      }
+    }
+    for (String propertyName : entityType.getPropertyNames()) {
+      final EdmProperty property = (EdmProperty) entityType.getProperty(propertyName);
+      if (property.getFacets() != null
+          && property.getFacets().getConcurrencyMode() == EdmConcurrencyMode.Fixed
+          && !add(properties, property)) {
+        return null;
+      }
+    }
+    return properties;
+  }
+
+  /*
+   * Adds the property unless it is contained already; returns false if the
+   * property cannot be read with a projection.
+   */
+  private static boolean add(final List<EdmProperty> properties, final EdmProperty property) throws EdmException {
+    if (property.getType().getKind() != EdmTypeKind.SIMPLE) {
+      return false;
+    }
+    final EdmMapping mapping = property.getMapping();
+    if (mapping instanceof JPAEdmMapping && ((JPAEdmMapping) mapping).isVirtualAccess()
+        || mapping != null && mapping.getInternalName() != null && mapping.getInternalName().indexOf('.') >= 0) {
+      return false;
+    }
+    for (EdmProperty contained : properties) {
+      if (contained.getName().equals(property.getName())) {
+        return true;
+      }
+    }
+    properties.add(property);
+    return true;
+  }
+
+  /**
+   * Returns the JPA attribute name of a projected property.
+   * @param property the property
+   * @return the name used in the JPQL statement
+   * @throws EdmException
+   */
+  public static String getAttributeName(final EdmProperty property) throws EdmException {
+    final EdmMapping mapping = property.getMapping();
+    return mapping != null && mapping.getInternalName() != null ? mapping.getInternalName() : property.getName();
+  }
+
+  /**
+   * Converts the rows of a projection query.
+   * @param rows the result of the projection query; each row is an array of values in the order of the
+   * properties or a single value if only one property has been selected
+   * @param properties the projected properties
+   * @return the entities as list of {@link JPAProjectedEntity}
+   * @throws ODataJPARuntimeException
+   */
+  public static List<Object> fromRows(final List<?> rows, final List<EdmProperty> properties)
+      throws ODataJPARuntimeException {
+    List<Object> entities = new ArrayList<Object>(rows.size());
+    try {
+      for (Object row : rows) {
+        Map<String, Object> propertyValues = new HashMap<String, Object>();
+        if (properties.size() == 1) {
+          propertyValues.put(properties.get(0).getName(), convert(row));
+        } else {
+          final Object[] values = (Object[]) row;
+          for (int i = 0; i < properties.size(); i++) {
+            propertyValues.put(properties.get(i).getName(), convert(values[i]));
+          }
+        }
+        entities.add(new JPAProjection(propertyValues));
+      }
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+    return entities;
+  }
+
+  /*
+   * Converts the value as JPAEntityParser.getPropertyValue does for the result of a getter.
+   */
+  private static Object convert(final Object value) throws ODataJPARuntimeException {
+    if (value instanceof char[]) {
+      return String.valueOf((char[]) value);
+    } else if (value instanceof Character[]) {
+      return JPAEntityParser.toString((Character[]) value);
+    } else if (value instanceof Character) {
+      return JPAEntityParser.toString(new Character[] { (Character) value });
+    } else if (value instanceof Blob) {
+      return JPAEntityParser.getBytes((Blob) value);
+    } else if (value instanceof Clob) {
+      return JPAEntityParser.getString((Clob) value);
+    }
+    return value;
+  }
+}
@@ -22,20 +22,25 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Parameter;
 import javax.persistence.Query;
 import javax.persistence.TemporalType;
 import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.EntityType;
 
 import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.uri.UriInfo;
 import org.apache.olingo.odata2.api.uri.info.DeleteUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntityCountUriInfo;
@@ -56,8 +61,11 @@ import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLJoinSelectSingleConte
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLSelectContextView;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLSelectSingleContextView;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatement;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatementCache;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatementCache.CachedStatement;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
 import org.apache.olingo.odata2.jpa.processor.core.ODataExpressionParser;
+import org.apache.olingo.odata2.jpa.processor.core.jpql.JPQLSelectContext;
 
 public class JPAQueryBuilder {
 
@@ -72,10 +80,14 @@ public class JPAQueryBuilder {
 
   private EntityManager em = null;
   private int pageSize = 0;
+  private boolean selectProjection = false;
+  private JPQLStatementCache statementCache = null;
 
   public JPAQueryBuilder(ODataJPAContext odataJPAContext) {
     this.em = odataJPAContext.getEntityManager();
     this.pageSize = odataJPAContext.getPageSize();
+    this.selectProjection = odataJPAContext.isSelectProjection();
+    this.statementCache = odataJPAContext.getJPQLStatementCache();
   }
 
   public JPAQueryInfo build(GetEntitySetUriInfo uriInfo) throws ODataJPARuntimeException {
@@ -85,11 +97,14 @@ public class JPAQueryBuilder {
       ODataJPATombstoneEntityListener listener = getODataJPATombstoneEntityListener((UriInfo) uriInfo);
       if (listener != null) {
         query = listener.getQuery(uriInfo, em);
-        JPQLContext jpqlContext = JPQLContext.getJPQLContext();
-        query = getParameterizedQueryForListeners(jpqlContext, query);
+        query = getParameterizedQueryForListeners((UriInfo) uriInfo, UriInfoType.GetEntitySet, query);
       }
       if (query == null) {
-        query = buildQuery((UriInfo) uriInfo, UriInfoType.GetEntitySet);
+        final List<EdmProperty> projectedProperties =
+            selectProjection && listener == null ? JPAProjection.getProjectedProperties(uriInfo) : null;
+        query = buildQuery((UriInfo) uriInfo, UriInfoType.GetEntitySet, projectedProperties != null,
+            listener == null ? queryInfo : null);
+        queryInfo.setProjectedProperties(projectedProperties);
       } else {
         queryInfo.setTombstoneQuery(true);
       }
@@ -115,13 +130,7 @@ public class JPAQueryBuilder {
       ODataJPAQueryExtensionEntityListener listener = getODataJPAQueryEntityListener((UriInfo) uriInfo);
       if (listener != null) {
         query = listener.getQuery((GetEntitySetCountUriInfo)uriInfo, em);
-        if(query != null){
-          JPQLContextType contextType = determineJPQLContextType(info, UriInfoType.GetEntitySetCount);
-          JPQLContext jpqlContext = buildJPQLContext(contextType, info);
-          JPQLStatement jpqlStatement = JPQLStatement.createBuilder(jpqlContext).build();
-          jpqlContext.setJPQLStatement(jpqlStatement.toString());
-          query = getParameterizedQueryForListeners(jpqlContext, query);
-        }
+        query = getParameterizedQueryForListeners(info, UriInfoType.GetEntitySetCount, query);
       }
       if (query == null) {
         query = buildQuery((UriInfo) uriInfo, UriInfoType.GetEntitySetCount);
@@ -140,13 +149,49 @@ public class JPAQueryBuilder {
     List<Object> countList = countQuery.getResultList();
     info.setCount(count);
     if(countList!= null && !countList.isEmpty()){
-      String countNumber = countList.get(0).toString();
-      Map<String, String> customQueryOptions = new HashMap<String, String>();
-      customQueryOptions.put("count", countNumber);
-      info.setCustomQueryOptions(customQueryOptions);
+      setInlineCount(uriInfo, countList.get(0).toString());
     }
   }
 
+  /**
+   * Counts the entities for <code>$inlinecount</code> with the count statement derived from the
+   * data query built before, so that the filter is neither parsed nor translated again.
+   * Requests with navigation or with a query extension listener are counted
+   * with {@link #getCount(GetEntitySetUriInfo)}.
+   * @param uriInfo the request
+   * @param queryInfo the data query built with {@link #build(GetEntitySetUriInfo)}
+   * @throws ODataJPARuntimeException
+   */
+  public void getCount(GetEntitySetUriInfo uriInfo, JPAQueryInfo queryInfo) throws ODataJPARuntimeException {
+    if (queryInfo.getCountStatement() == null) {
+      getCount(uriInfo);
+      return;
+    }
+    List<?> countList = null;
+    try {
+      Query query = em.createQuery(queryInfo.getCountStatement());
+      setParameters(query, queryInfo.getCountParameters());
+      countList = query.getResultList();
+    } catch (IllegalArgumentException e) {
+      throw ODataJPARuntimeException.throwException(
+          ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
+    }
+    if (countList != null && !countList.isEmpty()) {
+      setInlineCount(uriInfo, countList.get(0).toString());
+    }
+  }
+
+  /**
+   * Passes the count for <code>$inlinecount</code> to the response builder.
+   * @param uriInfo the request
+   * @param count the number of entities
+   */
+  public void setInlineCount(GetEntitySetUriInfo uriInfo, String count) {
+    Map<String, String> customQueryOptions = new HashMap<String, String>();
+    customQueryOptions.put("count", count);
+    ((UriInfoImpl) uriInfo).setCustomQueryOptions(customQueryOptions);
+  }
+
 
   public Query build(GetEntityUriInfo uriInfo) throws ODataJPARuntimeException {
     Query query = null;
@@ -154,8 +199,7 @@ public class JPAQueryBuilder {
       ODataJPAQueryExtensionEntityListener listener = getODataJPAQueryEntityListener((UriInfo) uriInfo);
       if (listener != null) {
         query = listener.getQuery(uriInfo, em);
-        JPQLContext jpqlContext = JPQLContext.getJPQLContext();
-        query = getParameterizedQueryForListeners(jpqlContext, query);
+        query = getParameterizedQueryForListeners((UriInfo) uriInfo, UriInfoType.GetEntity, query);
       }
       if (query == null) {
         query = buildQuery((UriInfo) uriInfo, UriInfoType.GetEntity);
@@ -176,8 +220,7 @@ public class JPAQueryBuilder {
       ODataJPAQueryExtensionEntityListener listener = getODataJPAQueryEntityListener((UriInfo) uriInfo);
       if (listener != null) {
         query = listener.getQuery(uriInfo, em);
-        JPQLContext jpqlContext = JPQLContext.getJPQLContext();
-        query = getParameterizedQueryForListeners(jpqlContext, query);
+        query = getParameterizedQueryForListeners((UriInfo) uriInfo, UriInfoType.GetEntitySetCount, query);
       }
       if (query == null) {
         query = buildQuery((UriInfo) uriInfo, UriInfoType.GetEntitySetCount);
@@ -198,8 +241,7 @@ public class JPAQueryBuilder {
       ODataJPAQueryExtensionEntityListener listener = getODataJPAQueryEntityListener((UriInfo) uriInfo);
       if (listener != null) {
         query = listener.getQuery(uriInfo, em);
-        JPQLContext jpqlContext = JPQLContext.getJPQLContext();
-        query = getParameterizedQueryForListeners(jpqlContext, query);
+        query = getParameterizedQueryForListeners((UriInfo) uriInfo, UriInfoType.GetEntityCount, query);
       }
       if (query == null) {
         query = buildQuery((UriInfo) uriInfo, UriInfoType.GetEntityCount);
@@ -220,8 +262,7 @@ public class JPAQueryBuilder {
       ODataJPAQueryExtensionEntityListener listener = getODataJPAQueryEntityListener((UriInfo) uriInfo);
       if (listener != null) {
         query = listener.getQuery(uriInfo, em);
-        JPQLContext jpqlContext = JPQLContext.getJPQLContext();
-        query = getParameterizedQueryForListeners(jpqlContext, query);
+        query = getParameterizedQueryForListeners((UriInfo) uriInfo, UriInfoType.Delete, query);
       }
       if (query == null) {
         query = buildQuery((UriInfo) uriInfo, UriInfoType.Delete);
@@ -242,8 +283,7 @@ public class JPAQueryBuilder {
       ODataJPAQueryExtensionEntityListener listener = getODataJPAQueryEntityListener((UriInfo) uriInfo);
       if (listener != null) {
         query = listener.getQuery(uriInfo, em);
-        JPQLContext jpqlContext = JPQLContext.getJPQLContext();
-        query = getParameterizedQueryForListeners(jpqlContext, query);
+        query = getParameterizedQueryForListeners((UriInfo) uriInfo, UriInfoType.PutMergePatch, query);
       }
       if (query == null) {
         query = buildQuery((UriInfo) uriInfo, UriInfoType.PutMergePatch);
@@ -258,27 +298,92 @@ public class JPAQueryBuilder {
     return query;
   }
 
-  private Query buildQuery(UriInfo uriParserResultView, UriInfoType type)
-      throws EdmException,
-      ODataJPAModelException, ODataJPARuntimeException {
+  private Query buildQuery(UriInfo uriParserResultView, UriInfoType type) throws ODataException {
+    return buildQuery(uriParserResultView, type, false, null);
+  }
+
+  private Query buildQuery(UriInfo uriParserResultView, UriInfoType type, boolean withProjection,
+      JPAQueryInfo queryInfo) throws ODataException {
 
     JPQLContextType contextType = determineJPQLContextType(uriParserResultView, type);
-    JPQLContext jpqlContext = buildJPQLContext(contextType, uriParserResultView);
+    withProjection = withProjection && contextType == JPQLContextType.SELECT;
+
+    // Only entity set reads without listener pass the query info; their statements are cached.
+    JPAQueryShape shape = null;
+    if (statementCache != null && queryInfo != null) {
+      shape = JPAQueryShape.create(uriParserResultView, contextType, pageSize > 0, withProjection);
+      final CachedStatement cachedStatement = shape == null ? null : statementCache.get(shape.getKey());
+      if (cachedStatement != null) {
+        final Map<Integer, Object> parameters = shape.getParameters(cachedStatement.getParameterIndexes());
+        Query query = em.createQuery(cachedStatement.getStatement());
+        setParameters(query, parameters);
+        queryInfo.setCountStatement(cachedStatement.getCountStatement(), parameters);
+        return query;
+      }
+    }
+
+    JPQLContext jpqlContext = buildJPQLContext(contextType, uriParserResultView, withProjection);
     JPQLStatement jpqlStatement = JPQLStatement.createBuilder(jpqlContext).build();
     
-    Query query = em.createQuery(normalizeMembers(em, jpqlStatement.toString()));
-    getParameterizedQuery(contextType, jpqlContext, jpqlStatement, query);
+    final String statement = normalizeMembers(em, jpqlStatement.toString());
+    Query query = em.createQuery(statement);
+    final Map<Integer, Object> parameters = getParameters(contextType, jpqlContext, jpqlStatement.toString());
+    setParameters(query, parameters);
+    if (queryInfo != null) {
+      String countStatement = null;
+      if (jpqlContext instanceof JPQLSelectContext && jpqlContext.getType() == JPQLContextType.SELECT) {
+        final String unnormalizedCountStatement = buildCountStatement((JPQLSelectContext) jpqlContext);
+        countStatement = normalizeMembers(em, unnormalizedCountStatement);
+        queryInfo.setCountStatement(countStatement,
+            getParameters(JPQLContextType.SELECT_COUNT, jpqlContext, unnormalizedCountStatement));
+      }
+      if (shape != null) {
+        final CachedStatement cachedStatement = shape.createStatement(statement, countStatement, parameters);
+        if (cachedStatement != null) {
+          statementCache.put(shape.getKey(), cachedStatement);
+        }
+      }
+    }
     return query;
   }
 
+  /*
+   * SELECT COUNT(E1) FROM <entity> E1 [WHERE <filter>]; the keyset condition of a
+   * $skiptoken restricts the page, not the counted entities
+   */
+  private String buildCountStatement(final JPQLSelectContext selectContext) {
+    final String alias = selectContext.getJPAEntityAlias();
+    StringBuilder jpqlStatement = new StringBuilder();
+    jpqlStatement.append(JPQLStatement.KEYWORD.SELECT).append(JPQLStatement.DELIMITER.SPACE)
+        .append(JPQLStatement.KEYWORD.COUNT).append(JPQLStatement.DELIMITER.PARENTHESIS_LEFT)
+        .append(alias).append(JPQLStatement.DELIMITER.PARENTHESIS_RIGHT).append(JPQLStatement.DELIMITER.SPACE)
+        .append(JPQLStatement.KEYWORD.FROM).append(JPQLStatement.DELIMITER.SPACE)
+        .append(selectContext.getJPAEntityName()).append(JPQLStatement.DELIMITER.SPACE).append(alias);
+    if (selectContext.getFilterExpression() != null) {
+      jpqlStatement.append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.KEYWORD.WHERE)
+          .append(JPQLStatement.DELIMITER.SPACE).append(selectContext.getFilterExpression());
+    }
+    return jpqlStatement.toString();
+  }
+
   /**
    * @param contextType
    * @param jpqlContext
    * @param jpqlStatement
    * @param query
    */
-  private Query getParameterizedQuery(JPQLContextType contextType, JPQLContext jpqlContext, JPQLStatement jpqlStatement,
+  private Query getParameterizedQuery(JPQLContextType contextType, JPQLContext jpqlContext, String jpqlStatement,
       Query query) {
+    setParameters(query, getParameters(contextType, jpqlContext, jpqlStatement));
+    return query;
+  }
+
+  /*
+   * Collects the positional parameters of the parameterized expressions contained in the statement.
+   */
+  private Map<Integer, Object> getParameters(JPQLContextType contextType, JPQLContext jpqlContext,
+      String jpqlStatement) {
+    Map<Integer, Object> parameters = new TreeMap<Integer, Object>();
     Map<String, Map<Integer, Object>> parameterizedMap = null;
     if (contextType == JPQLContextType.JOIN || contextType == JPQLContextType.JOIN_COUNT) {
       parameterizedMap = ((JPQLJoinContextView) jpqlContext).getParameterizedQueryMap();
@@ -291,54 +396,48 @@ public class JPAQueryBuilder {
     }
     if (parameterizedMap != null && parameterizedMap.size() > 0) {
       for (Entry<String, Map<Integer, Object>> parameterEntry : parameterizedMap.entrySet()) {
-        if (jpqlStatement.toString().contains(parameterEntry.getKey())) {
-          Map<Integer, Object> positionalParameters = parameterEntry.getValue();
-          for (Entry<Integer, Object> param : positionalParameters.entrySet()) {
-            if (param.getValue() instanceof Calendar || param.getValue() instanceof Timestamp) {
-              query.setParameter(param.getKey(), (Calendar) param.getValue(), TemporalType.TIMESTAMP);
-            } else if (param.getValue() instanceof Time) {
-              query.setParameter(param.getKey(), (Time) param.getValue(), TemporalType.TIME);
-            } else {
-              query.setParameter(param.getKey(), param.getValue());
-            }
-          }
+        if (jpqlStatement.contains(parameterEntry.getKey())) {
+          parameters.putAll(parameterEntry.getValue());
         }
       }
-     }
-    return query;
+    }
+    return parameters;
+  }
+
+  private void setParameters(Query query, Map<Integer, Object> parameters) {
+    for (Entry<Integer, Object> param : parameters.entrySet()) {
+      if (param.getValue() instanceof Calendar || param.getValue() instanceof Timestamp) {
+        query.setParameter(param.getKey(), (Calendar) param.getValue(), TemporalType.TIMESTAMP);
+      } else if (param.getValue() instanceof Time) {
+        query.setParameter(param.getKey(), (Time) param.getValue(), TemporalType.TIME);
+      } else {
+        query.setParameter(param.getKey(), param.getValue());
+      }
+    }
   }
   
-  private Query getParameterizedQueryForListeners(JPQLContext jpqlContext, Query query) {
-    Map<String, Map<Integer, Object>> parameterizedMap = null;
-    String jpqlStatement = null;
-    if (jpqlContext instanceof JPQLJoinContextView) {
-      parameterizedMap = ((JPQLJoinContextView) jpqlContext).getParameterizedQueryMap();
-      jpqlStatement = ((JPQLJoinContextView) jpqlContext).getJPQLStatement();
-    } else if (jpqlContext instanceof JPQLJoinSelectSingleContextView) {
-      parameterizedMap = ((JPQLJoinSelectSingleContextView) jpqlContext).getParameterizedQueryMap();
-      jpqlStatement = ((JPQLJoinSelectSingleContextView) jpqlContext).getJPQLStatement();
-    } else if (jpqlContext instanceof JPQLSelectContextView) {
-      parameterizedMap = ((JPQLSelectContextView) jpqlContext).getParameterizedQueryMap();
-      jpqlStatement = ((JPQLSelectContextView) jpqlContext).getJPQLStatement();
-    } else if (jpqlContext instanceof JPQLSelectSingleContextView) {
-      parameterizedMap = ((JPQLSelectSingleContextView) jpqlContext).getParameterizedQueryMap();
-      jpqlStatement = ((JPQLSelectSingleContextView) jpqlContext).getJPQLStatement();
+  /*
+   * Binds the positional parameters of the request to the query of a listener. Listeners build their
+   * statements with a JPQL context of the request, see JPQLContext.createBuilder; each context built for
+   * a request numbers its parameters the same way, so the context is built here once more. Parameters
+   * the query does not declare are not bound.
+   */
+  private Query getParameterizedQueryForListeners(UriInfo uriInfo, UriInfoType type, Query query)
+      throws ODataException {
+    if (query == null) {
+      return null;
     }
-    if (parameterizedMap != null && parameterizedMap.size() > 0) {
-      for (Entry<String, Map<Integer, Object>> parameterEntry : parameterizedMap.entrySet()) {
-        if (jpqlStatement.contains(parameterEntry.getKey())) {
-          Map<Integer, Object> positionalParameters = parameterEntry.getValue();
-          for (Entry<Integer, Object> param : positionalParameters.entrySet()) {
-            if (param.getValue() instanceof Calendar || param.getValue() instanceof Timestamp) {
-              query.setParameter(param.getKey(), (Calendar) param.getValue(), TemporalType.TIMESTAMP);
-            } else if (param.getValue() instanceof Time) {
-              query.setParameter(param.getKey(), (Time) param.getValue(), TemporalType.TIME);
-            } else {
-              query.setParameter(param.getKey(), param.getValue());
-            }
-          }
-        }
+    JPQLContextType contextType = determineJPQLContextType(uriInfo, type);
+    JPQLContext jpqlContext = buildJPQLContext(contextType, uriInfo);
+    JPQLStatement jpqlStatement = JPQLStatement.createBuilder(jpqlContext).build();
+    Map<Integer, Object> parameters = getParameters(contextType, jpqlContext, jpqlStatement.toString());
+    if (!parameters.isEmpty()) {
+      Set<Integer> declaredPositions = new HashSet<Integer>();
+      for (Parameter<?> parameter : query.getParameters()) {
+        declaredPositions.add(parameter.getPosition());
       }
+      parameters.keySet().retainAll(declaredPositions);
+      setParameters(query, parameters);
     }
     return query;
   }
@@ -364,8 +463,15 @@ public class JPAQueryBuilder {
 
   public JPQLContext buildJPQLContext(JPQLContextType contextType, UriInfo uriParserResultView)
       throws ODataJPAModelException, ODataJPARuntimeException {
+    return buildJPQLContext(contextType, uriParserResultView, false);
+  }
+
+  private JPQLContext buildJPQLContext(JPQLContextType contextType, UriInfo uriParserResultView,
+      boolean withProjection) throws ODataJPAModelException, ODataJPARuntimeException {
     if (pageSize > 0 && (contextType == JPQLContextType.SELECT || contextType == JPQLContextType.JOIN)) {
-      return JPQLContext.createBuilder(contextType, uriParserResultView, true).build();
+      return JPQLContext.createBuilder(contextType, uriParserResultView, true, withProjection).build();
+    } else if (withProjection) {
+      return JPQLContext.createBuilder(contextType, uriParserResultView, false, true).build();
     } else {
       return JPQLContext.createBuilder(contextType, uriParserResultView).build();
     }
@@ -551,6 +657,9 @@ public class JPAQueryBuilder {
   final class JPAQueryInfo {
     private Query query = null;
     private boolean isTombstoneQuery = false;
+    private List<EdmProperty> projectedProperties = null;
+    private String countStatement = null;
+    private Map<Integer, Object> countParameters = null;
 
     public Query getQuery() {
       return query;
@@ -567,5 +676,34 @@ public class JPAQueryBuilder {
     public void setTombstoneQuery(boolean isTombstoneQuery) {
       this.isTombstoneQuery = isTombstoneQuery;
     }
+
+    /**
+     * @return the properties selected by a projection query or <code>null</code>
+     * if the query selects JPA entities
+     */
+    public List<EdmProperty> getProjectedProperties() {
+      return projectedProperties;
+    }
+
+    public void setProjectedProperties(List<EdmProperty> projectedProperties) {
+      this.projectedProperties = projectedProperties;
+    }
+
+    /**
+     * @return the statement counting the entities of the query or <code>null</code>
+     * if the query has been provided by a listener or reads entities by navigation
+     */
+    public String getCountStatement() {
+      return countStatement;
+    }
+
+    public Map<Integer, Object> getCountParameters() {
+      return countParameters;
+    }
+
+    public void setCountStatement(String countStatement, Map<Integer, Object> countParameters) {
+      this.countStatement = countStatement;
+      this.countParameters = countParameters;
+    }
   }
 }
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmMapping;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleType;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.uri.KeyPredicate;
+import org.apache.olingo.odata2.api.uri.NavigationSegment;
+import org.apache.olingo.odata2.api.uri.SelectItem;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+import org.apache.olingo.odata2.api.uri.expression.BinaryExpression;
+import org.apache.olingo.odata2.api.uri.expression.CommonExpression;
+import org.apache.olingo.odata2.api.uri.expression.FilterExpression;
+import org.apache.olingo.odata2.api.uri.expression.LiteralExpression;
+import org.apache.olingo.odata2.api.uri.expression.MethodExpression;
+import org.apache.olingo.odata2.api.uri.expression.UnaryExpression;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContextType;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatementCache.CachedStatement;
+import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
+import org.apache.olingo.odata2.jpa.processor.core.ODataExpressionParser;
+
+/**
+ * The literal-free shape of an entity set request, used as key of the
+ * {@link org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatementCache}.
+ * <p>The shape contains everything the generated JPQL statement depends on: the entity sets,
+ * the navigation path, <code>$filter</code>, <code>$orderby</code>, and the presence of
+ * <code>$top</code> and <code>$skip</code>. Literals bound as positional parameters are
+ * replaced by a parameter slot, their values are collected in the order they are visited;
+ * literals written into the statement, e.g., <code>null</code> or boolean literals, remain
+ * part of the shape.</p>
+ */
+public final class JPAQueryShape {
+
+  private final StringBuilder key = new StringBuilder();
+  private final List<Object> literalValues = new ArrayList<Object>();
+
+  private JPAQueryShape() {}
+
+  /**
+   * Determines the shape of the request.
+   * @param uriInfo the request
+   * @param contextType the type of the JPQL context the statement is built from
+   * @param withPaging whether server-side paging is active
+   * @param withProjection whether the statement selects the properties of <code>$select</code>
+   * @return the shape or <code>null</code> if the statement depends on values of the request
+   * which are not literals, e.g., a keyset <code>$skiptoken</code>
+   * @throws ODataException
+   */
+  public static JPAQueryShape create(final UriInfo uriInfo, final JPQLContextType contextType,
+      final boolean withPaging, final boolean withProjection) throws ODataException {
+    if (JPAKeysetToken.isKeysetToken(uriInfo.getSkipToken())) {
+      return null;
+    }
+    JPAQueryShape shape = new JPAQueryShape();
+    shape.key.append(contextType).append(withPaging ? " paged" : "").append(withProjection ? " projected" : "");
+    shape.key.append(' ').append(uriInfo.getStartEntitySet().getName());
+    shape.appendKeyPredicates(uriInfo.getKeyPredicates());
+    if (uriInfo.getNavigationSegments() != null) {
+      for (NavigationSegment navigationSegment : uriInfo.getNavigationSegments()) {
+        shape.key.append('/').append(navigationSegment.getNavigationProperty().getName());
+        shape.appendKeyPredicates(navigationSegment.getKeyPredicates());
+      }
+    }
+    shape.key.append(' ').append(uriInfo.getTargetEntitySet().getName());
+    if (withProjection) {
+      shape.key.append(" $select=");
+      for (SelectItem selectItem : uriInfo.getSelect()) {
+        shape.key.append(selectItem.isStar() ? "*" : selectItem.getProperty().getName()).append(',');
+      }
+    }
+    if (uriInfo.getFilter() != null) {
+      shape.key.append(" $filter=");
+      shape.appendExpression(uriInfo.getFilter(), null);
+    }
+    if (uriInfo.getOrderBy() != null) {
+      shape.key.append(" $orderby=").append(uriInfo.getOrderBy().getExpressionString());
+    }
+    shape.key.append(uriInfo.getTop() != null ? " $top" : "").append(uriInfo.getSkip() != null ? " $skip" : "");
+    return shape;
+  }
+
+  public String getKey() {
+    return key.toString();
+  }
+
+  List<Object> getLiteralValues() {
+    return literalValues;
+  }
+
+  /**
+   * Creates the cache entry for a statement built for this request.
+   * @param statement the JPQL statement
+   * @param countStatement the JPQL statement counting the entities or <code>null</code>
+   * @param parameters the positional parameters bound to the statement
+   * @return the cache entry or <code>null</code> if the parameters cannot be assigned to the
+   * literals of the request unambiguously, e.g., because two literals have the same value
+   */
+  public CachedStatement createStatement(final String statement, final String countStatement,
+      final Map<Integer, Object> parameters) {
+    int[] parameterIndexes = new int[literalValues.size()];
+    for (Entry<Integer, Object> parameter : parameters.entrySet()) {
+      int literal = -1;
+      for (int i = 0; i < literalValues.size(); i++) {
+        if (parameterIndexes[i] == 0 && literalValues.get(i) != null
+            && Arrays.deepEquals(new Object[] { literalValues.get(i) }, new Object[] { parameter.getValue() })) {
+          if (literal >= 0) {
+            return null;
+          }
+          literal = i;
+        }
+      }
+      if (literal < 0) {
+        return null;
+      }
+      parameterIndexes[literal] = parameter.getKey();
+    }
+    for (int i = 0; i < literalValues.size(); i++) {
+      if (literalValues.get(i) != null && parameterIndexes[i] == 0) {
+        return null;
+      }
+    }
+    return new CachedStatement(statement, countStatement, parameterIndexes);
+  }
+
+  /**
+   * Returns the positional parameters of this request for a cached statement.
+   * @param parameterIndexes the binding plan of the cached statement
+   * @return the values by parameter index
+   */
+  public Map<Integer, Object> getParameters(final int[] parameterIndexes) {
+    Map<Integer, Object> parameters = new TreeMap<Integer, Object>();
+    for (int i = 0; i < parameterIndexes.length; i++) {
+      if (parameterIndexes[i] > 0) {
+        parameters.put(parameterIndexes[i], literalValues.get(i));
+      }
+    }
+    return parameters;
+  }
+
+  private void appendKeyPredicates(final List<KeyPredicate> keyPredicates) throws ODataException {
+    if (keyPredicates == null || keyPredicates.isEmpty()) {
+      return;
+    }
+    key.append('(');
+    for (KeyPredicate keyPredicate : keyPredicates) {
+      final EdmProperty property = keyPredicate.getProperty();
+      key.append(property.getName()).append('=');
+      appendLiteral(keyPredicate.getLiteral(), (EdmSimpleType) property.getType(), property.getMapping(),
+          keyPredicate.getLiteral());
+      key.append(',');
+    }
+    key.append(')');
+  }
+
+  /*
+   * Visits the expression as ODataExpressionParser.parseToJPAWhereExpression does,
+   * so that the literals are converted with the same mapping.
+   */
+  private void appendExpression(final CommonExpression expression, final EdmMapping edmMapping)
+      throws ODataException {
+    switch (expression.getKind()) {
+    case FILTER:
+      appendExpression(((FilterExpression) expression).getExpression(), edmMapping);
+      break;
+    case UNARY:
+      final UnaryExpression unaryExpression = (UnaryExpression) expression;
+      key.append(unaryExpression.getOperator()).append('(');
+      appendExpression(unaryExpression.getOperand(), edmMapping);
+      key.append(')');
+      break;
+    case BINARY:
+      final BinaryExpression binaryExpression = (BinaryExpression) expression;
+      key.append('(');
+      appendExpression(binaryExpression.getLeftOperand(), edmMapping);
+      key.append(' ').append(binaryExpression.getOperator()).append(' ');
+      appendExpression(binaryExpression.getRightOperand(), ODataExpressionParser.getEdmMapping(binaryExpression));
+      key.append(')');
+      break;
+    case METHOD:
+      final MethodExpression methodExpression = (MethodExpression) expression;
+      key.append(methodExpression.getMethod()).append('(');
+      for (CommonExpression parameter : methodExpression.getParameters()) {
+        appendExpression(parameter, edmMapping);
+        key.append(',');
+      }
+      key.append(')');
+      break;
+    case LITERAL:
+      final LiteralExpression literal = (LiteralExpression) expression;
+      appendLiteral(EdmSimpleTypeKind.parseUriLiteral(literal.getUriLiteral()).getLiteral(),
+          (EdmSimpleType) literal.getEdmType(), edmMapping, literal.getUriLiteral());
+      break;
+    default:
+      // properties and members
+      key.append(expression.getUriLiteral());
+    }
+  }
+
+  private void appendLiteral(final String literal, final EdmSimpleType type, final EdmMapping edmMapping,
+      final String uriLiteral) throws EdmException, ODataException {
+    final Object value = ODataExpressionParser.getParameterValue(literal, type,
+        edmMapping instanceof JPAEdmMapping ? ((JPAEdmMapping) edmMapping).getJPAType() : null);
+    literalValues.add(value);
+    if (value == null) {
+      key.append(uriLiteral);
+    } else {
+      key.append('?').append(type.getName());
+    }
+  }
+}
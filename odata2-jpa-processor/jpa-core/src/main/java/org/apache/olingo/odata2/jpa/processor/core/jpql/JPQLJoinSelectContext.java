@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
@@ -81,7 +82,7 @@ public class JPQLJoinSelectContext extends JPQLSelectContext implements JPQLJoin
         setSelectExpression(generateSelectExpression());
 
         setWhereExpression(generateWhereExpression());
-        
+
         setJPQLContext(JPQLJoinSelectContext.this);
 
       } catch (ODataException e) {
@@ -100,12 +101,13 @@ public class JPQLJoinSelectContext extends JPQLSelectContext implements JPQLJoin
       String joinCondition = null;
       Map<String, Map<Integer, Object>> parameterizedExpressionMap = 
           new HashMap<String, Map<Integer,Object>>();
+      Map<Integer, Object> positionalParameters = new TreeMap<Integer, Object>();
       String entityAlias = generateJPAEntityAlias();
-      joinCondition = ODataExpressionParser.parseKeyPredicates(entitySetView.getKeyPredicates(), entityAlias);
+      joinCondition =
+          ODataExpressionParser.parseKeyPredicates(entitySetView.getKeyPredicates(), entityAlias, positionalParameters);
       
       if (joinCondition != null) { 
-        parameterizedExpressionMap.put(joinCondition, 
-            ODataExpressionParser.getPositionalParametersThreadLocal());
+        parameterizedExpressionMap.put(joinCondition, positionalParameters);
       }
       
       EdmEntityType entityType = entitySetView.getStartEntitySet().getEntityType();
@@ -129,11 +131,11 @@ public class JPQLJoinSelectContext extends JPQLSelectContext implements JPQLJoin
         String relationShipAlias = generateRelationShipAlias();
 
         joinCondition =
-            ODataExpressionParser.parseKeyPredicates(navigationSegment.getKeyPredicates(), relationShipAlias);
+            ODataExpressionParser.parseKeyPredicates(navigationSegment.getKeyPredicates(), relationShipAlias,
+                positionalParameters);
 
         if (joinCondition != null) { 
-          parameterizedExpressionMap.put(joinCondition, 
-              ODataExpressionParser.getPositionalParametersThreadLocal());
+          parameterizedExpressionMap.put(joinCondition, positionalParameters);
         }
         
         jpaOuterJoinClause =
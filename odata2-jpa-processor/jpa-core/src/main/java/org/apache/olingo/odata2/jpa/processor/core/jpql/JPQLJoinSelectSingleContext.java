@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
@@ -64,9 +65,9 @@ public class JPQLJoinSelectSingleContext extends JPQLSelectSingleContext impleme
         setKeyPredicates(entityView.getKeyPredicates());
 
         setSelectExpression(generateSelectExpression());
-        
+
         setJPQLContext(JPQLJoinSelectSingleContext.this);
-        
+
       } catch (EdmException e) {
         throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL, e);
       }
@@ -81,12 +82,13 @@ public class JPQLJoinSelectSingleContext extends JPQLSelectSingleContext impleme
       String joinCondition = null;
       Map<String, Map<Integer, Object>> parameterizedExpressionMap = 
           new HashMap<String, Map<Integer,Object>>();
+      Map<Integer, Object> positionalParameters = new TreeMap<Integer, Object>();
       String entityAlias = generateJPAEntityAlias();
-      joinCondition = ODataExpressionParser.parseKeyPredicates(entityView.getKeyPredicates(), entityAlias);
+      joinCondition =
+          ODataExpressionParser.parseKeyPredicates(entityView.getKeyPredicates(), entityAlias, positionalParameters);
 
       if (joinCondition != null) { 
-        parameterizedExpressionMap.put(joinCondition, 
-            ODataExpressionParser.getPositionalParametersThreadLocal());
+        parameterizedExpressionMap.put(joinCondition, positionalParameters);
       }
       
       EdmEntityType entityType = entityView.getStartEntitySet().getEntityType();
@@ -110,11 +112,11 @@ public class JPQLJoinSelectSingleContext extends JPQLSelectSingleContext impleme
         String relationShipAlias = generateRelationShipAlias();
 
         joinCondition =
-            ODataExpressionParser.parseKeyPredicates(navigationSegment.getKeyPredicates(), relationShipAlias);
+            ODataExpressionParser.parseKeyPredicates(navigationSegment.getKeyPredicates(), relationShipAlias,
+                positionalParameters);
 
         if (joinCondition != null) { 
-          parameterizedExpressionMap.put(joinCondition, 
-              ODataExpressionParser.getPositionalParametersThreadLocal());
+          parameterizedExpressionMap.put(joinCondition, positionalParameters);
         }
         
         jpaOuterJoinClause =
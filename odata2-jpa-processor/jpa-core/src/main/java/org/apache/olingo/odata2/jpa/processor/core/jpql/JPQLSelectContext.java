@@ -19,13 +19,14 @@
 package org.apache.olingo.odata2.jpa.processor.core.jpql;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.TreeMap;
 
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmMapping;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
 import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.uri.info.GetEntitySetUriInfo;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPAModelException;
@@ -33,13 +34,17 @@ import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeExcep
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContext;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContextType;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLSelectContextView;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatement;
 import org.apache.olingo.odata2.jpa.processor.core.ODataExpressionParser;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAKeysetToken;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAProjection;
 
 public class JPQLSelectContext extends JPQLContext implements JPQLSelectContextView {
 
   protected String selectExpression;
   protected String orderByCollection;
   protected String whereCondition;
+  protected String filterCondition;
   protected Map<String, Map<Integer, Object>> parameterizedQueryMap;
   protected String jpqlStatement;
 
@@ -85,6 +90,16 @@ public class JPQLSelectContext extends JPQLContext implements JPQLSelectContextV
     return whereCondition;
   }
 
+  /**
+   * Returns the condition of the where clause which results from <code>$filter</code>, i.e.,
+   * without the condition for the keys of a keyset <code>$skiptoken</code>; the positional
+   * parameters of the condition are contained in the parameterized query map.
+   * @return the condition or <code>null</code>
+   */
+  public String getFilterExpression() {
+    return filterCondition;
+  }
+
   public class JPQLSelectContextBuilder extends
   org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContext.JPQLContextBuilder {
 
@@ -121,9 +136,19 @@ public class JPQLSelectContext extends JPQLContext implements JPQLSelectContextV
           setSelectExpression(generateSelectExpression());
 
           setWhereExpression(generateWhereExpression());
-          
+          filterCondition = getWhereExpression();
+
+          if (pagingRequested && !isCountOnly && entitySetView.getOrderBy() == null
+              && entitySetView.getSkip() == null && JPAKeysetToken.isKeysetToken(entitySetView.getSkipToken())) {
+            final String keysetExpression = generateKeysetExpression();
+            setWhereExpression(getWhereExpression() == null ? keysetExpression
+                : JPQLStatement.DELIMITER.PARENTHESIS_LEFT + getWhereExpression()
+                    + JPQLStatement.DELIMITER.PARENTHESIS_RIGHT + JPQLStatement.DELIMITER.SPACE
+                    + JPQLStatement.Operator.AND + JPQLStatement.DELIMITER.SPACE + keysetExpression);
+          }
+
           setJPQLContext(JPQLSelectContext.this);
-          
+
         } catch (ODataException e) {
           throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
         }
@@ -145,7 +170,20 @@ public class JPQLSelectContext extends JPQLContext implements JPQLSelectContextV
      * Generate Select Clause
      */
     protected String generateSelectExpression() throws EdmException {
-      return getJPAEntityAlias();
+      final List<EdmProperty> projectedProperties =
+          withProjection && !isCountOnly ? JPAProjection.getProjectedProperties(entitySetView) : null;
+      if (projectedProperties == null) {
+        return getJPAEntityAlias();
+      }
+      StringBuilder selectExpression = new StringBuilder();
+      for (EdmProperty property : projectedProperties) {
+        if (selectExpression.length() > 0) {
+          selectExpression.append(JPQLStatement.DELIMITER.COMMA).append(JPQLStatement.DELIMITER.SPACE);
+        }
+        selectExpression.append(getJPAEntityAlias()).append(JPQLStatement.DELIMITER.PERIOD)
+            .append(JPAProjection.getAttributeName(property));
+      }
+      return selectExpression.toString();
     }
 
     /*
@@ -173,44 +211,74 @@ public class JPQLSelectContext extends JPQLContext implements JPQLSelectContextV
      */
     protected String generateWhereExpression() throws ODataException {
       if (entitySetView.getFilter() != null) {
-        String whereExpression = null;
-        if (null != parameterizedQueryMap && !parameterizedQueryMap.isEmpty()) {
-          int index = 1;
-          int previousIndex = 1;
-          for (Entry<String, Map<Integer, Object>> parameter : parameterizedQueryMap.entrySet()) {
-            index = getIndexValue(parameter.getValue());
-            if (index > previousIndex) {
-              previousIndex = index;
-            }
-          }
-          whereExpression = ODataExpressionParser.parseToJPAWhereExpression(
-              entitySetView.getFilter(), getJPAEntityAlias(), 
-              previousIndex, new ConcurrentHashMap<Integer, Object>(), null);
-        } else {
-          whereExpression = ODataExpressionParser.parseToJPAWhereExpression(
-              entitySetView.getFilter(), getJPAEntityAlias());
-        }
+        Map<Integer, Object> positionalParameters = new TreeMap<Integer, Object>();
+        String whereExpression = ODataExpressionParser.parseToJPAWhereExpression(
+            entitySetView.getFilter(), getJPAEntityAlias(), getNextParameterIndex(), positionalParameters, null);
         Map<String, Map<Integer, Object>> parameterizedExpressionMap = 
             new HashMap<String, Map<Integer,Object>>();
-        parameterizedExpressionMap.put(whereExpression, 
-            ODataExpressionParser.getPositionalParametersThreadLocal());
+        parameterizedExpressionMap.put(whereExpression, positionalParameters);
         setParameterizedQueryMap(parameterizedExpressionMap);
         return whereExpression;
       }
       return null;
     }
+
+    /*
+     * Generate the condition for the entities following the keys of a keyset $skiptoken;
+     * paged entities without $orderby are ordered by their keys (see generateOrderByFileds)
+     */
+    protected String generateKeysetExpression() throws ODataJPARuntimeException, EdmException {
+      final List<EdmProperty> keyProperties = entitySetView.getTargetEntitySet().getEntityType().getKeyProperties();
+      final List<Object> keyValues = JPAKeysetToken.parse(entitySetView.getSkipToken(), keyProperties);
+
+      int index = getNextParameterIndex();
+
+      // (k1 > ?1) OR (k1 = ?1 AND k2 > ?2) OR ...
+      Map<Integer, Object> positionalParameters = new HashMap<Integer, Object>();
+      StringBuilder expression = new StringBuilder().append(JPQLStatement.DELIMITER.PARENTHESIS_LEFT);
+      StringBuilder equalKeys = new StringBuilder();
+      for (int i = 0; i < keyProperties.size(); i++) {
+        final EdmMapping mapping = keyProperties.get(i).getMapping();
+        final String path = getJPAEntityAlias() + JPQLStatement.DELIMITER.PERIOD
+            + (mapping != null && mapping.getInternalName() != null ?
+                mapping.getInternalName() : keyProperties.get(i).getName());
+        final String parameter = "?" + index;
+        positionalParameters.put(index++, keyValues.get(i));
+        if (i > 0) {
+          expression.append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.Operator.OR)
+              .append(JPQLStatement.DELIMITER.SPACE);
+        }
+        expression.append(JPQLStatement.DELIMITER.PARENTHESIS_LEFT).append(equalKeys)
+            .append(path).append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.Operator.GT)
+            .append(JPQLStatement.DELIMITER.SPACE).append(parameter)
+            .append(JPQLStatement.DELIMITER.PARENTHESIS_RIGHT);
+        equalKeys.append(path).append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.Operator.EQ)
+            .append(JPQLStatement.DELIMITER.SPACE).append(parameter).append(JPQLStatement.DELIMITER.SPACE)
+            .append(JPQLStatement.Operator.AND).append(JPQLStatement.DELIMITER.SPACE);
+      }
+      expression.append(JPQLStatement.DELIMITER.PARENTHESIS_RIGHT);
+
+      Map<String, Map<Integer, Object>> parameterizedExpressionMap = new HashMap<String, Map<Integer, Object>>();
+      parameterizedExpressionMap.put(expression.toString(), positionalParameters);
+      setParameterizedQueryMap(parameterizedExpressionMap);
+      return expression.toString();
+    }
   }
   
-  private int getIndexValue(Map<Integer, Object> map) {
+  /*
+   * Returns the index following the positional parameters of the expressions generated so far, e.g.,
+   * of the join conditions; the parameters of one statement are numbered consecutively.
+   */
+  private int getNextParameterIndex() {
     int index = 1;
-    if (map != null) {
-      for (Entry<Integer, Object> entry : map.entrySet()) {
-        index = entry.getKey();
+    if (parameterizedQueryMap != null) {
+      for (Map<Integer, Object> parameters : parameterizedQueryMap.values()) {
+        for (Integer parameterIndex : parameters.keySet()) {
+          index = Math.max(index, parameterIndex + 1);
+        }
       }
-      return index + 1;
-    } else {
-      return index;
     }
+    return index;
   }
 
   @Override
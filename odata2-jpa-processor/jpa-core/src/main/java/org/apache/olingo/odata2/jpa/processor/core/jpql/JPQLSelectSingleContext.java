@@ -93,9 +93,9 @@ public class JPQLSelectSingleContext extends JPQLContext implements JPQLSelectSi
           setKeyPredicates(entityView.getKeyPredicates());
 
           setSelectExpression(generateSelectExpression());
-          
+
           setJPQLContext(JPQLSelectSingleContext.this);
-          
+
         } catch (EdmException e) {
           throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
         }
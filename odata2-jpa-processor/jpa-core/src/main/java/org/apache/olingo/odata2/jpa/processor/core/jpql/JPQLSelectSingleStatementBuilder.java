@@ -20,6 +20,7 @@ package org.apache.olingo.odata2.jpa.processor.core.jpql;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContextView;
@@ -59,13 +60,13 @@ public class JPQLSelectSingleStatementBuilder extends JPQLStatementBuilder {
     if (context.getKeyPredicates() != null && !context.getKeyPredicates().isEmpty()) {
       jpqlQuery.append(JPQLStatement.DELIMITER.SPACE);
       jpqlQuery.append(JPQLStatement.KEYWORD.WHERE).append(JPQLStatement.DELIMITER.SPACE);
+      Map<Integer, Object> positionalParameters = new TreeMap<Integer, Object>();
       String keyString = ODataExpressionParser
-          .parseKeyPredicates(context.getKeyPredicates(), context.getJPAEntityAlias());
+          .parseKeyPredicates(context.getKeyPredicates(), context.getJPAEntityAlias(), positionalParameters);
       Map<String, Map<Integer, Object>> parameterizedExpressionMap = 
           new HashMap<String, Map<Integer,Object>>();
       if (keyString != null) { 
-        parameterizedExpressionMap.put(keyString, 
-            ODataExpressionParser.getPositionalParametersThreadLocal());
+        parameterizedExpressionMap.put(keyString, positionalParameters);
         ((JPQLSelectSingleContext)this.context).setParameterizedQueryMap(parameterizedExpressionMap);
       }
       jpqlQuery.append(keyString);
@@ -27,6 +27,7 @@ import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeMap;
 
 import org.apache.olingo.odata2.api.edm.Edm;
 import org.apache.olingo.odata2.api.edm.EdmException;
@@ -260,9 +261,23 @@ public class ODataFilterExpressionParserTest {
     String whereExpression = parseWhereExpression(EXPRESSION_EQ[INPUT], false);
     whereExpression = replacePositionalParameters(whereExpression);
     assertEquals(EXPRESSION_EQ[OUTPUT], whereExpression);
-  
+
   }
-  
+
+  @Test
+  public void testParametersFollowGivenParameters() throws Exception {
+    FilterExpression expression = UriParser.parseFilter(edm, edm.getEntityType(NAMESPACE, ENTITY_NOTE),
+        "id eq '123' and id ne '456'");
+    Map<Integer, Object> parameters = new TreeMap<Integer, Object>();
+    parameters.put(1, "key");
+    String whereExpression =
+        ODataExpressionParser.parseToJPAWhereExpression(expression, TABLE_ALIAS, 2, parameters, null);
+    assertEquals("((E1.id LIKE ?2 ESCAPE '\\') AND (E1.id NOT LIKE ?3 ESCAPE '\\'))", whereExpression);
+    assertEquals("key", parameters.get(1));
+    assertEquals("123", parameters.get(2));
+    assertEquals("456", parameters.get(3));
+  }
+
   @Test
   public void testNullEqRelation() {
     String whereExpression = parseWhereExpression(EXPRESSION_NULL_EQ[INPUT], false);
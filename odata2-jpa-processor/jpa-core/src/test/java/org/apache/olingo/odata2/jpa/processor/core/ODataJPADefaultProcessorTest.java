@@ -327,6 +327,10 @@ public class ODataJPADefaultProcessorTest extends JPAEdmTestModelView {
   private ODataJPAContext getLocalmockODataJPAContext() {
     ODataJPAContext odataJPAContext = EasyMock.createMock(ODataJPAContext.class);
     EasyMock.expect(odataJPAContext.getPageSize()).andReturn(0).anyTimes();
+    EasyMock.expect(odataJPAContext.isSelectProjection()).andReturn(false).anyTimes();
+    EasyMock.expect(odataJPAContext.getCountStrategy()).andReturn(null).anyTimes();
+    EasyMock.expect(odataJPAContext.getJPQLStatementCache()).andReturn(null).anyTimes();
+    EasyMock.expect(odataJPAContext.getChangeSetBulkMode()).andReturn(null).anyTimes();
     EasyMock.expect(odataJPAContext.getPersistenceUnitName()).andStubReturn("salesorderprocessing");
     EasyMock.expect(odataJPAContext.getEntityManagerFactory()).andStubReturn(mockEntityManagerFactory());
     EasyMock.expect(odataJPAContext.getODataJPATransaction()).andStubReturn(getLocalJpaTransaction());
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.core.edm.provider.EdmImplProv;
+import org.apache.olingo.odata2.jpa.processor.core.mock.ODataJPAContextMock;
+import org.apache.olingo.odata2.jpa.processor.core.mock.ODataJPAServiceFactoryMock;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ODataJPAServiceFactoryTest {
+
+  @Before
+  public void clearEdmCache() {
+    new ODataJPAServiceFactoryMock(mockODataContext()).clearEdmCache();
+  }
+
+  @Test
+  public void edmIsBuiltForEveryRequestByDefault() throws ODataException {
+    ODataJPAServiceFactoryMock factory = new ODataJPAServiceFactoryMock(mockODataContext());
+    Edm edm1 = factory.createService(mockODataContext()).getEntityDataModel();
+    Edm edm2 = factory.createService(mockODataContext()).getEntityDataModel();
+    assertNotSame(edm1, edm2);
+  }
+
+  @Test
+  public void edmIsCachedPerPersistenceUnit() throws ODataException {
+    ODataJPAServiceFactoryMock factory = new ODataJPAServiceFactoryMock(mockODataContext());
+    factory.enableEdmCaching();
+    Edm edm1 = factory.createService(mockODataContext()).getEntityDataModel();
+    assertSame(edm1, factory.createService(mockODataContext()).getEntityDataModel());
+
+    factory.invalidateEdmCache(ODataJPAContextMock.PERSISTENCE_UNIT_NAME);
+    Edm edm2 = factory.createService(mockODataContext()).getEntityDataModel();
+    assertNotSame(edm1, edm2);
+    factory.clearEdmCache();
+    assertNotSame(edm2, factory.createService(mockODataContext()).getEntityDataModel());
+  }
+
+  @Test
+  public void edmIsCachedPerFactoryClass() throws ODataException {
+    // the runtime creates a factory instance for each request
+    ODataJPAServiceFactoryMock factory = new ODataJPAServiceFactoryMock(mockODataContext());
+    factory.enableEdmCaching();
+    ODataJPAServiceFactoryMock nextFactory = new ODataJPAServiceFactoryMock(mockODataContext());
+    nextFactory.enableEdmCaching();
+    Edm edm = factory.createService(mockODataContext()).getEntityDataModel();
+    assertSame(edm, nextFactory.createService(mockODataContext()).getEntityDataModel());
+
+    ODataJPAServiceFactoryMock otherFactory = new ODataJPAServiceFactoryMock(mockODataContext()) {};
+    otherFactory.enableEdmCaching();
+    assertNotSame(edm, otherFactory.createService(mockODataContext()).getEntityDataModel());
+    otherFactory.clearEdmCache();
+  }
+
+  @Test
+  public void cachedEdmReleasesJPAContext() throws ODataException {
+    ODataJPAServiceFactoryMock factory = new ODataJPAServiceFactoryMock(mockODataContext());
+    factory.enableEdmCaching();
+    Edm edm = factory.createService(mockODataContext()).getEntityDataModel();
+    // the provider behind the frozen model only serves the schemas read while the model was built
+    assertNotNull(((EdmImplProv) edm).getEdmProvider().getSchemas());
+    assertEquals(null, ((EdmImplProv) edm).getEdmProvider().getEntityContainerInfo(null));
+  }
+
+  private ODataContext mockODataContext() {
+    ODataContext context = EasyMock.createMock(ODataContext.class);
+    EasyMock.replay(context);
+    return context;
+  }
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.apache.olingo.odata2.api.batch.BatchHandler;
+import org.apache.olingo.odata2.api.batch.BatchResponsePart;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.processor.ODataRequest;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.uri.PathInfo;
+import org.apache.olingo.odata2.api.uri.PathSegment;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPADefaultProcessor;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPATransaction;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAChangeSetBulkMode;
+import org.easymock.EasyMock;
+import org.easymock.IMocksControl;
+import org.junit.Test;
+
+public class JPAChangeSetBulkModeTest {
+
+  @Test
+  public void sequenceKey() {
+    assertEquals("POST SalesOrders", JPAChangeSetBulkMode.getSequenceKey(mockRequest(ODataHttpMethod.POST,
+        "SalesOrders")));
+    assertEquals("PUT SalesOrders", JPAChangeSetBulkMode.getSequenceKey(mockRequest(ODataHttpMethod.PUT,
+        "SalesOrders(2L)")));
+    assertEquals("DELETE", JPAChangeSetBulkMode.getSequenceKey(mockRequest(ODataHttpMethod.DELETE, null)));
+  }
+
+  @Test
+  public void beginChangeSet() {
+    Map<String, Object> properties = new HashMap<String, Object>();
+    properties.put("eclipselink.jdbc.batch-writing", "JDBC");
+    final JPAChangeSetBulkMode bulkMode = new JPAChangeSetBulkMode(properties);
+
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    em.setProperty("eclipselink.jdbc.batch-writing", "JDBC");
+    EasyMock.replay(em);
+    bulkMode.beginChangeSet(em);
+    EasyMock.verify(em);
+    assertEquals(1, bulkMode.getChangeSetCount());
+  }
+
+  @Test
+  public void flush() {
+    final JPAChangeSetBulkMode bulkMode = new JPAChangeSetBulkMode();
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    em.flush();
+    EasyMock.replay(em);
+    bulkMode.flush(em, 3);
+    bulkMode.flush(em, 0);
+    EasyMock.verify(em);
+    assertEquals(1, bulkMode.getFlushCount());
+    assertEquals(3, bulkMode.getRequestCount());
+  }
+
+  @Test
+  public void changeSetFlushedPerSequence() throws Exception {
+    final JPAChangeSetBulkMode bulkMode = new JPAChangeSetBulkMode();
+    final List<ODataRequest> requests = Arrays.asList(
+        mockRequest(ODataHttpMethod.POST, "SalesOrders"),
+        mockRequest(ODataHttpMethod.POST, "SalesOrders"),
+        mockRequest(ODataHttpMethod.PUT, "SalesOrders(2L)"),
+        mockRequest(ODataHttpMethod.POST, "SalesOrders"));
+    final ODataResponse created = ODataResponse.status(HttpStatusCodes.CREATED).build();
+
+    IMocksControl control = EasyMock.createStrictControl();
+    EntityManager em = control.createMock(EntityManager.class);
+    BatchHandler handler = control.createMock(BatchHandler.class);
+    EasyMock.expect(handler.handleRequest(requests.get(0))).andReturn(created);
+    EasyMock.expect(handler.handleRequest(requests.get(1))).andReturn(created);
+    em.flush();
+    EasyMock.expect(handler.handleRequest(requests.get(2))).andReturn(created);
+    em.flush();
+    EasyMock.expect(handler.handleRequest(requests.get(3))).andReturn(created);
+    em.flush();
+    control.replay();
+    ODataJPATransaction transaction = mockTransaction(true);
+
+    final BatchResponsePart part = new ODataJPADefaultProcessor(mockContext(bulkMode, em, transaction)) {}
+        .executeChangeSet(handler, requests);
+    control.verify();
+    EasyMock.verify(transaction);
+    assertTrue(part.isChangeSet());
+    assertEquals(4, part.getResponses().size());
+    assertEquals(1, bulkMode.getChangeSetCount());
+    assertEquals(3, bulkMode.getFlushCount());
+    assertEquals(4, bulkMode.getRequestCount());
+  }
+
+  @Test
+  public void changeSetRolledBackOnFailedFlush() throws Exception {
+    final JPAChangeSetBulkMode bulkMode = new JPAChangeSetBulkMode();
+    final List<ODataRequest> requests = Arrays.asList(mockRequest(ODataHttpMethod.POST, "SalesOrders"));
+
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    em.flush();
+    EasyMock.expectLastCall().andThrow(new PersistenceException("constraint violation"));
+    BatchHandler handler = EasyMock.createMock(BatchHandler.class);
+    EasyMock.expect(handler.handleRequest(requests.get(0)))
+        .andReturn(ODataResponse.status(HttpStatusCodes.CREATED).build());
+    EasyMock.replay(em, handler);
+    ODataJPATransaction transaction = mockTransaction(false);
+
+    try {
+      new ODataJPADefaultProcessor(mockContext(bulkMode, em, transaction)) {}.executeChangeSet(handler, requests);
+      fail("Expected an ODataException");
+    } catch (ODataException e) {
+      assertTrue(e.getCause() instanceof PersistenceException);
+    }
+    EasyMock.verify(em, handler, transaction);
+    assertEquals(0, bulkMode.getFlushCount());
+  }
+
+  private ODataJPATransaction mockTransaction(final boolean commit) {
+    ODataJPATransaction transaction = EasyMock.createStrictMock(ODataJPATransaction.class);
+    transaction.begin();
+    if (commit) {
+      transaction.commit();
+    } else {
+      EasyMock.expect(transaction.isActive()).andReturn(true);
+      transaction.rollback();
+    }
+    EasyMock.replay(transaction);
+    return transaction;
+  }
+
+  private ODataJPAContext mockContext(final JPAChangeSetBulkMode bulkMode, final EntityManager em,
+      final ODataJPATransaction transaction) {
+    ODataJPAContext context = EasyMock.createNiceMock(ODataJPAContext.class);
+    EasyMock.expect(context.getChangeSetBulkMode()).andStubReturn(bulkMode);
+    EasyMock.expect(context.getEntityManager()).andStubReturn(em);
+    EasyMock.expect(context.getODataJPATransaction()).andStubReturn(transaction);
+    EasyMock.expect(context.isContainerManaged()).andStubReturn(true);
+    EasyMock.replay(context);
+    return context;
+  }
+
+  private ODataRequest mockRequest(final ODataHttpMethod method, final String path) {
+    PathInfo pathInfo = EasyMock.createMock(PathInfo.class);
+    if (path == null) {
+      EasyMock.expect(pathInfo.getODataSegments()).andStubReturn(Collections.<PathSegment> emptyList());
+    } else {
+      PathSegment segment = EasyMock.createMock(PathSegment.class);
+      EasyMock.expect(segment.getPath()).andStubReturn(path);
+      EasyMock.replay(segment);
+      EasyMock.expect(pathInfo.getODataSegments()).andStubReturn(Arrays.asList(segment));
+    }
+    EasyMock.replay(pathInfo);
+    ODataRequest request = EasyMock.createMock(ODataRequest.class);
+    EasyMock.expect(request.getMethod()).andStubReturn(method);
+    EasyMock.expect(request.getPathInfo()).andStubReturn(pathInfo);
+    EasyMock.replay(request);
+    return request;
+  }
+}
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Query;
+
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmNavigationProperty;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.uri.NavigationPropertySegment;
+import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmMappingImpl;
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JPAExpandPrefetcherTest {
+
+  private EntityManager entityManager;
+  private PersistenceUnitUtil persistenceUnitUtil;
+  private List<String> statements;
+  private List<Object> parameters;
+
+  private EdmEntityType orderType;
+  private EdmEntityType itemType;
+  private NavigationPropertySegment itemsSegment;
+  private NavigationPropertySegment productSegment;
+
+  @Before
+  public void setUp() throws EdmException {
+    statements = new ArrayList<String>();
+    parameters = new ArrayList<Object>();
+    persistenceUnitUtil = EasyMock.createMock(PersistenceUnitUtil.class);
+    EntityManagerFactory factory = EasyMock.createMock(EntityManagerFactory.class);
+    EasyMock.expect(factory.getPersistenceUnitUtil()).andStubReturn(persistenceUnitUtil);
+    EasyMock.replay(factory);
+
+    entityManager = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(entityManager.getEntityManagerFactory()).andStubReturn(factory);
+    final Capture<String> statement = new Capture<String>();
+    EasyMock.expect(entityManager.createQuery(EasyMock.capture(statement))).andAnswer(
+        new IAnswer<Query>() {
+          @Override
+          public Query answer() {
+            statements.add(statement.getValue());
+            return mockQuery();
+          }
+        }).anyTimes();
+    EasyMock.replay(entityManager);
+
+    orderType = mockEntityType("SalesOrder", "id");
+    itemType = mockEntityType("SalesOrderItem", "itemId");
+    itemsSegment = mockSegment("Items", "items", itemType);
+    productSegment = mockSegment("Product", "product", mockEntityType("Product", "productId"));
+  }
+
+  @Test
+  public void prefetchOneLevel() throws Exception {
+    expectIdentifiers();
+    EasyMock.replay(persistenceUnitUtil);
+
+    new JPAExpandPrefetcher(entityManager).prefetch(getOrders(), orderType, expand(itemsSegment));
+
+    assertEquals(Collections.singletonList(
+        "SELECT E1 FROM SalesOrder E1 LEFT OUTER JOIN FETCH E1.items WHERE E1.id IN :keys"), statements);
+    assertEquals(Collections.singletonList(Arrays.asList(1L, 2L, 3L)), parameters);
+  }
+
+  @Test
+  public void prefetchNestedLevel() throws Exception {
+    expectIdentifiers();
+    EasyMock.replay(persistenceUnitUtil);
+
+    new JPAExpandPrefetcher(entityManager).prefetch(getOrders(), orderType, expand(itemsSegment, productSegment));
+
+    assertEquals(2, statements.size());
+    assertEquals("SELECT E1 FROM SalesOrderItem E1 LEFT OUTER JOIN FETCH E1.product WHERE E1.itemId IN :keys",
+        statements.get(1));
+    assertEquals(Arrays.asList(11L, 12L, 21L), parameters.get(1));
+  }
+
+  @Test
+  public void skipLoadedRelationships() throws Exception {
+    EasyMock.expect(persistenceUnitUtil.isLoaded(EasyMock.anyObject(), EasyMock.eq("items"))).andStubReturn(true);
+    EasyMock.replay(persistenceUnitUtil);
+
+    new JPAExpandPrefetcher(entityManager).prefetch(getOrders(), orderType, expand(itemsSegment));
+
+    assertEquals(0, statements.size());
+  }
+
+  @Test
+  public void skipSingleEntity() throws Exception {
+    EasyMock.replay(persistenceUnitUtil);
+
+    new JPAExpandPrefetcher(entityManager).prefetch(getOrders().subList(0, 1), orderType, expand(itemsSegment));
+
+    assertEquals(0, statements.size());
+  }
+
+  @Test
+  public void prefetchInChunks() throws Exception {
+    expectIdentifiers();
+    EasyMock.replay(persistenceUnitUtil);
+    List<Object> orders = new ArrayList<Object>();
+    for (long id = 0; id < JPAExpandPrefetcher.MAX_KEYS_PER_QUERY + 1; id++) {
+      orders.add(new SalesOrder(id));
+    }
+
+    new JPAExpandPrefetcher(entityManager).prefetch(orders, orderType, expand(itemsSegment));
+
+    assertEquals(2, statements.size());
+    assertEquals(JPAExpandPrefetcher.MAX_KEYS_PER_QUERY, ((List<?>) parameters.get(0)).size());
+    assertEquals(1, ((List<?>) parameters.get(1)).size());
+  }
+
+  private void expectIdentifiers() {
+    EasyMock.expect(persistenceUnitUtil.isLoaded(EasyMock.anyObject(), EasyMock.anyObject(String.class)))
+        .andStubReturn(false);
+    EasyMock.expect(persistenceUnitUtil.getIdentifier(EasyMock.anyObject())).andAnswer(
+        new IAnswer<Object>() {
+          @Override
+          public Object answer() {
+            final Object entity = EasyMock.getCurrentArguments()[0];
+            return entity instanceof SalesOrder ? ((SalesOrder) entity).id : ((SalesOrderItem) entity).itemId;
+          }
+        }).anyTimes();
+  }
+
+  private Query mockQuery() {
+    Query query = EasyMock.createMock(Query.class);
+    final Capture<Object> keys = new Capture<Object>();
+    EasyMock.expect(query.setParameter(EasyMock.eq("keys"), EasyMock.capture(keys))).andAnswer(
+        new IAnswer<Query>() {
+          @Override
+          public Query answer() {
+            parameters.add(new ArrayList<Object>((List<?>) keys.getValue()));
+            return null;
+          }
+        });
+    EasyMock.expect(query.getResultList()).andReturn(new ArrayList<Object>());
+    EasyMock.replay(query);
+    return query;
+  }
+
+  private List<ArrayList<NavigationPropertySegment>> expand(final NavigationPropertySegment... segments) {
+    List<ArrayList<NavigationPropertySegment>> expandList = new ArrayList<ArrayList<NavigationPropertySegment>>();
+    expandList.add(new ArrayList<NavigationPropertySegment>(Arrays.asList(segments)));
+    return expandList;
+  }
+
+  private EdmEntityType mockEntityType(final String name, final String keyName) throws EdmException {
+    EdmProperty keyProperty = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(keyProperty.getName()).andStubReturn(keyName);
+    EasyMock.expect(keyProperty.getMapping()).andStubReturn(mapping(keyName));
+    EasyMock.replay(keyProperty);
+
+    EdmEntityType entityType = EasyMock.createMock(EdmEntityType.class);
+    EasyMock.expect(entityType.getName()).andStubReturn(name);
+    EasyMock.expect(entityType.getMapping()).andStubReturn(mapping(name));
+    EasyMock.expect(entityType.getKeyProperties()).andStubReturn(Collections.singletonList(keyProperty));
+    EasyMock.replay(entityType);
+    return entityType;
+  }
+
+  private NavigationPropertySegment mockSegment(final String name, final String internalName,
+      final EdmEntityType targetType) throws EdmException {
+    EdmNavigationProperty navigationProperty = EasyMock.createMock(EdmNavigationProperty.class);
+    EasyMock.expect(navigationProperty.getName()).andStubReturn(name);
+    EasyMock.expect(navigationProperty.getMapping()).andStubReturn(mapping(internalName));
+    EasyMock.replay(navigationProperty);
+
+    EdmEntitySet targetEntitySet = EasyMock.createMock(EdmEntitySet.class);
+    EasyMock.expect(targetEntitySet.getEntityType()).andStubReturn(targetType);
+    EasyMock.replay(targetEntitySet);
+
+    NavigationPropertySegment segment = EasyMock.createMock(NavigationPropertySegment.class);
+    EasyMock.expect(segment.getNavigationProperty()).andStubReturn(navigationProperty);
+    EasyMock.expect(segment.getTargetEntitySet()).andStubReturn(targetEntitySet);
+    EasyMock.replay(segment);
+    return segment;
+  }
+
+  private JPAEdmMappingImpl mapping(final String internalName) {
+    JPAEdmMappingImpl mapping = new JPAEdmMappingImpl();
+    mapping.setInternalName(internalName);
+    return mapping;
+  }
+
+  private List<Object> getOrders() {
+    SalesOrderItem sharedItem = new SalesOrderItem(12L);
+    SalesOrder first = new SalesOrder(1L);
+    first.getItems().add(new SalesOrderItem(11L));
+    first.getItems().add(sharedItem);
+    SalesOrder second = new SalesOrder(2L);
+    second.getItems().add(sharedItem);
+    second.getItems().add(new SalesOrderItem(21L));
+    return new ArrayList<Object>(Arrays.asList(first, second, new SalesOrder(3L)));
+  }
+
+  public static class SalesOrder {
+    private final Long id;
+    private final List<SalesOrderItem> items = new ArrayList<SalesOrderItem>();
+
+    public SalesOrder(final Long id) {
+      this.id = id;
+    }
+
+    public List<SalesOrderItem> getItems() {
+      return items;
+    }
+  }
+
+  public static class SalesOrderItem {
+    private final Long itemId;
+
+    public SalesOrderItem(final Long itemId) {
+      this.itemId = itemId;
+    }
+
+    public Object getProduct() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmMappingImpl;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+public class JPAKeysetTokenTest {
+
+  public static class SalesOrderItem {
+    private long soId;
+    private String item;
+
+    public SalesOrderItem(final long soId, final String item) {
+      this.soId = soId;
+      this.item = item;
+    }
+
+    public long getSoId() {
+      return soId;
+    }
+
+    public String getItem() {
+      return item;
+    }
+  }
+
+  public static List<EdmProperty> getKeyProperties() throws Exception {
+    return Arrays.asList(
+        mockKeyProperty("SoId", "soId", EdmSimpleTypeKind.Int64, Long.class),
+        mockKeyProperty("Item", "item", EdmSimpleTypeKind.String, String.class));
+  }
+
+  private static EdmProperty mockKeyProperty(final String name, final String internalName,
+      final EdmSimpleTypeKind kind, final Class<?> jpaType) throws Exception {
+    JPAEdmMappingImpl mapping = new JPAEdmMappingImpl();
+    mapping.setInternalName(internalName);
+    mapping.setJPAType(jpaType);
+    EdmProperty property = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(property.getName()).andStubReturn(name);
+    EasyMock.expect(property.getType()).andStubReturn(kind.getEdmSimpleTypeInstance());
+    EasyMock.expect(property.getMapping()).andStubReturn(mapping);
+    EasyMock.replay(property);
+    return property;
+  }
+
+  @Test
+  public void createAndParse() throws Exception {
+    final String token = JPAKeysetToken.create(new SalesOrderItem(4711L, "A:1,ä b"), getKeyProperties());
+    assertTrue(JPAKeysetToken.isKeysetToken(token));
+    assertTrue(token.matches("[A-Za-z0-9_-]+"));
+
+    final List<Object> keyValues = JPAKeysetToken.parse(token, getKeyProperties());
+    assertEquals(Arrays.asList((Object) 4711L, "A:1,ä b"), keyValues);
+  }
+
+  @Test
+  public void offsetToken() {
+    assertFalse(JPAKeysetToken.isKeysetToken("20"));
+    assertFalse(JPAKeysetToken.isKeysetToken(null));
+  }
+
+  @Test
+  public void nullKeyValue() throws Exception {
+    assertNull(JPAKeysetToken.create(new SalesOrderItem(1L, null), getKeyProperties()));
+  }
+
+  @Test(expected = ODataJPARuntimeException.class)
+  public void invalidToken() throws Exception {
+    JPAKeysetToken.parse("Kinvalid", getKeyProperties());
+  }
+
+  @Test(expected = ODataJPARuntimeException.class)
+  public void tokenForOtherKeys() throws Exception {
+    final String token = JPAKeysetToken.create(new SalesOrderItem(1L, "A"), getKeyProperties());
+    JPAKeysetToken.parse(token, getKeyProperties().subList(0, 1));
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.olingo.odata2.jpa.processor.core.access.data;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
@@ -42,6 +43,25 @@ public class JPAPageBuilderTest {
 
   private static final int PAGE_SIZE = 10;
 
+  @Test
+  public void testBuildWithKeysetToken() {
+    Query query = mockQuery(false);
+
+    JPAPage page = new JPAPageBuilder().query(query)
+        .pageSize(1)
+        .skipToken("KMTox")
+        .build();
+
+    assertEquals(0, query.getFirstResult());
+    assertEquals(1, query.getMaxResults());
+    assertEquals(0, page.getStartPage());
+    assertEquals(1, page.getNextPage());
+    assertEquals("1", page.getNextSkipToken());
+    page.setNextSkipToken("KMToy");
+    assertEquals("KMToy", page.getNextSkipToken());
+    assertNull(page.getTotalCount());
+  }
+
   @Test
   public void testBuildDefault() {
     JPAPageBuilder pageBuilder = new JPAPageBuilder();
@@ -60,6 +80,7 @@ public class JPAPageBuilderTest {
 
     assertEquals(10, query.getFirstResult());
     assertEquals(10, query.getMaxResults());
+    assertEquals(Long.valueOf(11), page.getTotalCount());
   }
 
   @Test
@@ -380,6 +401,7 @@ public class JPAPageBuilderTest {
 
     assertEquals(11, query.getFirstResult());
     assertEquals(1, query.getMaxResults());
+    assertNull(page.getTotalCount());
   }
 
   private Query mockQuery(final boolean setNoRecords) {
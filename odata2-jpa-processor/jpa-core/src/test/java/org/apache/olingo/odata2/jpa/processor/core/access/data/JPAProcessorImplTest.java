@@ -76,6 +76,7 @@ import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAQueryExtensionEntityListener;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneEntityListener;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATransaction;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAChangeSetBulkMode;
 import org.apache.olingo.odata2.jpa.processor.api.access.JPAPaging;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPAModelException;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
@@ -206,6 +207,30 @@ public class JPAProcessorImplTest {
     }
   }
 
+  @Test
+  public void testProcessDeleteUriInfoInBulkModeOutsideOfBatch() throws Exception {
+    // the transaction is managed by the application, so the processor does not begin it
+    ODataJPATransaction tx = EasyMock.createMock(ODataJPATransaction.class);
+    EasyMock.expect(tx.isActive()).andStubReturn(true);
+    EasyMock.replay(tx);
+    ODataContext context = EasyMock.createMock(ODataContext.class);
+    EasyMock.expect(context.isInBatchMode()).andStubReturn(false);
+    EasyMock.replay(context);
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.createQuery("SELECT E1 FROM SalesOrderHeaders E1")).andStubReturn(getQuery());
+    em.remove(new Address());
+    em.flush();
+    em.remove(new Address());
+    em.flush();
+    EasyMock.replay(em);
+    objJPAProcessorImpl = new JPAProcessorImpl(
+        getLocalmockODataJPAContext(new JPAChangeSetBulkMode(), tx, context, em));
+
+    objJPAProcessorImpl.process(getDeletetUriInfo(), "application/xml");
+    objJPAProcessorImpl.process(getDeletetUriInfo(), "application/xml");
+    EasyMock.verify(tx, em);
+  }
+
   // ---------------------------- Common Code Start ---------------- TODO - common in ODataJPADefaultProcessorTest as
   // well
 
@@ -256,7 +281,7 @@ public class JPAProcessorImplTest {
     EasyMock.expect(objUriInfo.getOrderBy()).andStubReturn(getOrderByExpression());
     EasyMock.expect(objUriInfo.getTop()).andStubReturn(getTop());
     EasyMock.expect(objUriInfo.getSkip()).andStubReturn(getSkip());
-    EasyMock.expect(objUriInfo.getSkipToken()).andReturn("5");
+    EasyMock.expect(objUriInfo.getSkipToken()).andStubReturn("5");
     EasyMock.expect(objUriInfo.getInlineCount()).andStubReturn(getInlineCount());
     EasyMock.expect(objUriInfo.getFilter()).andStubReturn(getFilter());
     EasyMock.expect(objUriInfo.getFunctionImport()).andStubReturn(null);
@@ -301,13 +326,10 @@ public class JPAProcessorImplTest {
     EasyMock.expect(objUriInfo.isCount()).andStubReturn(false);
     EasyMock.expect(objUriInfo.getCustomQueryOptions()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getNavigationSegments()).andStubReturn(new ArrayList<NavigationSegment>());
-    objUriInfo.setCount(true);
-    EasyMock.expectLastCall().times(1);
-    objUriInfo.setCount(false);
-    EasyMock.expectLastCall().times(1);
+    // The last page is not full, so the count is known without a count query.
     Map<String, String> data = new HashMap<String, String>();
-    data.put("count", "11");
-    objUriInfo.setCustomQueryOptions(data );
+    data.put("count", "7");
+    objUriInfo.setCustomQueryOptions(data);
     EasyMock.expectLastCall().times(1);
     EasyMock.expect(objUriInfo.getCustomQueryOptions()).andStubReturn(data);
     EasyMock.replay(objUriInfo);
@@ -420,13 +442,24 @@ public class JPAProcessorImplTest {
   }
 
   private ODataJPAContext getLocalmockODataJPAContext() {
+    return getLocalmockODataJPAContext(null, getLocalJpaTransaction(), getLocalODataContext(),
+        getLocalEntityManager());
+  }
+
+  private ODataJPAContext getLocalmockODataJPAContext(final JPAChangeSetBulkMode bulkMode,
+      final ODataJPATransaction transaction, final ODataContext context, final EntityManager em) {
     ODataJPAContext odataJPAContext = EasyMock.createMock(ODataJPAContext.class);
     EasyMock.expect(odataJPAContext.getPersistenceUnitName()).andStubReturn("salesorderprocessing");
     EasyMock.expect(odataJPAContext.getEntityManagerFactory()).andStubReturn(mockEntityManagerFactory());
-    EasyMock.expect(odataJPAContext.getODataJPATransaction()).andStubReturn(getLocalJpaTransaction());
-    EasyMock.expect(odataJPAContext.getODataContext()).andStubReturn(getLocalODataContext());
-    EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(getLocalEntityManager());
+    EasyMock.expect(odataJPAContext.getODataJPATransaction()).andStubReturn(transaction);
+    EasyMock.expect(odataJPAContext.getODataContext()).andStubReturn(context);
+    EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(em);
     EasyMock.expect(odataJPAContext.getPageSize()).andReturn(10).anyTimes();
+    EasyMock.expect(odataJPAContext.isKeysetPaging()).andReturn(false).anyTimes();
+    EasyMock.expect(odataJPAContext.isSelectProjection()).andReturn(false).anyTimes();
+    EasyMock.expect(odataJPAContext.getCountStrategy()).andReturn(null).anyTimes();
+    EasyMock.expect(odataJPAContext.getJPQLStatementCache()).andReturn(null).anyTimes();
+    EasyMock.expect(odataJPAContext.getChangeSetBulkMode()).andReturn(bulkMode).anyTimes();
     odataJPAContext.setPaging(EasyMock.isA(JPAPaging.class));
     EasyMock.expectLastCall();
     EasyMock.replay(odataJPAContext);
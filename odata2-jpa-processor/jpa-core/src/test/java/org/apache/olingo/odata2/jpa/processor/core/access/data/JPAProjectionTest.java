@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
+import org.apache.olingo.odata2.api.uri.NavigationPropertySegment;
+import org.apache.olingo.odata2.api.uri.NavigationSegment;
+import org.apache.olingo.odata2.api.uri.SelectItem;
+import org.apache.olingo.odata2.api.uri.info.GetEntitySetUriInfo;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAProjectedEntity;
+import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmMappingImpl;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+public class JPAProjectionTest {
+
+  @Test
+  public void projectedProperties() throws Exception {
+    final List<EdmProperty> properties = JPAProjection.getProjectedProperties(mockEntitySetView(null));
+    assertEquals(3, properties.size());
+    assertEquals("Name", properties.get(0).getName());
+    assertEquals("SoId", properties.get(1).getName());
+    assertEquals("Item", properties.get(2).getName());
+  }
+
+  @Test
+  public void noProjectionWithExpand() throws Exception {
+    List<ArrayList<NavigationPropertySegment>> expand = new ArrayList<ArrayList<NavigationPropertySegment>>();
+    expand.add(new ArrayList<NavigationPropertySegment>());
+    assertNull(JPAProjection.getProjectedProperties(mockEntitySetView(expand)));
+  }
+
+  @Test
+  public void fromRows() throws Exception {
+    final List<EdmProperty> properties = JPAProjection.getProjectedProperties(mockEntitySetView(null));
+    List<Object[]> rows = new ArrayList<Object[]>();
+    rows.add(new Object[] { "Bolt".toCharArray(), 1L, "A" });
+    rows.add(new Object[] { null, 2L, "B" });
+
+    final List<Object> entities = JPAProjection.fromRows(rows, properties);
+
+    assertEquals(2, entities.size());
+    final Map<String, Object> first = ((JPAProjectedEntity) entities.get(0)).getPropertyValues();
+    assertEquals("Bolt", first.get("Name"));
+    assertEquals(1L, first.get("SoId"));
+    assertEquals("A", first.get("Item"));
+    assertNull(((JPAProjectedEntity) entities.get(1)).getPropertyValues().get("Name"));
+  }
+
+  @Test
+  public void fromSingleColumnRows() throws Exception {
+    final List<EdmProperty> properties = JPAKeysetTokenTest.getKeyProperties().subList(0, 1);
+    final List<Object> entities = JPAProjection.fromRows(Arrays.asList(7L), properties);
+    assertEquals(Collections.singletonMap("SoId", (Object) 7L),
+        ((JPAProjectedEntity) entities.get(0)).getPropertyValues());
+  }
+
+  /**
+   * Mocks a request for SalesOrderItems with <code>$select=Name</code>.
+   */
+  public static GetEntitySetUriInfo mockEntitySetView(final List<ArrayList<NavigationPropertySegment>> expand)
+      throws Exception {
+    JPAEdmMappingImpl mapping = new JPAEdmMappingImpl();
+    mapping.setInternalName("name");
+    EdmProperty nameProperty = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(nameProperty.getName()).andStubReturn("Name");
+    EasyMock.expect(nameProperty.getType()).andStubReturn(EdmSimpleTypeKind.String.getEdmSimpleTypeInstance());
+    EasyMock.expect(nameProperty.getMapping()).andStubReturn(mapping);
+    EasyMock.expect(nameProperty.getFacets()).andStubReturn(null);
+    EasyMock.replay(nameProperty);
+
+    SelectItem selectItem = EasyMock.createMock(SelectItem.class);
+    EasyMock.expect(selectItem.isStar()).andStubReturn(false);
+    EasyMock.expect(selectItem.getProperty()).andStubReturn(nameProperty);
+    EasyMock.expect(selectItem.getNavigationPropertySegments())
+        .andStubReturn(new ArrayList<NavigationPropertySegment>());
+    EasyMock.replay(selectItem);
+
+    EdmEntityType entityType = EasyMock.createMock(EdmEntityType.class);
+    EasyMock.expect(entityType.getMapping()).andStubReturn(null);
+    EasyMock.expect(entityType.getName()).andStubReturn("SalesOrderItem");
+    EasyMock.expect(entityType.hasStream()).andStubReturn(false);
+    EasyMock.expect(entityType.getKeyProperties()).andStubReturn(JPAKeysetTokenTest.getKeyProperties());
+    EasyMock.expect(entityType.getPropertyNames()).andStubReturn(Collections.singletonList("Name"));
+    EasyMock.expect(entityType.getProperty("Name")).andStubReturn(nameProperty);
+    EasyMock.replay(entityType);
+
+    EdmEntitySet entitySet = EasyMock.createMock(EdmEntitySet.class);
+    EasyMock.expect(entitySet.getEntityType()).andStubReturn(entityType);
+    EasyMock.replay(entitySet);
+
+    GetEntitySetUriInfo entitySetView = EasyMock.createMock(GetEntitySetUriInfo.class);
+    EasyMock.expect(entitySetView.getTargetEntitySet()).andStubReturn(entitySet);
+    EasyMock.expect(entitySetView.getSelect()).andStubReturn(Collections.singletonList(selectItem));
+    EasyMock.expect(entitySetView.getExpand()).andStubReturn(expand);
+    EasyMock.expect(entitySetView.getNavigationSegments()).andStubReturn(new ArrayList<NavigationSegment>());
+    EasyMock.expect(entitySetView.getFunctionImport()).andStubReturn(null);
+    EasyMock.expect(entitySetView.getOrderBy()).andStubReturn(null);
+    EasyMock.expect(entitySetView.getTop()).andStubReturn(null);
+    EasyMock.expect(entitySetView.getSkip()).andStubReturn(null);
+    EasyMock.expect(entitySetView.getSkipToken()).andStubReturn(null);
+    EasyMock.expect(entitySetView.getFilter()).andStubReturn(null);
+    EasyMock.replay(entitySetView);
+    return entitySetView;
+  }
+}
@@ -20,6 +20,9 @@ package org.apache.olingo.odata2.jpa.processor.core.access.data;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
@@ -70,8 +73,11 @@ import org.apache.olingo.odata2.api.uri.info.PutMergePatchUriInfo;
 import org.apache.olingo.odata2.core.uri.UriInfoImpl;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAQueryExtensionEntityListener;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContext;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContextType;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatementCache;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
+import org.apache.olingo.odata2.jpa.processor.core.ODataExpressionParser;
 import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAQueryBuilder.JPAQueryInfo;
 import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAQueryBuilder.UriInfoType;
 import org.apache.olingo.odata2.jpa.processor.core.common.ODataJPATestConstants;
@@ -550,6 +556,41 @@ public class JPAQueryBuilderTest {
     }
   }
 
+  @Test
+  public void buildCountFromDataQuery() {
+    EdmMapping mapping = (EdmMapping) mockMapping();
+    try {
+      GetEntitySetUriInfo uriInfo = (GetEntitySetUriInfo) mockURIInfoWithInlineCount(mapping);
+      JPAQueryInfo queryInfo = builder.build(uriInfo);
+      assertEquals("SELECT COUNT(E1) FROM Customer E1", queryInfo.getCountStatement());
+      assertTrue(queryInfo.getCountParameters().isEmpty());
+      builder.getCount(uriInfo, queryInfo);
+      assertEquals("5", uriInfo.getCustomQueryOptions().get("count"));
+      EasyMock.verify(uriInfo);
+    } catch (ODataException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
+  @Test
+  public void buildQueryFromStatementCache() throws Exception {
+    JPQLStatementCache statementCache = new JPQLStatementCache();
+    JPAQueryBuilder cachingBuilder = new JPAQueryBuilder(
+        ODataJPAContextMock.mockODataJPAContext(new ODataContextMock().mock(), statementCache));
+
+    JPAQueryInfo first = cachingBuilder.build((GetEntitySetUriInfo) JPAQueryShapeTest.mockUriInfo("'Bolt'", "5", null));
+    assertEquals(0, statementCache.getHitCount());
+    assertEquals(1, statementCache.getMissCount());
+    assertEquals(1, statementCache.size());
+
+    JPAQueryInfo second = cachingBuilder.build((GetEntitySetUriInfo) JPAQueryShapeTest.mockUriInfo("'Nut'", "7", null));
+    assertEquals(1, statementCache.getHitCount());
+    assertNotNull(second.getQuery());
+    assertEquals(first.getCountStatement(), second.getCountStatement());
+    assertEquals(Arrays.asList((Object) "Bolt", 5), new ArrayList<Object>(first.getCountParameters().values()));
+    assertEquals(Arrays.asList((Object) "Nut", 7), new ArrayList<Object>(second.getCountParameters().values()));
+  }
+
   @Test
   public void buildQueryWithTopSkipInlineWithListener() {
     try {
@@ -570,6 +611,24 @@ public class JPAQueryBuilderTest {
     }
   }
   
+  @SuppressWarnings("deprecation")
+  @Test
+  public void threadBoundContext() throws Exception {
+    EdmMapping mapping = (EdmMapping) mockNormalizedValueMapping();
+    final UriInfo uriInfo = mockURIInfoForEntitySet(mapping, "substringof");
+    try {
+      final JPQLContext context = builder.buildJPQLContext(JPQLContextType.SELECT, uriInfo);
+      assertSame(context, JPQLContext.getJPQLContext());
+      assertEquals(1, ODataExpressionParser.getPositionalParametersThreadLocal().size());
+
+      assertNotNull(builder.build((GetEntitySetUriInfo) uriInfo));
+      assertNull(JPQLContext.getJPQLContext());
+      assertNull(ODataExpressionParser.getPositionalParametersThreadLocal());
+    } finally {
+      JPQLContext.removeJPQLContext();
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private GetEntityUriInfo mockURIInfoWithTopSkip(EdmMapping mapping) throws EdmException {
     UriInfo uriInfo = EasyMock.createMock(UriInfo.class);
@@ -627,7 +686,36 @@ public class JPAQueryBuilderTest {
     return uriInfo;
   }
 
-  
+  @SuppressWarnings("unchecked")
+  private GetEntityUriInfo mockURIInfoWithInlineCount(EdmMapping mapping) throws EdmException {
+    UriInfoImpl uriInfo = EasyMock.createMock(UriInfoImpl.class);
+    EasyMock.expect(uriInfo.getNavigationSegments()).andStubReturn(new ArrayList<NavigationSegment>());
+    EdmEntityType edmEntityType = EasyMock.createMock(EdmEntityType.class);
+    EasyMock.expect(edmEntityType.getMapping()).andStubReturn(mapping);
+    EdmEntitySet edmEntitySet = EasyMock.createMock(EdmEntitySet.class);
+    EasyMock.expect(edmEntitySet.getEntityType()).andStubReturn(edmEntityType);
+    EasyMock.expect(uriInfo.getTargetEntitySet()).andStubReturn(edmEntitySet);
+    List<KeyPredicate> keyPreds = EasyMock.createMock(ArrayList.class);
+    EasyMock.expect(uriInfo.getKeyPredicates()).andStubReturn(keyPreds);
+    EasyMock.expect(uriInfo.getOrderBy()).andStubReturn(null);
+    EasyMock.expect(uriInfo.getTop()).andStubReturn(1);
+    EasyMock.expect(uriInfo.getSkip()).andStubReturn(2);
+    EasyMock.expect(uriInfo.isCount()).andStubReturn(false);
+    EasyMock.expect(uriInfo.getInlineCount()).andStubReturn(InlineCount.ALLPAGES);
+    EdmProperty edmProperty = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(edmProperty.getMapping()).andStubReturn(mapping);
+    EasyMock.expect(edmEntityType.getKeyProperties()).andStubReturn(Arrays.asList(edmProperty));
+    EasyMock.expect(uriInfo.getFilter()).andStubReturn(null);
+    // no setCount calls: the count query is not built from the URI again
+    Map<String, String> data = new HashMap<String, String>();
+    data.put("count", "5");
+    uriInfo.setCustomQueryOptions(data);
+    EasyMock.expectLastCall().times(1);
+    EasyMock.expect(uriInfo.getCustomQueryOptions()).andStubReturn(data);
+    EasyMock.replay(edmEntityType, edmEntitySet, uriInfo, keyPreds, edmProperty);
+    return uriInfo;
+  }
+
   private UriInfo mockURIInfoWithTopSkipInlineListener() throws EdmException {
     UriInfoImpl uriInfo = EasyMock.createMock(UriInfoImpl.class);
     EdmEntityType edmEntityType = EasyMock.createMock(EdmEntityType.class);
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+import org.apache.olingo.odata2.api.uri.expression.BinaryExpression;
+import org.apache.olingo.odata2.api.uri.expression.BinaryOperator;
+import org.apache.olingo.odata2.api.uri.expression.CommonExpression;
+import org.apache.olingo.odata2.api.uri.expression.ExpressionKind;
+import org.apache.olingo.odata2.api.uri.expression.FilterExpression;
+import org.apache.olingo.odata2.api.uri.expression.LiteralExpression;
+import org.apache.olingo.odata2.api.uri.expression.PropertyExpression;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContextType;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatementCache.CachedStatement;
+import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmMappingImpl;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+public class JPAQueryShapeTest {
+
+  @Test
+  public void sameShapeForDifferentLiterals() throws Exception {
+    final JPAQueryShape first = create(mockUriInfo("'Bolt'", "5", null));
+    final JPAQueryShape second = create(mockUriInfo("'Nut'", "7", null));
+
+    assertEquals(first.getKey(), second.getKey());
+    assertEquals(Arrays.asList((Object) "Bolt", 5), first.getLiteralValues());
+    assertEquals(Arrays.asList((Object) "Nut", 7), second.getLiteralValues());
+  }
+
+  @Test
+  public void nullLiteralIsPartOfShape() throws Exception {
+    final JPAQueryShape shape = create(mockUriInfo("null", "5", null));
+    assertFalse(shape.getKey().equals(create(mockUriInfo("'Bolt'", "5", null)).getKey()));
+    assertNull(shape.getLiteralValues().get(0));
+  }
+
+  @Test
+  public void bindingPlan() throws Exception {
+    Map<Integer, Object> parameters = new HashMap<Integer, Object>();
+    parameters.put(1, "Bolt");
+    parameters.put(2, 5);
+    final CachedStatement statement = create(mockUriInfo("'Bolt'", "5", null))
+        .createStatement("SELECT E1 FROM SalesOrderItem E1 WHERE ...", null, parameters);
+    assertArrayEquals(new int[] { 1, 2 }, statement.getParameterIndexes());
+
+    Map<Integer, Object> expected = new TreeMap<Integer, Object>();
+    expected.put(1, "Nut");
+    expected.put(2, 7);
+    assertEquals(expected,
+        create(mockUriInfo("'Nut'", "7", null)).getParameters(statement.getParameterIndexes()));
+  }
+
+  @Test
+  public void noBindingPlanForEqualValues() throws Exception {
+    Map<Integer, Object> parameters = new HashMap<Integer, Object>();
+    parameters.put(1, "5");
+    parameters.put(2, "5");
+    assertNull(create(mockUriInfo("'5'", "5", null)).createStatement("SELECT ...", null, parameters));
+  }
+
+  @Test
+  public void noShapeForKeysetToken() throws Exception {
+    assertNull(create(mockUriInfo("'Bolt'", "5", "KMTox")));
+  }
+
+  private JPAQueryShape create(final UriInfo uriInfo) throws Exception {
+    return JPAQueryShape.create(uriInfo, JPQLContextType.SELECT, false, false);
+  }
+
+  /**
+   * Mocks a request for SalesOrderItems with
+   * <code>$filter=Name eq &lt;name&gt; and Quantity gt &lt;quantity&gt;</code>.
+   */
+  public static UriInfo mockUriInfo(final String name, final String quantity, final String skipToken)
+      throws Exception {
+    final BinaryExpression nameCondition = mockCondition("Name", "name", String.class, EdmSimpleTypeKind.String,
+        BinaryOperator.EQ, name, "null".equals(name) ? EdmSimpleTypeKind.Null : EdmSimpleTypeKind.String);
+    final BinaryExpression quantityCondition = mockCondition("Quantity", "quantity", Integer.class,
+        EdmSimpleTypeKind.Int32, BinaryOperator.GT, quantity, EdmSimpleTypeKind.Int32);
+    BinaryExpression and = EasyMock.createMock(BinaryExpression.class);
+    EasyMock.expect(and.getKind()).andStubReturn(ExpressionKind.BINARY);
+    EasyMock.expect(and.getOperator()).andStubReturn(BinaryOperator.AND);
+    EasyMock.expect(and.getLeftOperand()).andStubReturn(nameCondition);
+    EasyMock.expect(and.getRightOperand()).andStubReturn(quantityCondition);
+    EasyMock.expect(and.getEdmType()).andStubReturn(EdmSimpleTypeKind.Boolean.getEdmSimpleTypeInstance());
+    EasyMock.replay(and);
+    FilterExpression filter = EasyMock.createMock(FilterExpression.class);
+    EasyMock.expect(filter.getKind()).andStubReturn(ExpressionKind.FILTER);
+    EasyMock.expect(filter.getExpression()).andStubReturn(and);
+    EasyMock.replay(filter);
+
+    JPAEdmMappingImpl mapping = new JPAEdmMappingImpl();
+    mapping.setInternalName("SalesOrderItem");
+    EdmEntityType entityType = EasyMock.createMock(EdmEntityType.class);
+    EasyMock.expect(entityType.getName()).andStubReturn("SalesOrderItem");
+    EasyMock.expect(entityType.getMapping()).andStubReturn(mapping);
+    EasyMock.replay(entityType);
+    EdmEntitySet entitySet = EasyMock.createMock(EdmEntitySet.class);
+    EasyMock.expect(entitySet.getName()).andStubReturn("SalesOrderItems");
+    EasyMock.expect(entitySet.getEntityType()).andStubReturn(entityType);
+    EasyMock.replay(entitySet);
+
+    UriInfo uriInfo = EasyMock.createNiceMock(UriInfo.class);
+    EasyMock.expect(uriInfo.getStartEntitySet()).andStubReturn(entitySet);
+    EasyMock.expect(uriInfo.getTargetEntitySet()).andStubReturn(entitySet);
+    EasyMock.expect(uriInfo.getFilter()).andStubReturn(filter);
+    EasyMock.expect(uriInfo.getSkipToken()).andStubReturn(skipToken);
+    EasyMock.replay(uriInfo);
+    return uriInfo;
+  }
+
+  private static BinaryExpression mockCondition(final String propertyName, final String internalName,
+      final Class<?> jpaType, final EdmSimpleTypeKind propertyType, final BinaryOperator operator,
+      final String literal, final EdmSimpleTypeKind literalType) throws Exception {
+    JPAEdmMappingImpl mapping = new JPAEdmMappingImpl();
+    mapping.setInternalName(internalName);
+    mapping.setJPAType(jpaType);
+    EdmProperty property = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(property.getName()).andStubReturn(propertyName);
+    EasyMock.expect(property.getMapping()).andStubReturn(mapping);
+    EasyMock.replay(property);
+
+    PropertyExpression propertyExpression = EasyMock.createMock(PropertyExpression.class);
+    EasyMock.expect(propertyExpression.getKind()).andStubReturn(ExpressionKind.PROPERTY);
+    EasyMock.expect(propertyExpression.getUriLiteral()).andStubReturn(propertyName);
+    EasyMock.expect(propertyExpression.getEdmProperty()).andStubReturn(property);
+    EasyMock.expect(propertyExpression.getEdmType()).andStubReturn(propertyType.getEdmSimpleTypeInstance());
+    EasyMock.replay(propertyExpression);
+
+    LiteralExpression literalExpression = EasyMock.createMock(LiteralExpression.class);
+    EasyMock.expect(literalExpression.getKind()).andStubReturn(ExpressionKind.LITERAL);
+    EasyMock.expect(literalExpression.getUriLiteral()).andStubReturn(literal);
+    EasyMock.expect(literalExpression.getEdmType()).andStubReturn(literalType.getEdmSimpleTypeInstance());
+    EasyMock.replay(literalExpression);
+
+    BinaryExpression condition = EasyMock.createMock(BinaryExpression.class);
+    EasyMock.expect(condition.getKind()).andStubReturn(ExpressionKind.BINARY);
+    EasyMock.expect(condition.getOperator()).andStubReturn(operator);
+    EasyMock.expect(condition.getLeftOperand()).andStubReturn((CommonExpression) propertyExpression);
+    EasyMock.expect(condition.getRightOperand()).andStubReturn((CommonExpression) literalExpression);
+    EasyMock.expect(condition.getEdmType()).andStubReturn(EdmSimpleTypeKind.Boolean.getEdmSimpleTypeInstance());
+    EasyMock.replay(condition);
+    return condition;
+  }
+}
@@ -25,10 +25,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.util.List;
+import java.util.Map;
 
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
 import org.apache.olingo.odata2.api.uri.SelectItem;
 import org.apache.olingo.odata2.api.uri.expression.FilterExpression;
 import org.apache.olingo.odata2.api.uri.expression.OrderByExpression;
@@ -38,6 +40,9 @@ import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeExcep
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContext;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContext.JPQLContextBuilder;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContextType;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAKeysetToken;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAKeysetTokenTest;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAProjectionTest;
 import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
@@ -128,4 +133,47 @@ public class JPQLSelectStatementBuilderTest {
         .toString());
   }
 
+  @Test
+  public void testBuildQueryWithKeysetToken() throws Exception {
+    final List<EdmProperty> keyProperties = JPAKeysetTokenTest.getKeyProperties();
+    final String skipToken = JPAKeysetToken.create(new JPAKeysetTokenTest.SalesOrderItem(42L, "B"), keyProperties);
+
+    GetEntitySetUriInfo getEntitySetView = EasyMock.createMock(GetEntitySetUriInfo.class);
+    EdmEntitySet edmEntitySet = EasyMock.createMock(EdmEntitySet.class);
+    EdmEntityType edmEntityType = EasyMock.createMock(EdmEntityType.class);
+    EasyMock.expect(getEntitySetView.getTargetEntitySet()).andStubReturn(edmEntitySet);
+    EasyMock.expect(getEntitySetView.getOrderBy()).andStubReturn(null);
+    EasyMock.expect(getEntitySetView.getTop()).andStubReturn(null);
+    EasyMock.expect(getEntitySetView.getSkip()).andStubReturn(null);
+    EasyMock.expect(getEntitySetView.getSkipToken()).andStubReturn(skipToken);
+    EasyMock.expect(getEntitySetView.getFilter()).andStubReturn(null);
+    EasyMock.replay(getEntitySetView);
+    EasyMock.expect(edmEntitySet.getEntityType()).andStubReturn(edmEntityType);
+    EasyMock.replay(edmEntitySet);
+    EasyMock.expect(edmEntityType.getMapping()).andStubReturn(null);
+    EasyMock.expect(edmEntityType.getName()).andStubReturn("SalesOrderItem");
+    EasyMock.expect(edmEntityType.getKeyProperties()).andStubReturn(keyProperties);
+    EasyMock.replay(edmEntityType);
+
+    JPQLSelectContext context =
+        (JPQLSelectContext) JPQLContext.createBuilder(JPQLContextType.SELECT, getEntitySetView, true).build();
+    jpqlSelectStatementBuilder = new JPQLSelectStatementBuilder(context);
+
+    assertEquals("SELECT E1 FROM SalesOrderItem E1 WHERE ((E1.soId > ?1) OR (E1.soId = ?1 AND E1.item > ?2))"
+        + " ORDER BY E1.soId , E1.item", jpqlSelectStatementBuilder.build().toString());
+    final Map<Integer, Object> parameters = context.getParameterizedQueryMap().values().iterator().next();
+    assertEquals(42L, parameters.get(1));
+    assertEquals("B", parameters.get(2));
+  }
+
+  @Test
+  public void testBuildQueryWithProjection() throws Exception {
+    JPQLContext context = JPQLContext.createBuilder(JPQLContextType.SELECT,
+        JPAProjectionTest.mockEntitySetView(null), true, true).build();
+    jpqlSelectStatementBuilder = new JPQLSelectStatementBuilder(context);
+
+    assertEquals("SELECT E1.name, E1.soId, E1.item FROM SalesOrderItem E1 ORDER BY E1.soId , E1.item",
+        jpqlSelectStatementBuilder.build().toString());
+  }
+
 }
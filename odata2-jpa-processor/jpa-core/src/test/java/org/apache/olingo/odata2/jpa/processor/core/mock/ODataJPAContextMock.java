@@ -29,11 +29,13 @@ import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Query;
 import javax.persistence.TemporalType;
+import javax.persistence.metamodel.EmbeddableType;
 import javax.persistence.metamodel.EntityType;
 import javax.persistence.metamodel.Metamodel;
 
 import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatementCache;
 import org.easymock.Capture;
 import org.easymock.EasyMock;
 
@@ -57,6 +59,11 @@ public abstract class ODataJPAContextMock {
   }
 
   public static ODataJPAContext mockODataJPAContext(final ODataContext context) {
+    return mockODataJPAContext(context, null);
+  }
+
+  public static ODataJPAContext mockODataJPAContext(final ODataContext context,
+      final JPQLStatementCache statementCache) {
     ODataJPAContext odataJPAContext = EasyMock.createMock(ODataJPAContext.class);
     EasyMock.expect(odataJPAContext.getPersistenceUnitName()).andStubReturn(NAMESPACE);
     EasyMock.expect(odataJPAContext.getEntityManagerFactory()).andReturn(mockEntityManagerFactory());
@@ -66,6 +73,10 @@ public abstract class ODataJPAContextMock {
     EasyMock.expect(odataJPAContext.getDefaultNaming()).andReturn(true);
     EasyMock.expect(odataJPAContext.getODataContext()).andReturn(context).anyTimes();
     EasyMock.expect(odataJPAContext.getPageSize()).andReturn(0);
+    EasyMock.expect(odataJPAContext.isSelectProjection()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.getCountStrategy()).andStubReturn(null);
+    EasyMock.expect(odataJPAContext.getJPQLStatementCache()).andStubReturn(statementCache);
+    EasyMock.expect(odataJPAContext.getChangeSetBulkMode()).andStubReturn(null);
 
     EasyMock.replay(odataJPAContext);
     return odataJPAContext;
@@ -77,6 +88,7 @@ public abstract class ODataJPAContextMock {
     EasyMock.expect(em.getMetamodel()).andReturn(mm).anyTimes();
     Set<EntityType<?>> et = new HashSet<EntityType<?>>();
     EasyMock.expect(mm.getEntities()).andReturn(et).anyTimes();
+    EasyMock.expect(mm.getEmbeddables()).andReturn(new HashSet<EmbeddableType<?>>()).anyTimes();
     EasyMock.expect(em.isOpen()).andReturn(true).anyTimes();
     Query jpqlquery = EasyMock.createMock(Query.class);
     Capture<String> capturedArgument = new Capture<String>();
@@ -38,6 +38,10 @@ public class ODataJPAServiceFactoryMock extends ODataJPAServiceFactory {
     return oDataJPAContext;
   }
 
+  public void enableEdmCaching() {
+    setEdmCaching(true);
+  }
+
   public ODataJPAContext initializeODataJPAContextX() throws ODataJPARuntimeException {
     ODataJPAContext oDataJPAContext = null;
     oDataJPAContext = ODataJPAContextMock.mockODataJPAContext(context);
@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api;
 
+import org.apache.olingo.odata2.api.edm.Edm;
 import org.apache.olingo.odata2.api.edm.provider.EdmProvider;
 import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.processor.ODataContext;
@@ -75,6 +76,29 @@ public abstract class ODataServiceFactory {
     return RuntimeDelegate.createODataSingleProcessorService(provider, processor);
   }
 
+  /**
+   * Create a default service instance based on </code>ODataSingleProcessor<code> for an already existing
+   * entity data model. Together with {@link #createFrozenEdm(EdmProvider)} this allows to resolve the model
+   * once and to share it between all requests.
+   * @param edm An entity data model, e.g. created by {@link #createFrozenEdm(EdmProvider)}.
+   * @param processor A custom processor implementation derived from <code>ODataSingleProcessor</code> .
+   * @return A new default <code>ODataSingleProcessorService</code> instance.
+   */
+  public ODataService createODataSingleProcessorService(final Edm edm, final ODataSingleProcessor processor) {
+    return RuntimeDelegate.createODataSingleProcessorService(edm, processor);
+  }
+
+  /**
+   * Create an entity data model which is completely resolved from the given provider at once.
+   * The model is immutable afterwards and can be shared between requests and threads.
+   * @param provider A custom <code>EdmProvider</code> implementation.
+   * @return A frozen entity data model.
+   * @throws ODataException in case the provider fails or the model is inconsistent
+   */
+  public Edm createFrozenEdm(final EdmProvider provider) throws ODataException {
+    return RuntimeDelegate.createFrozenEdm(provider);
+  }
+
   /**
    * A service can return implementation classes for various callback interfaces.
    * @param callbackInterface a interface type to query for implementation
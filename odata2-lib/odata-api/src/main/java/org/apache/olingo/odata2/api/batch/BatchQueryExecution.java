@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api.batch;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import org.apache.olingo.odata2.api.ODataCallback;
+
+/**
+ * Callback which enables the concurrent execution of the query operations of <code>$batch</code> requests.
+ * <p>If the service factory returns an instance for this class, query operations which are not part of
+ * a change set are executed on the given executor instead of one after the other on the request thread.
+ * Each concurrently executed query operation gets its own service created by the service factory,
+ * so the processor of the service does not need to be thread-safe, but the service factory must be able
+ * to create independent services, i.e., services which share no request state like an entity manager,
+ * while the query operations of the batch request are being executed.
+ * The responses keep the order of the request parts. A change set is executed on the request thread
+ * after all preceding query operations have finished, so query operations neither see changes of a later
+ * change set nor miss changes of an earlier one.</p>
+ * <p>The handler hands a query operation over and returns its response part at once; the response is awaited
+ * when it is requested. So query operations only overlap if all parts are handed to the handler before the
+ * responses are written, as the default processors do. The per-operation services are not closed by the library,
+ * so their processors must release their resources when an operation has been executed; the JPA processor binds
+ * its entity manager to the request thread and therefore rejects batch requests if its service factory provides
+ * this callback.</p>
+ * <p>The number of concurrently executed query operations is limited per batch request and for all batch
+ * requests using this instance together; the request thread waits for a free slot before it hands over the
+ * next query operation. The executor can be any {@link Executor}, e.g., a thread pool or, on Java 21
+ * and later, an executor starting a virtual thread per task. The instance is thread-safe and meant to be
+ * shared by all requests of one service.</p>
+ */
+public class BatchQueryExecution implements ODataCallback {
+
+  private final Executor executor;
+  private final int maxConcurrentQueriesPerBatch;
+  private final int maxConcurrentQueries;
+  private final Semaphore permits;
+
+  /**
+   * @param executor the executor running the query operations
+   * @param maxConcurrentQueriesPerBatch the maximum number of concurrently executed query operations
+   * of one batch request
+   * @param maxConcurrentQueries the maximum number of concurrently executed query operations
+   * of all batch requests
+   */
+  public BatchQueryExecution(final Executor executor, final int maxConcurrentQueriesPerBatch,
+      final int maxConcurrentQueries) {
+    if (executor == null) {
+      throw new IllegalArgumentException("executor must not be null");
+    }
+    if (maxConcurrentQueriesPerBatch <= 0 || maxConcurrentQueries <= 0) {
+      throw new IllegalArgumentException("The maximum numbers of concurrent queries must be positive");
+    }
+    this.executor = executor;
+    this.maxConcurrentQueriesPerBatch = maxConcurrentQueriesPerBatch;
+    this.maxConcurrentQueries = maxConcurrentQueries;
+    permits = new Semaphore(maxConcurrentQueries, true);
+  }
+
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  public int getMaxConcurrentQueriesPerBatch() {
+    return maxConcurrentQueriesPerBatch;
+  }
+
+  public int getMaxConcurrentQueries() {
+    return maxConcurrentQueries;
+  }
+
+  /**
+   * Waits until fewer than the maximum number of query operations of all batch requests are executed.
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public void acquire() throws InterruptedException {
+    permits.acquire();
+  }
+
+  /**
+   * Is called when the execution of a query operation has finished.
+   */
+  public void release() {
+    permits.release();
+  }
+}
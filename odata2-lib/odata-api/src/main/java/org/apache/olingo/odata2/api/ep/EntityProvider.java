@@ -19,10 +19,12 @@
 package org.apache.olingo.odata2.api.ep;
 
 import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.olingo.odata2.api.batch.BatchException;
+import org.apache.olingo.odata2.api.batch.BatchHandler;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
 import org.apache.olingo.odata2.api.client.batch.BatchPart;
@@ -36,6 +38,7 @@ import org.apache.olingo.odata2.api.edm.provider.Schema;
 import org.apache.olingo.odata2.api.ep.entry.ODataEntry;
 import org.apache.olingo.odata2.api.ep.feed.ODataDeltaFeed;
 import org.apache.olingo.odata2.api.ep.feed.ODataFeed;
+import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.processor.ODataErrorContext;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.api.rt.RuntimeDelegate;
@@ -154,6 +157,29 @@ public final class EntityProvider {
     ODataResponse writeFeed(String contentType, EdmEntitySet entitySet, List<Map<String, Object>> data,
         EntityProviderWriteProperties properties) throws EntityProviderException;
 
+    /**
+     * Write the entries provided by the given {@link Iterator} as feed in the specified format
+     * (given as <code>contentType</code>) based on given <code>entity data model for an entity set</code>
+     * (given as {@link EdmEntitySet}) and <code>properties</code> for this entity provider
+     * (given as {@link EntityProviderWriteProperties}).
+     * <br/>
+     * In contrast to {@link #writeFeed(String, EdmEntitySet, List, EntityProviderWriteProperties)}
+     * the entries are not requested before the content of the resulting {@link ODataResponse} is read;
+     * each entry is requested from the iterator and serialized only when the previous one has been read
+     * completely. If the iterator also implements {@link java.io.Closeable} it is closed together with
+     * the content stream.
+     * 
+     * @param contentType format in which the feed should be written
+     * @param entitySet entity data model for given entity data set
+     * @param data iterator which provides a {@link Map} for each entity (such a {@link Map}
+     * contains all properties [as <code>property name</code> to <code>property value</code> mapping])
+     * @param properties additional properties necessary for writing of data
+     * @return resulting {@link ODataResponse} with feed content which is written while it is read
+     * @throws EntityProviderException if writing of data (serialization) fails
+     */
+    ODataResponse writeFeed(String contentType, EdmEntitySet entitySet, Iterator<Map<String, Object>> data,
+        EntityProviderWriteProperties properties) throws EntityProviderException;
+
     /**
      * Write given <code>data</code> (which is given in form of a {@link Map} for which contains all properties
      * as <code>property name</code> to <code>property value</code> mapping) for the entry in the specified
@@ -424,6 +450,27 @@ public final class EntityProvider {
     List<BatchRequestPart> parseBatchRequest(String contentType, InputStream content,
         EntityProviderBatchProperties properties) throws BatchException;
 
+    /**
+     * Parse Batch Request body <code>inputStream</code> (as {@link InputStream}) part by part and hand each
+     * Batch Request part to the given {@link BatchHandler} as soon as it has been parsed, i.e., before the
+     * following parts are read from the input stream. Only the part currently parsed is held in memory.
+     * <br/>
+     * As a part is executed before the following parts have been parsed, a malformed later part fails the
+     * Batch Request after earlier change sets have been committed. Use
+     * {@link #parseBatchRequest(String, InputStream, EntityProviderBatchProperties)} and execute the parts
+     * afterwards if no part must be executed unless the whole Batch Request is valid.
+     * 
+     * @param contentType format of content in the given input stream
+     * @param content request body
+     * @param properties additional properties necessary for parsing. Must not be null.
+     * @param handler handler executing the Batch Request parts
+     * @return list of the {@link BatchResponsePart}s returned by the handler, in the order of the request parts
+     * @throws BatchException if parsing fails
+     * @throws ODataException if the handler fails
+     */
+    List<BatchResponsePart> parseBatchRequest(String contentType, InputStream content,
+        EntityProviderBatchProperties properties, BatchHandler handler) throws ODataException;
+
     /**
      * Write responses of Batch Response Parts in Batch Response as {@link ODataResponse}.
      * Batch Response body matches one-to-one with the corresponding Batch Request body
@@ -434,6 +481,22 @@ public final class EntityProvider {
      */
     ODataResponse writeBatchResponse(List<BatchResponsePart> batchResponseParts) throws BatchException;
 
+    /**
+     * Write responses of Batch Response Parts provided by the given {@link Iterator} in Batch Response
+     * as {@link ODataResponse}. Batch Response body matches one-to-one with the corresponding Batch Request body.
+     * <br/>
+     * In contrast to {@link #writeBatchResponse(List)} the Batch Response is written while its content is read:
+     * each part is requested from the iterator and serialized only when the previous part has been read completely,
+     * so that the serialized Batch Response is not assembled as a whole. The Batch Response parts provided by
+     * the iterator, including their entities, are not released before they have been written. The Batch
+     * Response has no <code>Content-Length</code> header.
+     * 
+     * @param batchResponseParts iterator which provides the {@link BatchResponsePart}s
+     * @return Batch Response as {@link ODataResponse} with content which is written while it is read
+     * @throws ODataException if the first part could not be provided or written
+     */
+    ODataResponse writeBatchResponse(Iterator<BatchResponsePart> batchResponseParts) throws ODataException;
+
     /**
      * Create Batch Request body as InputStream.
      * 
@@ -588,6 +651,32 @@ public final class EntityProvider {
     return createEntityProvider().writeFeed(contentType, entitySet, data, properties);
   }
 
+  /**
+   * Write the entries provided by the given {@link Iterator} as feed in the specified format
+   * (given as <code>contentType</code>) based on given <code>entity data model for an entity set</code>
+   * (given as {@link EdmEntitySet}) and <code>properties</code> for this entity provider
+   * (given as {@link EntityProviderWriteProperties}).
+   * <br/>
+   * In contrast to {@link #writeFeed(String, EdmEntitySet, List, EntityProviderWriteProperties)}
+   * the entries are not requested before the content of the resulting {@link ODataResponse} is read;
+   * each entry is requested from the iterator and serialized only when the previous one has been read
+   * completely. If the iterator also implements {@link java.io.Closeable} it is closed together with
+   * the content stream.
+   * 
+   * @param contentType format in which the feed should be written
+   * @param entitySet entity data model for given entity data set
+   * @param data iterator which provides a {@link Map} for each entity (such a {@link Map}
+   * contains all properties [as <code>property name</code> to <code>property value</code> mapping])
+   * @param properties additional properties necessary for writing of data
+   * @return resulting {@link ODataResponse} with feed content which is written while it is read
+   * @throws EntityProviderException if writing of data (serialization) fails
+   */
+  public static ODataResponse writeFeed(final String contentType, final EdmEntitySet entitySet,
+      final Iterator<Map<String, Object>> data, final EntityProviderWriteProperties properties)
+      throws EntityProviderException {
+    return createEntityProvider().writeFeed(contentType, entitySet, data, properties);
+  }
+
   /**
    * Write given <code>data</code> (which is given in form of a {@link Map} for which contains all properties
    * as <code>property name</code> to <code>property value</code> mapping) for the entry in the specified
@@ -919,6 +1008,29 @@ public final class EntityProvider {
     return createEntityProvider().parseBatchRequest(contentType, content, properties);
   }
 
+  /**
+   * Parse Batch Request body <code>inputStream</code> (as {@link InputStream}) part by part and hand each
+   * Batch Request part to the given {@link BatchHandler} as soon as it has been parsed, i.e., before the
+   * following parts are read from the input stream. Only the part currently parsed is held in memory.
+   * <br/>
+   * As a part is executed before the following parts have been parsed, a malformed later part fails the
+   * Batch Request after earlier change sets have been committed. Use
+   * {@link #parseBatchRequest(String, InputStream, EntityProviderBatchProperties)} and execute the parts
+   * afterwards if no part must be executed unless the whole Batch Request is valid.
+   * 
+   * @param contentType format of content in the given input stream
+   * @param content request body
+   * @param properties additional properties necessary for parsing. Must not be null.
+   * @param handler handler executing the Batch Request parts
+   * @return list of the {@link BatchResponsePart}s returned by the handler, in the order of the request parts
+   * @throws BatchException if parsing fails
+   * @throws ODataException if the handler fails
+   */
+  public static List<BatchResponsePart> parseBatchRequest(final String contentType, final InputStream content,
+      final EntityProviderBatchProperties properties, final BatchHandler handler) throws ODataException {
+    return createEntityProvider().parseBatchRequest(contentType, content, properties, handler);
+  }
+
   /**
    * Write responses of Batch Response Parts in Batch Response as {@link ODataResponse}.
    * Batch Response body matches one-to-one with the corresponding Batch Request body
@@ -932,6 +1044,25 @@ public final class EntityProvider {
     return createEntityProvider().writeBatchResponse(batchResponseParts);
   }
 
+  /**
+   * Write responses of Batch Response Parts provided by the given {@link Iterator} in Batch Response
+   * as {@link ODataResponse}. Batch Response body matches one-to-one with the corresponding Batch Request body.
+   * <br/>
+   * In contrast to {@link #writeBatchResponse(List)} the Batch Response is written while its content is read:
+   * each part is requested from the iterator and serialized only when the previous part has been read completely,
+   * so that the serialized Batch Response is not assembled as a whole. The Batch Response parts provided by
+   * the iterator, including their entities, are not released before they have been written. The Batch
+   * Response has no <code>Content-Length</code> header.
+   * 
+   * @param batchResponseParts iterator which provides the {@link BatchResponsePart}s
+   * @return Batch Response as {@link ODataResponse} with content which is written while it is read
+   * @throws ODataException if the first part could not be provided or written
+   */
+  public static ODataResponse writeBatchResponse(final Iterator<BatchResponsePart> batchResponseParts)
+      throws ODataException {
+    return createEntityProvider().writeBatchResponse(batchResponseParts);
+  }
+
   /**
    * Create Batch Request body as InputStream.
    * 
@@ -49,6 +49,9 @@ public class ODataBadRequestException extends ODataHttpException {
   /** INVALID_REQUEST requires NO content values */
   public static final MessageReference INVALID_REQUEST = createMessageReference(ODataBadRequestException.class,
       "INVALID_REQUEST");
+  /** BODY_TOO_LARGE requires 1 content value ('maximum size in bytes') */
+  public static final MessageReference BODY_TOO_LARGE = createMessageReference(ODataBadRequestException.class,
+      "BODY_TOO_LARGE");
 
   public ODataBadRequestException(final MessageReference messageReference) {
     super(messageReference, HttpStatusCodes.BAD_REQUEST);
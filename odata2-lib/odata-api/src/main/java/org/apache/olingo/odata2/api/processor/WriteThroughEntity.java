@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>Response entity which is able to write its content directly into the output stream
+ * of the container (servlet or JAX-RS) instead of being read out through an intermediate buffer.</p>
+ * <p>Because other consumers of an {@link ODataResponse} (e.g., batch processing) read the entity,
+ * an implementation has to be an {@link java.io.InputStream} as well; the container uses
+ * {@link #writeTo(OutputStream)} instead of reading the stream if possible.</p>
+ * 
+ */
+public interface WriteThroughEntity {
+
+  /**
+   * Writes the (remaining) content into the given stream. The given stream is neither flushed nor closed.
+   * After this call the entity has been consumed completely.
+   * @param out output stream of the container
+   * @throws IOException if the content could not be written
+   */
+  void writeTo(OutputStream out) throws IOException;
+}
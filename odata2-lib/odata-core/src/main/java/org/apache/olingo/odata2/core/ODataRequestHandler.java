@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -61,6 +62,7 @@ import org.apache.olingo.odata2.api.uri.UriParser;
 import org.apache.olingo.odata2.core.commons.ContentType;
 import org.apache.olingo.odata2.core.commons.ContentType.ODataFormat;
 import org.apache.olingo.odata2.core.debug.ODataDebugResponseWrapper;
+import org.apache.olingo.odata2.core.ep.util.SerializedDocument;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 import org.apache.olingo.odata2.core.rest.ODataExceptionWrapper;
 import org.apache.olingo.odata2.core.uri.UriInfoImpl;
@@ -147,7 +149,20 @@ public class ODataRequestHandler {
         extendedResponse.header(HttpHeaders.CONTENT_TYPE, acceptContentType.toContentTypeString());
       }
 
+      if (uriType == UriType.URI8 && odataResponse.getETag() == null
+          && odataResponse.getEntity() instanceof SerializedDocument.ContentStream) {
+        // the processor passes the metadata document of a frozen model on unchanged
+        extendedResponse = extendedResponse.eTag(
+            ((SerializedDocument.ContentStream) odataResponse.getEntity()).getDocument().getETag());
+      }
+
       odataResponse = extendedResponse.build();
+
+      if (method == ODataHttpMethod.GET && (uriType == UriType.URI0 || uriType == UriType.URI8)
+          && HttpStatusCodes.OK.equals(s)
+          && matchesETag(context.getRequestHeader(HttpHeaders.IF_NONE_MATCH), odataResponse.getETag())) {
+        odataResponse = createNotModifiedResponse(odataResponse);
+      }
     } catch (final Exception e) {
       exception = e;
       odataResponse = new ODataExceptionWrapper(context, request.getQueryParameters(), request.getAcceptHeaders())
@@ -523,6 +538,44 @@ public class ODataRequestHandler {
     }
   }
 
+  /**
+   * Checks whether the value of an <code>If-None-Match</code> header matches the given entity tag.
+   * Weak comparison is used as recommended for conditional GET requests.
+   * @param ifNoneMatch value of the <code>If-None-Match</code> header (can be <code>null</code>)
+   * @param eTag entity tag of the response (can be <code>null</code>)
+   * @return <code>true</code> if the header matches the entity tag
+   */
+  private static boolean matchesETag(final String ifNoneMatch, final String eTag) {
+    if (ifNoneMatch == null || eTag == null) {
+      return false;
+    }
+    final String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if ("*".equals(tag) || opaqueTag.equals(tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static ODataResponse createNotModifiedResponse(final ODataResponse response) throws ODataException {
+    try {
+      response.close();
+    } catch (final IOException e) {
+      throw new ODataException(e);
+    }
+    ODataResponseBuilder builder = ODataResponse.status(HttpStatusCodes.NOT_MODIFIED).eTag(response.getETag());
+    final String dataServiceVersion = response.getHeader(ODataHttpHeaders.DATASERVICEVERSION);
+    if (dataServiceVersion != null) {
+      builder = builder.header(ODataHttpHeaders.DATASERVICEVERSION, dataServiceVersion);
+    }
+    return builder.build();
+  }
+
   private static boolean checkUriType(UriType uriType) {
     return uriType == UriType.URI2 || uriType == UriType.URI6A || uriType == UriType.URI3
          || uriType == UriType.URI4 || uriType == UriType.URI5 || uriType == UriType.URI17;
@@ -25,10 +25,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
 import org.apache.olingo.odata2.api.batch.BatchHandler;
+import org.apache.olingo.odata2.api.batch.BatchQueryExecution;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
 import org.apache.olingo.odata2.api.commons.HttpHeaders;
@@ -48,17 +55,28 @@ public class BatchHandlerImpl implements BatchHandler {
   private ODataServiceFactory factory;
   private ODataService service;
   private Map<String, String> contentIdMap;
+  private final BatchQueryExecution queryExecution;
+  private final Semaphore queryPermits;
+  private final List<FutureTask<BatchResponsePart>> pendingQueries = new ArrayList<FutureTask<BatchResponsePart>>();
   private static final String BATCH_ODATA_REQUEST_HEADERS = "batchODataRequestHeaders";
 
   public BatchHandlerImpl(final ODataServiceFactory factory, final ODataService service) {
     this.factory = factory;
     this.service = service;
-    contentIdMap = new HashMap<String, String>();
+    queryExecution = factory == null ? null : factory.getCallback(BatchQueryExecution.class);
+    if (queryExecution == null) {
+      contentIdMap = new HashMap<String, String>();
+      queryPermits = null;
+    } else {
+      contentIdMap = new ConcurrentHashMap<String, String>();
+      queryPermits = new Semaphore(queryExecution.getMaxConcurrentQueriesPerBatch());
+    }
   }
 
   @Override
   public BatchResponsePart handleBatchPart(final BatchRequestPart batchPart) throws ODataException {
     if (batchPart.isChangeSet()) {
+      awaitPendingQueries();
       List<ODataRequest> changeSetRequests = batchPart.getRequests();
       return service.getBatchProcessor().executeChangeSet(this, changeSetRequests);
     } else {
@@ -75,13 +93,95 @@ public class BatchHandlerImpl implements BatchHandler {
       if (!odataSegments.isEmpty() && odataSegments.get(0).getPath().matches("\\$.*")) {
         request = modifyRequest(request, odataSegments);
       }
-      ODataRequestHandler handler = createHandler(request);
-      ODataResponse response = setContentIdHeader(request, handler.handle(request), 
-          mimeHeaderContentId, requestHeaderContentId);
-      List<ODataResponse> responses = new ArrayList<ODataResponse>(1);
-      responses.add(response);
-      return BatchResponsePart.responses(responses).changeSet(false).build();
+      if (queryExecution != null) {
+        return executeConcurrently(request, mimeHeaderContentId, requestHeaderContentId);
+      }
+      return handleQuery(createHandler(request), request, mimeHeaderContentId, requestHeaderContentId);
+    }
+  }
+
+  private BatchResponsePart handleQuery(final ODataRequestHandler handler, final ODataRequest request,
+      final String mimeHeaderContentId, final String requestHeaderContentId) {
+    ODataResponse response = setContentIdHeader(request, handler.handle(request),
+        mimeHeaderContentId, requestHeaderContentId);
+    List<ODataResponse> responses = new ArrayList<ODataResponse>(1);
+    responses.add(response);
+    return BatchResponsePart.responses(responses).changeSet(false).build();
+  }
+
+  /**
+   * Hands the query operation over to the executor of the {@link BatchQueryExecution} callback.
+   * The operation gets its own service because processors are not required to be thread-safe;
+   * the service is created on the request thread because service factories are not either.
+   */
+  private BatchResponsePart executeConcurrently(final ODataRequest request, final String mimeHeaderContentId,
+      final String requestHeaderContentId) throws ODataException {
+    final ODataContextImpl context = createContext(request);
+    final ODataService queryService = factory.createService(context);
+    queryService.getProcessor().setContext(context);
+    context.setService(queryService);
+    final ODataRequestHandler handler = new ODataRequestHandler(factory, queryService, context);
+
+    acquirePermits();
+    final FutureTask<BatchResponsePart> task = new FutureTask<BatchResponsePart>(new Callable<BatchResponsePart>() {
+      @Override
+      public BatchResponsePart call() {
+        try {
+          return handleQuery(handler, request, mimeHeaderContentId, requestHeaderContentId);
+        } finally {
+          queryPermits.release();
+          queryExecution.release();
+        }
+      }
+    });
+    pendingQueries.add(task);
+    try {
+      queryExecution.getExecutor().execute(task);
+    } catch (RejectedExecutionException e) {
+      task.run();
+    } catch (RuntimeException e) {
+      // the task has not been started, so it cannot release the permits itself
+      pendingQueries.remove(task);
+      queryPermits.release();
+      queryExecution.release();
+      throw e;
+    }
+    return new ConcurrentBatchResponsePart(task);
+  }
+
+  private void acquirePermits() throws ODataException {
+    try {
+      queryPermits.acquire();
+      try {
+        queryExecution.acquire();
+      } catch (InterruptedException e) {
+        queryPermits.release();
+        throw e;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataException(e);
+    }
+  }
+
+  /**
+   * Waits until the query operations handed over to the executor have finished, so that a following
+   * change set does not run concurrently with them. Failures are reported by the response parts.
+   */
+  private void awaitPendingQueries() throws ODataException {
+    try {
+      for (FutureTask<BatchResponsePart> pendingQuery : pendingQueries) {
+        try {
+          pendingQuery.get();
+        } catch (ExecutionException e) {
+          // reported when the responses of the part are requested
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataException(e);
     }
+    pendingQueries.clear();
   }
 
   @Override
@@ -190,17 +290,22 @@ public class BatchHandlerImpl implements BatchHandler {
   }
 
   private ODataRequestHandler createHandler(final ODataRequest request) throws ODataException {
+    ODataContextImpl context = createContext(request);
+    context.setService(service);
+    service.getProcessor().setContext(context);
+    return new ODataRequestHandler(factory, service, context);
+  }
+
+  private ODataContextImpl createContext(final ODataRequest request) throws ODataException {
     ODataContextImpl context = new ODataContextImpl(request, factory);
     ODataContext parentContext = service.getProcessor().getContext();
     context.setBatchParentContext(parentContext);
-    context.setService(service);
     if (parentContext != null && parentContext.getParameter(BATCH_ODATA_REQUEST_HEADERS) != null) {
       context.setParameter(BATCH_ODATA_REQUEST_HEADERS, parentContext.getParameter(BATCH_ODATA_REQUEST_HEADERS));
     } else if (parentContext != null && parentContext.getRequestHeaders() != null) {
       context.setParameter(BATCH_ODATA_REQUEST_HEADERS, parentContext.getRequestHeaders());
     }
-    service.getProcessor().setContext(context);
-    return new ODataRequestHandler(factory, service, context);
+    return context;
   }
 
 }
@@ -23,9 +23,15 @@ import org.apache.olingo.odata2.api.batch.BatchResponsePart;
 import org.apache.olingo.odata2.api.commons.HttpContentType;
 import org.apache.olingo.odata2.api.commons.HttpHeaders;
 import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.core.commons.ContentType;
+import org.apache.olingo.odata2.core.ep.util.IncrementalInputStream;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 
 public class BatchResponseWriter {
@@ -73,6 +79,50 @@ public class BatchResponseWriter {
         .build();
   }
 
+  /**
+   * Writes the batch response while its content is read. Each part is requested from the iterator and
+   * serialized only when the previous part has been read completely, so the serialized batch response is
+   * not assembled as a whole. The response parts themselves, including their entities, are usually all built
+   * before writing starts and stay in memory until they have been written. The batch response has no
+   * <code>Content-Length</code> header; the parts still have one, so the entity of a part is read
+   * completely before it is written.
+   *
+   * @param batchResponseParts iterator which provides the parts of the batch response
+   * @return the batch response with the content written while it is read
+   * @throws ODataException if the first part could not be provided or written
+   */
+  public ODataResponse writeResponse(final Iterator<BatchResponsePart> batchResponseParts) throws ODataException {
+    final String boundary = BatchHelper.generateBoundary("batch");
+    IncrementalInputStream content = new IncrementalInputStream() {
+      @Override
+      protected boolean writeNextChunk(final OutputStream out) throws IOException {
+        final boolean hasNext = batchResponseParts.hasNext();
+        try {
+          if (hasNext) {
+            appendResponsePart(batchResponseParts.next(), boundary);
+          } else {
+            writer.append("--").append(boundary).append("--");
+          }
+        } catch (final BatchException e) {
+          throw new IOException(e);
+        }
+        flush(out);
+        return hasNext;
+      }
+    };
+
+    try {
+      return ODataResponse.entity(content.start()).status(HttpStatusCodes.ACCEPTED)
+          .header(HttpHeaders.CONTENT_TYPE, HttpContentType.MULTIPART_MIXED + "; boundary=" + boundary)
+          .build();
+    } catch (final IOException e) {
+      if (e.getCause() instanceof ODataException) {
+        throw (ODataException) e.getCause();
+      }
+      throw new ODataRuntimeException(e);
+    }
+  }
+
   private void appendChangeSet(final BatchResponsePart batchResponsePart) throws BatchException {
     String boundary = BatchHelper.generateBoundary("changeset");
     writer.append(HttpHeaders.CONTENT_TYPE).append(COLON).append(SP)
@@ -87,17 +137,22 @@ public class BatchResponseWriter {
   private void appendResponsePart(final List<BatchResponsePart> batchResponseParts, final String boundary)
       throws BatchException {
     for (BatchResponsePart batchResponsePart : batchResponseParts) {
-      writer.append("--").append(boundary).append(CRLF);
-      if (batchResponsePart.isChangeSet()) {
-        appendChangeSet(batchResponsePart);
-      } else {
-        ODataResponse response = batchResponsePart.getResponses().get(0);
-        appendResponsePartBody(response);
-      }
+      appendResponsePart(batchResponsePart, boundary);
     }
     writer.append("--").append(boundary).append("--");
   }
 
+  private void appendResponsePart(final BatchResponsePart batchResponsePart, final String boundary)
+      throws BatchException {
+    writer.append("--").append(boundary).append(CRLF);
+    if (batchResponsePart.isChangeSet()) {
+      appendChangeSet(batchResponsePart);
+    } else {
+      ODataResponse response = batchResponsePart.getResponses().get(0);
+      appendResponsePartBody(response);
+    }
+  }
+
   private void appendResponsePartBody(final ODataResponse response) throws BatchException {
     writer.append(HttpHeaders.CONTENT_TYPE).append(COLON).append(SP)
         .append(HttpContentType.APPLICATION_HTTP).append(CRLF);
@@ -126,6 +181,16 @@ public class BatchResponseWriter {
     writer.append(CRLF);
   }
 
+  private void flush(final OutputStream out) throws IOException {
+    if (writeEntityAsInputStream) {
+      out.write(writer.getContent());
+    } else {
+      // the same bytes as the String entity of writeResponse(List) which is written in UTF-8
+      out.write(writer.getContentAsString(BatchHelper.DEFAULT_CHARSET).getBytes(BatchHelper.UTF8_ENCODING));
+    }
+    writer = new BatchHelper.BodyBuilder();
+  }
+
   private void appendHeader(final ODataResponse response) {
     for (String name : response.getHeaderNames()) {
       if (!BatchHelper.MIME_HEADER_CONTENT_ID.equalsIgnoreCase(name)
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.batch;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.olingo.odata2.api.batch.BatchResponsePart;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
+
+/**
+ * Response part of a query operation executed concurrently; the responses are awaited
+ * when the part is written.
+ */
+public class ConcurrentBatchResponsePart extends BatchResponsePart {
+  private final Future<BatchResponsePart> result;
+
+  public ConcurrentBatchResponsePart(final Future<BatchResponsePart> result) {
+    this.result = result;
+  }
+
+  @Override
+  public List<ODataResponse> getResponses() {
+    try {
+      return result.get().getResponses();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataRuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new ODataRuntimeException(e.getCause());
+    }
+  }
+
+  @Override
+  public boolean isChangeSet() {
+    return false;
+  }
+}
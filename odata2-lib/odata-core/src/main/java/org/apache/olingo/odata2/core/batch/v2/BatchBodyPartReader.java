@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.batch.v2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.olingo.odata2.api.batch.BatchException;
+
+/**
+ * Reads the body parts of a multipart message one after the other.
+ * <p>In contrast to {@link BatchParserCommon#splitMessageByBoundary(List, String)} only the lines
+ * of the current body part are held in memory; the lines of the following body parts are read
+ * from the stream when they are requested.</p>
+ */
+public class BatchBodyPartReader {
+
+  private final BatchLineReader reader;
+  private final String boundary;
+  private final String boundaryLinePrefix;
+  private final Pattern boundaryDelimiterPattern;
+  private final Pattern boundaryPattern;
+  private int firstLineNumber = 0;
+  private boolean isPreambleConsumed = false;
+  private boolean isEndReached = false;
+
+  public BatchBodyPartReader(final BatchLineReader reader, final String boundary) {
+    this.reader = reader;
+    this.boundary = boundary;
+    boundaryLinePrefix = "--" + boundary;
+
+    final String quotedBoundary = Pattern.quote(boundary);
+    boundaryDelimiterPattern = Pattern.compile("--" + quotedBoundary + "--[\\s ]*");
+    boundaryPattern = Pattern.compile("--" + quotedBoundary + "[\\s ]*");
+  }
+
+  /**
+   * Reads the lines of the next body part.
+   * @return the lines of the body part without the line break preceding the boundary,
+   * or <code>null</code> if the close delimiter has been reached
+   * @throws IOException if reading fails
+   * @throws BatchException if the message does not contain the boundary or the close delimiter
+   */
+  public List<Line> next() throws IOException, BatchException {
+    if (!isPreambleConsumed) {
+      consumePreamble();
+    }
+    if (isEndReached) {
+      return null;
+    }
+
+    final List<Line> bodyPart = new ArrayList<Line>();
+    Line currentLine;
+    while ((currentLine = reader.readNextLine()) != null) {
+      if (!isBoundaryCandidate(currentLine)) {
+        bodyPart.add(currentLine);
+      } else if (boundaryDelimiterPattern.matcher(currentLine.toString()).matches()) {
+        isEndReached = true;
+        return removeEndingCRLF(bodyPart);
+      } else if (boundaryPattern.matcher(currentLine.toString()).matches()) {
+        return removeEndingCRLF(bodyPart);
+      } else {
+        bodyPart.add(currentLine);
+      }
+    }
+
+    throw new BatchException(BatchException.MISSING_CLOSE_DELIMITER.addContent(firstLineNumber));
+  }
+
+  private void consumePreamble() throws IOException, BatchException {
+    Line currentLine;
+    while ((currentLine = reader.readNextLine()) != null) {
+      if (firstLineNumber == 0) {
+        firstLineNumber = currentLine.getLineNumber();
+      }
+      if (boundaryDelimiterPattern.matcher(currentLine.toString()).matches()) {
+        throw new BatchException(BatchException.NO_MATCH_WITH_BOUNDARY_STRING
+            .addContent(boundary).addContent(firstLineNumber));
+      } else if (boundaryPattern.matcher(currentLine.toString()).matches()) {
+        isPreambleConsumed = true;
+        return;
+      }
+    }
+
+    throw new BatchException(BatchException.MISSING_BOUNDARY_DELIMITER.addContent(firstLineNumber));
+  }
+
+  /*
+   * Only lines starting with the boundary need to be matched against the patterns.
+   */
+  private boolean isBoundaryCandidate(final Line line) {
+    return line.toString().startsWith(boundaryLinePrefix);
+  }
+
+  private List<Line> removeEndingCRLF(final List<Line> bodyPart) {
+    if (!bodyPart.isEmpty()) {
+      bodyPart.set(bodyPart.size() - 1, BatchParserCommon.removeEndingCRLF(bodyPart.get(bodyPart.size() - 1)));
+    }
+    return bodyPart;
+  }
+}
@@ -22,11 +22,9 @@ import org.apache.olingo.odata2.core.commons.ContentType;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
 public class BatchLineReader {
   private static final byte CR = '\r';
@@ -35,19 +33,22 @@ public class BatchLineReader {
   private static final int BUFFER_SIZE = 8192;
   private static final Charset DEFAULT_CHARSET = Charset.forName("ISO-8859-1");
   private static final String UTF8_CHARSET = "UTF-8";
-  private static final String CONTENT_TYPE = "content-type";
+  private static final byte[] CONTENT_TYPE_BYTES = "content-type".getBytes(DEFAULT_CHARSET);
   private static final String XML_SUBTYPE = "xml";
   public static final String BOUNDARY = "boundary";
   public static final String DOUBLE_DASH = "--";
   public static final String CRLF = "\r\n";
   public static final String LFS = "\n";
   private Charset currentCharset = DEFAULT_CHARSET;
-  private String currentBoundary = null;
+  private byte[] currentBoundaryBytes = null;
   private ReadState readState = new ReadState();
   private InputStream reader;
   private byte[] buffer;
   private int offset = 0;
   private int limit = 0;
+  private int lineNumber = 0;
+  private byte[] line = new byte[256];
+  private int lineLength = 0;
 
   public BatchLineReader(final InputStream reader) {
     this(reader, BUFFER_SIZE);
@@ -70,7 +71,7 @@ public class BatchLineReader {
     final List<String> result = new ArrayList<String>();
     String currentLine = readLine();
     if(currentLine != null) {
-      currentBoundary = currentLine.trim();
+      setCurrentBoundary(currentLine.trim());
       result.add(currentLine);
 
       while ((currentLine = readLine()) != null) {
@@ -82,63 +83,102 @@ public class BatchLineReader {
 
   public List<Line> toLineList() throws IOException {
     final List<Line> result = new ArrayList<Line>();
-    String currentLine = readLine();
-    if(currentLine != null) {
-      currentBoundary = currentLine.trim();
-      int counter = 1;
-      result.add(new Line(currentLine, counter++));
-
-      while ((currentLine = readLine()) != null) {
-        result.add(new Line(currentLine, counter++));
-      }
+    Line currentLine;
+    while ((currentLine = readNextLine()) != null) {
+      result.add(currentLine);
     }
 
     return result;
   }
 
-  private void updateCurrentCharset(String currentLine) {
-    if(currentLine != null) {
-      if(isContentTypeHeaderLine(currentLine)) {
-        int cutOff = currentLine.endsWith(CRLF) ? 2 : currentLine.endsWith(LFS) ? 1 : 0;
-        currentLine = currentLine.substring(13, currentLine.length() - cutOff).trim();
-        ContentType ct = ContentType.parse(currentLine);
-        if (ct != null) {
-          String charsetString = ct.getParameters().get(ContentType.PARAMETER_CHARSET);
-          if (charsetString != null) {
-            currentCharset = Charset.forName(charsetString);
+  /**
+   * Reads the next line of the message, so that the message can be processed without
+   * holding all of its lines in memory.
+   * @return the line including its line break or <code>null</code> if the end of the message is reached
+   * @throws IOException if reading fails
+   */
+  public Line readNextLine() throws IOException {
+    final String currentLine = readLine();
+    if (currentLine == null) {
+      return null;
+    }
+    if (lineNumber == 0) {
+      setCurrentBoundary(currentLine.trim());
+    }
+    return new Line(currentLine, ++lineNumber);
+  }
+
+  private void updateCurrentCharset(final String currentLine) {
+    if (isContentTypeHeaderLine()) {
+      int cutOff = currentLine.endsWith(CRLF) ? 2 : currentLine.endsWith(LFS) ? 1 : 0;
+      ContentType ct = ContentType.parse(currentLine.substring(13, currentLine.length() - cutOff).trim());
+      if (ct != null) {
+        String charsetString = ct.getParameters().get(ContentType.PARAMETER_CHARSET);
+        if (charsetString != null) {
+          currentCharset = Charset.forName(charsetString);
+        } else {
+          if (ct.isCompatible(ContentType.APPLICATION_JSON) || ct.getSubtype().contains(XML_SUBTYPE)) {
+            currentCharset = Charset.forName(UTF8_CHARSET);
           } else {
-            if (ct.isCompatible(ContentType.APPLICATION_JSON) || ct.getSubtype().contains(XML_SUBTYPE)) {
-              currentCharset = Charset.forName(UTF8_CHARSET);
-            } else {
-              currentCharset = DEFAULT_CHARSET;
-            }
-          }
-          // boundary
-          String boundary = ct.getParameters().get(BOUNDARY);
-          if (boundary != null) {
-            currentBoundary = DOUBLE_DASH + boundary;
+            currentCharset = DEFAULT_CHARSET;
           }
         }
-      } else if(CRLF.equals(currentLine) || LFS.equals(currentLine)) {
-        readState.foundLinebreak();
-      } else if(isBoundary(currentLine)) {
-        readState.foundBoundary();
+        // boundary
+        String boundary = ct.getParameters().get(BOUNDARY);
+        if (boundary != null) {
+          setCurrentBoundary(DOUBLE_DASH + boundary);
+        }
       }
+    } else if (isLineBreak(0)) {
+      readState.foundLinebreak();
+    } else if (isBoundary()) {
+      readState.foundBoundary();
     }
   }
 
-  private boolean isContentTypeHeaderLine(String currentLine) {
-    return currentLine.toLowerCase(Locale.ENGLISH).startsWith(CONTENT_TYPE);
+  private void setCurrentBoundary(final String boundary) {
+    currentBoundaryBytes = boundary.getBytes(DEFAULT_CHARSET);
   }
 
-  private boolean isBoundary(String currentLine) {
-    if((currentBoundary + CRLF).equals(currentLine) || (currentBoundary + LFS).equals(currentLine)) {
-      return true;
-    } else if((currentBoundary + DOUBLE_DASH + CRLF).equals(currentLine) 
-        || (currentBoundary + DOUBLE_DASH + LFS).equals(currentLine)) {
-      return true;
+  /*
+   * The checks below work on the bytes of the current line, so that no further strings
+   * are created for the lines of the message.
+   */
+  private boolean isContentTypeHeaderLine() {
+    if (lineLength < CONTENT_TYPE_BYTES.length) {
+      return false;
     }
-    return false;
+    for (int i = 0; i < CONTENT_TYPE_BYTES.length; i++) {
+      byte current = line[i];
+      if (current >= 'A' && current <= 'Z') {
+        current += 'a' - 'A';
+      }
+      if (current != CONTENT_TYPE_BYTES[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isLineBreak(final int index) {
+    return lineLength - index == 1 && line[index] == LF
+        || lineLength - index == 2 && line[index] == CR && line[index + 1] == LF;
+  }
+
+  private boolean isBoundary() {
+    if (currentBoundaryBytes == null || lineLength < currentBoundaryBytes.length) {
+      return false;
+    }
+    for (int i = 0; i < currentBoundaryBytes.length; i++) {
+      if (line[i] != currentBoundaryBytes[i]) {
+        return false;
+      }
+    }
+    int index = currentBoundaryBytes.length;
+    if (lineLength - index > 2 && line[index] == '-' && line[index + 1] == '-') {
+      index += 2;
+    }
+    return isLineBreak(index);
   }
 
   String readLine() throws IOException {
@@ -146,65 +186,63 @@ public class BatchLineReader {
       return null;
     }
 
-    ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+    lineLength = 0;
     boolean foundLineEnd = false; // EOF will be considered as line ending
 
     while (!foundLineEnd) {
       // Is buffer refill required?
-      if (limit == offset) {
-        if (fillBuffer() == EOF) {
-          foundLineEnd = true;
-        }
+      if (limit == offset && fillBuffer() == EOF) {
+        break;
       }
 
-      if (!foundLineEnd) {
-        byte currentChar = this.buffer[offset++];
-        buf = grantBuffer(buf);
-        buf.put(currentChar);
-
-        if (currentChar == LF) {
-          foundLineEnd = true;
-        } else if (currentChar == CR) {
-          foundLineEnd = true;
+      // Copy the bytes up to and including the next line break at once
+      int end = offset;
+      while (end < limit && buffer[end] != LF && buffer[end] != CR) {
+        end++;
+      }
+      foundLineEnd = end < limit;
+      if (foundLineEnd) {
+        end++;
+      }
+      appendToLine(offset, end - offset);
+      offset = end;
 
-          // Check next byte. Consume \n if available
-          // Is buffer refill required?
-          if (limit == offset) {
-            fillBuffer();
-          }
+      if (foundLineEnd && line[lineLength - 1] == CR) {
+        // Check next byte. Consume \n if available
+        // Is buffer refill required?
+        if (limit == offset) {
+          fillBuffer();
+        }
 
-          // Check if there is at least one character
-          if (limit != EOF && this.buffer[offset] == LF) {
-            buf = grantBuffer(buf);
-            buf.put(LF);
-            offset++;
-          }
+        // Check if there is at least one character
+        if (limit != EOF && this.buffer[offset] == LF) {
+          appendToLine(offset++, 1);
         }
       }
     }
 
-    if(buf.position() == 0) {
+    if (lineLength == 0) {
       return null;
     } else {
       String currentLine;
-      if(readState.isReadBody()) {
-        currentLine = new String(buf.array(), 0, buf.position(), getCurrentCharset());
+      if (readState.isReadBody()) {
+        currentLine = new String(line, 0, lineLength, getCurrentCharset());
       } else {
-        currentLine = new String(buf.array(), 0, buf.position(), DEFAULT_CHARSET);
+        currentLine = new String(line, 0, lineLength, DEFAULT_CHARSET);
       }
       updateCurrentCharset(currentLine);
       return currentLine;
     }
   }
 
-  private ByteBuffer grantBuffer(ByteBuffer buffer) {
-    if(!buffer.hasRemaining()) {
-      buffer.flip();
-      ByteBuffer tmp = ByteBuffer.allocate(buffer.limit() *2);
-      tmp.put(buffer);
-      buffer = tmp;
+  private void appendToLine(final int from, final int length) {
+    if (lineLength + length > line.length) {
+      byte[] tmp = new byte[Math.max(line.length * 2, lineLength + length)];
+      System.arraycopy(line, 0, tmp, 0, lineLength);
+      line = tmp;
     }
-    return buffer;
+    System.arraycopy(buffer, from, line, lineLength, length);
+    lineLength += length;
   }
 
   private int fillBuffer() throws IOException {
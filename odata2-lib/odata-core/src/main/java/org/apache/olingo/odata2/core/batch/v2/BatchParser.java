@@ -20,14 +20,18 @@ package org.apache.olingo.odata2.core.batch.v2;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.batch.BatchException;
+import org.apache.olingo.odata2.api.batch.BatchHandler;
 import org.apache.olingo.odata2.api.batch.BatchParserResult;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
+import org.apache.olingo.odata2.api.batch.BatchResponsePart;
 import org.apache.olingo.odata2.api.client.batch.BatchSingleResponse;
 import org.apache.olingo.odata2.api.ep.EntityProviderBatchProperties;
+import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.uri.PathInfo;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
@@ -57,6 +61,38 @@ public class BatchParser {
     return (List<BatchRequestPart>) parse(in, new BatchRequestTransformator());
   }
 
+  /**
+   * Parses the batch request part by part and hands each part to the handler as soon as it has been read,
+   * i.e., a part is executed before the following parts are read from the stream. So a malformed later part
+   * fails the request after earlier change sets have been executed; use {@link #parseBatchRequest(InputStream)}
+   * if the whole request must be valid before the first part is executed.
+   * @param in the batch request body
+   * @param handler the handler executing the parts
+   * @return the responses of the handler in the order of the parts
+   * @throws ODataException if parsing fails or if the handler fails
+   */
+  public List<BatchResponsePart> parseBatchRequest(final InputStream in, final BatchHandler handler)
+      throws ODataException {
+    final String baseUri = getBaseUri();
+    final String boundary = BatchParserCommon.getBoundary(contentTypeMime, 1);
+    final BatchTransformator transformator = new BatchRequestTransformator();
+    final List<BatchResponsePart> responseParts = new ArrayList<BatchResponsePart>();
+    try {
+      final BatchBodyPartReader reader = new BatchBodyPartReader(new BatchLineReader(in), boundary);
+      List<Line> bodyPartLines;
+      while ((bodyPartLines = reader.next()) != null) {
+        for (BatchParserResult part : transform(bodyPartLines, boundary, transformator, baseUri)) {
+          responseParts.add(handler.handleBatchPart((BatchRequestPart) part));
+        }
+      }
+      return responseParts;
+    } catch (IOException e) {
+      throw new ODataRuntimeException(e);
+    } finally {
+      close(in);
+    }
+  }
+
   private List<? extends BatchParserResult> parse(final InputStream in, final BatchTransformator transformator)
       throws BatchException {
     try {
@@ -64,11 +100,7 @@ public class BatchParser {
     } catch (IOException e) {
       throw new ODataRuntimeException(e);
     } finally {
-      try {
-        in.close();
-      } catch (IOException e) {
-        throw new ODataRuntimeException(e);
-      }
+      close(in);
     }
   }
 
@@ -78,26 +110,29 @@ public class BatchParser {
     final String baseUri = getBaseUri();
     final String boundary = BatchParserCommon.getBoundary(contentTypeMime, 1);
     final List<BatchParserResult> resultList = new LinkedList<BatchParserResult>();
-    final List<List<Line>> bodyPartStrings = splitBodyParts(in, boundary);
+    final BatchBodyPartReader reader = new BatchBodyPartReader(new BatchLineReader(in), boundary);
 
-    for (List<Line> bodyPartString : bodyPartStrings) {
-      BatchBodyPart bodyPart = new BatchBodyPart(bodyPartString, boundary, isStrict).parse();
-      resultList.addAll(transformator.transform(bodyPart, batchRequestPathInfo, baseUri));
+    List<Line> bodyPartLines;
+    while ((bodyPartLines = reader.next()) != null) {
+      resultList.addAll(transform(bodyPartLines, boundary, transformator, baseUri));
     }
 
     return resultList;
   }
-  
-  private List<List<Line>> splitBodyParts(final InputStream in, final String boundary)
-      throws IOException, BatchException {
 
-    final BatchLineReader reader = new BatchLineReader(in);
-    final List<Line> message = reader.toLineList();
-    reader.close();
-
-    return BatchParserCommon.splitMessageByBoundary(message, boundary);
+  private List<BatchParserResult> transform(final List<Line> bodyPartLines, final String boundary,
+      final BatchTransformator transformator, final String baseUri) throws BatchException {
+    final BatchBodyPart bodyPart = new BatchBodyPart(bodyPartLines, boundary, isStrict).parse();
+    return transformator.transform(bodyPart, batchRequestPathInfo, baseUri);
   }
 
+  private void close(final InputStream in) {
+    try {
+      in.close();
+    } catch (IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
 
   private String getBaseUri() throws BatchException {
     String baseUri = "";
@@ -28,7 +28,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.olingo.odata2.api.batch.BatchException;
@@ -41,7 +40,7 @@ import org.apache.olingo.odata2.core.commons.Decoder;
 
 public class BatchParserCommon {
 
-  private static final Pattern PATTERN_LAST_CRLF = Pattern.compile("(.*)(\r\n){1}( *)", Pattern.DOTALL);
+  private static final Pattern PATTERN_BLANK_LINE = Pattern.compile("\\s*\r\n\\s*");
 
   // Multipart boundaries are defined in RFC 2046:
   //     boundary      := 0*69<bchars> bcharsnospace
@@ -77,10 +76,16 @@ public class BatchParserCommon {
   }
   
   public static String trimLineListToLength(final List<Line> list, final int length) {
-    final String message = lineListToString(list);
-    final int lastIndex = Math.min(length, message.length());
+    StringBuilder builder = new StringBuilder();
+
+    for (Line currentLine : list) {
+      if (builder.length() >= length) {
+        break;
+      }
+      builder.append(currentLine.toString());
+    }
 
-    return (lastIndex > 0) ? message.substring(0, lastIndex) : "";
+    return (length > 0) ? builder.substring(0, Math.min(length, builder.length())) : "";
   }
 
   public static String lineListToString(final List<Line> list) {
@@ -179,11 +184,14 @@ public class BatchParserCommon {
   }
 
   public static Line removeEndingCRLF(final Line line) {
-    Pattern pattern = PATTERN_LAST_CRLF;
-    Matcher matcher = pattern.matcher(line.toString());
-
-    if (matcher.matches()) {
-      return new Line(matcher.group(1), line.getLineNumber());
+    // same as matching PATTERN_LAST_CRLF but without backtracking through the whole line
+    final String content = line.toString();
+    int end = content.length();
+    while (end > 0 && content.charAt(end - 1) == ' ') {
+      end--;
+    }
+    if (end >= 2 && content.charAt(end - 2) == '\r' && content.charAt(end - 1) == '\n') {
+      return new Line(content.substring(0, end - 2), line.getLineNumber());
     } else {
       return line;
     }
@@ -201,13 +209,14 @@ public class BatchParserCommon {
 
     while (iter.hasNext() && isHeader) {
       currentLine = iter.next();
-      final Matcher headerMatcher = PATTERN_HEADER_LINE.matcher(currentLine.toString());
+      final String line = currentLine.toString();
+      final int separator = getHeaderSeparatorIndex(line);
 
-      if (headerMatcher.matches() && headerMatcher.groupCount() == 2) {
+      if (separator > 0) {
         iter.remove();
 
-        String headerName = headerMatcher.group(1).trim();
-        String headerValue = headerMatcher.group(2).trim();
+        String headerName = line.substring(0, separator);
+        String headerValue = line.substring(separator + 1).trim();
 
         if (HttpHeaders.ACCEPT.equalsIgnoreCase(headerName)) {
           acceptParser.addAcceptHeaderValue(headerValue);
@@ -229,9 +238,49 @@ public class BatchParserCommon {
     return headers;
   }
 
+  /**
+   * Checks whether the line is a header line as matched by <code>PATTERN_HEADER_LINE</code>,
+   * without running the regular expression on every line of the message.
+   * @param line the line
+   * @return the index of the colon separating name and value or -1 if the line is no header line
+   */
+  static int getHeaderSeparatorIndex(final String line) {
+    final int length = line.length();
+    int separator = 0;
+    while (separator < length && isHeaderNameChar(line.charAt(separator))) {
+      separator++;
+    }
+    if (separator == 0 || separator == length || line.charAt(separator) != ':') {
+      return -1;
+    }
+    int end = length;
+    while (end > separator + 1 && isWhitespace(line.charAt(end - 1))) {
+      end--;
+    }
+    int start = separator + 1;
+    if (start < end && isWhitespace(line.charAt(start))) {
+      start++;
+    }
+    for (int i = start; i < end; i++) {
+      final char c = line.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        return -1;
+      }
+    }
+    return separator;
+  }
+
+  private static boolean isHeaderNameChar(final char c) {
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || "!#$%&'*+-.^_`|~".indexOf(c) >= 0;
+  }
+
+  private static boolean isWhitespace(final char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
   public static void consumeBlankLine(final List<Line> remainingMessage, final boolean isStrict)
       throws BatchException {
-    if (!remainingMessage.isEmpty() && remainingMessage.get(0).toString().matches("\\s*\r\n\\s*")) {
+    if (!remainingMessage.isEmpty() && PATTERN_BLANK_LINE.matcher(remainingMessage.get(0).toString()).matches()) {
       remainingMessage.remove(0);
     } else {
       if (isStrict) {
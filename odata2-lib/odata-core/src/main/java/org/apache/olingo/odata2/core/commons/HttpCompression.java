@@ -0,0 +1,494 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.commons;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.ServletConfig;
+
+import org.apache.olingo.odata2.api.exception.ODataBadRequestException;
+import org.apache.olingo.odata2.api.exception.ODataUnsupportedMediaTypeException;
+
+/**
+ * HTTP content codings of request and response bodies.
+ * <p>Responses are compressed with <code>gzip</code> or <code>deflate</code> if the client accepts it
+ * (<code>Accept-Encoding</code>), the coding is configured, the content type is not excluded, and the
+ * body is not smaller than the minimum size. The configuration is read from the init parameters of the
+ * servlet; response compression is switched off unless encodings are configured.</p>
+ * <p>Request bodies with <code>Content-Encoding</code> <code>gzip</code> or <code>deflate</code> are
+ * decompressed only if a maximum request size is configured; reading more decompressed bytes than this
+ * size fails. Otherwise request bodies are passed on unchanged.</p>
+ * <p>The entity tag of a response is not changed by compression: processors compare the entity tags
+ * of entities and media resources with <code>If-Match</code> for optimistic concurrency, which has to
+ * work with the entity tag of a compressed response as well. Caches tell the codings apart by the
+ * <code>Vary</code> header.</p>
+ * <p>The deflaters are pooled and shared by all instances; an instance is immutable and thread-safe.</p>
+ */
+public class HttpCompression {
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+  private static final String X_GZIP = "x-gzip";
+  private static final String IDENTITY = "identity";
+
+  /**
+   * Label used in web.xml to assign the servlet init parameter for the comma-separated list
+   * of response encodings in the order of preference, e.g., <code>gzip,deflate</code>.
+   */
+  public static final String ENCODINGS = "org.apache.olingo.odata2.core.compression.encodings";
+  /**
+   * Label used in web.xml to assign the servlet init parameter for the compression level (1 to 9).
+   */
+  public static final String LEVEL = "org.apache.olingo.odata2.core.compression.level";
+  /**
+   * Label used in web.xml to assign the servlet init parameter for the minimal body size in bytes
+   * which is compressed.
+   */
+  public static final String MIN_SIZE = "org.apache.olingo.odata2.core.compression.min.size";
+  /**
+   * Label used in web.xml to assign the servlet init parameter for the comma-separated list of
+   * content types which are not compressed; an entry ending with <code>/</code> excludes all subtypes.
+   */
+  public static final String EXCLUDED_CONTENT_TYPES = "org.apache.olingo.odata2.core.compression.excluded.types";
+  /**
+   * Label used in web.xml to assign the servlet init parameter for the maximal size in bytes of
+   * decompressed request bodies; compressed request bodies are decompressed only if it is set.
+   */
+  public static final String REQUEST_MAX_SIZE = "org.apache.olingo.odata2.core.compression.request.max.size";
+
+  public static final int DEFAULT_LEVEL = 6;
+  public static final int DEFAULT_MIN_SIZE = 1024;
+  /** Content types which are compressed already. */
+  public static final String DEFAULT_EXCLUDED_CONTENT_TYPES =
+      "image/,audio/,video/,application/zip,application/gzip,application/x-gzip";
+
+  private static final int MAX_POOLED_DEFLATERS = 64;
+  private static final int DEFLATE_BUFFER_SIZE = 8192;
+  private static final DeflaterPool GZIP_DEFLATERS = new DeflaterPool(true);
+  private static final DeflaterPool DEFLATE_DEFLATERS = new DeflaterPool(false);
+
+  private static final HttpCompression DISABLED = new HttpCompression(Collections.<String> emptyList(),
+      DEFAULT_LEVEL, DEFAULT_MIN_SIZE, Collections.<String> emptyList());
+
+  private final List<String> encodings;
+  private final int level;
+  private final int minSize;
+  private final List<String> excludedContentTypes;
+  private final int maxRequestSize;
+
+  /**
+   * Creates an instance which does not decompress request bodies.
+   * @see #HttpCompression(List, int, int, List, int)
+   */
+  public HttpCompression(final List<String> encodings, final int level, final int minSize,
+      final List<String> excludedContentTypes) {
+    this(encodings, level, minSize, excludedContentTypes, 0);
+  }
+
+  /**
+   * @param encodings the response encodings (<code>gzip</code> and <code>deflate</code> are supported)
+   * in the order of preference; no response is compressed if the list is empty
+   * @param level the compression level from 1 (fastest) to 9 (best compression)
+   * @param minSize the minimal size in bytes of compressed response bodies
+   * @param excludedContentTypes the content types which are not compressed; an entry ending with
+   * <code>/</code> excludes all subtypes
+   * @param maxRequestSize the maximal size in bytes of decompressed request bodies; compressed request
+   * bodies are not decompressed if it is <code>0</code>
+   */
+  public HttpCompression(final List<String> encodings, final int level, final int minSize,
+      final List<String> excludedContentTypes, final int maxRequestSize) {
+    if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION || minSize < 0 || maxRequestSize < 0) {
+      throw new IllegalArgumentException("Invalid compression configuration.");
+    }
+    this.encodings = new ArrayList<String>();
+    for (final String encoding : encodings) {
+      final String name = encoding.trim().toLowerCase(Locale.ENGLISH);
+      if (GZIP.equals(name) || DEFLATE.equals(name)) {
+        this.encodings.add(name);
+      } else if (name.length() > 0) {
+        throw new IllegalArgumentException("Unsupported content coding '" + encoding + "'.");
+      }
+    }
+    this.level = level;
+    this.minSize = minSize;
+    this.excludedContentTypes = new ArrayList<String>();
+    for (final String contentType : excludedContentTypes) {
+      if (contentType.trim().length() > 0) {
+        this.excludedContentTypes.add(contentType.trim().toLowerCase(Locale.ENGLISH));
+      }
+    }
+    this.maxRequestSize = maxRequestSize;
+  }
+
+  /**
+   * @return an instance which compresses no responses and decompresses no requests
+   */
+  public static HttpCompression disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Creates an instance from the init parameters of the servlet; invalid numbers are replaced by defaults.
+   * @param servletConfig the servlet configuration (optional)
+   * @return the compression configuration
+   */
+  public static HttpCompression fromConfig(final ServletConfig servletConfig) {
+    if (servletConfig == null) {
+      return DISABLED;
+    }
+    final String encodings = servletConfig.getInitParameter(ENCODINGS);
+    final int maxRequestSize = getIntInitParameter(servletConfig, REQUEST_MAX_SIZE, 0, 0, Integer.MAX_VALUE);
+    if ((encodings == null || encodings.trim().length() == 0) && maxRequestSize == 0) {
+      return DISABLED;
+    }
+    final String excludedContentTypes = servletConfig.getInitParameter(EXCLUDED_CONTENT_TYPES);
+    return new HttpCompression(split(encodings == null ? "" : encodings),
+        getIntInitParameter(servletConfig, LEVEL, DEFAULT_LEVEL, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION),
+        getIntInitParameter(servletConfig, MIN_SIZE, DEFAULT_MIN_SIZE, 0, Integer.MAX_VALUE),
+        split(excludedContentTypes == null ? DEFAULT_EXCLUDED_CONTENT_TYPES : excludedContentTypes),
+        maxRequestSize);
+  }
+
+  private static List<String> split(final String list) {
+    List<String> result = new ArrayList<String>();
+    for (final String item : list.split(",")) {
+      result.add(item);
+    }
+    return result;
+  }
+
+  private static int getIntInitParameter(final ServletConfig servletConfig, final String name,
+      final int defaultValue, final int minValue, final int maxValue) {
+    final String value = servletConfig.getInitParameter(name);
+    if (value != null) {
+      try {
+        final int intValue = Integer.parseInt(value.trim());
+        if (intValue >= minValue && intValue <= maxValue) {
+          return intValue;
+        }
+      } catch (final NumberFormatException ignored) {
+        // the default is used if the parameter cannot be parsed
+      }
+    }
+    return defaultValue;
+  }
+
+  public boolean isEnabled() {
+    return !encodings.isEmpty();
+  }
+
+  public int getMinSize() {
+    return minSize;
+  }
+
+  /**
+   * @return the maximal size in bytes of decompressed request bodies, or <code>0</code> if compressed
+   * request bodies are not decompressed
+   */
+  public int getMaxRequestSize() {
+    return maxRequestSize;
+  }
+
+  /**
+   * Checks whether responses of the given content type are compressed at all, i.e., whether the
+   * response depends on the <code>Accept-Encoding</code> header of the request and has to be marked
+   * with <code>Vary: Accept-Encoding</code>.
+   * @param contentType the content type of the response body (optional)
+   */
+  public boolean isCompressible(final String contentType) {
+    if (!isEnabled()) {
+      return false;
+    }
+    if (contentType != null) {
+      final int parameterStart = contentType.indexOf(';');
+      final String mediaType = (parameterStart < 0 ? contentType : contentType.substring(0, parameterStart))
+          .trim().toLowerCase(Locale.ENGLISH);
+      for (final String excluded : excludedContentTypes) {
+        if (excluded.endsWith("/") ? mediaType.startsWith(excluded) : mediaType.equals(excluded)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Determines the content coding of a response body.
+   * @param acceptEncoding the <code>Accept-Encoding</code> header of the request (optional)
+   * @param contentType the content type of the response body (optional)
+   * @return <code>gzip</code>, <code>deflate</code>, or <code>null</code> if the body is not compressed
+   */
+  public String getContentEncoding(final String acceptEncoding, final String contentType) {
+    if (acceptEncoding == null || !isCompressible(contentType)) {
+      return null;
+    }
+    String result = null;
+    double resultQuality = 0;
+    for (final String encoding : encodings) {
+      final double quality = getQuality(acceptEncoding, encoding);
+      if (quality > resultQuality) {
+        result = encoding;
+        resultQuality = quality;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the quality value the <code>Accept-Encoding</code> header assigns to the coding,
+   * see RFC 7231, 5.3.4.
+   */
+  private static double getQuality(final String acceptEncoding, final String encoding) {
+    double wildcardQuality = 0;
+    for (final String element : acceptEncoding.split(",")) {
+      final String[] parts = element.split(";");
+      final String coding = parts[0].trim().toLowerCase(Locale.ENGLISH);
+      double quality = 1;
+      for (int i = 1; i < parts.length; i++) {
+        final String parameter = parts[i].trim();
+        if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+          try {
+            quality = Double.parseDouble(parameter.substring(2).trim());
+          } catch (final NumberFormatException e) {
+            quality = 0;
+          }
+        }
+      }
+      if (coding.equals(encoding) || GZIP.equals(encoding) && X_GZIP.equals(coding)) {
+        return quality;
+      } else if ("*".equals(coding)) {
+        wildcardQuality = quality;
+      }
+    }
+    return wildcardQuality;
+  }
+
+  /**
+   * Returns a stream compressing the data written into the given stream.
+   * Closing the returned stream completes the compressed data and closes the given stream;
+   * the deflater is returned into the pool then.
+   * @param out the stream the compressed data is written into
+   * @param contentEncoding <code>gzip</code> or <code>deflate</code>
+   * @return the compressing stream
+   * @throws IOException
+   */
+  public OutputStream compress(final OutputStream out, final String contentEncoding) throws IOException {
+    final boolean gzip = GZIP.equals(contentEncoding);
+    if (!gzip && !DEFLATE.equals(contentEncoding)) {
+      throw new IllegalArgumentException("Unsupported content coding '" + contentEncoding + "'.");
+    }
+    final DeflaterPool pool = gzip ? GZIP_DEFLATERS : DEFLATE_DEFLATERS;
+    return new CompressingOutputStream(out, pool, pool.acquire(level), gzip);
+  }
+
+  /**
+   * Returns a stream decompressing the request body according to its content coding.
+   * The body is returned unchanged if no maximum request size is configured.
+   * Reading more decompressed bytes than the maximum request size fails with an {@link IOException}
+   * caused by an {@link ODataBadRequestException}.
+   * @param body the request body
+   * @param contentEncoding the <code>Content-Encoding</code> header of the request (optional)
+   * @return the decompressed body
+   * @throws ODataUnsupportedMediaTypeException if the content coding is not supported
+   * @throws ODataBadRequestException if the body is not compressed according to the content coding
+   */
+  public InputStream decompress(final InputStream body, final String contentEncoding)
+      throws ODataUnsupportedMediaTypeException, ODataBadRequestException {
+    if (maxRequestSize == 0 || body == null || contentEncoding == null) {
+      return body;
+    }
+    final String encoding = contentEncoding.trim().toLowerCase(Locale.ENGLISH);
+    if (encoding.length() == 0 || IDENTITY.equals(encoding)) {
+      return body;
+    } else if (GZIP.equals(encoding) || X_GZIP.equals(encoding)) {
+      try {
+        return new LimitedInputStream(new GZIPInputStream(body, DEFLATE_BUFFER_SIZE), maxRequestSize);
+      } catch (final IOException e) {
+        throw new ODataBadRequestException(ODataBadRequestException.INVALID_REQUEST, e);
+      }
+    } else if (DEFLATE.equals(encoding)) {
+      return new LimitedInputStream(new InflaterInputStream(body), maxRequestSize);
+    } else {
+      throw new ODataUnsupportedMediaTypeException(
+          ODataUnsupportedMediaTypeException.NOT_SUPPORTED.addContent(contentEncoding));
+    }
+  }
+
+  /**
+   * Fails if more than the maximum number of bytes is read, protecting against highly compressed bodies.
+   */
+  private static class LimitedInputStream extends FilterInputStream {
+    private final int maxSize;
+    private long size;
+
+    LimitedInputStream(final InputStream in, final int maxSize) {
+      super(in);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int result = super.read();
+      if (result != -1) {
+        count(1);
+      }
+      return result;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      final int result = super.read(b, off, len);
+      if (result > 0) {
+        count(result);
+      }
+      return result;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      final long result = super.skip(n);
+      count(result);
+      return result;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    private void count(final long read) throws IOException {
+      size += read;
+      if (size > maxSize) {
+        throw new IOException(new ODataBadRequestException(
+            ODataBadRequestException.BODY_TOO_LARGE.addContent(maxSize)));
+      }
+    }
+  }
+
+  /**
+   * Writes <code>gzip</code> (RFC 1952) or <code>deflate</code> (RFC 1950) data with a pooled deflater.
+   */
+  private static class CompressingOutputStream extends DeflaterOutputStream {
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    private final DeflaterPool pool;
+    private final CRC32 crc;
+    private boolean closed;
+
+    CompressingOutputStream(final OutputStream out, final DeflaterPool pool, final Deflater deflater,
+        final boolean gzip) throws IOException {
+      super(out, deflater, DEFLATE_BUFFER_SIZE);
+      this.pool = pool;
+      if (gzip) {
+        crc = new CRC32();
+        out.write(GZIP_HEADER);
+      } else {
+        crc = null;
+      }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      super.write(b, off, len);
+      if (crc != null) {
+        crc.update(b, off, len);
+      }
+    }
+
+    @Override
+    public void finish() throws IOException {
+      if (!def.finished()) {
+        super.finish();
+        if (crc != null) {
+          writeInt((int) crc.getValue());
+          // ISIZE is the size of the uncompressed data modulo 2^32 (RFC 1952)
+          writeInt((int) def.getBytesRead());
+        }
+      }
+    }
+
+    private void writeInt(final int value) throws IOException {
+      out.write(value & 0xff);
+      out.write(value >> 8 & 0xff);
+      out.write(value >> 16 & 0xff);
+      out.write(value >> 24 & 0xff);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        try {
+          finish();
+        } finally {
+          pool.release(def);
+          out.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Bounded pool of deflaters of one format; the deflaters are reset when they are given back.
+   */
+  private static class DeflaterPool {
+    private final boolean nowrap;
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    DeflaterPool(final boolean nowrap) {
+      this.nowrap = nowrap;
+    }
+
+    Deflater acquire(final int level) {
+      final Deflater deflater = deflaters.poll();
+      if (deflater == null) {
+        return new Deflater(level, nowrap);
+      }
+      size.decrementAndGet();
+      deflater.setLevel(level);
+      return deflater;
+    }
+
+    void release(final Deflater deflater) {
+      if (size.incrementAndGet() <= MAX_POOLED_DEFLATERS) {
+        deflater.reset();
+        deflaters.offer(deflater);
+      } else {
+        size.decrementAndGet();
+        deflater.end();
+      }
+    }
+  }
+}
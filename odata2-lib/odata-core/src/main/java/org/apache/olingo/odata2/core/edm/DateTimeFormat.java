@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.edm;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * <p>Formatting and parsing of the date and time literals of the EDM simple types DateTime
+ * and DateTimeOffset without {@link Calendar} instances and regular expressions.</p>
+ * <p>Dates are computed arithmetically in the Gregorian calendar. {@link Calendar} switches to the
+ * Julian calendar before the Gregorian calendar has been introduced in October 1582, so dates before
+ * the year 1583 are still computed with a {@link Calendar} to keep the results unchanged.</p>
+ * <p>An instance holds the fields of a parsed literal.</p>
+ */
+final class DateTimeFormat {
+
+  static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+  /** First year computed arithmetically, the first full year of the Gregorian calendar. */
+  private static final int FIRST_GREGORIAN_YEAR = 1583;
+  /** Milliseconds since the epoch at the start of the first year computed arithmetically. */
+  static final long FIRST_GREGORIAN_MILLIS = daysFromCivil(FIRST_GREGORIAN_YEAR, 1, 1) * MILLIS_PER_DAY;
+
+  private final String value;
+  private final int end;
+  private int index;
+
+  int year;
+  int month;
+  int day;
+  int hour;
+  int minute;
+  int second;
+  int nanoSeconds;
+  /** Number of decimals of the fractional seconds without trailing zeroes. */
+  int decimals;
+
+  private DateTimeFormat(final String value, final int start, final int end) {
+    this.value = value;
+    index = start;
+    this.end = end;
+  }
+
+  /**
+   * Parses a literal of the form <code>yyyy-mm-ddThh:mm[:ss[.fffffffff]]</code>
+   * where the year has one to four digits and the other fields one or two digits.
+   * @param value the string containing the literal
+   * @param start the index of the first character of the literal
+   * @param end the index after the last character of the literal
+   * @param maxDecimals the maximum number of digits of the fractional seconds
+   * @return the parsed fields or <code>null</code> if the literal is not of the expected form;
+   * the fields have not been checked against the calendar
+   */
+  static DateTimeFormat parse(final String value, final int start, final int end, final int maxDecimals) {
+    DateTimeFormat literal = new DateTimeFormat(value, start, end);
+    literal.year = literal.parseNumber(1, 4);
+    if (literal.year < 0 || !literal.parseCharacter('-')) {
+      return null;
+    }
+    literal.month = literal.parseNumber(1, 2);
+    if (literal.month < 0 || !literal.parseCharacter('-')) {
+      return null;
+    }
+    literal.day = literal.parseNumber(1, 2);
+    if (literal.day < 0 || !literal.parseCharacter('T')) {
+      return null;
+    }
+    literal.hour = literal.parseNumber(1, 2);
+    if (literal.hour < 0 || !literal.parseCharacter(':')) {
+      return null;
+    }
+    literal.minute = literal.parseNumber(1, 2);
+    if (literal.minute < 0) {
+      return null;
+    }
+    if (literal.parseCharacter(':')) {
+      literal.second = literal.parseNumber(1, 2);
+      if (literal.second < 0) {
+        return null;
+      }
+      if (literal.parseCharacter('.')) {
+        final int fractionStart = literal.index;
+        final int fraction = literal.parseNumber(1, maxDecimals);
+        if (fraction < 0) {
+          return null;
+        }
+        int digits = literal.index - fractionStart;
+        int nanoSeconds = fraction;
+        for (int i = digits; i < 9; i++) {
+          nanoSeconds *= 10;
+        }
+        literal.nanoSeconds = nanoSeconds;
+        while (digits > 0 && value.charAt(fractionStart + digits - 1) == '0') {
+          digits--;
+        }
+        literal.decimals = digits;
+      }
+    }
+    return literal.index == end ? literal : null;
+  }
+
+  private boolean parseCharacter(final char character) {
+    if (index < end && value.charAt(index) == character) {
+      index++;
+      return true;
+    }
+    return false;
+  }
+
+  private int parseNumber(final int minDigits, final int maxDigits) {
+    final int start = index;
+    int number = 0;
+    while (index < end && index - start < maxDigits && isDigit(value.charAt(index))) {
+      number = number * 10 + value.charAt(index) - '0';
+      index++;
+    }
+    return index - start < minDigits || index < end && isDigit(value.charAt(index)) ? -1 : number;
+  }
+
+  private static boolean isDigit(final char character) {
+    return character >= '0' && character <= '9';
+  }
+
+  /**
+   * Checks whether the parsed fields denote a valid date and time in the Gregorian calendar.
+   */
+  boolean isValid() {
+    return year >= 1 && month >= 1 && month <= 12 && day >= 1 && day <= lengthOfMonth(year, month)
+        && hour <= 23 && minute <= 59 && second <= 59;
+  }
+
+  /**
+   * Returns the milliseconds since the epoch of the parsed fields in UTC, without fractional seconds.
+   * @throws IllegalArgumentException if the fields do not denote a valid date and time
+   */
+  long getTimeInMillis() throws IllegalArgumentException {
+    if (year >= FIRST_GREGORIAN_YEAR) {
+      if (!isValid()) {
+        throw new IllegalArgumentException();
+      }
+      return daysFromCivil(year, month, day) * MILLIS_PER_DAY + ((hour * 60L + minute) * 60 + second) * 1000;
+    }
+
+    Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    dateTimeValue.clear();
+    dateTimeValue.set(year, month - 1, day, hour, minute, second); // month is zero-based
+    // The Calendar class checks the values only in non-lenient mode when a get method is called.
+    dateTimeValue.setLenient(false);
+    dateTimeValue.get(Calendar.MILLISECOND);
+    return dateTimeValue.getTimeInMillis();
+  }
+
+  /**
+   * Appends date and time of the given milliseconds since the epoch in UTC
+   * as <code>yyyy-mm-ddThh:mm:ss</code> to the given string builder.
+   * @param result a {@link StringBuilder}
+   * @param millis milliseconds since the epoch
+   */
+  static void appendDateTime(final StringBuilder result, final long millis) {
+    if (millis >= FIRST_GREGORIAN_MILLIS) {
+      final long days = floorDiv(millis, MILLIS_PER_DAY);
+      final int millisOfDay = (int) (millis - days * MILLIS_PER_DAY);
+      appendCivilDate(result, days);
+      result.append('T');
+      appendTime(result, millisOfDay / 1000);
+    } else {
+      Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+      dateTimeValue.setTimeInMillis(millis);
+      appendDateTime(result, dateTimeValue.get(Calendar.YEAR),
+          dateTimeValue.get(Calendar.MONTH) + 1, // month is zero-based
+          dateTimeValue.get(Calendar.DAY_OF_MONTH),
+          dateTimeValue.get(Calendar.HOUR_OF_DAY),
+          dateTimeValue.get(Calendar.MINUTE),
+          dateTimeValue.get(Calendar.SECOND));
+    }
+  }
+
+  /**
+   * Appends date and time of the given seconds since the epoch in UTC in the proleptic
+   * Gregorian calendar as <code>yyyy-mm-ddThh:mm:ss</code> to the given string builder.
+   * @param result a {@link StringBuilder}
+   * @param epochSecond seconds since the epoch
+   */
+  static void appendProlepticDateTime(final StringBuilder result, final long epochSecond) {
+    final long days = floorDiv(epochSecond, 24 * 60 * 60);
+    appendCivilDate(result, days);
+    result.append('T');
+    appendTime(result, (int) (epochSecond - days * 24 * 60 * 60));
+  }
+
+  /**
+   * Appends the given date and time as <code>yyyy-mm-ddThh:mm:ss</code> to the given string builder.
+   */
+  static void appendDateTime(final StringBuilder result, final int year, final int month, final int day,
+      final int hour, final int minute, final int second) {
+    appendDate(result, year, month, day);
+    result.append('T');
+    appendTwoDigits(result, hour);
+    result.append(':');
+    appendTwoDigits(result, minute);
+    result.append(':');
+    appendTwoDigits(result, second);
+  }
+
+  private static void appendCivilDate(final StringBuilder result, final long days) {
+    // Algorithm "civil_from_days" of Howard Hinnant, with years starting on the first of March.
+    final long shiftedDays = days + 719468;
+    final long era = (shiftedDays >= 0 ? shiftedDays : shiftedDays - 146096) / 146097;
+    final int dayOfEra = (int) (shiftedDays - era * 146097);
+    final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    final int shiftedMonth = (5 * dayOfYear + 2) / 153;
+    final int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+    final int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+    appendDate(result, (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0)), month, day);
+  }
+
+  private static void appendDate(final StringBuilder result, final int year, final int month, final int day) {
+    appendTwoDigits(result, year / 100);
+    appendTwoDigits(result, year % 100);
+    result.append('-');
+    appendTwoDigits(result, month);
+    result.append('-');
+    appendTwoDigits(result, day);
+  }
+
+  private static void appendTime(final StringBuilder result, final int secondOfDay) {
+    appendTwoDigits(result, secondOfDay / 3600);
+    result.append(':');
+    appendTwoDigits(result, secondOfDay / 60 % 60);
+    result.append(':');
+    appendTwoDigits(result, secondOfDay % 60);
+  }
+
+  /**
+   * Appends the given number to the given string builder,
+   * assuming that the number has at most two digits, performance-optimized.
+   * @param result a {@link StringBuilder}
+   * @param number an integer that must satisfy <code>0 <= number <= 99</code>
+   */
+  static void appendTwoDigits(final StringBuilder result, final int number) {
+    result.append((char) ('0' + number / 10));
+    result.append((char) ('0' + number % 10));
+  }
+
+  /**
+   * Returns the number of days since the epoch of the given date in the proleptic Gregorian calendar.
+   */
+  static long daysFromCivil(final int year, final int month, final int day) {
+    // Algorithm "days_from_civil" of Howard Hinnant, with years starting on the first of March.
+    final int shiftedYear = month <= 2 ? year - 1 : year;
+    final int era = (shiftedYear >= 0 ? shiftedYear : shiftedYear - 399) / 400;
+    final int yearOfEra = shiftedYear - era * 400;
+    final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
+  }
+
+  private static int lengthOfMonth(final int year, final int month) {
+    switch (month) {
+    case 2:
+      return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+    case 4:
+    case 6:
+    case 9:
+    case 11:
+      return 30;
+    default:
+      return 31;
+    }
+  }
+
+  /**
+   * Checks whether the given part of the string is an integer literal of the form <code>[-]digits</code>.
+   */
+  static boolean isInteger(final String value, final int start, final int end) {
+    return isDigits(value, start < end && value.charAt(start) == '-' ? start + 1 : start, end);
+  }
+
+  /**
+   * Checks whether the given part of the string consists of at least one digit and nothing else.
+   */
+  static boolean isDigits(final String value, final int start, final int end) {
+    if (start >= end) {
+      return false;
+    }
+    for (int index = start; index < end; index++) {
+      if (!isDigit(value.charAt(index))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses the given part of the string that has been checked with {@link #isInteger(String, int, int)}.
+   * @throws NumberFormatException if the number does not fit into a <code>long</code>
+   */
+  static long parseLong(final String value, final int start, final int end) throws NumberFormatException {
+    final boolean negative = value.charAt(start) == '-';
+    // The number is accumulated negatively to cover the range of long completely.
+    long result = 0;
+    for (int index = negative ? start + 1 : start; index < end; index++) {
+      final int digit = value.charAt(index) - '0';
+      if (result < (Long.MIN_VALUE + digit) / 10) {
+        throw new NumberFormatException(value.substring(start, end));
+      }
+      result = result * 10 - digit;
+    }
+    if (negative) {
+      return result;
+    } else if (result == Long.MIN_VALUE) {
+      throw new NumberFormatException(value.substring(start, end));
+    } else {
+      return -result;
+    }
+  }
+
+  static long floorDiv(final long dividend, final long divisor) {
+    final long quotient = dividend / divisor;
+    return dividend % divisor < 0 ? quotient - 1 : quotient;
+  }
+
+  static long floorMod(final long dividend, final long divisor) {
+    final long remainder = dividend % divisor;
+    return remainder < 0 ? remainder + divisor : remainder;
+  }
+}
@@ -19,11 +19,12 @@
 package org.apache.olingo.odata2.core.edm;
 
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.odata2.api.edm.EdmFacets;
 import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
@@ -31,14 +32,13 @@ import org.apache.olingo.odata2.api.edm.EdmSimpleTypeException;
 
 /**
  * Implementation of the EDM simple type DateTime.
- * 
+ * <p>Besides the default value types, {@link Instant} and {@link LocalDateTime} are supported;
+ * a {@link LocalDateTime} is interpreted as date and time in UTC.</p>
  */
 public class EdmDateTime extends AbstractSimpleType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "(\\p{Digit}{1,4})-(\\p{Digit}{1,2})-(\\p{Digit}{1,2})"
-          + "T(\\p{Digit}{1,2}):(\\p{Digit}{1,2})(?::(\\p{Digit}{1,2})(\\.(\\p{Digit}{0,9}?)0*)?)?");
-  private static final Pattern JSON_PATTERN = Pattern.compile("/Date\\((-?\\p{Digit}+)\\)/");
+  private static final String JSON_PREFIX = "/Date(";
+  private static final String JSON_SUFFIX = ")/";
   private static final EdmDateTime instance = new EdmDateTime();
 
   public static EdmDateTime getInstance() {
@@ -55,167 +55,156 @@ public class EdmDateTime extends AbstractSimpleType {
       final Class<T> returnType) throws EdmSimpleTypeException {
     // In JSON, we allow also the XML literal form, so there is on purpose
     // no exception if the JSON pattern does not match.
-    if (literalKind == EdmLiteralKind.JSON) {
-      final Matcher matcher = JSON_PATTERN.matcher(value);
-      if (matcher.matches()) {
-        long millis;
-        try {
-          millis = Long.parseLong(matcher.group(1));
-        } catch (final NumberFormatException e) {
-          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
-        }
-        if (returnType.isAssignableFrom(Long.class)) {
-          return returnType.cast(millis);
-        } else if (returnType.isAssignableFrom(Date.class)) {
-          return returnType.cast(new Date(millis));
-        } else if (returnType.isAssignableFrom(Calendar.class)) {
-          Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-          dateTimeValue.clear();
-          dateTimeValue.setTimeInMillis(millis);
-          return returnType.cast(dateTimeValue);
-        } else {
-          throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
-        }
+    if (literalKind == EdmLiteralKind.JSON && isJsonLiteral(value)) {
+      long millis;
+      try {
+        millis = DateTimeFormat.parseLong(value, JSON_PREFIX.length(), value.length() - JSON_SUFFIX.length());
+      } catch (final NumberFormatException e) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
+      }
+      if (returnType.isAssignableFrom(Long.class)) {
+        return returnType.cast(millis);
+      } else if (returnType.isAssignableFrom(Date.class)) {
+        return returnType.cast(new Date(millis));
+      } else if (returnType.isAssignableFrom(Calendar.class)) {
+        Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+        dateTimeValue.clear();
+        dateTimeValue.setTimeInMillis(millis);
+        return returnType.cast(dateTimeValue);
+      } else if (returnType.isAssignableFrom(Instant.class)) {
+        return returnType.cast(Instant.ofEpochMilli(millis));
+      } else if (returnType.isAssignableFrom(LocalDateTime.class)) {
+        return returnType.cast(LocalDateTime.ofEpochSecond(DateTimeFormat.floorDiv(millis, 1000),
+            (int) DateTimeFormat.floorMod(millis, 1000) * 1000 * 1000, ZoneOffset.UTC));
+      } else {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
       }
     }
 
-    Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-    dateTimeValue.clear();
-
-    String valueString;
+    int start = 0;
+    int end = value.length();
     if (literalKind == EdmLiteralKind.URI) {
       //OLINGO-883 prefix is case insensitve so we need to check with lower case if we want to use startsWith()
-      if (value.length() > 10 && value.toLowerCase().startsWith("datetime'") && value.endsWith("'")) {
-        valueString = value.substring(9, value.length() - 1);
+      if (value.length() > 10 && value.regionMatches(true, 0, "datetime'", 0, 9) && value.endsWith("'")) {
+        start = 9;
+        end--;
       } else {
         throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
       }
-    } else {
-      valueString = value;
     }
 
-    final Matcher matcher = PATTERN.matcher(valueString);
-    if (!matcher.matches()) {
+    final DateTimeFormat literal = DateTimeFormat.parse(value, start, end, 9);
+    if (literal == null) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
     }
-
-    dateTimeValue.set(
-        Short.parseShort(matcher.group(1)),
-        Byte.parseByte(matcher.group(2)) - 1, // month is zero-based
-        Byte.parseByte(matcher.group(3)),
-        Byte.parseByte(matcher.group(4)),
-        Byte.parseByte(matcher.group(5)),
-        matcher.group(6) == null ? 0 : Byte.parseByte(matcher.group(6)));
-
-    int nanoSeconds = 0;
-    if (matcher.group(7) != null) {
-      if (matcher.group(7).length() == 1 || matcher.group(7).length() > 10) {
-        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
-      }
-      final String decimals = matcher.group(8);
-      if (facets != null && facets.getPrecision() != null && facets.getPrecision() < decimals.length()) {
-        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED.addContent(value, facets));
-      }
-      nanoSeconds = Integer.parseInt(decimals + "000000000".substring(decimals.length()));
-      if (!(returnType.isAssignableFrom(Timestamp.class))) {
-        if (nanoSeconds % (1000 * 1000) == 0) {
-          dateTimeValue.set(Calendar.MILLISECOND, nanoSeconds / (1000 * 1000));
-        } else {
-          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
-        }
-      }
+    if (facets != null && facets.getPrecision() != null && facets.getPrecision() < literal.decimals) {
+      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED.addContent(value, facets));
+    }
+    final int nanoSeconds = literal.nanoSeconds;
+    final boolean withNanoSeconds = returnType.isAssignableFrom(Timestamp.class)
+        || returnType.isAssignableFrom(Instant.class) || returnType.isAssignableFrom(LocalDateTime.class);
+    if (!withNanoSeconds && nanoSeconds % (1000 * 1000) != 0) {
+      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
     }
 
-    // The Calendar class does not check any values until a get method is called,
-    // so we do just that to validate the fields set above, not because we want
-    // to return something else. For strict checks, the lenient mode is switched
-    // off temporarily.
-    dateTimeValue.setLenient(false);
+    long millis;
     try {
-      dateTimeValue.get(Calendar.MILLISECOND);
+      millis = literal.getTimeInMillis();
     } catch (final IllegalArgumentException e) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
     }
-    dateTimeValue.setLenient(true);
+    if (!returnType.isAssignableFrom(Timestamp.class)) {
+      millis += nanoSeconds / (1000 * 1000);
+    }
 
     if (returnType.isAssignableFrom(Calendar.class)) {
+      Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+      dateTimeValue.clear();
+      dateTimeValue.setTimeInMillis(millis);
       return returnType.cast(dateTimeValue);
     } else if (returnType.isAssignableFrom(Long.class)) {
-      return returnType.cast(dateTimeValue.getTimeInMillis());
+      return returnType.cast(millis);
     } else if (returnType.isAssignableFrom(Date.class)) {
-      return returnType.cast(dateTimeValue.getTime());
+      return returnType.cast(new Date(millis));
     } else if (returnType.isAssignableFrom(Timestamp.class)) {
-        Timestamp timestamp = new Timestamp(dateTimeValue.getTimeInMillis());
-        if (literalKind != EdmLiteralKind.JSON) {
-          timestamp.setNanos(nanoSeconds);
-        }
-        return returnType.cast(timestamp);
+      Timestamp timestamp = new Timestamp(millis);
+      if (literalKind != EdmLiteralKind.JSON) {
+        timestamp.setNanos(nanoSeconds);
+      }
+      return returnType.cast(timestamp);
+    } else if (returnType.isAssignableFrom(LocalDateTime.class) || returnType.isAssignableFrom(Instant.class)) {
+      // The java.time classes use the proleptic Gregorian calendar for all dates.
+      if (!literal.isValid()) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
+      }
+      final LocalDateTime localDateTime = LocalDateTime.of(literal.year, literal.month, literal.day,
+          literal.hour, literal.minute, literal.second, nanoSeconds);
+      return returnType.cast(returnType.isAssignableFrom(LocalDateTime.class) ?
+          localDateTime : localDateTime.toInstant(ZoneOffset.UTC));
     } else {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
     }
   }
 
+  private static boolean isJsonLiteral(final String value) {
+    return value.startsWith(JSON_PREFIX) && value.endsWith(JSON_SUFFIX)
+        && DateTimeFormat.isInteger(value, JSON_PREFIX.length(), value.length() - JSON_SUFFIX.length());
+  }
+
   @Override
   protected <T> String internalValueToString(final T value, final EdmLiteralKind literalKind, final EdmFacets facets)
       throws EdmSimpleTypeException {
-    long timeInMillis;
-    if (value instanceof Date) {
-      timeInMillis = ((Date) value).getTime();
-    } else if (value instanceof Calendar) {
-      timeInMillis = ((Calendar) value).getTimeInMillis();
-    } else if (value instanceof Long) {
-      timeInMillis = ((Long) value).longValue();
-    } else {
-      throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(value.getClass()));
-    }
+    if (value instanceof Date || value instanceof Calendar || value instanceof Long) {
+      final long timeInMillis = value instanceof Date ? ((Date) value).getTime()
+          : value instanceof Calendar ? ((Calendar) value).getTimeInMillis() : ((Long) value).longValue();
+      final boolean isTimestamp = value instanceof Timestamp;
+      final int fractionalSecs = isTimestamp ? ((Timestamp) value).getNanos()
+          : (int) DateTimeFormat.floorMod(timeInMillis, 1000);
 
-    if (literalKind == EdmLiteralKind.JSON) {
-      if (value instanceof Timestamp && ((Timestamp) value).getNanos() % (1000 * 1000) != 0) {
-        throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_ILLEGAL_CONTENT.addContent(value));
-      } else {
-        return "/Date(" + timeInMillis + ")/";
+      if (literalKind == EdmLiteralKind.JSON) {
+        if (isTimestamp && fractionalSecs % (1000 * 1000) != 0) {
+          throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_ILLEGAL_CONTENT.addContent(value));
+        } else {
+          return JSON_PREFIX + timeInMillis + JSON_SUFFIX;
+        }
+      }
+
+      StringBuilder result = new StringBuilder(29); // 29 characters are enough for nanosecond precision.
+      DateTimeFormat.appendDateTime(result, timeInMillis);
+      appendFractionalSeconds(result, fractionalSecs, isTimestamp, value, facets);
+      return result.toString();
+
+    } else if (value instanceof LocalDateTime || value instanceof Instant) {
+      final long epochSecond = value instanceof Instant ? ((Instant) value).getEpochSecond()
+          : ((LocalDateTime) value).toEpochSecond(ZoneOffset.UTC);
+      final int nanoSeconds = value instanceof Instant ? ((Instant) value).getNano()
+          : ((LocalDateTime) value).getNano();
+
+      if (literalKind == EdmLiteralKind.JSON) {
+        if (nanoSeconds % (1000 * 1000) != 0) {
+          throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_ILLEGAL_CONTENT.addContent(value));
+        } else {
+          return JSON_PREFIX + (epochSecond * 1000 + nanoSeconds / (1000 * 1000)) + JSON_SUFFIX;
+        }
       }
-    }
 
-    Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-    dateTimeValue.setTimeInMillis(timeInMillis);
+      StringBuilder result = new StringBuilder(29);
+      DateTimeFormat.appendProlepticDateTime(result, epochSecond);
+      appendFractionalSeconds(result, nanoSeconds, true, value, facets);
+      return result.toString();
 
-    StringBuilder result = new StringBuilder(29); // 29 characters are enough for nanosecond precision.
-    final int year = dateTimeValue.get(Calendar.YEAR);
-    appendTwoDigits(result, year / 100);
-    appendTwoDigits(result, year % 100);
-    result.append('-');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.MONTH) + 1); // month is zero-based
-    result.append('-');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.DAY_OF_MONTH));
-    result.append('T');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.HOUR_OF_DAY));
-    result.append(':');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.MINUTE));
-    result.append(':');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.SECOND));
+    } else {
+      throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(value.getClass()));
+    }
+  }
 
-    final int fractionalSecs = value instanceof Timestamp ?
-        ((Timestamp) value).getNanos() :
-        dateTimeValue.get(Calendar.MILLISECOND);
+  static void appendFractionalSeconds(final StringBuilder result, final int fractionalSeconds,
+      final boolean isNano, final Object value, final EdmFacets facets) throws EdmSimpleTypeException {
     try {
-      appendFractionalSeconds(result, fractionalSecs, value instanceof Timestamp, facets);
+      appendFractionalSeconds(result, fractionalSeconds, isNano, facets);
     } catch (final IllegalArgumentException e) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_FACETS_NOT_MATCHED.addContent(value, facets), e);
     }
-
-    return result.toString();
-  }
-
-  /**
-   * Appends the given number to the given string builder,
-   * assuming that the number has at most two digits, performance-optimized.
-   * @param result a {@link StringBuilder}
-   * @param number an integer that must satisfy <code>0 <= number <= 99</code>
-   */
-  private static void appendTwoDigits(final StringBuilder result, final int number) {
-    result.append((char) ('0' + number / 10));
-    result.append((char) ('0' + number % 10));
   }
 
   /**
@@ -20,11 +20,11 @@ package org.apache.olingo.odata2.core.edm;
 
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.odata2.api.edm.EdmFacets;
 import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
@@ -35,15 +35,12 @@ import org.apache.olingo.odata2.api.edm.EdmSimpleTypeException;
  * 
  * Details about parsing of time strings to value objects can be found in the
  * {@link org.apache.olingo.odata2.api.edm.EdmSimpleType} documentation.
+ * Besides the default value types, {@link Instant} and {@link OffsetDateTime} are supported.
  */
 public class EdmDateTimeOffset extends AbstractSimpleType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "\\p{Digit}{1,4}-\\p{Digit}{1,2}-\\p{Digit}{1,2}"
-          + "T\\p{Digit}{1,2}:\\p{Digit}{1,2}(?::\\p{Digit}{1,2}(?:\\.\\p{Digit}{1,7})?)?"
-          + "(Z|([-+]\\p{Digit}{1,2}:\\p{Digit}{2}))?");
-  private static final Pattern JSON_PATTERN = Pattern.compile(
-      "/Date\\((-?\\p{Digit}+)(?:(\\+|-)(\\p{Digit}{1,4}))?\\)/");
+  private static final String JSON_PREFIX = "/Date(";
+  private static final String JSON_SUFFIX = ")/";
   private static final EdmDateTimeOffset instance = new EdmDateTimeOffset();
 
   public static EdmDateTimeOffset getInstance() {
@@ -60,7 +57,7 @@ public class EdmDateTimeOffset extends AbstractSimpleType {
       final Class<T> returnType) throws EdmSimpleTypeException {
     if (literalKind == EdmLiteralKind.URI) {
       //OLINGO-883 prefix is case insensitve so we need to check with lower case if we want to use startsWith()
-      if (value.length() > 16 && value.toLowerCase().startsWith("datetimeoffset'") && value.endsWith("'")) {
+      if (value.length() > 16 && value.regionMatches(true, 0, "datetimeoffset'", 0, 15) && value.endsWith("'")) {
         return internalValueOfString(value.substring(15, value.length() - 1), EdmLiteralKind.DEFAULT, facets,
             returnType);
       } else {
@@ -68,60 +65,63 @@ public class EdmDateTimeOffset extends AbstractSimpleType {
       }
     }
 
-    Calendar dateTimeValue = null;
-    long millis = 0;
-
-    if (literalKind == EdmLiteralKind.JSON) {
-      final Matcher matcher = JSON_PATTERN.matcher(value);
-      if (matcher.matches()) {
-        try {
-          millis = Long.parseLong(matcher.group(1));
-        } catch (final NumberFormatException e) {
-          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
-        }
-        String timeZone = "GMT";
-        if (matcher.group(2) != null) {
-          final int offsetInMinutes = Integer.parseInt(matcher.group(3));
-          if (offsetInMinutes >= 24 * 60) {
-            throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
-          }
-          if (offsetInMinutes != 0) {
-            timeZone += matcher.group(2) + String.valueOf(offsetInMinutes / 60)
-                + ":" + String.format("%02d", offsetInMinutes % 60);
-            // Convert the local-time milliseconds to UTC.
-            millis -= ("+".equals(matcher.group(2)) ? 1 : -1) * offsetInMinutes * 60 * 1000;
-          }
-        }
-        dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone(timeZone));
-      }
-    }
-
+    long millis;
+    int offsetInMinutes;
     int nanoSeconds = 0;
-    if (dateTimeValue == null) {
-      final Matcher matcher = PATTERN.matcher(value);
-      if (!matcher.matches()) {
+    final int offsetStart = literalKind == EdmLiteralKind.JSON ? getJsonOffsetStart(value) : -1;
+    if (offsetStart >= 0) {
+      try {
+        millis = DateTimeFormat.parseLong(value, JSON_PREFIX.length(), offsetStart);
+      } catch (final NumberFormatException e) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
+      }
+      offsetInMinutes = 0;
+      final int offsetEnd = value.length() - JSON_SUFFIX.length();
+      for (int index = offsetStart + 1; index < offsetEnd; index++) {
+        offsetInMinutes = offsetInMinutes * 10 + value.charAt(index) - '0';
+      }
+      if (offsetInMinutes >= 24 * 60) {
         throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
       }
+      if (offsetStart < offsetEnd && value.charAt(offsetStart) == '-') {
+        offsetInMinutes = -offsetInMinutes;
+      }
+      // Convert the local-time milliseconds to UTC.
+      millis -= offsetInMinutes * 60 * 1000;
 
-      final String timeZoneOffset =
-          matcher.group(1) != null && matcher.group(2) != null && !matcher.group(2).matches("[-+]0+:0+") ? matcher
-              .group(2) : null;
-      dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT" + timeZoneOffset));
-      if (dateTimeValue.get(Calendar.ZONE_OFFSET) == 0 && timeZoneOffset != null) {
+    } else {
+      final int timeStart = value.indexOf('T');
+      int timeEnd = value.length();
+      for (int index = timeStart + 1; timeStart >= 0 && index < value.length(); index++) {
+        final char character = value.charAt(index);
+        if (character == 'Z' || character == '+' || character == '-') {
+          timeEnd = index;
+          break;
+        }
+      }
+      final DateTimeFormat literal = timeStart < 0 ? null : DateTimeFormat.parse(value, 0, timeEnd, 7);
+      offsetInMinutes = getOffsetInMinutes(value, timeEnd);
+      if (literal == null || offsetInMinutes == Integer.MIN_VALUE) {
         throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
       }
-      dateTimeValue.clear();
-      final Timestamp timestamp = EdmDateTime.getInstance().internalValueOfString(
-          value.substring(0, matcher.group(1) == null ? value.length() : matcher.start(1)),
-          EdmLiteralKind.DEFAULT, facets, Timestamp.class);
-      millis = timestamp.getTime() - dateTimeValue.get(Calendar.ZONE_OFFSET);
-      nanoSeconds = timestamp.getNanos();
-      if (nanoSeconds % (1000 * 1000) != 0 && !returnType.isAssignableFrom(Timestamp.class)) {
+      if (facets != null && facets.getPrecision() != null && facets.getPrecision() < literal.decimals) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED.addContent(value, facets));
+      }
+      try {
+        millis = literal.getTimeInMillis();
+      } catch (final IllegalArgumentException e) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
+      }
+      nanoSeconds = literal.nanoSeconds;
+      millis += nanoSeconds / (1000 * 1000) - offsetInMinutes * 60 * 1000;
+      if (nanoSeconds % (1000 * 1000) != 0 && !returnType.isAssignableFrom(Timestamp.class)
+          && !returnType.isAssignableFrom(Instant.class) && !returnType.isAssignableFrom(OffsetDateTime.class)) {
         throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
       }
     }
 
     if (returnType.isAssignableFrom(Calendar.class)) {
+      Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone(getTimeZoneId(offsetInMinutes)));
       dateTimeValue.clear();
       dateTimeValue.setTimeInMillis(millis);
       return returnType.cast(dateTimeValue);
@@ -130,20 +130,86 @@ public class EdmDateTimeOffset extends AbstractSimpleType {
     } else if (returnType.isAssignableFrom(Date.class)) {
       return returnType.cast(new Date(millis));
     } else if (returnType.isAssignableFrom(Timestamp.class)) {
-        Timestamp timestamp = new Timestamp(millis);
-        if (literalKind != EdmLiteralKind.JSON) {
-          timestamp.setNanos(nanoSeconds);
-        }
-        return returnType.cast(timestamp);
+      Timestamp timestamp = new Timestamp(millis);
+      if (literalKind != EdmLiteralKind.JSON) {
+        timestamp.setNanos(nanoSeconds);
+      }
+      return returnType.cast(timestamp);
+    } else if (returnType.isAssignableFrom(Instant.class) || returnType.isAssignableFrom(OffsetDateTime.class)) {
+      if (!returnType.isAssignableFrom(Instant.class) && Math.abs(offsetInMinutes) > 18 * 60) {
+        // The java.time classes support offsets up to 18 hours.
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_UNCONVERTIBLE_TO_VALUE_TYPE.addContent(value,
+            returnType));
+      }
+      final Instant instant = offsetStart >= 0 ? Instant.ofEpochMilli(millis)
+          : Instant.ofEpochSecond(DateTimeFormat.floorDiv(millis, 1000), nanoSeconds);
+      return returnType.cast(returnType.isAssignableFrom(Instant.class) ? instant
+          : OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(offsetInMinutes * 60)));
     } else {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
     }
   }
 
+  /**
+   * Checks the syntax <code>/Date(&lt;milliseconds&gt;[{+|-}&lt;offset in minutes&gt;])/</code>
+   * of the JSON literal.
+   * @return the index after the milliseconds or -1 if the value is not a JSON literal
+   */
+  private static int getJsonOffsetStart(final String value) {
+    if (!value.startsWith(JSON_PREFIX) || !value.endsWith(JSON_SUFFIX)) {
+      return -1;
+    }
+    final int end = value.length() - JSON_SUFFIX.length();
+    int offsetStart = end;
+    for (int index = JSON_PREFIX.length() + 1; index < end; index++) {
+      if (value.charAt(index) == '+' || value.charAt(index) == '-') {
+        offsetStart = index;
+        break;
+      }
+    }
+    final boolean validOffset = offsetStart == end
+        || end - offsetStart >= 2 && end - offsetStart <= 5 && DateTimeFormat.isDigits(value, offsetStart + 1, end);
+    return validOffset && DateTimeFormat.isInteger(value, JSON_PREFIX.length(), offsetStart) ? offsetStart : -1;
+  }
+
+  /**
+   * Parses the time-zone offset <code>Z</code> or <code>{+|-}hh:mm</code> at the end of the value.
+   * @return the offset in minutes or {@link Integer#MIN_VALUE} if there is no valid offset
+   */
+  private static int getOffsetInMinutes(final String value, final int start) {
+    final int length = value.length() - start;
+    if (length == 0 || length == 1 && value.charAt(start) == 'Z') {
+      return 0;
+    }
+    if (length < 5 || length > 6 || value.charAt(length - 3 + start) != ':'
+        || value.charAt(start) != '+' && value.charAt(start) != '-'
+        || !DateTimeFormat.isDigits(value, start + 1, start + length - 3)
+        || !DateTimeFormat.isDigits(value, start + length - 2, start + length)) {
+      return Integer.MIN_VALUE;
+    }
+    final int hours = (int) DateTimeFormat.parseLong(value, start + 1, start + length - 3);
+    final int minutes = (int) DateTimeFormat.parseLong(value, start + length - 2, start + length);
+    if (hours > 23 || minutes > 59) {
+      return Integer.MIN_VALUE;
+    }
+    return (value.charAt(start) == '-' ? -1 : 1) * (hours * 60 + minutes);
+  }
+
+  private static String getTimeZoneId(final int offsetInMinutes) {
+    if (offsetInMinutes == 0) {
+      return "GMT";
+    }
+    StringBuilder id = new StringBuilder(9).append("GMT").append(offsetInMinutes < 0 ? '-' : '+');
+    DateTimeFormat.appendTwoDigits(id, Math.abs(offsetInMinutes) / 60);
+    id.append(':');
+    DateTimeFormat.appendTwoDigits(id, Math.abs(offsetInMinutes) % 60);
+    return id.toString();
+  }
+
   @Override
   protected <T> String internalValueToString(final T value, final EdmLiteralKind literalKind, final EdmFacets facets)
       throws EdmSimpleTypeException {
-    Long milliSeconds; // number of milliseconds since 1970-01-01T00:00:00Z
+    long milliSeconds; // number of milliseconds since 1970-01-01T00:00:00Z
     if (value instanceof Date) {
       milliSeconds = ((Date) value).getTime();
     } else if (value instanceof Calendar) {
@@ -151,9 +217,10 @@ public class EdmDateTimeOffset extends AbstractSimpleType {
       milliSeconds = dateTimeValue.getTimeInMillis();
     } else if (value instanceof Long) {
       milliSeconds = (Long) value;
-    } else if (value instanceof Instant) {
+    } else if (value instanceof Instant || value instanceof OffsetDateTime) {
+      final Instant instant = value instanceof Instant ? (Instant) value : ((OffsetDateTime) value).toInstant();
       try {
-        milliSeconds = ((Instant) value).toEpochMilli();
+        milliSeconds = instant.toEpochMilli();
       } catch (ArithmeticException e) { // in case the Instant is far away from epoch
         milliSeconds = Long.MAX_VALUE;
       }
@@ -161,15 +228,18 @@ public class EdmDateTimeOffset extends AbstractSimpleType {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(value.getClass()));
     }
 
-
     if (literalKind == EdmLiteralKind.JSON) {
-        return "/Date(" + milliSeconds + ")/";
+      return JSON_PREFIX + milliSeconds + JSON_SUFFIX;
     } else {
-      final String localTimeString =
-          EdmDateTime.getInstance().valueToString(
-              value instanceof Timestamp ? value : milliSeconds, EdmLiteralKind.DEFAULT, facets);
-
-      return localTimeString + "Z";
+      StringBuilder result = new StringBuilder(30); // 30 characters are enough for nanosecond precision.
+      DateTimeFormat.appendDateTime(result, milliSeconds);
+      if (value instanceof Timestamp) {
+        EdmDateTime.appendFractionalSeconds(result, ((Timestamp) value).getNanos(), true, value, facets);
+      } else {
+        EdmDateTime.appendFractionalSeconds(result, (int) DateTimeFormat.floorMod(milliSeconds, 1000), false,
+            milliSeconds, facets);
+      }
+      return result.append('Z').toString();
     }
   }
 
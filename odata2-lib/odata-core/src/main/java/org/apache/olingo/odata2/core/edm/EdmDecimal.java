@@ -20,8 +20,6 @@ package org.apache.olingo.odata2.core.edm;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.odata2.api.edm.EdmFacets;
 import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
@@ -34,12 +32,6 @@ import org.apache.olingo.odata2.api.edm.EdmSimpleTypeException;
  */
 public class EdmDecimal extends AbstractSimpleType {
 
-  // value-range limitation which is increased compared to general OData V2 specification
-  // (according to the CSDL document the limit is 29 digits)
-  // This is to support services which allows a higher precision for EdmDecimal without
-  // breaking the backward capability of Olingo V2
-  private static final Pattern PATTERN =
-      Pattern.compile("(?:\\+|-)?(?:0*(\\p{Digit}+?))(?:\\.(\\p{Digit}+?)0*)?(M|m)?");
   private static final EdmDecimal instance = new EdmDecimal();
 
   public static EdmDecimal getInstance() {
@@ -79,9 +71,43 @@ public class EdmDecimal extends AbstractSimpleType {
   }
 
   private static boolean validateLiteral(final String value, final EdmLiteralKind literalKind) {
-    final Matcher matcher = PATTERN.matcher(value);
-    return matcher.matches()
-        && (literalKind == EdmLiteralKind.URI) != (matcher.group(3) == null);
+    final int numberEnd = getNumberEnd(value);
+    return numberEnd >= 0 && (literalKind == EdmLiteralKind.URI) == (numberEnd < value.length());
+  }
+
+  /**
+   * Checks the literal against the syntax <code>[+|-]digits[.digits][M|m]</code>, without regular expression.
+   * The number of digits is not limited, which is increased compared to general OData V2 specification
+   * (according to the CSDL document the limit is 29 digits), to support services which allow a higher
+   * precision for EdmDecimal without breaking the backward capability of Olingo V2.
+   * @return the index after the number, i.e., of the type suffix if there is one,
+   * or -1 if the syntax is not matched
+   */
+  private static int getNumberEnd(final String value) {
+    final int length = value.length();
+    int index = length > 0 && (value.charAt(0) == '+' || value.charAt(0) == '-') ? 1 : 0;
+    final int integerStart = index;
+    index = skipDigits(value, index);
+    if (index == integerStart) {
+      return -1;
+    }
+    if (index < length && value.charAt(index) == '.') {
+      final int fractionStart = ++index;
+      index = skipDigits(value, index);
+      if (index == fractionStart) {
+        return -1;
+      }
+    }
+    return index == length
+        || index == length - 1 && (value.charAt(index) == 'M' || value.charAt(index) == 'm') ? index : -1;
+  }
+
+  private static int skipDigits(final String value, final int start) {
+    int index = start;
+    while (index < value.length() && value.charAt(index) >= '0' && value.charAt(index) <= '9') {
+      index++;
+    }
+    return index;
   }
 
   private static boolean validatePrecisionAndScale(final String value, final EdmFacets facets) {
@@ -89,10 +115,22 @@ public class EdmDecimal extends AbstractSimpleType {
       return true;
     }
 
-    final Matcher matcher = PATTERN.matcher(value);
-    matcher.matches();
-    final int significantIntegerDigits = "0".equals(matcher.group(1)) ? 0 : matcher.group(1).length();
-    final int decimals = matcher.group(2) == null ? 0 : matcher.group(2).length();
+    // The literal has been validated; leading zeroes of the integer part
+    // and trailing zeroes of the fractional part are not significant.
+    int index = value.charAt(0) == '+' || value.charAt(0) == '-' ? 1 : 0;
+    while (index < value.length() && value.charAt(index) == '0') {
+      index++;
+    }
+    final int integerEnd = skipDigits(value, index);
+    final int significantIntegerDigits = integerEnd - index;
+    int decimals = 0;
+    if (integerEnd < value.length() && value.charAt(integerEnd) == '.') {
+      int fractionEnd = skipDigits(value, integerEnd + 1);
+      while (fractionEnd > integerEnd + 2 && value.charAt(fractionEnd - 1) == '0') {
+        fractionEnd--;
+      }
+      decimals = fractionEnd - integerEnd - 1;
+    }
     return (facets.getPrecision() == null || facets.getPrecision() >= significantIntegerDigits + decimals)
         && (facets.getScale() == null || facets.getScale() >= decimals);
   }
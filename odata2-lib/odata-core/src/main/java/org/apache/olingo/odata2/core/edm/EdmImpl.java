@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.edm;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +47,7 @@ public abstract class EdmImpl implements Edm {
   private Map<String, String> aliasToNamespaceInfo;
   private List<EdmEntitySet> edmEntitySets;
   private List<EdmFunctionImport> edmFunctionImports;
+  private boolean frozen;
 
   protected EdmServiceMetadata edmServiceMetadata;
 
@@ -61,6 +63,8 @@ public abstract class EdmImpl implements Edm {
   public EdmEntityContainer getEntityContainer(final String name) throws EdmException {
     if (edmEntityContainers.containsKey(name)) {
       return edmEntityContainers.get(name);
+    } else if (frozen) {
+      return null;
     }
 
     EdmEntityContainer edmEntityContainer = null;
@@ -97,6 +101,8 @@ public abstract class EdmImpl implements Edm {
     FullQualifiedName fqName = new FullQualifiedName(finalNamespace, name);
     if (edmEntityTypes.containsKey(fqName)) {
       return edmEntityTypes.get(fqName);
+    } else if (frozen) {
+      return null;
     }
 
     EdmEntityType edmEntityType = null;
@@ -142,6 +148,8 @@ public abstract class EdmImpl implements Edm {
     FullQualifiedName fqName = new FullQualifiedName(finalNamespace, name);
     if (edmComplexTypes.containsKey(fqName)) {
       return edmComplexTypes.get(fqName);
+    } else if (frozen) {
+      return null;
     }
 
     EdmComplexType edmComplexType = null;
@@ -166,6 +174,8 @@ public abstract class EdmImpl implements Edm {
     FullQualifiedName fqName = new FullQualifiedName(finalNamespace, name);
     if (edmAssociations.containsKey(fqName)) {
       return edmAssociations.get(fqName);
+    } else if (frozen) {
+      return null;
     }
 
     EdmAssociation edmAssociation = null;
@@ -222,6 +232,37 @@ public abstract class EdmImpl implements Edm {
     return edmFunctionImports;
   }
 
+  /**
+   * Returns whether this model has been frozen (see {@link #freeze()}).
+   * @return <code>true</code> if all lookups are served from the resolved model only
+   */
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * Marks this model as completely resolved. Afterwards all lookups are answered from the caches only;
+   * names which are not known are reported as not existing instead of being requested from the provider again.
+   * The caches are never modified after this call, so a frozen model can be shared between requests and threads
+   * as long as it is published safely (e.g. through a final field).
+   * Subclasses must fill all caches before calling this method.
+   * @throws ODataException
+   */
+  protected void freeze() throws ODataException {
+    getNamespaceForAlias(null);
+    getEntitySets();
+    getFunctionImports();
+
+    edmEntityContainers = Collections.unmodifiableMap(edmEntityContainers);
+    edmEntityTypes = Collections.unmodifiableMap(edmEntityTypes);
+    edmComplexTypes = Collections.unmodifiableMap(edmComplexTypes);
+    edmAssociations = Collections.unmodifiableMap(edmAssociations);
+    aliasToNamespaceInfo = Collections.unmodifiableMap(aliasToNamespaceInfo);
+    edmEntitySets = Collections.unmodifiableList(edmEntitySets);
+    edmFunctionImports = Collections.unmodifiableList(edmFunctionImports);
+    frozen = true;
+  }
+
   protected abstract EdmEntityContainer createEntityContainer(String name) throws ODataException;
 
   protected abstract EdmEntityType createEntityType(FullQualifiedName fqName) throws ODataException;
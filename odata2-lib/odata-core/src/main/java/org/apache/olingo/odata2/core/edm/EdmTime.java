@@ -20,6 +20,7 @@ package org.apache.olingo.odata2.core.edm;
 
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.LocalTime;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
@@ -36,6 +37,7 @@ import org.apache.olingo.odata2.api.edm.EdmSimpleTypeException;
  * The time value is interpreted and formatted as local time.</p>
  * <p>Formatting simply ignores the year, month, and day parts of time instances.
  * Parsing returns a Calendar object where all unused fields have been cleared.</p>
+ * <p>Besides the default value types, {@link LocalTime} is supported.</p>
  * 
  */
 public class EdmTime extends AbstractSimpleType {
@@ -45,7 +47,6 @@ public class EdmTime extends AbstractSimpleType {
       + "T(?:(\\p{Digit}{1,2})H)?(?:(\\p{Digit}{1,4})M)?(?:(\\p{Digit}{1,5})(?:\\.(\\p{Digit}+?)0*)?S)?");
   
   private static final EdmTime instance = new EdmTime();
-  private static final TimeZone TIME_ZONE_GMT = TimeZone.getTimeZone("GMT");
 
   public static EdmTime getInstance() {
     return instance;
@@ -74,6 +75,10 @@ public class EdmTime extends AbstractSimpleType {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
     }
 
+    if (returnType.isAssignableFrom(LocalTime.class) && !returnType.isAssignableFrom(Calendar.class)) {
+      return returnType.cast(parseLocalTime(matcher, value, facets));
+    }
+
     Calendar dateTimeValue = Calendar.getInstance();
     dateTimeValue.clear();
 
@@ -127,20 +132,64 @@ public class EdmTime extends AbstractSimpleType {
     }
   }
 
+  private static LocalTime parseLocalTime(final Matcher matcher, final String value, final EdmFacets facets)
+      throws EdmSimpleTypeException {
+    int nanoSeconds = 0;
+    if (matcher.group(7) != null) {
+      final String decimals = matcher.group(7);
+      if (facets != null && facets.getPrecision() != null && facets.getPrecision() < decimals.length()) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED.addContent(value, facets));
+      }
+      if (decimals.length() > 9) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
+      }
+      nanoSeconds = Integer.parseInt(decimals + "000000000".substring(decimals.length()));
+    }
+    final long secondOfDay = (matcher.group(4) == null ? 0 : Long.parseLong(matcher.group(4)) * 60 * 60)
+        + (matcher.group(5) == null ? 0 : Long.parseLong(matcher.group(5)) * 60)
+        + (matcher.group(6) == null ? 0 : Long.parseLong(matcher.group(6)));
+    if (matcher.group(1) != null || matcher.group(2) != null || matcher.group(3) != null
+        || secondOfDay >= 24 * 60 * 60) {
+      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_UNCONVERTIBLE_TO_VALUE_TYPE.addContent(value,
+          LocalTime.class));
+    }
+    return LocalTime.ofNanoOfDay(secondOfDay * 1000 * 1000 * 1000 + nanoSeconds);
+  }
+
   @Override
   protected <T> String internalValueToString(final T value, final EdmLiteralKind literalKind, final EdmFacets facets)
       throws EdmSimpleTypeException {
-    Calendar dateTimeValue;
-    if (value instanceof Date) {
-      dateTimeValue = Calendar.getInstance();
-      dateTimeValue.clear();
-      dateTimeValue.setTime((Date) value);
-    } else if (value instanceof Calendar) {
-      dateTimeValue = (Calendar) ((Calendar) value).clone();
-    } else if (value instanceof Long) {
-      dateTimeValue = Calendar.getInstance(TIME_ZONE_GMT);
-      dateTimeValue.clear();
-      dateTimeValue.setTimeInMillis((Long) value);
+    int hour;
+    int minute;
+    int second;
+    int fractionalSecs;
+    boolean isNano;
+    if (value instanceof Date || value instanceof Calendar || value instanceof Long) {
+      // The time of day is computed from the milliseconds in local time, without calendar fields.
+      long localMillis;
+      if (value instanceof Date) {
+        final long millis = ((Date) value).getTime();
+        localMillis = millis + TimeZone.getDefault().getOffset(millis);
+      } else if (value instanceof Calendar) {
+        final Calendar dateTimeValue = (Calendar) ((Calendar) value).clone();
+        final long millis = dateTimeValue.getTimeInMillis();
+        localMillis = millis + dateTimeValue.getTimeZone().getOffset(millis);
+      } else {
+        localMillis = (Long) value;
+      }
+      final int millisOfDay = (int) DateTimeFormat.floorMod(localMillis, DateTimeFormat.MILLIS_PER_DAY);
+      hour = millisOfDay / (60 * 60 * 1000);
+      minute = millisOfDay / (60 * 1000) % 60;
+      second = millisOfDay / 1000 % 60;
+      isNano = value instanceof Timestamp;
+      fractionalSecs = isNano ? ((Timestamp) value).getNanos() : millisOfDay % 1000;
+    } else if (value instanceof LocalTime) {
+      final LocalTime localTime = (LocalTime) value;
+      hour = localTime.getHour();
+      minute = localTime.getMinute();
+      second = localTime.getSecond();
+      fractionalSecs = localTime.getNano();
+      isNano = true;
     } else {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(value.getClass()));
     }
@@ -148,21 +197,12 @@ public class EdmTime extends AbstractSimpleType {
     StringBuilder result = new StringBuilder(21); // 21 characters are enough for nanosecond precision.
     result.append('P');
     result.append('T');
-    result.append(dateTimeValue.get(Calendar.HOUR_OF_DAY));
+    result.append(hour);
     result.append('H');
-    result.append(dateTimeValue.get(Calendar.MINUTE));
+    result.append(minute);
     result.append('M');
-    result.append(dateTimeValue.get(Calendar.SECOND));
-
-    final int fractionalSecs = value instanceof Timestamp ?
-        ((Timestamp) value).getNanos() :
-        dateTimeValue.get(Calendar.MILLISECOND);
-    try {
-      EdmDateTime.appendFractionalSeconds(result, fractionalSecs, value instanceof Timestamp, facets);
-    } catch (final IllegalArgumentException e) {
-      throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_FACETS_NOT_MATCHED.addContent(value, facets), e);
-    }
-
+    result.append(second);
+    EdmDateTime.appendFractionalSeconds(result, fractionalSecs, isNano, value, facets);
     result.append('S');
 
     return result.toString();
@@ -19,6 +19,7 @@
 package org.apache.olingo.odata2.core.edm.provider;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +30,7 @@ import org.apache.olingo.odata2.api.edm.EdmAssociation;
 import org.apache.olingo.odata2.api.edm.EdmAssociationSet;
 import org.apache.olingo.odata2.api.edm.EdmEntityContainer;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmFunctionImport;
 import org.apache.olingo.odata2.api.edm.EdmNavigationProperty;
@@ -52,6 +54,8 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
   private Map<String, EdmEntitySet> edmEntitySets;
   private Map<String, EdmAssociationSet> edmAssociationSets;
   private Map<String, EdmFunctionImport> edmFunctionImports;
+  private List<EdmEntitySet> frozenEntitySets;
+  private List<EdmAssociationSet> frozenAssociationSets;
   private EdmEntityContainer edmExtendedEntityContainer;
   private boolean isDefaultContainer;
   private EdmAnnotations annotations;
@@ -82,7 +86,7 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
   @Override
   public EdmEntitySet getEntitySet(final String name) throws EdmException {
     EdmEntitySet edmEntitySet = edmEntitySets.get(name);
-    if (edmEntitySet != null) {
+    if (edmEntitySet != null || frozenEntitySets != null) {
       return edmEntitySet;
     }
 
@@ -108,7 +112,7 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
   @Override
   public EdmFunctionImport getFunctionImport(final String name) throws EdmException {
     EdmFunctionImport edmFunctionImport = edmFunctionImports.get(name);
-    if (edmFunctionImport != null) {
+    if (edmFunctionImport != null || frozenEntitySets != null) {
       return edmFunctionImport;
     }
 
@@ -160,15 +164,58 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
 
     if (associationSet != null) {
       edmAssociationSet = createAssociationSet(associationSet);
-      edmAssociationSets.put(key, edmAssociationSet);
-      return edmAssociationSet;
     } else if (edmExtendedEntityContainer != null) {
       edmAssociationSet = edmExtendedEntityContainer.getAssociationSet(sourceEntitySet, navigationProperty);
-      edmAssociationSets.put(key, edmAssociationSet);
-      return edmAssociationSet;
     } else {
       throw new EdmException(EdmException.COMMON);
     }
+    // a frozen container must not be modified any more, so late lookups are not cached
+    if (frozenAssociationSets == null) {
+      edmAssociationSets.put(key, edmAssociationSet);
+    }
+    return edmAssociationSet;
+  }
+
+  /**
+   * Resolves all entity sets, association sets and function imports of this container
+   * (including the ones of extended containers) and fixes the result.
+   * Afterwards no lookup of this container modifies its state or requests the provider
+   * for unknown entity sets or function imports.
+   * 
+   * @return the entity sets of this container
+   * @throws EdmException
+   */
+  List<EdmEntitySet> freeze() throws EdmException {
+    getNamespace();
+    getAnnotations();
+    List<EdmEntitySet> entitySets = getEntitySets();
+    for (EdmEntitySet entitySet : entitySets) {
+      EdmEntityType entityType = entitySet.getEntityType();
+      for (String navigationPropertyName : entityType.getNavigationPropertyNames()) {
+        try {
+          getAssociationSet(entitySet, (EdmNavigationProperty) entityType.getProperty(navigationPropertyName));
+        } catch (EdmException e) {
+          // incomplete association sets are reported when they are really used
+          continue;
+        }
+      }
+    }
+    List<EdmAssociationSet> associationSets = getAssociationSets();
+    try {
+      for (EntityContainer entityContainer : getEntityContainerHierachy()) {
+        if (entityContainer.getFunctionImports() != null) {
+          for (FunctionImport functionImport : entityContainer.getFunctionImports()) {
+            getFunctionImport(functionImport.getName());
+          }
+        }
+      }
+    } catch (ODataException e) {
+      throw new EdmException(EdmException.PROVIDERPROBLEM, e);
+    }
+
+    frozenAssociationSets = Collections.unmodifiableList(associationSets);
+    frozenEntitySets = Collections.unmodifiableList(entitySets);
+    return frozenEntitySets;
   }
 
   /**
@@ -209,14 +256,19 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
 
   @Override
   public List<EdmEntitySet> getEntitySets() throws EdmException {
+    if (frozenEntitySets != null) {
+      return frozenEntitySets;
+    }
     try {
       List<EdmEntitySet> edmEntitySetsList = new ArrayList<EdmEntitySet>();
       List<EntityContainer> entityContainerHierachyList = getEntityContainerHierachy();
       for (EntityContainer entityContainer : entityContainerHierachyList) {
         List<EntitySet> entitySets = entityContainer.getEntitySets();
-        for (EntitySet entitySet : entitySets) {
-          EdmEntitySet ees = createEntitySet(entitySet);
-          edmEntitySetsList.add(ees);
+        if (entitySets != null) {
+          for (EntitySet entitySet : entitySets) {
+            EdmEntitySet ees = createEntitySet(entitySet);
+            edmEntitySetsList.add(ees);
+          }
         }
       }
       return edmEntitySetsList;
@@ -227,14 +279,19 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
 
   @Override
   public List<EdmAssociationSet> getAssociationSets() throws EdmException {
+    if (frozenAssociationSets != null) {
+      return frozenAssociationSets;
+    }
     try {
       List<EntityContainer> containers = getEntityContainerHierachy();
       List<EdmAssociationSet> edmAssociationSetsList = new ArrayList<EdmAssociationSet>();
       for (EntityContainer entityContainer : containers) {
         List<AssociationSet> associationSets = entityContainer.getAssociationSets();
-        for (AssociationSet associationSet : associationSets) {
-          EdmAssociationSet eas = createAssociationSet(associationSet);
-          edmAssociationSetsList.add(eas);
+        if (associationSets != null) {
+          for (AssociationSet associationSet : associationSets) {
+            EdmAssociationSet eas = createAssociationSet(associationSet);
+            edmAssociationSetsList.add(eas);
+          }
         }
       }
 
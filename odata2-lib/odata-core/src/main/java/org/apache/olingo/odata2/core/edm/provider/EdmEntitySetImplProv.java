@@ -18,6 +18,8 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.edm.provider;
 
+import java.util.Map;
+
 import org.apache.olingo.odata2.api.edm.EdmAnnotatable;
 import org.apache.olingo.odata2.api.edm.EdmAnnotations;
 import org.apache.olingo.odata2.api.edm.EdmAssociationSet;
@@ -30,6 +32,7 @@ import org.apache.olingo.odata2.api.edm.EdmMapping;
 import org.apache.olingo.odata2.api.edm.EdmNavigationProperty;
 import org.apache.olingo.odata2.api.edm.FullQualifiedName;
 import org.apache.olingo.odata2.api.edm.provider.EntitySet;
+import org.apache.olingo.odata2.core.ep.aggregator.EntityInfoAggregator;
 
 public class EdmEntitySetImplProv extends EdmNamedImplProv implements EdmEntitySet, EdmAnnotatable {
 
@@ -37,6 +40,7 @@ public class EdmEntitySetImplProv extends EdmNamedImplProv implements EdmEntityS
   private EdmEntityContainer edmEntityContainer;
   private EdmEntityType edmEntityType;
   private EdmAnnotationsImplProv annotations;
+  private final Map<String, EntityInfoAggregator> entityInfoAggregators = EntityInfoAggregator.createCache();
 
   public EdmEntitySetImplProv(final EdmImplProv edm, final EntitySet entitySet,
       final EdmEntityContainer edmEntityContainer) throws EdmException {
@@ -89,4 +93,13 @@ public class EdmEntitySetImplProv extends EdmNamedImplProv implements EdmEntityS
   public EdmMapping getMapping() throws EdmException {
     return entitySet.getMapping();
   }
+
+  /**
+   * Returns the cache of the entity info aggregators of this entity set (see
+   * {@link EntityInfoAggregator#createCache()}).
+   * @return the cache; access must be synchronized on it
+   */
+  public Map<String, EntityInfoAggregator> getEntityInfoAggregators() {
+    return entityInfoAggregators;
+  }
 }
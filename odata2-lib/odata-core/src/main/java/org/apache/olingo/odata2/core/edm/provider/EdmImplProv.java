@@ -19,16 +19,25 @@
 package org.apache.olingo.odata2.core.edm.provider;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.olingo.odata2.api.edm.EdmAnnotatable;
+import org.apache.olingo.odata2.api.edm.EdmAnnotationElement;
+import org.apache.olingo.odata2.api.edm.EdmAnnotations;
 import org.apache.olingo.odata2.api.edm.EdmAssociation;
 import org.apache.olingo.odata2.api.edm.EdmComplexType;
 import org.apache.olingo.odata2.api.edm.EdmEntityContainer;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmFunctionImport;
+import org.apache.olingo.odata2.api.edm.EdmParameter;
+import org.apache.olingo.odata2.api.edm.EdmReferentialConstraint;
+import org.apache.olingo.odata2.api.edm.EdmStructuralType;
+import org.apache.olingo.odata2.api.edm.EdmTyped;
 import org.apache.olingo.odata2.api.edm.FullQualifiedName;
 import org.apache.olingo.odata2.api.edm.provider.AliasInfo;
 import org.apache.olingo.odata2.api.edm.provider.Association;
@@ -103,9 +112,9 @@ public class EdmImplProv extends EdmImpl implements EdmProviderAccessor {
       schemas = edmProvider.getSchemas();
     }
     for (Schema schema : schemas) {
-      for (EntityContainer entityContainer : schema.getEntityContainers()) {
-        for (EntitySet entitySet : entityContainer.getEntitySets()) {
-          EdmEntityContainer edmEntityContainer = createEntityContainer(entityContainer.getName());
+      for (EntityContainer entityContainer : listOrEmptyList(schema.getEntityContainers())) {
+        for (EntitySet entitySet : listOrEmptyList(entityContainer.getEntitySets())) {
+          EdmEntityContainer edmEntityContainer = getEntityContainer(entityContainer.getName());
           edmEntitySets.add(new EdmEntitySetImplProv(this, entitySet, edmEntityContainer));
         }
       }
@@ -120,9 +129,9 @@ public class EdmImplProv extends EdmImpl implements EdmProviderAccessor {
       schemas = edmProvider.getSchemas();
     }
     for (Schema schema : schemas) {
-      for (EntityContainer entityContainer : schema.getEntityContainers()) {
-        for (FunctionImport functionImport : entityContainer.getFunctionImports()) {
-          EdmEntityContainer edmEntityContainer = createEntityContainer(entityContainer.getName());
+      for (EntityContainer entityContainer : listOrEmptyList(schema.getEntityContainers())) {
+        for (FunctionImport functionImport : listOrEmptyList(entityContainer.getFunctionImports())) {
+          EdmEntityContainer edmEntityContainer = getEntityContainer(entityContainer.getName());
           edmFunctionImports.add(new EdmFunctionImportImplProv(this, functionImport, edmEntityContainer));
         }
       }
@@ -130,6 +139,123 @@ public class EdmImplProv extends EdmImpl implements EdmProviderAccessor {
     return edmFunctionImports;
   }
 
+  /**
+   * Resolves the complete entity data model from the {@link EdmProvider} at once and freezes it.
+   * Afterwards the provider is not asked again for metadata, and the model and all of its elements
+   * can be shared between requests and threads.
+   * @throws ODataException if the provider fails or the model is inconsistent
+   */
+  @Override
+  public void freeze() throws ODataException {
+    if (isFrozen()) {
+      return;
+    }
+    if (schemas == null) {
+      schemas = edmProvider.getSchemas();
+    }
+    ((EdmServiceMetadataImplProv) edmServiceMetadata).freeze();
+
+    for (Schema schema : schemas) {
+      final String namespace = schema.getNamespace();
+      for (ComplexType complexType : listOrEmptyList(schema.getComplexTypes())) {
+        resolveStructuralType(getComplexType(namespace, complexType.getName()));
+      }
+      for (EntityType entityType : listOrEmptyList(schema.getEntityTypes())) {
+        EdmEntityType edmEntityType = getEntityType(namespace, entityType.getName());
+        resolveStructuralType(edmEntityType);
+        if (entityType.getKey() != null) {
+          edmEntityType.getKeyProperties();
+        }
+        for (String navigationPropertyName : edmEntityType.getNavigationPropertyNames()) {
+          resolveAnnotations(edmEntityType.getProperty(navigationPropertyName));
+        }
+      }
+      for (Association association : listOrEmptyList(schema.getAssociations())) {
+        EdmAssociation edmAssociation = getAssociation(namespace, association.getName());
+        resolveAnnotations(edmAssociation);
+        EdmReferentialConstraint referentialConstraint = edmAssociation.getReferentialConstraint();
+        if (referentialConstraint != null) {
+          resolveAnnotations(referentialConstraint);
+        }
+      }
+    }
+
+    for (Schema schema : schemas) {
+      for (EntityContainer entityContainer : listOrEmptyList(schema.getEntityContainers())) {
+        EdmEntityContainerImplProv edmEntityContainer =
+            (EdmEntityContainerImplProv) getEntityContainer(entityContainer.getName());
+        resolveAnnotations(edmEntityContainer);
+        for (EdmEntitySet entitySet : edmEntityContainer.freeze()) {
+          resolveEntitySet(entitySet);
+        }
+        for (FunctionImport functionImport : listOrEmptyList(entityContainer.getFunctionImports())) {
+          resolveFunctionImport(edmEntityContainer.getFunctionImport(functionImport.getName()));
+        }
+      }
+    }
+    getDefaultEntityContainer();
+    for (EdmEntitySet entitySet : getEntitySets()) {
+      resolveEntitySet(entitySet);
+    }
+    for (EdmFunctionImport functionImport : getFunctionImports()) {
+      resolveFunctionImport(functionImport);
+    }
+
+    super.freeze();
+  }
+
+  private void resolveStructuralType(final EdmStructuralType structuralType) throws EdmException {
+    for (String propertyName : structuralType.getPropertyNames()) {
+      EdmTyped property = structuralType.getProperty(propertyName);
+      property.getType();
+      resolveAnnotations(property);
+    }
+    resolveAnnotations(structuralType);
+  }
+
+  private void resolveEntitySet(final EdmEntitySet entitySet) throws EdmException {
+    entitySet.getEntityType();
+    resolveAnnotations(entitySet);
+  }
+
+  private void resolveFunctionImport(final EdmFunctionImport functionImport) throws EdmException {
+    for (String parameterName : functionImport.getParameterNames()) {
+      EdmParameter parameter = functionImport.getParameter(parameterName);
+      parameter.getType();
+      resolveAnnotations(parameter);
+    }
+    EdmTyped returnType = functionImport.getReturnType();
+    if (returnType != null) {
+      returnType.getType();
+    }
+    resolveAnnotations(functionImport);
+  }
+
+  private void resolveAnnotations(final Object element) throws EdmException {
+    if (element instanceof EdmAnnotatable) {
+      EdmAnnotations annotations = ((EdmAnnotatable) element).getAnnotations();
+      if (annotations != null) {
+        resolveAnnotationElements(annotations.getAnnotationElements());
+      }
+    }
+  }
+
+  private void resolveAnnotationElements(final List<EdmAnnotationElement> annotationElements) {
+    if (annotationElements != null) {
+      for (EdmAnnotationElement annotationElement : annotationElements) {
+        annotationElement.getAttributes();
+        resolveAnnotationElements(annotationElement.getChildElements());
+      }
+    }
+  }
+
+  private <T> List<T> listOrEmptyList(final List<T> list) {
+    if (list == null) {
+      return Collections.emptyList();
+    }
+    return list;
+  }
+
   @Override
   protected Map<String, String> createAliasToNamespaceInfo() throws ODataException {
     List<AliasInfo> aliasInfos = edmProvider.getAliasInfos();
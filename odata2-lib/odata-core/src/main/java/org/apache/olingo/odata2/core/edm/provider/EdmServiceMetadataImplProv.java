@@ -25,6 +25,8 @@ import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
@@ -44,6 +46,7 @@ import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.core.commons.XmlHelper;
 import org.apache.olingo.odata2.core.ep.producer.XmlMetadataProducer;
 import org.apache.olingo.odata2.core.ep.util.CircleStreamBuffer;
+import org.apache.olingo.odata2.core.ep.util.SerializedDocument;
 
 /**
  *  
@@ -51,10 +54,14 @@ import org.apache.olingo.odata2.core.ep.util.CircleStreamBuffer;
 public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
 
   private static final String EDM_PROVIDER_EXEPTION = "EdmProvider is not set.";
+  private static final int MAX_CACHED_SERVICE_DOCUMENTS = 32;
   private EdmProvider edmProvider;
   private String dataServiceVersion;
   private List<Schema> schemas;
   private List<EdmEntitySetInfo> entitySetInfos;
+  private volatile SerializedDocument metadataDocument;
+  private final ConcurrentMap<String, SerializedDocument> serviceDocuments =
+      new ConcurrentHashMap<String, SerializedDocument>();
 
   public EdmServiceMetadataImplProv(final EdmProvider edmProvider) {
     this.edmProvider = edmProvider;
@@ -65,6 +72,10 @@ public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
     if(edmProvider == null){
        throw new ODataException(EDM_PROVIDER_EXEPTION);
     }
+    final SerializedDocument document = metadataDocument;
+    if (document != null) {
+      return document.getContent();
+    }
     if (schemas == null) {
       schemas = edmProvider.getSchemas();
     }
@@ -99,6 +110,16 @@ public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
     }
   }
 
+  /**
+   * Returns the strong entity tag of the metadata document if the model is frozen
+   * and the document is serialized only once.
+   * @return the entity tag or <code>null</code> if the document is serialized on every call of {@link #getMetadata()}
+   */
+  public String getMetadataETag() {
+    final SerializedDocument document = metadataDocument;
+    return document == null ? null : document.getETag();
+  }
+
   @Override
   public String getDataServiceVersion() throws ODataException {
     if(edmProvider == null){
@@ -165,6 +186,44 @@ public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
     return entitySetInfos;
   }
 
+  /**
+   * Resolves the data service version and the entity set infos once so that they
+   * can be read concurrently afterwards. The metadata document is serialized
+   * once and served from memory afterwards.
+   * @throws ODataException
+   */
+  void freeze() throws ODataException {
+    getDataServiceVersion();
+    entitySetInfos = Collections.unmodifiableList(getEntitySetInfos());
+    try {
+      metadataDocument = SerializedDocument.fromStream(getMetadata());
+    } catch (IOException e) {
+      throw new EntityProviderException(EntityProviderException.COMMON, e);
+    }
+  }
+
+  /**
+   * Returns the service document serialized before for the given key.
+   * Only a frozen model caches service documents.
+   * @param key key built from content type and service root
+   * @return the serialized service document or <code>null</code>
+   */
+  public SerializedDocument getServiceDocument(final String key) {
+    return metadataDocument == null ? null : serviceDocuments.get(key);
+  }
+
+  /**
+   * Caches the serialized service document for the given key if the model is frozen.
+   * The number of cached documents is limited; further documents are not cached.
+   * @param key key built from content type and service root
+   * @param document the serialized service document
+   */
+  public void putServiceDocument(final String key, final SerializedDocument document) {
+    if (metadataDocument != null && serviceDocuments.size() < MAX_CACHED_SERVICE_DOCUMENTS) {
+      serviceDocuments.putIfAbsent(key, document);
+    }
+  }
+
   /**
    * Return original list if parameter is not NULL or an empty list.
    *
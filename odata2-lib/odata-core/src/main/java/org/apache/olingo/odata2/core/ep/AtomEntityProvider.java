@@ -18,9 +18,12 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.ep;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -66,6 +69,7 @@ import org.apache.olingo.odata2.core.ep.producer.XmlLinkEntityProducer;
 import org.apache.olingo.odata2.core.ep.producer.XmlLinksEntityProducer;
 import org.apache.olingo.odata2.core.ep.producer.XmlPropertyEntityProducer;
 import org.apache.olingo.odata2.core.ep.util.CircleStreamBuffer;
+import org.apache.olingo.odata2.core.ep.util.IncrementalInputStream;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
 /**
@@ -266,6 +270,57 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
     }
   }
 
+  @Override
+  public ODataResponse writeFeed(final EdmEntitySet entitySet, final Iterator<Map<String, Object>> data,
+      final EntityProviderWriteProperties properties) throws EntityProviderException {
+    final EntityInfoAggregator eia = EntityInfoAggregator.create(entitySet, properties.getExpandSelectTree());
+    final AtomFeedProducer atomFeedProvider = new AtomFeedProducer(properties);
+
+    IncrementalInputStream content = new IncrementalInputStream() {
+      private XMLStreamWriter writer;
+
+      @Override
+      protected boolean writeNextChunk(final OutputStream out) throws IOException {
+        boolean hasNext = true;
+        try {
+          if (writer == null) {
+            writer = XmlHelper.getXMLOutputFactory().createXMLStreamWriter(out, DEFAULT_CHARSET);
+            writer.writeStartDocument(DEFAULT_CHARSET, XML_VERSION);
+            atomFeedProvider.appendStart(writer, eia, false);
+          } else if (data.hasNext()) {
+            atomFeedProvider.appendEntry(writer, eia, data.next());
+          } else {
+            atomFeedProvider.appendEnd(writer, eia, false);
+            hasNext = false;
+          }
+          writer.flush();
+        } catch (final EntityProviderException e) {
+          throw new IOException(e);
+        } catch (final XMLStreamException e) {
+          throw new IOException(e);
+        }
+        return hasNext;
+      }
+
+      @Override
+      protected void release() throws IOException {
+        if (data instanceof Closeable) {
+          ((Closeable) data).close();
+        }
+      }
+    };
+
+    try {
+      return ODataResponse.entity(content.start()).build();
+    } catch (final IOException e) {
+      if (e.getCause() instanceof EntityProviderException) {
+        throw (EntityProviderException) e.getCause();
+      }
+      throw new EntityProviderProducerException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
+          .getSimpleName()), e);
+    }
+  }
+
   @Override
   public ODataResponse writeLink(final EdmEntitySet entitySet, final Map<String, Object> data,
       final EntityProviderWriteProperties properties) throws EntityProviderException {
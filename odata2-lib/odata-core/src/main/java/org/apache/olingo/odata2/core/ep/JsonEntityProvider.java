@@ -18,10 +18,11 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.ep;
 
-import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -61,6 +62,8 @@ import org.apache.olingo.odata2.core.ep.producer.JsonLinksEntityProducer;
 import org.apache.olingo.odata2.core.ep.producer.JsonPropertyEntityProducer;
 import org.apache.olingo.odata2.core.ep.producer.JsonServiceDocumentProducer;
 import org.apache.olingo.odata2.core.ep.util.CircleStreamBuffer;
+import org.apache.olingo.odata2.core.ep.util.IncrementalInputStream;
+import org.apache.olingo.odata2.core.ep.util.Utf8Writer;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
 /**
@@ -68,8 +71,6 @@ import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
  */
 public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
 
-  private static final String DEFAULT_CHARSET = "UTF-8";
-
   /**
    * <p>Serializes an error message according to the OData standard.</p>
    * <p>In case an error occurs, it is logged.
@@ -107,7 +108,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Utf8Writer writer = new Utf8Writer(buffer.getOutputStream());
       new JsonErrorDocumentProducer().writeErrorDocument(writer, context);
       writer.flush();
       buffer.closeWrite();
@@ -134,7 +135,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Utf8Writer writer = new Utf8Writer(buffer.getOutputStream());
       JsonServiceDocumentProducer.writeServiceDocument(writer, edm);
       writer.flush();
       buffer.closeWrite();
@@ -156,7 +157,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Utf8Writer writer = new Utf8Writer(buffer.getOutputStream());
       JsonEntryEntityProducer producer = new JsonEntryEntityProducer(properties);
       producer.append(writer, entityInfo, data, true);
       writer.flush();
@@ -187,7 +188,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
 
     try {
       OutputStream outStream = buffer.getOutputStream();
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outStream, DEFAULT_CHARSET));
+      Utf8Writer writer = new Utf8Writer(outStream);
       new JsonPropertyEntityProducer().append(writer, propertyInfo, value);
       writer.flush();
       buffer.closeWrite();
@@ -212,7 +213,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Utf8Writer writer = new Utf8Writer(buffer.getOutputStream());
       new JsonFeedEntityProducer(properties).appendAsObject(writer, entityInfo, data, true);
       writer.flush();
       buffer.closeWrite();
@@ -228,6 +229,54 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     }
   }
 
+  @Override
+  public ODataResponse writeFeed(final EdmEntitySet entitySet, final Iterator<Map<String, Object>> data,
+      final EntityProviderWriteProperties properties) throws EntityProviderException {
+    final EntityInfoAggregator entityInfo = EntityInfoAggregator.create(entitySet, properties.getExpandSelectTree());
+    final JsonFeedEntityProducer producer = new JsonFeedEntityProducer(properties);
+
+    IncrementalInputStream content = new IncrementalInputStream() {
+      private Utf8Writer writer;
+
+      @Override
+      protected boolean writeNextChunk(final OutputStream out) throws IOException {
+        boolean hasNext = true;
+        try {
+          if (writer == null) {
+            writer = new Utf8Writer(out);
+            producer.appendStart(writer, true);
+          } else if (data.hasNext()) {
+            producer.appendEntry(writer, entityInfo, data.next());
+          } else {
+            producer.appendEnd(writer, entityInfo, true);
+            hasNext = false;
+          }
+          writer.flush();
+        } catch (final EntityProviderException e) {
+          throw new IOException(e);
+        }
+        return hasNext;
+      }
+
+      @Override
+      protected void release() throws IOException {
+        if (data instanceof Closeable) {
+          ((Closeable) data).close();
+        }
+      }
+    };
+
+    try {
+      return ODataResponse.entity(content.start()).build();
+    } catch (final IOException e) {
+      if (e.getCause() instanceof EntityProviderException) {
+        throw (EntityProviderException) e.getCause();
+      }
+      throw new EntityProviderProducerException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
+          .getSimpleName()), e);
+    }
+  }
+
   @Override
   public ODataResponse writeLink(final EdmEntitySet entitySet, final Map<String, Object> data,
       final EntityProviderWriteProperties properties) throws EntityProviderException {
@@ -235,7 +284,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Utf8Writer writer = new Utf8Writer(buffer.getOutputStream());
       new JsonLinkEntityProducer(properties).append(writer, entityInfo, data);
       writer.flush();
       buffer.closeWrite();
@@ -260,7 +309,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Utf8Writer writer = new Utf8Writer(buffer.getOutputStream());
       new JsonLinksEntityProducer(properties).append(writer, entityInfo, data);
       writer.flush();
       buffer.closeWrite();
@@ -285,7 +334,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Utf8Writer writer = new Utf8Writer(buffer.getOutputStream());
       new JsonCollectionEntityProducer().append(writer, propertyInfo, data);
       writer.flush();
       buffer.closeWrite();
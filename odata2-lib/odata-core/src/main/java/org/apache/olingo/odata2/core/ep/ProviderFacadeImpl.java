@@ -18,11 +18,14 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.ep;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.olingo.odata2.api.batch.BatchException;
+import org.apache.olingo.odata2.api.batch.BatchHandler;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
 import org.apache.olingo.odata2.api.client.batch.BatchPart;
@@ -42,6 +45,7 @@ import org.apache.olingo.odata2.api.ep.EntityProviderWriteProperties;
 import org.apache.olingo.odata2.api.ep.entry.ODataEntry;
 import org.apache.olingo.odata2.api.ep.feed.ODataDeltaFeed;
 import org.apache.olingo.odata2.api.ep.feed.ODataFeed;
+import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.exception.ODataNotAcceptableException;
 import org.apache.olingo.odata2.api.processor.ODataErrorContext;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
@@ -50,8 +54,11 @@ import org.apache.olingo.odata2.core.batch.BatchRequestWriter;
 import org.apache.olingo.odata2.core.batch.BatchResponseWriter;
 import org.apache.olingo.odata2.core.batch.v2.BatchParser;
 import org.apache.olingo.odata2.core.commons.ContentType;
+import org.apache.olingo.odata2.core.edm.EdmImpl;
 import org.apache.olingo.odata2.core.edm.provider.EdmImplProv;
+import org.apache.olingo.odata2.core.edm.provider.EdmServiceMetadataImplProv;
 import org.apache.olingo.odata2.core.edm.provider.EdmxProvider;
+import org.apache.olingo.odata2.core.ep.util.SerializedDocument;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
 /**
@@ -96,6 +103,22 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
   @Override
   public ODataResponse writeServiceDocument(final String contentType, final Edm edm, final String serviceRoot)
       throws EntityProviderException {
+    if (edm instanceof EdmImpl && ((EdmImpl) edm).isFrozen()
+        && edm.getServiceMetadata() instanceof EdmServiceMetadataImplProv) {
+      // The service document of a frozen model only depends on content type and service root.
+      final EdmServiceMetadataImplProv serviceMetadata = (EdmServiceMetadataImplProv) edm.getServiceMetadata();
+      final String key = contentType + '\n' + serviceRoot;
+      SerializedDocument document = serviceMetadata.getServiceDocument(key);
+      if (document == null) {
+        try {
+          document = SerializedDocument.fromResponse(create(contentType).writeServiceDocument(edm, serviceRoot));
+        } catch (final IOException e) {
+          throw new EntityProviderException(EntityProviderException.COMMON, e);
+        }
+        serviceMetadata.putServiceDocument(key, document);
+      }
+      return document.toResponse();
+    }
     return create(contentType).writeServiceDocument(edm, serviceRoot);
   }
 
@@ -122,6 +145,13 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
     return create(contentType).writeFeed(entitySet, data, properties);
   }
 
+  @Override
+  public ODataResponse writeFeed(final String contentType, final EdmEntitySet entitySet,
+      final Iterator<Map<String, Object>> data, final EntityProviderWriteProperties properties)
+      throws EntityProviderException {
+    return create(contentType).writeFeed(entitySet, data, properties);
+  }
+
   @Override
   public ODataResponse writeEntry(final String contentType, final EdmEntitySet entitySet,
       final Map<String, Object> data, final EntityProviderWriteProperties properties) throws EntityProviderException {
@@ -245,12 +275,26 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
     return batchParts;
   }
 
+  @Override
+  public List<BatchResponsePart> parseBatchRequest(final String contentType, final InputStream content,
+      final EntityProviderBatchProperties properties, final BatchHandler handler) throws ODataException {
+    BatchParser batchParser = new BatchParser(contentType, properties, properties.isStrict());
+    return batchParser.parseBatchRequest(content, handler);
+  }
+
   @Override
   public ODataResponse writeBatchResponse(final List<BatchResponsePart> batchResponseParts) throws BatchException {
     BatchResponseWriter batchWriter = new BatchResponseWriter();
     return batchWriter.writeResponse(batchResponseParts);
   }
 
+  @Override
+  public ODataResponse writeBatchResponse(final Iterator<BatchResponsePart> batchResponseParts)
+      throws ODataException {
+    BatchResponseWriter batchWriter = new BatchResponseWriter();
+    return batchWriter.writeResponse(batchResponseParts);
+  }
+
   @Override
   public InputStream writeBatchRequest(final List<BatchPart> batchParts, final String boundary) {
     BatchRequestWriter batchWriter = new BatchRequestWriter();
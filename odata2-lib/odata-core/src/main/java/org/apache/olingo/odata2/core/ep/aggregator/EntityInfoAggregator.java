@@ -24,8 +24,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.apache.olingo.odata2.api.edm.EdmComplexType;
@@ -44,6 +46,7 @@ import org.apache.olingo.odata2.api.edm.EdmType;
 import org.apache.olingo.odata2.api.edm.EdmTypeKind;
 import org.apache.olingo.odata2.api.ep.EntityProviderException;
 import org.apache.olingo.odata2.api.uri.ExpandSelectTreeNode;
+import org.apache.olingo.odata2.core.edm.provider.EdmEntitySetImplProv;
 
 /**
  * Aggregator to get easy and fast access to all for serialization and de-serialization necessary {@link EdmEntitySet}
@@ -67,9 +70,13 @@ public class EntityInfoAggregator {
       EdmTargetPath.SYNDICATION_SOURCE,
       EdmTargetPath.SYNDICATION_SUMMARY));
 
+  /** Maximum number of cached aggregators per entity set, i.e., of different expand/select trees. */
+  private static final int MAX_CACHED_TREES = 64;
+
   private Map<String, EntityPropertyInfo> propertyInfo = new HashMap<String, EntityPropertyInfo>();
   private Map<String, NavigationPropertyInfo> navigationPropertyInfos = new HashMap<String, NavigationPropertyInfo>();
-  private List<EntityPropertyInfo> keyPropertyInfos;
+  private volatile List<EntityPropertyInfo> keyPropertyInfos;
+  private volatile EntityLinkTemplate linkTemplate;
 
   /*
    * list with all property names in the order based on order in {@link EdmProperty} (normally [key, entity,
@@ -111,11 +118,75 @@ public class EntityInfoAggregator {
    */
   public static EntityInfoAggregator create(final EdmEntitySet entitySet, final ExpandSelectTreeNode expandSelectTree)
       throws EntityProviderException {
+    if (!(entitySet instanceof EdmEntitySetImplProv)) {
+      EntityInfoAggregator eia = new EntityInfoAggregator();
+      eia.initialize(entitySet, expandSelectTree);
+      return eia;
+    }
+
+    // aggregators are immutable and depend only on the entity set and the expand/select tree,
+    // so they are cached by the entity set for the lifetime of its entity data model
+    final Map<String, EntityInfoAggregator> cache = ((EdmEntitySetImplProv) entitySet).getEntityInfoAggregators();
+    final String key = getCacheKey(expandSelectTree);
+    synchronized (cache) {
+      final EntityInfoAggregator cached = cache.get(key);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
     EntityInfoAggregator eia = new EntityInfoAggregator();
     eia.initialize(entitySet, expandSelectTree);
+
+    synchronized (cache) {
+      cache.put(key, eia);
+    }
     return eia;
   }
 
+  /**
+   * Creates the cache for the aggregators of one entity set which holds the aggregators of the
+   * expand/select trees used last. Access to the cache must be synchronized on the cache.
+   * @return the cache, keyed by the canonical form of the expand/select tree
+   */
+  public static Map<String, EntityInfoAggregator> createCache() {
+    return new LinkedHashMap<String, EntityInfoAggregator>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, EntityInfoAggregator> eldest) {
+        return size() > MAX_CACHED_TREES;
+      }
+    };
+  }
+
+  /**
+   * Returns the canonical form of the parts of the expand/select tree the aggregator depends on:
+   * the selected properties and the selected and expanded navigation properties of the top level.
+   */
+  private static String getCacheKey(final ExpandSelectTreeNode expandSelectTree) throws EntityProviderException {
+    if (expandSelectTree == null) {
+      return "";
+    }
+    try {
+      StringBuilder key = new StringBuilder();
+      if (expandSelectTree.isAll()) {
+        key.append('*');
+      } else {
+        for (EdmProperty property : expandSelectTree.getProperties()) {
+          key.append(property.getName()).append(',');
+        }
+      }
+      key.append('/');
+      for (Entry<String, ExpandSelectTreeNode> link : expandSelectTree.getLinks().entrySet()) {
+        key.append(link.getKey()).append(link.getValue() == null ? "," : "+,");
+      }
+      return key.toString();
+    } catch (EdmException e) {
+      throw new EntityProviderException(EntityProviderException.COMMON, e);
+    }
+  }
+
   /**
    * Create an {@link EntityInfoAggregator} based on given {@link EdmEntitySet}
    * 
@@ -128,9 +199,7 @@ public class EntityInfoAggregator {
    * of {@link EdmEntitySet}).
    */
   public static EntityInfoAggregator create(final EdmEntitySet entitySet) throws EntityProviderException {
-    EntityInfoAggregator eia = new EntityInfoAggregator();
-    eia.initialize(entitySet, null);
-    return eia;
+    return create(entitySet, null);
   }
 
   /**
@@ -294,10 +363,11 @@ public class EntityInfoAggregator {
 
     if (keyPropertyInfos == null) {
       try {
-        keyPropertyInfos = new ArrayList<EntityPropertyInfo>();
+        List<EntityPropertyInfo> infos = new ArrayList<EntityPropertyInfo>();
         for (String keyPropertyName : entityType.getKeyPropertyNames()) {
-          keyPropertyInfos.add(propertyInfo.get(keyPropertyName));
+          infos.add(propertyInfo.get(keyPropertyName));
         }
+        keyPropertyInfos = Collections.unmodifiableList(infos);
       } catch (EdmException e) {
         throw new EntityProviderException(EntityProviderException.COMMON, e);
       }
@@ -305,6 +375,17 @@ public class EntityInfoAggregator {
     return keyPropertyInfos;
   }
 
+  /**
+   * @return the template for the URLs of the entities of the entity set
+   * @throws EntityProviderException
+   */
+  public EntityLinkTemplate getLinkTemplate() throws EntityProviderException {
+    if (linkTemplate == null) {
+      linkTemplate = new EntityLinkTemplate(this);
+    }
+    return linkTemplate;
+  }
+
   public NavigationPropertyInfo getNavigationPropertyInfo(final String name) {
     return navigationPropertyInfos.get(name);
   }
@@ -456,6 +537,6 @@ public class EntityInfoAggregator {
   }
 
   public List<String> getExpandedNavigationPropertyNames() {
-    return expandedNavigationPropertyNames;
+    return Collections.unmodifiableList(expandedNavigationPropertyNames);
   }
 }
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.aggregator;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
+import org.apache.olingo.odata2.api.edm.EdmSimpleType;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeException;
+import org.apache.olingo.odata2.api.ep.EntityProviderException;
+import org.apache.olingo.odata2.core.commons.Encoder;
+import org.apache.olingo.odata2.core.ep.EntityProviderProducerException;
+
+/**
+ * Template for the URLs of the entities of an entity set, relative to the service root.
+ * <p>The constant parts, i.e., the encoded entity container and entity set names and the encoded
+ * names of the key properties, are built once; for an entity only the key values are formatted
+ * and encoded.</p>
+ */
+public final class EntityLinkTemplate {
+
+  private final String prefix;
+  private final EntityPropertyInfo[] keyPropertyInfos;
+  private final String[] keyPrefixes;
+
+  EntityLinkTemplate(final EntityInfoAggregator entityInfo) throws EntityProviderException {
+    StringBuilder builder = new StringBuilder();
+    if (!entityInfo.isDefaultEntityContainer()) {
+      builder.append(Encoder.encode(entityInfo.getEntityContainerName())).append(Edm.DELIMITER);
+    }
+    builder.append(Encoder.encode(entityInfo.getEntitySetName())).append('(');
+    prefix = builder.toString();
+
+    final List<EntityPropertyInfo> keyProperties = entityInfo.getKeyPropertyInfos();
+    keyPropertyInfos = keyProperties.toArray(new EntityPropertyInfo[keyProperties.size()]);
+    keyPrefixes = new String[keyPropertyInfos.length];
+    for (int i = 0; i < keyPropertyInfos.length; i++) {
+      keyPrefixes[i] = keyPropertyInfos.length == 1 ? "" :
+          (i > 0 ? "," : "") + Encoder.encode(keyPropertyInfos[i].getName()) + "=";
+    }
+  }
+
+  /**
+   * Creates the URL of an entity.
+   * @param data the data of the entity containing at least the key properties
+   * @param extension path appended after the key predicate, e.g., a navigation property name, or <code>null</code>
+   * @return the URL relative to the service root
+   * @throws EntityProviderException if a key value cannot be formatted
+   */
+  public String createLink(final Map<String, Object> data, final String extension) throws EntityProviderException {
+    StringBuilder link = new StringBuilder(prefix.length() + 16 * keyPropertyInfos.length
+        + (extension == null ? 1 : extension.length() + 2));
+    appendLink(link, data, extension);
+    return link.toString();
+  }
+
+  /**
+   * Appends the URL of an entity.
+   * @see #createLink(Map, String)
+   */
+  public StringBuilder appendLink(final StringBuilder link, final Map<String, Object> data, final String extension)
+      throws EntityProviderException {
+    link.append(prefix);
+    for (int i = 0; i < keyPropertyInfos.length; i++) {
+      final EntityPropertyInfo keyPropertyInfo = keyPropertyInfos[i];
+      final String name = keyPropertyInfo.getName();
+      try {
+        link.append(keyPrefixes[i]).append(Encoder.encode(((EdmSimpleType) keyPropertyInfo.getType())
+            .valueToString(data.get(name), EdmLiteralKind.URI, keyPropertyInfo.getFacets())));
+      } catch (final EdmSimpleTypeException e) {
+        throw new EntityProviderProducerException(
+            EdmSimpleTypeException.getMessageReference(e.getMessageReference()).
+            updateContent(e.getMessageReference().getContent(), name), e);
+      }
+    }
+    link.append(')');
+    if (extension != null) {
+      link.append('/').append(extension);
+    }
+    return link;
+  }
+}
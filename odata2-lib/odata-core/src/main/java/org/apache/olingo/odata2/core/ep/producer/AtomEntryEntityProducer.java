@@ -55,7 +55,6 @@ import org.apache.olingo.odata2.api.ep.callback.WriteFeedCallbackResult;
 import org.apache.olingo.odata2.api.exception.ODataApplicationException;
 import org.apache.olingo.odata2.api.uri.ExpandSelectTreeNode;
 import org.apache.olingo.odata2.core.commons.ContentType;
-import org.apache.olingo.odata2.core.commons.Encoder;
 import org.apache.olingo.odata2.core.edm.EdmDateTimeOffset;
 import org.apache.olingo.odata2.core.ep.EntityProviderProducerException;
 import org.apache.olingo.odata2.core.ep.aggregator.EntityInfoAggregator;
@@ -110,7 +109,7 @@ public class AtomEntryEntityProducer {
         if (!properties.isContentOnly()) {
           appendAtomEditLink(writer, eia, selfLink);
           appendAtomContentLink(writer, eia, data, selfLink);
-          appendAtomNavigationLinks(writer, eia, data);
+          appendAtomNavigationLinks(writer, eia, data, selfLink);
         } else {
           appendAdditinalLinks(writer, eia, data);
         }
@@ -124,7 +123,7 @@ public class AtomEntryEntityProducer {
         // write all links
         if (!properties.isContentOnly()) {
           appendAtomEditLink(writer, eia, selfLink);
-          appendAtomNavigationLinks(writer, eia, data);
+          appendAtomNavigationLinks(writer, eia, data, selfLink);
         } else {
           appendAdditinalLinks(writer, eia, data);
         }
@@ -217,13 +216,14 @@ public class AtomEntryEntityProducer {
   }
 
   private void appendAtomNavigationLinks(final XMLStreamWriter writer, final EntityInfoAggregator eia,
-      final Map<String, Object> data) throws EntityProviderException, EdmException, URISyntaxException {
+      final Map<String, Object> data, final String selfLink)
+      throws EntityProviderException, EdmException, URISyntaxException {
     for (String name : eia.getSelectedNavigationPropertyNames()) {
       final boolean isFeed = (eia.getNavigationPropertyInfo(name).getMultiplicity() == EdmMultiplicity.MANY);
       final Map<String, Map<String, Object>> links = properties.getAdditionalLinks();
       final Map<String, Object> key = links == null ? null : links.get(name);
       if (key == null || key.isEmpty()) {
-        appendAtomNavigationLink(writer, createSelfLink(eia, data, name), name, isFeed, eia, data);
+        appendAtomNavigationLink(writer, selfLink + "/" + name, name, isFeed, eia, data);
       } else {
         final EntityInfoAggregator targetEntityInfo = EntityInfoAggregator.create(
             eia.getEntitySet().getRelatedEntitySet((EdmNavigationProperty) eia.getEntityType().getProperty(name)));
@@ -587,43 +587,7 @@ public class AtomEntryEntityProducer {
 
   static String createSelfLink(final EntityInfoAggregator eia, final Map<String, Object> data, final String extension)
       throws EntityProviderException {
-    StringBuilder sb = new StringBuilder();
-    if (!eia.isDefaultEntityContainer()) {
-      sb.append(Encoder.encode(eia.getEntityContainerName())).append(Edm.DELIMITER);
-    }
-    sb.append(Encoder.encode(eia.getEntitySetName()));
-
-    sb.append("(").append(createEntryKey(eia, data)).append(")").append(extension == null ? "" : ("/" + extension));
-    return sb.toString();
-  }
-
-  private static String createEntryKey(final EntityInfoAggregator entityInfo, final Map<String, Object> data)
-      throws EntityProviderException {
-    final List<EntityPropertyInfo> keyPropertyInfos = entityInfo.getKeyPropertyInfos();
-
-    StringBuilder keys = new StringBuilder();
-    for (final EntityPropertyInfo keyPropertyInfo : keyPropertyInfos) {
-      if (keys.length() > 0) {
-        keys.append(',');
-      }
-
-      final String name = keyPropertyInfo.getName();
-      if (keyPropertyInfos.size() > 1) {
-        keys.append(Encoder.encode(name)).append('=');
-      }
-
-      final EdmSimpleType type = (EdmSimpleType) keyPropertyInfo.getType();
-      try {
-        keys.append(Encoder.encode(type.valueToString(data.get(name), EdmLiteralKind.URI,
-            keyPropertyInfo.getFacets())));
-      } catch (final EdmSimpleTypeException e) {
-        throw new EntityProviderProducerException(
-            EdmSimpleTypeException.getMessageReference(e.getMessageReference()).
-            updateContent(e.getMessageReference().getContent(), name), e);
-      }
-    }
-
-    return keys.toString();
+    return eia.getLinkTemplate().createLink(data, extension);
   }
 
   private void appendProperties(final XMLStreamWriter writer, final EntityInfoAggregator eia,
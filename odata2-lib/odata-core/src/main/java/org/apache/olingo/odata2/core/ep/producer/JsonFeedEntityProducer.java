@@ -40,6 +40,8 @@ import org.apache.olingo.odata2.core.ep.util.JsonStreamWriter;
 public class JsonFeedEntityProducer {
 
   private final EntityProviderWriteProperties properties;
+  private JsonEntryEntityProducer entryProducer;
+  private boolean firstEntry = true;
 
   public JsonFeedEntityProducer(final EntityProviderWriteProperties properties) throws EntityProviderException {
     this.properties = properties == null ? EntityProviderWriteProperties.serviceRoot(null).build() : properties;
@@ -48,10 +50,19 @@ public class JsonFeedEntityProducer {
   public void appendAsObject(final Writer writer, final EntityInfoAggregator entityInfo,
                              final List<Map<String, Object>> data,
                              final boolean isRootElement) throws EntityProviderException {
-    JsonStreamWriter jsonStreamWriter = new JsonStreamWriter(writer);
-
-    TombstoneCallback callback = getTombstoneCallback();
+    appendStart(writer, isRootElement);
+    appendEntries(writer, entityInfo, data);
+    appendEnd(writer, entityInfo, isRootElement);
+  }
 
+  /**
+   * Writes the feed object and all feed information which precede the entries.
+   * Together with {@link #appendEntry} and {@link #appendEnd} this allows to write
+   * a feed entry by entry without knowing all entries in advance.
+   */
+  public void appendStart(final Writer writer, final boolean isRootElement) throws EntityProviderException {
+    JsonStreamWriter jsonStreamWriter = new JsonStreamWriter(writer);
+    firstEntry = true;
     try {
       jsonStreamWriter.beginObject();
 
@@ -67,11 +78,43 @@ public class JsonFeedEntityProducer {
 
       jsonStreamWriter.name(FormatJson.RESULTS)
           .beginArray();
+    } catch (final IOException e) {
+      throw new EntityProviderProducerException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
+          .getSimpleName()), e);
+    }
+  }
 
-      appendEntries(writer, entityInfo, data, jsonStreamWriter);
+  /**
+   * Writes a single entry of the feed (preceded by a separator if it is not the first one).
+   */
+  public void appendEntry(final Writer writer, final EntityInfoAggregator entityInfo,
+      final Map<String, Object> entryData) throws EntityProviderException {
+    if (entryProducer == null) {
+      entryProducer = new JsonEntryEntityProducer(properties);
+    }
+    if (firstEntry) {
+      firstEntry = false;
+    } else {
+      try {
+        new JsonStreamWriter(writer).separator();
+      } catch (final IOException e) {
+        throw new EntityProviderProducerException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
+            .getSimpleName()), e);
+      }
+    }
+    entryProducer.append(writer, entityInfo, entryData, false);
+  }
 
+  /**
+   * Writes all feed information which follow the entries and closes the feed object.
+   */
+  public void appendEnd(final Writer writer, final EntityInfoAggregator entityInfo, final boolean isRootElement)
+      throws EntityProviderException {
+    JsonStreamWriter jsonStreamWriter = new JsonStreamWriter(writer);
+    TombstoneCallback callback = getTombstoneCallback();
+    try {
       if (callback != null) {
-        appendDeletedEntries(writer, entityInfo, data, callback);
+        appendDeletedEntries(writer, entityInfo, firstEntry, callback);
       }
 
       jsonStreamWriter.endArray();
@@ -93,9 +136,10 @@ public class JsonFeedEntityProducer {
   public void appendAsArray(final Writer writer, final EntityInfoAggregator entityInfo,
                             final List<Map<String, Object>> data) throws EntityProviderException {
     JsonStreamWriter jsonStreamWriter = new JsonStreamWriter(writer);
+    firstEntry = true;
     try {
       jsonStreamWriter.beginArray();
-      appendEntries(writer, entityInfo, data, jsonStreamWriter);
+      appendEntries(writer, entityInfo, data);
       jsonStreamWriter.endArray();
     } catch (final IOException e) {
       throw new EntityProviderProducerException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
@@ -104,27 +148,19 @@ public class JsonFeedEntityProducer {
   }
 
   private void appendDeletedEntries(final Writer writer, final EntityInfoAggregator entityInfo,
-      final List<Map<String, Object>> data, TombstoneCallback callback) throws EntityProviderException {
+      final boolean noEntries, TombstoneCallback callback) throws EntityProviderException {
     JsonDeletedEntryEntityProducer deletedEntryProducer = new JsonDeletedEntryEntityProducer(properties);
     TombstoneCallbackResult callbackResult = callback.getTombstoneCallbackResult();
     List<Map<String, Object>> deletedEntries = callbackResult.getDeletedEntriesData();
     if (deletedEntries != null) {
-      deletedEntryProducer.append(writer, entityInfo, deletedEntries, data.isEmpty());
+      deletedEntryProducer.append(writer, entityInfo, deletedEntries, noEntries);
     }
   }
 
   private void appendEntries(final Writer writer, final EntityInfoAggregator entityInfo,
-      final List<Map<String, Object>> data, JsonStreamWriter jsonStreamWriter) throws EntityProviderException,
-      IOException {
-    JsonEntryEntityProducer entryProducer = new JsonEntryEntityProducer(properties);
-    boolean first = true;
+      final List<Map<String, Object>> data) throws EntityProviderException {
     for (final Map<String, Object> entryData : data) {
-      if (first) {
-        first = false;
-      } else {
-        jsonStreamWriter.separator();
-      }
-      entryProducer.append(writer, entityInfo, entryData, false);
+      appendEntry(writer, entityInfo, entryData);
     }
   }
 
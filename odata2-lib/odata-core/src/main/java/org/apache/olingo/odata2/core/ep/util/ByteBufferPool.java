@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe pool of {@link ByteBuffer}s.
+ * <p>Buffers are pooled in size classes (powers of two between a minimal and a maximal size);
+ * a request is served with a buffer of the smallest class which is large enough. Requests which
+ * exceed the maximal size are served with a newly allocated buffer which is not pooled.
+ * For each size class at most a configured number of free buffers is kept.</p>
+ * <p>Acquired buffers have to be given back with {@link #release(ByteBuffer)} exactly once.
+ * The pool counts the buffers which are currently acquired so that buffers which are never given
+ * back (leaks) can be detected; besides that it offers metrics like the hit rate and the peak usage.</p>
+ * 
+ */
+public class ByteBufferPool {
+
+  public static final int DEFAULT_MIN_SIZE = 8192;
+  public static final int DEFAULT_MAX_SIZE = DEFAULT_MIN_SIZE * 32;
+  public static final int DEFAULT_MAX_BUFFERS_PER_SIZE = 64;
+
+  private static volatile ByteBufferPool defaultPool =
+      new ByteBufferPool(DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_MAX_BUFFERS_PER_SIZE, false);
+
+  private final int minSize;
+  private final int maxSize;
+  private final int maxBuffersPerSize;
+  private final boolean direct;
+  private final List<Queue<ByteBuffer>> freeBuffers = new ArrayList<Queue<ByteBuffer>>();
+  private final List<AtomicInteger> freeCounts = new ArrayList<AtomicInteger>();
+
+  private final AtomicLong acquireCount = new AtomicLong();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong releaseCount = new AtomicLong();
+  private final AtomicInteger inUse = new AtomicInteger();
+  private final AtomicInteger peakInUse = new AtomicInteger();
+
+  /**
+   * Creates a pool.
+   * @param minSize capacity of the smallest buffers (is rounded up to a power of two)
+   * @param maxSize capacity of the largest pooled buffers (at least one size class is pooled)
+   * @param maxBuffersPerSize maximal number of free buffers kept per size class
+   * @param direct whether direct (off-heap) buffers are allocated
+   */
+  public ByteBufferPool(final int minSize, final int maxSize, final int maxBuffersPerSize, final boolean direct) {
+    if (minSize <= 0 || maxSize < minSize || maxBuffersPerSize < 0) {
+      throw new IllegalArgumentException("Invalid buffer pool configuration.");
+    }
+    this.minSize = Integer.highestOneBit(minSize) == minSize ? minSize : Integer.highestOneBit(minSize) << 1;
+    this.maxSize = Math.max(maxSize, this.minSize);
+    this.maxBuffersPerSize = maxBuffersPerSize;
+    this.direct = direct;
+    for (long size = this.minSize; size <= this.maxSize; size <<= 1) {
+      freeBuffers.add(new ConcurrentLinkedQueue<ByteBuffer>());
+      freeCounts.add(new AtomicInteger());
+    }
+  }
+
+  /**
+   * @return the pool which is used by default (e.g., by {@link CircleStreamBuffer})
+   */
+  public static ByteBufferPool getDefault() {
+    return defaultPool;
+  }
+
+  /**
+   * Replaces the pool which is used by default, e.g., to use direct buffers or other limits.
+   * @param pool the new default pool
+   */
+  public static void setDefault(final ByteBufferPool pool) {
+    if (pool == null) {
+      throw new IllegalArgumentException("Default buffer pool must not be null.");
+    }
+    defaultPool = pool;
+  }
+
+  /**
+   * Gets a cleared buffer with at least the requested capacity.
+   * @param minCapacity requested minimal capacity
+   * @return the buffer
+   */
+  public ByteBuffer acquire(final int minCapacity) {
+    acquireCount.incrementAndGet();
+    final int index = getSizeClass(minCapacity);
+    ByteBuffer buffer = null;
+    if (index >= 0) {
+      buffer = freeBuffers.get(index).poll();
+      if (buffer != null) {
+        freeCounts.get(index).decrementAndGet();
+        hitCount.incrementAndGet();
+        buffer.clear();
+      }
+    }
+    if (buffer == null) {
+      final int capacity = index >= 0 ? minSize << index : minCapacity;
+      buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    final int current = inUse.incrementAndGet();
+    int peak = peakInUse.get();
+    while (current > peak && !peakInUse.compareAndSet(peak, current)) {
+      peak = peakInUse.get();
+    }
+    return buffer;
+  }
+
+  /**
+   * Gives an acquired buffer back to the pool. The buffer must not be used afterwards.
+   * @param buffer the buffer (<code>null</code> is ignored)
+   */
+  public void release(final ByteBuffer buffer) {
+    if (buffer == null) {
+      return;
+    }
+    releaseCount.incrementAndGet();
+    inUse.decrementAndGet();
+
+    final int capacity = buffer.capacity();
+    final int index = getSizeClass(capacity);
+    if (index >= 0 && minSize << index == capacity && buffer.isDirect() == direct) {
+      final AtomicInteger freeCount = freeCounts.get(index);
+      if (freeCount.incrementAndGet() <= maxBuffersPerSize) {
+        buffer.clear();
+        freeBuffers.get(index).offer(buffer);
+      } else {
+        freeCount.decrementAndGet();
+      }
+    }
+  }
+
+  private int getSizeClass(final int capacity) {
+    if (capacity > maxSize) {
+      return -1;
+    }
+    int index = 0;
+    for (long size = minSize; size < capacity; size <<= 1) {
+      index++;
+    }
+    return index < freeBuffers.size() ? index : -1;
+  }
+
+  /**
+   * @return whether direct (off-heap) buffers are allocated
+   */
+  public boolean isDirect() {
+    return direct;
+  }
+
+  /**
+   * @return number of requested buffers
+   */
+  public long getAcquireCount() {
+    return acquireCount.get();
+  }
+
+  /**
+   * @return number of requests which have been served with a pooled buffer
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return number of buffers given back
+   */
+  public long getReleaseCount() {
+    return releaseCount.get();
+  }
+
+  /**
+   * @return ratio of requests served with a pooled buffer (between 0 and 1)
+   */
+  public double getHitRate() {
+    final long acquired = acquireCount.get();
+    return acquired == 0 ? 0 : (double) hitCount.get() / acquired;
+  }
+
+  /**
+   * Returns the number of buffers which are acquired but not yet given back.
+   * If this number grows steadily, buffers are leaked.
+   * @return number of buffers in use
+   */
+  public int getInUseCount() {
+    return inUse.get();
+  }
+
+  /**
+   * @return maximal number of buffers which have been in use at the same time
+   */
+  public int getPeakInUseCount() {
+    return peakInUse.get();
+  }
+
+  /**
+   * @return number of free buffers currently kept in the pool
+   */
+  public int getFreeCount() {
+    int count = 0;
+    for (AtomicInteger freeCount : freeCounts) {
+      count += freeCount.get();
+    }
+    return count;
+  }
+
+  @Override
+  public String toString() {
+    return "ByteBufferPool [acquired=" + getAcquireCount() + ", hits=" + getHitCount()
+        + ", inUse=" + getInUseCount() + ", peakInUse=" + getPeakInUseCount()
+        + ", free=" + getFreeCount() + ", direct=" + direct + "]";
+  }
+}
@@ -28,6 +28,8 @@ import java.util.concurrent.LinkedBlockingQueue;
 /**
  * Circular stream buffer to write/read into/from one single buffer.
  * With support of {@link InputStream} and {@link OutputStream} access to buffered data.
+ * The internal buffers are taken from a {@link ByteBufferPool} and given back as soon as
+ * they have been read out or the buffer is closed.
  * 
  * 
  */
@@ -49,6 +51,7 @@ public class CircleStreamBuffer {
 
   private InternalInputStream inStream;
   private InternalOutputStream outStream;
+  private final ByteBufferPool pool;
 
   /**
    * Creates a {@link CircleStreamBuffer} with default buffer size.
@@ -63,6 +66,18 @@ public class CircleStreamBuffer {
    * @param initialCapacity initial capacity of internal buffer
    */
   public CircleStreamBuffer(final int initialCapacity) {
+    this(initialCapacity, ByteBufferPool.getDefault());
+  }
+
+  /**
+   * Create a {@link CircleStreamBuffer} with given initial buffer size
+   * which takes its internal buffers from the given pool.
+   *
+   * @param initialCapacity initial capacity of internal buffer
+   * @param pool pool for the internal buffers
+   */
+  public CircleStreamBuffer(final int initialCapacity, final ByteBufferPool pool) {
+    this.pool = pool;
     currentAllocateCapacity = initialCapacity;
     createNewWriteBuffer();
     inStream = new InternalInputStream(this);
@@ -103,14 +118,19 @@ public class CircleStreamBuffer {
 
   /**
    * Closes the read (output) part of the {@link CircleStreamBuffer}.
-   * After this call it is possible to write into the buffer (but can never be read out).
+   * After this call it is possible to write into the buffer (but can never be read out,
+   * so that written data is dropped).
    */
   public void closeRead() {
+    if (readClosed) {
+      return;
+    }
     readClosed = true;
-    // clear references to byte buffers
+    // give all byte buffers back to the pool
+    currentWriteBuffer = null;
     ByteBuffer buffer = bufferQueue.poll();
     while (buffer != null) {
-      buffer.clear();
+      pool.release(buffer);
       buffer = bufferQueue.poll();
     }
   }
@@ -125,7 +145,7 @@ public class CircleStreamBuffer {
 
   private int remaining() throws IOException {
     if (writeMode) {
-      return currentWriteBuffer.remaining();
+      return currentWriteBuffer == null ? 0 : currentWriteBuffer.remaining();
     } else {
       ByteBuffer toRead = getReadBuffer();
       if (toRead == null) {
@@ -154,7 +174,8 @@ public class CircleStreamBuffer {
     } else {
       tmp = bufferQueue.peek();
       if (tmp != null && !tmp.hasRemaining()) {
-        tmp = bufferQueue.poll();
+        // completely read out, so the buffer is not needed any longer
+        pool.release(bufferQueue.poll());
         next = true;
       }
     }
@@ -201,13 +222,18 @@ public class CircleStreamBuffer {
 
   private void write(final byte[] data, final int off, final int len) throws IOException {
     ByteBuffer writeBuffer = getWriteBuffer(len);
-    writeBuffer.put(data, off, len);
+    if (writeBuffer != null) {
+      writeBuffer.put(data, off, len);
+    }
   }
 
   private ByteBuffer getWriteBuffer(final int size) throws IOException {
     if (writeClosed) {
       throw new IOException("Tried to write into closed stream.");
     }
+    if (readClosed) {
+      return null;
+    }
 
     if (writeMode) {
       if (remaining() < size) {
@@ -223,7 +249,9 @@ public class CircleStreamBuffer {
 
   private void write(final int b) throws IOException {
     ByteBuffer writeBuffer = getWriteBuffer(1);
-    writeBuffer.put((byte) b);
+    if (writeBuffer != null) {
+      writeBuffer.put((byte) b);
+    }
   }
 
   private void createNewWriteBuffer() {
@@ -244,7 +272,7 @@ public class CircleStreamBuffer {
   }
 
   /**
-   * Allocate a new buffer with requested capacity
+   * Get a new buffer with requested capacity from the pool
    *
    * @param requestedCapacity minimal capacity of new buffer
    * @return the buffer
@@ -252,7 +280,7 @@ public class CircleStreamBuffer {
   private ByteBuffer allocateBuffer(final int requestedCapacity) {
     if (requestedCapacity > MAX_CAPACITY) {
       currentAllocateCapacity = MAX_CAPACITY;
-      return ByteBuffer.allocate(requestedCapacity);
+      return pool.acquire(requestedCapacity);
     }
 
     if (requestedCapacity <= currentAllocateCapacity) {
@@ -264,7 +292,7 @@ public class CircleStreamBuffer {
       currentAllocateCapacity = requestedCapacity;
     }
 
-    return ByteBuffer.allocate(currentAllocateCapacity);
+    return pool.acquire(currentAllocateCapacity);
   }
 
   // #############################################
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.olingo.odata2.api.processor.WriteThroughEntity;
+
+/**
+ * {@link InputStream} whose content is produced step by step while it is read.
+ * A new chunk of content is requested via {@link #writeNextChunk(OutputStream)} only after
+ * all bytes of the previous chunk have been read, so that only one chunk is held in memory at once.
+ * If the content is written via {@link #writeTo(OutputStream)}, the chunks are written directly
+ * into the target stream without being buffered at all.
+ * 
+ */
+public abstract class IncrementalInputStream extends InputStream implements WriteThroughEntity {
+
+  private final ChunkBuffer chunk = new ChunkBuffer();
+  private int position = 0;
+  private boolean completed = false;
+  private boolean closed = false;
+
+  /**
+   * Produces the first chunk of content so that errors at the very beginning
+   * are reported before the stream is handed out. If this fails the stream is closed.
+   * @return this stream
+   * @throws IOException if the first chunk could not be written
+   */
+  public IncrementalInputStream start() throws IOException {
+    try {
+      fill();
+    } catch (final IOException e) {
+      closed = true;
+      release();
+      throw e;
+    }
+    return this;
+  }
+
+  /**
+   * Writes the next chunk of content.
+   * @param out stream to write the chunk into (the same stream on every call)
+   * @return <code>true</code> if further chunks follow, <code>false</code> if this was the last chunk
+   * @throws IOException if the chunk could not be written
+   */
+  protected abstract boolean writeNextChunk(OutputStream out) throws IOException;
+
+  /**
+   * Is called once if the stream is closed; can be overridden to release resources
+   * used for producing the content.
+   * @throws IOException if the release fails
+   */
+  protected void release() throws IOException {}
+
+  private boolean fill() throws IOException {
+    while (position >= chunk.size()) {
+      if (completed || closed) {
+        return false;
+      }
+      chunk.reset();
+      position = 0;
+      completed = !writeNextChunk(chunk);
+    }
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    return fill() ? chunk.byteAt(position++) & 0xFF : -1;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!fill()) {
+      return -1;
+    }
+    final int count = Math.min(len, chunk.size() - position);
+    chunk.copyTo(position, b, off, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public void writeTo(final OutputStream out) throws IOException {
+    try {
+      if (position < chunk.size()) {
+        chunk.writeTo(position, out);
+      }
+      chunk.reset();
+      position = 0;
+      if (!completed && !closed) {
+        chunk.redirectTo(out);
+        while (writeNextChunk(chunk)) {
+          // all content goes directly into the target stream
+        }
+      }
+    } finally {
+      completed = true;
+      close();
+    }
+  }
+
+  @Override
+  public int available() throws IOException {
+    return chunk.size() - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      chunk.reset();
+      position = 0;
+      release();
+    }
+  }
+
+  /**
+   * Growable byte array which grants access to its content without copying it.
+   * It can be redirected so that all further content is written into a target stream.
+   */
+  private static class ChunkBuffer extends OutputStream {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private byte[] buf = new byte[INITIAL_CAPACITY];
+    private int count = 0;
+    private OutputStream target;
+
+    public int size() {
+      return count;
+    }
+
+    public void reset() {
+      count = 0;
+    }
+
+    public void redirectTo(final OutputStream target) {
+      this.target = target;
+    }
+
+    public byte byteAt(final int index) {
+      return buf[index];
+    }
+
+    public void copyTo(final int index, final byte[] b, final int off, final int len) {
+      System.arraycopy(buf, index, b, off, len);
+    }
+
+    public void writeTo(final int index, final OutputStream out) throws IOException {
+      out.write(buf, index, count - index);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      if (target == null) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+      } else {
+        target.write(b);
+      }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      if (target == null) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+      } else {
+        target.write(b, off, len);
+      }
+    }
+
+    private void ensureCapacity(final int capacity) {
+      if (capacity > buf.length) {
+        byte[] newBuffer = new byte[Math.max(capacity, buf.length * 2)];
+        System.arraycopy(buf, 0, newBuffer, 0, count);
+        buf = newBuffer;
+      }
+    }
+  }
+}
@@ -20,16 +20,47 @@ package org.apache.olingo.odata2.core.ep.util;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Writes JSON output.
+ * <p>If the output is written with an {@link Utf8Writer}, the names which occur in every entry,
+ * e.g., <code>__metadata</code> or <code>uri</code>, are written as precomputed byte sequences.</p>
  * 
  */
 public class JsonStreamWriter {
+  private static final String[] CONTROL_CHARACTER_ESCAPES = new String[0x20];
+  private static final Map<String, byte[]> NAME_TOKENS = new HashMap<String, byte[]>();
+
+  static {
+    for (char c = 0; c < CONTROL_CHARACTER_ESCAPES.length; c++) {
+      final int lastHexDigit = c % 0x10;
+      CONTROL_CHARACTER_ESCAPES[c] = "\\u00" + (c >= '\u0010' ? '1' : '0')
+          + (char) ((lastHexDigit > 9 ? 'A' : '0') + lastHexDigit % 10);
+    }
+    CONTROL_CHARACTER_ESCAPES['\b'] = "\\b";
+    CONTROL_CHARACTER_ESCAPES['\t'] = "\\t";
+    CONTROL_CHARACTER_ESCAPES['\n'] = "\\n";
+    CONTROL_CHARACTER_ESCAPES['\f'] = "\\f";
+    CONTROL_CHARACTER_ESCAPES['\r'] = "\\r";
+
+    final Charset ascii = Charset.forName("US-ASCII");
+    for (String name : new String[] { FormatJson.D, FormatJson.RESULTS, FormatJson.COUNT, FormatJson.METADATA,
+        FormatJson.DEFERRED, FormatJson.ID, FormatJson.URI, FormatJson.TYPE, FormatJson.ETAG, FormatJson.NEXT,
+        FormatJson.CONTENT_TYPE, FormatJson.MEDIA_SRC, FormatJson.MEDIA_ETAG, FormatJson.EDIT_MEDIA,
+        FormatJson.PROPERTIES, FormatJson.DELTA }) {
+      NAME_TOKENS.put(name, ("\"" + name + "\":").getBytes(ascii));
+    }
+  }
+
   private final Writer writer;
+  private final Utf8Writer utf8Writer;
 
   public JsonStreamWriter(final Writer writer) {
     this.writer = writer;
+    utf8Writer = writer instanceof Utf8Writer ? (Utf8Writer) writer : null;
   }
 
   public JsonStreamWriter beginObject() throws IOException {
@@ -53,7 +84,12 @@ public class JsonStreamWriter {
   }
 
   public JsonStreamWriter name(final String name) throws IOException {
-    writer.append('"').append(name).append('"').append(':');
+    final byte[] token = utf8Writer == null ? null : NAME_TOKENS.get(name);
+    if (token == null) {
+      writer.append('"').append(name).append('"').append(':');
+    } else {
+      utf8Writer.writeEncoded(token);
+    }
     return this;
   }
 
@@ -109,67 +145,25 @@ public class JsonStreamWriter {
     // quotation marks except for the characters that must be escaped:
     // quotation mark, reverse solidus, and the control characters
     // (U+0000 through U+001F)."
-    // All output here is done on character basis which should be faster
-    // than writing Strings.
-    for (int i = 0; i < value.length(); i++) {
+    // Runs of characters which need no escaping are written at once.
+    final int length = value.length();
+    int start = 0;
+    for (int i = 0; i < length; i++) {
       final char c = value.charAt(i);
-      switch (c) {
-      case '\\':
-        writer.append('\\').append(c);
-        break;
-      case '"':
-        writer.append('\\').append(c);
-        break;
-      case '\b':
-        writer.append('\\').append('b');
-        break;
-      case '\t':
-        writer.append('\\').append('t');
-        break;
-      case '\n':
-        writer.append('\\').append('n');
-        break;
-      case '\f':
-        writer.append('\\').append('f');
-        break;
-      case '\r':
-        writer.append('\\').append('r');
-        break;
-      case '\u0000':
-      case '\u0001':
-      case '\u0002':
-      case '\u0003':
-      case '\u0004':
-      case '\u0005':
-      case '\u0006':
-      case '\u0007':
-      case '\u000B':
-      case '\u000E':
-      case '\u000F':
-      case '\u0010':
-      case '\u0011':
-      case '\u0012':
-      case '\u0013':
-      case '\u0014':
-      case '\u0015':
-      case '\u0016':
-      case '\u0017':
-      case '\u0018':
-      case '\u0019':
-      case '\u001A':
-      case '\u001B':
-      case '\u001C':
-      case '\u001D':
-      case '\u001E':
-      case '\u001F':
-        final int lastHexDigit = c % 0x10;
-        writer.append('\\').append('u').append('0').append('0')
-            .append(c >= '\u0010' ? '1' : '0')
-            .append((char) ((lastHexDigit > 9 ? 'A' : '0') + lastHexDigit % 10));
-        break;
-      default:
-        writer.append(c);
+      if (c < CONTROL_CHARACTER_ESCAPES.length || c == '"' || c == '\\') {
+        if (i > start) {
+          writer.write(value, start, i - start);
+        }
+        if (c < CONTROL_CHARACTER_ESCAPES.length) {
+          writer.write(CONTROL_CHARACTER_ESCAPES[c]);
+        } else {
+          writer.append('\\').append(c);
+        }
+        start = i + 1;
       }
     }
+    if (length > start) {
+      writer.write(value, start, length - start);
+    }
   }
 }
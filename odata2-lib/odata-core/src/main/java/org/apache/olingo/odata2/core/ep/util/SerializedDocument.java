@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+
+/**
+ * Immutable document which is serialized only once and then served from memory.
+ * Together with the content a strong entity tag is calculated from the content bytes
+ * and the status and headers of the original response are kept.
+ * 
+ */
+public class SerializedDocument {
+
+  private static final String DEFAULT_CHARSET = "UTF-8";
+  private static final int BUFFER_SIZE = 8192;
+
+  private final byte[] content;
+  private final String eTag;
+  private final ODataResponse template;
+
+  /**
+   * Creates a document for the given content.
+   * @param content serialized content (is not copied and must not be modified afterwards)
+   */
+  public SerializedDocument(final byte[] content) {
+    this(content, null);
+  }
+
+  private SerializedDocument(final byte[] content, final ODataResponse template) {
+    this.content = content;
+    eTag = "\"" + DigestUtils.md5Hex(content) + "\"";
+    this.template = template;
+  }
+
+  /**
+   * Reads the entity of the given response completely and creates a document from it
+   * which keeps also status and headers of the response. The given response is closed.
+   * @param response response with an {@link InputStream} or a {@link String} entity
+   * @return the serialized document
+   * @throws IOException if the entity could not be read
+   */
+  public static SerializedDocument fromResponse(final ODataResponse response) throws IOException {
+    final byte[] content = read(response.getEntity());
+    response.close();
+    final ODataResponse template = ODataResponse.fromResponse(response).entity(null).build();
+    return new SerializedDocument(content, template);
+  }
+
+  /**
+   * Reads the given stream completely and closes it.
+   * @param stream the content
+   * @return the serialized document
+   * @throws IOException if the stream could not be read
+   */
+  public static SerializedDocument fromStream(final InputStream stream) throws IOException {
+    return new SerializedDocument(read(stream));
+  }
+
+  private static byte[] read(final Object entity) throws IOException {
+    if (entity instanceof String) {
+      try {
+        return ((String) entity).getBytes(DEFAULT_CHARSET);
+      } catch (UnsupportedEncodingException e) {
+        throw new IOException(e.getMessage());
+      }
+    } else if (entity instanceof InputStream) {
+      InputStream stream = (InputStream) entity;
+      try {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = stream.read(buffer)) > -1) {
+          result.write(buffer, 0, count);
+        }
+        return result.toByteArray();
+      } finally {
+        stream.close();
+      }
+    } else if (entity == null) {
+      return new byte[0];
+    }
+    throw new IOException("Illegal entity object of type '" + entity.getClass() + "'.");
+  }
+
+  /**
+   * @return a new stream on the serialized content
+   */
+  public InputStream getContent() {
+    return new ContentStream(this);
+  }
+
+  /**
+   * @return the length of the serialized content in bytes
+   */
+  public int getLength() {
+    return content.length;
+  }
+
+  /**
+   * @return the strong entity tag (including the quotes) calculated from the content
+   */
+  public String getETag() {
+    return eTag;
+  }
+
+  /**
+   * Creates a new response with the status and headers of the original response,
+   * the serialized content as entity and the entity tag of the content.
+   * @return a new response
+   */
+  public ODataResponse toResponse() {
+    return (template == null ? ODataResponse.newBuilder() : ODataResponse.fromResponse(template))
+        .entity(getContent())
+        .eTag(eTag)
+        .build();
+  }
+
+  /**
+   * Stream on the serialized content which knows its document, so that the entity tag
+   * can be added to responses which pass the content on unchanged.
+   */
+  public static class ContentStream extends ByteArrayInputStream {
+    private final SerializedDocument document;
+
+    private ContentStream(final SerializedDocument document) {
+      super(document.content);
+      this.document = document;
+    }
+
+    public SerializedDocument getDocument() {
+      return document;
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Writer encoding characters as UTF-8 directly into a byte buffer which is written to the
+ * underlying output stream when it is full or the writer is flushed.
+ * <p>It replaces a <code>BufferedWriter</code> on top of an <code>OutputStreamWriter</code>:
+ * runs of ASCII characters are copied byte by byte without going through a charset encoder,
+ * and already encoded ASCII byte sequences can be written as a whole.
+ * As with the charset encoder, unpaired surrogates are written as <code>'?'</code>.</p>
+ */
+public class Utf8Writer extends Writer {
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final byte REPLACEMENT = '?';
+
+  private final OutputStream out;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int position = 0;
+  private char highSurrogate = 0;
+
+  public Utf8Writer(final OutputStream out) {
+    this.out = out;
+  }
+
+  @Override
+  public void write(final int c) throws IOException {
+    writeChar((char) c);
+  }
+
+  @Override
+  public void write(final char[] cbuf, final int off, final int len) throws IOException {
+    for (int i = off; i < off + len; i++) {
+      final char c = cbuf[i];
+      if (c < 0x80 && highSurrogate == 0) {
+        if (position == buffer.length) {
+          flushBuffer();
+        }
+        buffer[position++] = (byte) c;
+      } else {
+        writeChar(c);
+      }
+    }
+  }
+
+  @Override
+  public void write(final String str, final int off, final int len) throws IOException {
+    for (int i = off; i < off + len; i++) {
+      final char c = str.charAt(i);
+      if (c < 0x80 && highSurrogate == 0) {
+        if (position == buffer.length) {
+          flushBuffer();
+        }
+        buffer[position++] = (byte) c;
+      } else {
+        writeChar(c);
+      }
+    }
+  }
+
+  @Override
+  public Writer append(final char c) throws IOException {
+    writeChar(c);
+    return this;
+  }
+
+  /**
+   * Writes bytes which are already encoded, e.g., a precomputed ASCII token.
+   * @param bytes the encoded bytes
+   * @throws IOException if an I/O error occurs
+   */
+  public void writeEncoded(final byte[] bytes) throws IOException {
+    writeUnpairedSurrogate();
+    if (bytes.length > buffer.length - position) {
+      flushBuffer();
+      if (bytes.length > buffer.length) {
+        out.write(bytes);
+        return;
+      }
+    }
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  private void writeChar(final char c) throws IOException {
+    if (highSurrogate != 0) {
+      final char high = highSurrogate;
+      highSurrogate = 0;
+      if (Character.isLowSurrogate(c)) {
+        final int codePoint = Character.toCodePoint(high, c);
+        ensureCapacity(4);
+        buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+        buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+        return;
+      }
+      writeReplacement();
+    }
+
+    if (c < 0x80) {
+      ensureCapacity(1);
+      buffer[position++] = (byte) c;
+    } else if (c < 0x800) {
+      ensureCapacity(2);
+      buffer[position++] = (byte) (0xC0 | c >> 6);
+      buffer[position++] = (byte) (0x80 | c & 0x3F);
+    } else if (Character.isHighSurrogate(c)) {
+      highSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      writeReplacement();
+    } else {
+      ensureCapacity(3);
+      buffer[position++] = (byte) (0xE0 | c >> 12);
+      buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+      buffer[position++] = (byte) (0x80 | c & 0x3F);
+    }
+  }
+
+  private void writeUnpairedSurrogate() throws IOException {
+    if (highSurrogate != 0) {
+      highSurrogate = 0;
+      writeReplacement();
+    }
+  }
+
+  private void writeReplacement() throws IOException {
+    ensureCapacity(1);
+    buffer[position++] = REPLACEMENT;
+  }
+
+  private void ensureCapacity(final int length) throws IOException {
+    if (buffer.length - position < length) {
+      flushBuffer();
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    if (position > 0) {
+      out.write(buffer, 0, position);
+      position = 0;
+    }
+  }
+
+  /**
+   * Writes the buffered bytes to the output stream and flushes it. A trailing high surrogate
+   * is kept until the next character is written, as its low surrogate may follow.
+   */
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    writeUnpairedSurrogate();
+    flush();
+    out.close();
+  }
+}
@@ -69,6 +69,16 @@ public class ODataSingleProcessorService implements ODataService {
     edm = RuntimeDelegate.createEdm(provider);
   }
 
+  /**
+   * Construct service for an already existing entity data model
+   * @param edm An entity data model, e.g. a frozen one shared between requests
+   * @param processor A custom {@link ODataSingleProcessor}
+   */
+  public ODataSingleProcessorService(final Edm edm, final ODataSingleProcessor processor) {
+    this.processor = processor;
+    this.edm = edm;
+  }
+
   /**
    * @see ODataService
    */
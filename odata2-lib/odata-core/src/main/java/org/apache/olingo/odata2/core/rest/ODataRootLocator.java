@@ -18,7 +18,10 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.rest;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.http.HttpServletRequest;
@@ -36,6 +39,7 @@ import javax.ws.rs.core.UriInfo;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
 import org.apache.olingo.odata2.api.exception.ODataBadRequestException;
 import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.core.commons.HttpCompression;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 import org.apache.olingo.odata2.core.rest.app.AbstractODataApplication;
 
@@ -54,6 +58,10 @@ import org.apache.olingo.odata2.core.rest.app.AbstractODataApplication;
 @Path("/")
 public class ODataRootLocator {
 
+  /** compression configurations per servlet configuration; the locator itself is created per request */
+  private static final Map<ServletConfig, HttpCompression> COMPRESSIONS =
+      Collections.synchronizedMap(new WeakHashMap<ServletConfig, HttpCompression>());
+
   @Context
   private HttpHeaders httpHeaders;
   @Context
@@ -114,6 +122,7 @@ public class ODataRootLocator {
     param.setRequest(request);
     param.setServletRequest(servletRequest);
     param.setPathSplit(pathSplit);
+    param.setCompression(getCompression());
 
     return ODataSubLocator.create(param);
   }
@@ -122,6 +131,23 @@ public class ODataRootLocator {
     return createServiceFactoryFromContext(app, servletRequest, servletConfig);
   }
 
+  /**
+   * Returns the compression configured with the init parameters described in {@link HttpCompression}.
+   * It is created once per servlet configuration.
+   * @return the compression configuration
+   */
+  public HttpCompression getCompression() {
+    if (servletConfig == null) {
+      return HttpCompression.fromConfig(null);
+    }
+    HttpCompression compression = COMPRESSIONS.get(servletConfig);
+    if (compression == null) {
+      compression = HttpCompression.fromConfig(servletConfig);
+      COMPRESSIONS.put(servletConfig, compression);
+    }
+    return compression;
+  }
+
   public int getPathSplit() {
     int pathSplit = 0;
     final String pathSplitAsString = servletConfig.getInitParameter(ODataServiceFactory.PATH_SPLIT_LABEL);
@@ -31,6 +31,7 @@ import javax.ws.rs.core.Response;
 
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
 import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
 import org.apache.olingo.odata2.api.exception.MessageReference;
 import org.apache.olingo.odata2.api.exception.ODataException;
@@ -42,6 +43,7 @@ import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.core.ODataContextImpl;
 import org.apache.olingo.odata2.core.ODataRequestHandler;
+import org.apache.olingo.odata2.core.commons.HttpCompression;
 
 /**
  *  
@@ -52,6 +54,7 @@ public final class ODataSubLocator {
   private ODataRequest request;
 
   private HttpServletRequest httpRequest;
+  private HttpCompression compression;
 
   @GET
   public Response handleGet() throws ODataException {
@@ -162,7 +165,8 @@ public final class ODataSubLocator {
     ODataRequestHandler requestHandler = new ODataRequestHandler(serviceFactory, service, context);
 
     final ODataResponse odataResponse = requestHandler.handle(request);
-    final Response response = RestUtil.convertResponse(odataResponse);
+    final Response response = RestUtil.convertResponse(odataResponse, false, compression,
+        httpRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
 
     return response;
   }
@@ -176,7 +180,8 @@ public final class ODataSubLocator {
     subLocator.request = ODataRequest.acceptableLanguages(param.getHttpHeaders().getAcceptableLanguages())
         .httpMethod(param.getServletRequest().getMethod())
         .acceptHeaders(RestUtil.extractAcceptHeaders(param))
-        .body(RestUtil.contentAsStream(RestUtil.extractRequestContent(param)))
+        .body(param.getCompression().decompress(RestUtil.contentAsStream(RestUtil.extractRequestContent(param)),
+            param.getServletRequest().getHeader(HttpHeaders.CONTENT_ENCODING)))
         .pathInfo(RestUtil.buildODataPathInfo(param))
         .allQueryParameters(param.getUriInfo().getQueryParameters())
         .requestHeaders(param.getHttpHeaders().getRequestHeaders())
@@ -184,6 +189,7 @@ public final class ODataSubLocator {
         .build();
 
     subLocator.httpRequest = param.getServletRequest();
+    subLocator.compression = param.getCompression();
 
     return subLocator;
   }
@@ -19,8 +19,10 @@
 package org.apache.olingo.odata2.core.rest;
 
 import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -36,6 +38,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
@@ -45,30 +48,72 @@ import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.exception.ODataNotFoundException;
 import org.apache.olingo.odata2.api.exception.ODataUnsupportedMediaTypeException;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.WriteThroughEntity;
 import org.apache.olingo.odata2.api.uri.PathSegment;
 import org.apache.olingo.odata2.core.ODataPathSegmentImpl;
 import org.apache.olingo.odata2.core.PathInfoImpl;
 import org.apache.olingo.odata2.core.commons.ContentType;
 import org.apache.olingo.odata2.core.commons.Decoder;
+import org.apache.olingo.odata2.core.commons.HttpCompression;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
 /**
  *  
  */
 public class RestUtil {
+  private static final int MAX_PREFIX_SIZE = 32768;
+
   public static Response convertResponse(final ODataResponse odataResponse) {
     return convertResponse(odataResponse, false);
   }
 
   public static Response convertResponse(final ODataResponse odataResponse, final boolean omitResponseBody) {
+    return convertResponse(odataResponse, omitResponseBody, HttpCompression.disabled(), null);
+  }
+
+  /**
+   * Converts the response and compresses its body if the compression applies.
+   * @param odataResponse the response
+   * @param omitResponseBody whether the body is omitted (HEAD request)
+   * @param compression the compression configuration
+   * @param acceptEncoding the <code>Accept-Encoding</code> header of the request (optional)
+   * @return the JAX-RS response
+   */
+  public static Response convertResponse(final ODataResponse odataResponse, final boolean omitResponseBody,
+      final HttpCompression compression, final String acceptEncoding) {
     try {
       ResponseBuilder responseBuilder =
           Response.noContent().status(odataResponse.getStatus().getStatusCode());
+      final String contentType = odataResponse.getContentHeader();
+      final boolean compressible = odataResponse.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+          && compression.isCompressible(contentType);
+      String contentEncoding = null;
       if(!omitResponseBody) {
-        responseBuilder.entity(odataResponse.getEntity());
+        final Object entity = odataResponse.getEntity();
+        final String encoding = compressible ? compression.getContentEncoding(acceptEncoding, contentType) : null;
+        if (encoding != null && entity != null) {
+          final Object compressedEntity = compress(entity, compression, encoding);
+          contentEncoding = compressedEntity instanceof CompressedOutput ? encoding : null;
+          responseBuilder.entity(compressedEntity);
+        } else if (entity instanceof WriteThroughEntity) {
+          responseBuilder.entity(new WriteThroughOutput((WriteThroughEntity) entity));
+        } else {
+          responseBuilder.entity(entity);
+        }
       }
 
       for (final String name : odataResponse.getHeaderNames()) {
-        responseBuilder = responseBuilder.header(name, odataResponse.getHeader(name));
+        if (contentEncoding == null || !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+          responseBuilder = responseBuilder.header(name, odataResponse.getHeader(name));
+        }
+      }
+      if (contentEncoding != null) {
+        responseBuilder = responseBuilder.header(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+      }
+      if (compressible) {
+        final String vary = odataResponse.getHeader(HttpHeaders.VARY);
+        responseBuilder = responseBuilder.header(HttpHeaders.VARY,
+            vary == null ? HttpHeaders.ACCEPT_ENCODING : vary + ", " + HttpHeaders.ACCEPT_ENCODING);
       }
 
       return responseBuilder.build();
@@ -85,6 +130,131 @@ public class RestUtil {
     }
   }
 
+  /**
+   * Returns the entity compressed with the given encoding, or an uncompressed entity if it is
+   * smaller than the minimum size of the compression (streams are checked up to {@link #MAX_PREFIX_SIZE} bytes)
+   * or not of a type written by the library.
+   */
+  private static Object compress(final Object entity, final HttpCompression compression, final String encoding) {
+    if (entity instanceof String) {
+      final byte[] bytes;
+      try {
+        bytes = ((String) entity).getBytes("UTF-8");
+      } catch (final UnsupportedEncodingException e) {
+        throw new ODataRuntimeException(e);
+      }
+      return bytes.length < compression.getMinSize() ? entity
+          : new CompressedOutput(bytes, bytes.length, null, compression, encoding);
+    } else if (entity instanceof InputStream && !(entity instanceof WriteThroughEntity)) {
+      final InputStream stream = (InputStream) entity;
+      final byte[] prefix = new byte[Math.min(compression.getMinSize(), MAX_PREFIX_SIZE)];
+      int length = 0;
+      try {
+        int read = 0;
+        while (length < prefix.length && (read = stream.read(prefix, length, prefix.length - length)) != -1) {
+          length += read;
+        }
+        if (read == -1) {
+          stream.close();
+          return new ByteArrayInputStream(prefix, 0, length);
+        }
+      } catch (final IOException e) {
+        throw new ODataRuntimeException(e);
+      }
+      return new CompressedOutput(prefix, length, entity, compression, encoding);
+    } else if (entity instanceof WriteThroughEntity) {
+      return new CompressedOutput(null, 0, entity, compression, encoding);
+    } else {
+      return entity;
+    }
+  }
+
+  /**
+   * Writes the compressed entity into the output stream of the JAX-RS runtime.
+   * The entity consists of an already read prefix and an input stream or a {@link WriteThroughEntity}.
+   */
+  private static class CompressedOutput implements StreamingOutput {
+    private final byte[] prefix;
+    private final int prefixLength;
+    private final Object entity;
+    private final HttpCompression compression;
+    private final String encoding;
+
+    public CompressedOutput(final byte[] prefix, final int prefixLength, final Object entity,
+        final HttpCompression compression, final String encoding) {
+      this.prefix = prefix;
+      this.prefixLength = prefixLength;
+      this.entity = entity;
+      this.compression = compression;
+      this.encoding = encoding;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+      final OutputStream out = compression.compress(new NonClosingOutputStream(output), encoding);
+      try {
+        if (prefixLength > 0) {
+          out.write(prefix, 0, prefixLength);
+        }
+        if (entity instanceof WriteThroughEntity) {
+          ((WriteThroughEntity) entity).writeTo(out);
+        } else if (entity instanceof InputStream) {
+          final byte[] buffer = new byte[8192];
+          int read;
+          while ((read = ((InputStream) entity).read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+          }
+        }
+      } finally {
+        out.close();
+        if (entity instanceof InputStream) {
+          ((InputStream) entity).close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Leaves closing the output stream of the JAX-RS runtime to the runtime.
+   */
+  private static class NonClosingOutputStream extends FilterOutputStream {
+    public NonClosingOutputStream(final OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+
+  /**
+   * Lets the JAX-RS runtime pass its output stream to a {@link WriteThroughEntity}.
+   */
+  private static class WriteThroughOutput implements StreamingOutput {
+    private final WriteThroughEntity entity;
+
+    public WriteThroughOutput(final WriteThroughEntity entity) {
+      this.entity = entity;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+      try {
+        entity.writeTo(output);
+      } finally {
+        if (entity instanceof InputStream) {
+          ((InputStream) entity).close();
+        }
+      }
+    }
+  }
+
   /**
    * Return http header value.
    * consider first header value only
@@ -24,6 +24,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Request;
 
 import org.apache.olingo.odata2.api.ODataServiceFactory;
+import org.apache.olingo.odata2.core.commons.HttpCompression;
 
 /**
  *  
@@ -37,6 +38,7 @@ public class SubLocatorParameter {
   private int pathSplit;
   private ODataServiceFactory serviceFactory;
   private HttpServletRequest servletRequest;
+  private HttpCompression compression = HttpCompression.disabled();
 
   public ODataServiceFactory getServiceFactory() {
     return serviceFactory;
@@ -93,4 +95,12 @@ public class SubLocatorParameter {
   public HttpServletRequest getServletRequest() {
     return servletRequest;
   }
+
+  public HttpCompression getCompression() {
+    return compression;
+  }
+
+  public void setCompression(final HttpCompression compression) {
+    this.compression = compression;
+  }
 }
@@ -33,8 +33,11 @@ import org.apache.olingo.odata2.api.exception.ODataNotImplementedException;
 import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.WriteThroughEntity;
 import org.apache.olingo.odata2.core.ODataContextImpl;
 import org.apache.olingo.odata2.core.ODataRequestHandler;
+import org.apache.olingo.odata2.core.commons.HttpCompression;
+import org.apache.olingo.odata2.core.ep.util.ByteBufferPool;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
 import javax.servlet.ServletOutputStream;
@@ -43,6 +46,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public class ODataServlet extends HttpServlet {
 
@@ -53,14 +58,23 @@ public class ODataServlet extends HttpServlet {
    * Label used in web.xml to assign servlet init parameter for a path split (service resolution).
    */
   private static final String BUFFER_SIZE = "org.apache.olingo.odata2.core.servlet.buffer.size";
+  /**
+   * Label used in web.xml to assign servlet init parameter for the number of pooled copy buffers.
+   */
+  private static final String BUFFER_POOL_SIZE = "org.apache.olingo.odata2.core.servlet.buffer.pool.size";
 
   /**
    * 
    */
   private static final long serialVersionUID = 1L;
   private static final int DEFAULT_BUFFER_SIZE = 32768;
+  private static final int DEFAULT_BUFFER_POOL_SIZE = 64;
   private static final String DEFAULT_READ_CHARSET = "utf-8";
 
+  private transient volatile ByteBufferPool bufferPool;
+  private transient int bufferSize;
+  private transient volatile HttpCompression compression;
+
   @Override
   protected void service(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
     // We have to create the Service Factory here because otherwise we do not have access to the error callback
@@ -75,8 +89,8 @@ public class ODataServlet extends HttpServlet {
     if (xHttpMethod != null && xHttpMethodOverride != null) {
       if (!xHttpMethod.equalsIgnoreCase(xHttpMethodOverride)) {
         ODataExceptionWrapper wrapper = new ODataExceptionWrapper(req, serviceFactory);
-        createResponse(resp, wrapper.wrapInExceptionResponse(
-            new ODataBadRequestException(ODataBadRequestException.AMBIGUOUS_XMETHOD)));
+        createResponse(req, resp, wrapper.wrapInExceptionResponse(
+            new ODataBadRequestException(ODataBadRequestException.AMBIGUOUS_XMETHOD)), false);
         return;
       }
     }
@@ -196,7 +210,7 @@ public class ODataServlet extends HttpServlet {
           .pathInfo(RestUtil.buildODataPathInfo(req, pathSplit))
           .allQueryParameters(RestUtil.extractAllQueryParameters(req.getQueryString(), formEncoding))
           .requestHeaders(RestUtil.extractHeaders(req))
-          .body(req.getInputStream())
+          .body(getCompression().decompress(req.getInputStream(), req.getHeader(HttpHeaders.CONTENT_ENCODING)))
           .build();
       } catch (IllegalArgumentException e) {
         throw new ODataBadRequestException(ODataBadRequestException.INVALID_REQUEST, e);
@@ -216,11 +230,11 @@ public class ODataServlet extends HttpServlet {
         final ODataResponse odataResponse = requestHandler.handle(odataRequest);
         //
         boolean omitResponseBody = HTTP_METHOD_HEAD.equals(req.getMethod());
-        createResponse(resp, odataResponse, omitResponseBody);
+        createResponse(req, resp, odataResponse, omitResponseBody);
       }
     } catch (Exception e) {
       ODataExceptionWrapper wrapper = new ODataExceptionWrapper(req, serviceFactory);
-      createResponse(resp, wrapper.wrapInExceptionResponse(e));
+      createResponse(req, resp, wrapper.wrapInExceptionResponse(e), false);
     }
   }
 
@@ -238,7 +252,7 @@ public class ODataServlet extends HttpServlet {
       ODataResponse odataResponse = ODataResponse.status(HttpStatusCodes.TEMPORARY_REDIRECT)
           .header(HttpHeaders.LOCATION, createLocation(req))
           .build();
-      createResponse(resp, odataResponse);
+      createResponse(req, resp, odataResponse, false);
     } else {
       createNotImplementedResponse(req, ODataHttpException.COMMON, resp, serviceFactory);
     }
@@ -260,17 +274,39 @@ public class ODataServlet extends HttpServlet {
   }
 
   protected void createResponse(final HttpServletResponse resp, final ODataResponse response) throws IOException {
-    createResponse(resp, response, false);
+    createResponse(null, resp, response, false);
   }
 
   protected void createResponse(final HttpServletResponse resp, final ODataResponse response,
                                 final boolean omitResponseBody)
       throws IOException {
+    createResponse(null, resp, response, omitResponseBody);
+  }
+
+  /**
+   * Writes the response; its body is compressed if the compression configured with the init parameters
+   * of {@link HttpCompression} applies to the given request.
+   * @param req the request the response belongs to; if <code>null</code> the response is not compressed
+   */
+  protected void createResponse(final HttpServletRequest req, final HttpServletResponse resp,
+      final ODataResponse response, final boolean omitResponseBody) throws IOException {
+    final String contentType = response.getContentHeader();
+    final boolean compressible = req != null && response.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+        && getCompression().isCompressible(contentType);
+    final String contentEncoding = compressible && !omitResponseBody ?
+        getCompression().getContentEncoding(req.getHeader(HttpHeaders.ACCEPT_ENCODING), contentType) : null;
 
     resp.setStatus(response.getStatus().getStatusCode());
-    resp.setContentType(response.getContentHeader());
+    resp.setContentType(contentType);
     for (String headerName : response.getHeaderNames()) {
-      resp.setHeader(headerName, response.getHeader(headerName));
+      if (contentEncoding == null || !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(headerName)) {
+        resp.setHeader(headerName, response.getHeader(headerName));
+      }
+    }
+    if (compressible) {
+      final String vary = response.getHeader(HttpHeaders.VARY);
+      resp.setHeader(HttpHeaders.VARY,
+          vary == null ? HttpHeaders.ACCEPT_ENCODING : vary + ", " + HttpHeaders.ACCEPT_ENCODING);
     }
 
     if(omitResponseBody) {
@@ -280,13 +316,39 @@ public class ODataServlet extends HttpServlet {
     Object entity = response.getEntity();
     if (entity != null) {
       ServletOutputStream out = resp.getOutputStream();
-      int contentLength;
-
-      if (entity instanceof InputStream) {
-        contentLength = handleStream((InputStream) entity, out);
+      int contentLength = -1;
+
+      if (entity instanceof WriteThroughEntity) {
+        // the content is written directly into the servlet stream; its length is not known in advance
+        if (contentEncoding == null) {
+          handleWriteThrough((WriteThroughEntity) entity, out);
+        } else {
+          final OutputStream compressingStream = compress(resp, out, contentEncoding);
+          try {
+            handleWriteThrough((WriteThroughEntity) entity, compressingStream);
+          } finally {
+            compressingStream.close();
+          }
+          return;
+        }
+      } else if (entity instanceof InputStream) {
+        contentLength = handleStream((InputStream) entity, resp, out, contentEncoding);
+        if (contentLength < 0) {
+          // the compressing stream has been closed together with the servlet stream
+          return;
+        }
       } else if (entity instanceof String) {
         String body = (String) entity;
         final byte[] entityBytes = body.getBytes(DEFAULT_READ_CHARSET);
+        if (contentEncoding != null && entityBytes.length >= getCompression().getMinSize()) {
+          final OutputStream compressingStream = compress(resp, out, contentEncoding);
+          try {
+            compressingStream.write(entityBytes);
+          } finally {
+            compressingStream.close();
+          }
+          return;
+        }
         out.write(entityBytes);
         contentLength = entityBytes.length;
       } else {
@@ -302,43 +364,126 @@ public class ODataServlet extends HttpServlet {
         }
       }
 
-      resp.setContentLength(contentLength);
+      if (contentLength >= 0) {
+        resp.setContentLength(contentLength);
+      }
       out.flush();
       out.close();
     }
   }
 
-  private int handleStream(InputStream stream, ServletOutputStream out) throws IOException {
+  private void handleWriteThrough(final WriteThroughEntity entity, final OutputStream out)
+      throws IOException {
+    try {
+      entity.writeTo(out);
+    } finally {
+      if (entity instanceof InputStream) {
+        ((InputStream) entity).close();
+      }
+    }
+  }
+
+  /**
+   * Copies the stream into the servlet stream.
+   * If a content encoding is given, the stream is compressed unless it ends before the minimum size
+   * (at most the buffer size) is read.
+   * @return the content length, or -1 if the content has been compressed
+   */
+  private int handleStream(final InputStream stream, final HttpServletResponse resp, final ServletOutputStream out,
+      final String contentEncoding) throws IOException {
     int contentLength = 0;
-    byte[] buffer = getBuffer();
+    final ByteBufferPool pool = getBufferPool();
+    final ByteBuffer buffer = pool.acquire(bufferSize);
+    final byte[] bytes = buffer.array();
 
     try {
-      int len;
-      while ((len = stream.read(buffer)) != -1) {
+      int len = 0;
+      if (contentEncoding != null) {
+        final int minSize = Math.min(getCompression().getMinSize(), bufferSize);
+        while (contentLength < minSize && (len = stream.read(bytes, contentLength, bufferSize - contentLength)) != -1) {
+          contentLength += len;
+        }
+        if (len != -1) {
+          final OutputStream compressingStream = compress(resp, out, contentEncoding);
+          try {
+            compressingStream.write(bytes, 0, contentLength);
+            while ((len = stream.read(bytes, 0, bufferSize)) != -1) {
+              compressingStream.write(bytes, 0, len);
+            }
+          } finally {
+            compressingStream.close();
+          }
+          return -1;
+        }
+        out.write(bytes, 0, contentLength);
+        return contentLength;
+      }
+      while ((len = stream.read(bytes, 0, bufferSize)) != -1) {
         contentLength += len;
-        out.write(buffer, 0, len);
+        out.write(bytes, 0, len);
       }
     } finally {
+      pool.release(buffer);
       stream.close();
     }
     return contentLength;
   }
 
-  private byte[] getBuffer() {
-    int bufferSize = DEFAULT_BUFFER_SIZE;
-    String bufSizeInit = getInitParameter(BUFFER_SIZE);
-    if(bufSizeInit != null) {
+  private OutputStream compress(final HttpServletResponse resp, final ServletOutputStream out,
+      final String contentEncoding) throws IOException {
+    resp.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+    return getCompression().compress(out, contentEncoding);
+  }
+
+  /**
+   * Returns the compression of request and response bodies.
+   * It is created on first use from the init parameters described in {@link HttpCompression};
+   * responses are not compressed if no encodings are configured.
+   * @return the compression configuration
+   */
+  public HttpCompression getCompression() {
+    HttpCompression result = compression;
+    if (result == null) {
+      result = HttpCompression.fromConfig(getServletConfig());
+      compression = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the pool of the buffers used to copy response content into the servlet output stream.
+   * The pool is created on first use with the buffer size and the number of pooled buffers
+   * given as init parameters.
+   * @return the buffer pool (e.g., to read its metrics)
+   */
+  public ByteBufferPool getBufferPool() {
+    ByteBufferPool pool = bufferPool;
+    if (pool == null) {
+      synchronized (this) {
+        if (bufferPool == null) {
+          bufferSize = getIntInitParameter(BUFFER_SIZE, DEFAULT_BUFFER_SIZE, 1);
+          bufferPool = new ByteBufferPool(bufferSize, bufferSize,
+              getIntInitParameter(BUFFER_POOL_SIZE, DEFAULT_BUFFER_POOL_SIZE, 0), false);
+        }
+        pool = bufferPool;
+      }
+    }
+    return pool;
+  }
+
+  private int getIntInitParameter(final String name, final int defaultValue, final int minValue) {
+    String value = getInitParameter(name);
+    if(value != null) {
       try {
-        bufferSize = Integer.parseInt(bufSizeInit);
-        if(bufferSize <= 0) {
-          bufferSize = DEFAULT_BUFFER_SIZE;
+        final int intValue = Integer.parseInt(value);
+        if(intValue >= minValue) {
+          return intValue;
         }
       } catch (NumberFormatException ignored) {
         // this exception is ignored because if parameter is not parse able the default is used
       }
     }
-
-    return new byte[bufferSize];
+    return defaultValue;
   }
 
   private void createNotImplementedResponse(final HttpServletRequest req, final MessageReference messageReference,
@@ -348,7 +493,7 @@ public class ODataServlet extends HttpServlet {
     ODataExceptionWrapper exceptionWrapper = new ODataExceptionWrapper(req, serviceFactory);
     ODataResponse response =
         exceptionWrapper.wrapInExceptionResponse(new ODataNotImplementedException(messageReference));
-    createResponse(resp, response);
+    createResponse(req, resp, response, false);
   }
 
   private void createMethodNotAllowedResponse(final HttpServletRequest req, final MessageReference messageReference,
@@ -356,7 +501,7 @@ public class ODataServlet extends HttpServlet {
     ODataExceptionWrapper exceptionWrapper = new ODataExceptionWrapper(req, serviceFactory);
     ODataResponse response =
         exceptionWrapper.wrapInExceptionResponse(new ODataMethodNotAllowedException(messageReference));
-    createResponse(resp, response);
+    createResponse(req, resp, response, false);
   }
 
   private void createNotAcceptableResponse(final HttpServletRequest req, final MessageReference messageReference,
@@ -364,7 +509,7 @@ public class ODataServlet extends HttpServlet {
     ODataExceptionWrapper exceptionWrapper = new ODataExceptionWrapper(req, serviceFactory);
     ODataResponse response =
         exceptionWrapper.wrapInExceptionResponse(new ODataNotAcceptableException(messageReference));
-    createResponse(resp, response);
+    createResponse(req, resp, response, false);
   }
 
   private void createServiceUnavailableResponse(HttpServletRequest req, MessageReference messageReference,
@@ -372,7 +517,7 @@ public class ODataServlet extends HttpServlet {
     ODataExceptionWrapper exceptionWrapper = new ODataExceptionWrapper(req, serviceFactory);
     ODataResponse response =
         exceptionWrapper.wrapInExceptionResponse(new ODataInternalServerErrorException(messageReference));
-    createResponse(resp, response);
+    createResponse(req, resp, response, false);
   }
 
   /**
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -66,16 +67,20 @@ import org.apache.olingo.odata2.api.processor.part.FunctionImportValueProcessor;
 import org.apache.olingo.odata2.api.processor.part.MetadataProcessor;
 import org.apache.olingo.odata2.api.processor.part.ServiceDocumentProcessor;
 import org.apache.olingo.odata2.api.uri.PathInfo;
+import org.apache.olingo.odata2.api.uri.info.GetMetadataUriInfo;
 import org.apache.olingo.odata2.api.uri.PathSegment;
 import org.apache.olingo.odata2.api.uri.UriParser;
 import org.apache.olingo.odata2.core.commons.ContentType;
 import org.apache.olingo.odata2.core.commons.ContentType.ODataFormat;
+import org.apache.olingo.odata2.core.ep.util.SerializedDocument;
 import org.apache.olingo.odata2.core.uri.UriInfoImpl;
 import org.apache.olingo.odata2.core.uri.UriType;
 import org.apache.olingo.odata2.testutil.fit.BaseTest;
 import org.apache.olingo.odata2.testutil.mock.MockFacade;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 /**
  * Tests for the validation of HTTP method, URI path, query options,
@@ -770,4 +775,58 @@ public class ODataRequestHandlerValidationTest extends BaseTest {
     executeAndValidateHeaderRequest(ODataHttpMethod.PUT, UriType.URI17, null, null,
         HttpStatusCodes.PRECONDITION_REQUIRED);
   }
+
+  @Test
+  public void notModifiedMetadata() throws Exception {
+    ODataServiceFactory serviceFactory = mock(ODataServiceFactory.class);
+    final ODataService service = mockODataService(serviceFactory);
+    MetadataProcessor processor = mock(MetadataProcessor.class);
+    when(processor.readMetadata(any(GetMetadataUriInfo.class), anyString())).thenAnswer(new Answer<ODataResponse>() {
+      @Override
+      public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+        return ODataResponse.status(HttpStatusCodes.OK).eTag("\"1\"").entity("metadata").build();
+      }
+    });
+    when(service.getMetadataProcessor()).thenReturn(processor);
+
+    checkIfNoneMatch(serviceFactory, service, "\"1\"", HttpStatusCodes.NOT_MODIFIED);
+    checkIfNoneMatch(serviceFactory, service, "W/\"0\", W/\"1\"", HttpStatusCodes.NOT_MODIFIED);
+    checkIfNoneMatch(serviceFactory, service, "*", HttpStatusCodes.NOT_MODIFIED);
+    checkIfNoneMatch(serviceFactory, service, "\"2\"", HttpStatusCodes.OK);
+    checkIfNoneMatch(serviceFactory, service, null, HttpStatusCodes.OK);
+  }
+
+  @Test
+  public void serializedMetadataGetsETag() throws Exception {
+    ODataServiceFactory serviceFactory = mock(ODataServiceFactory.class);
+    final ODataService service = mockODataService(serviceFactory);
+    final SerializedDocument document = new SerializedDocument("metadata".getBytes("UTF-8"));
+    MetadataProcessor processor = mock(MetadataProcessor.class);
+    when(processor.readMetadata(any(GetMetadataUriInfo.class), anyString())).thenAnswer(new Answer<ODataResponse>() {
+      @Override
+      public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+        return ODataResponse.status(HttpStatusCodes.OK).entity(document.getContent()).build();
+      }
+    });
+    when(service.getMetadataProcessor()).thenReturn(processor);
+
+    final ODataRequest request = mockODataRequest(ODataHttpMethod.GET, createPathSegments(UriType.URI8, false, false),
+        null, HttpHeaders.IF_NONE_MATCH, document.getETag(), null);
+    final ODataResponse response = new ODataRequestHandler(serviceFactory, service,
+        new ODataContextImpl(request, serviceFactory)).handle(request);
+    assertEquals(HttpStatusCodes.NOT_MODIFIED, response.getStatus());
+    assertEquals(document.getETag(), response.getETag());
+  }
+
+  private void checkIfNoneMatch(final ODataServiceFactory serviceFactory, final ODataService service,
+      final String ifNoneMatch, final HttpStatusCodes expectedStatusCode) throws ODataException {
+    final ODataRequest request = mockODataRequest(ODataHttpMethod.GET, createPathSegments(UriType.URI8, false, false),
+        null, HttpHeaders.IF_NONE_MATCH, ifNoneMatch, null);
+    final ODataContextImpl context = new ODataContextImpl(request, serviceFactory);
+
+    final ODataResponse response = new ODataRequestHandler(serviceFactory, service, context).handle(request);
+    assertEquals(expectedStatusCode, response.getStatus());
+    assertEquals("\"1\"", response.getETag());
+    assertEquals(expectedStatusCode == HttpStatusCodes.OK ? "metadata" : null, response.getEntity());
+  }
 }
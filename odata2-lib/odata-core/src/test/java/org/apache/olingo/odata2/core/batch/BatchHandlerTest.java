@@ -19,6 +19,10 @@
 package org.apache.olingo.odata2.core.batch;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -29,10 +33,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
 import org.apache.olingo.odata2.api.batch.BatchHandler;
+import org.apache.olingo.odata2.api.batch.BatchQueryExecution;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
 import org.apache.olingo.odata2.api.commons.HttpContentType;
@@ -67,15 +77,34 @@ import org.junit.Test;
 public class BatchHandlerTest {
 
   private BatchHandler handler;
+  private ODataService serviceMock;
+  private final List<Thread> readThreads = Collections.synchronizedList(new ArrayList<Thread>());
+  private CountDownLatch overlappingReads;
   private static final String CONTENT_TYPE = HttpContentType.MULTIPART_MIXED + "; boundary=batch_123";
   private static final String CRLF = "\r\n";
+  private static final String QUERIES_BATCH = "--batch_123" + CRLF
+      + "Content-Type: application/http" + CRLF
+      + "Content-Transfer-Encoding: binary" + CRLF
+      + CRLF
+      + "GET Employees HTTP/1.1" + CRLF
+      + "Accept: application/json" + CRLF
+      + CRLF
+      + CRLF
+      + "--batch_123" + CRLF
+      + "Content-Type: application/http" + CRLF
+      + "Content-Transfer-Encoding: binary" + CRLF
+      + CRLF
+      + "GET Employees/$count HTTP/1.1" + CRLF
+      + CRLF
+      + CRLF
+      + "--batch_123--";
   private static String SERVICE_BASE = "http://localhost/odata/";
   private static String SERVICE_ROOT = null;
 
   @Before
   public void setupBatchHandler() throws Exception {
     ODataProcessor processor = new LocalProcessor();
-    ODataService serviceMock = mock(ODataService.class);
+    serviceMock = mock(ODataService.class);
     when(serviceMock.getBatchProcessor()).thenReturn((BatchProcessor) processor);
     when(serviceMock.getEntitySetProcessor()).thenReturn((EntitySetProcessor) processor);
     when(serviceMock.getEntitySimplePropertyProcessor()).thenReturn((EntitySimplePropertyProcessor) processor);
@@ -86,6 +115,7 @@ public class BatchHandlerTest {
         HttpContentType.APPLICATION_JSON_UTF8, HttpContentType.APPLICATION_JSON);
     when(serviceMock.getSupportedContentTypes(EntityMediaProcessor.class)).thenReturn(supportedContentTypes);
     when(serviceMock.getSupportedContentTypes(EntityProcessor.class)).thenReturn(supportedContentTypes);
+    when(serviceMock.getSupportedContentTypes(EntitySetProcessor.class)).thenReturn(supportedContentTypes);
     when(serviceMock.getSupportedContentTypes(EntitySimplePropertyProcessor.class)).thenReturn(supportedContentTypes);
     handler = new BatchHandlerImpl(mock(ODataServiceFactory.class), serviceMock);
   }
@@ -168,6 +198,109 @@ public class BatchHandlerTest {
     handler.handleBatchPart(parsedRequest.get(0));
   }
 
+  @Test
+  public void concurrentQueries() throws Exception {
+    SERVICE_ROOT = SERVICE_BASE;
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ODataServiceFactory factory = mock(ODataServiceFactory.class);
+      when(factory.getCallback(BatchQueryExecution.class)).thenReturn(new BatchQueryExecution(executor, 2, 4));
+      when(factory.createService(any(ODataContext.class))).thenReturn(serviceMock);
+      handler = new BatchHandlerImpl(factory, serviceMock);
+
+      PathInfoImpl pathInfo = new PathInfoImpl();
+      pathInfo.setServiceRoot(new URI(SERVICE_ROOT));
+      pathInfo.setODataPathSegment(Collections.<PathSegment> singletonList(
+          new ODataPathSegmentImpl("$batch", null)));
+      EntityProviderBatchProperties properties = EntityProviderBatchProperties.init().pathInfo(pathInfo).build();
+      List<BatchRequestPart> parsedRequest = EntityProvider.parseBatchRequest(CONTENT_TYPE,
+          StringHelper.toStream(QUERIES_BATCH).asStream(), properties);
+      List<BatchResponsePart> responseParts = new ArrayList<BatchResponsePart>();
+      for (BatchRequestPart part : parsedRequest) {
+        responseParts.add(handler.handleBatchPart(part));
+      }
+
+      assertEquals(2, responseParts.size());
+      assertFalse(responseParts.get(0).isChangeSet());
+      assertEquals("Employees", responseParts.get(0).getResponses().get(0).getEntity());
+      assertEquals("2", responseParts.get(1).getResponses().get(0).getEntity());
+      assertEquals(2, readThreads.size());
+      assertFalse(readThreads.contains(Thread.currentThread()));
+
+      // a change set is executed after the preceding queries
+      List<BatchRequestPart> changeSet = EntityProvider.parseBatchRequest(CONTENT_TYPE,
+          readFile("/batchContentIdReferencing.batch"), properties);
+      assertTrue(handler.handleBatchPart(changeSet.get(0)).isChangeSet());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void concurrentQueriesWhileParsing() throws Exception {
+    SERVICE_ROOT = SERVICE_BASE;
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ODataServiceFactory factory = mock(ODataServiceFactory.class);
+      when(factory.getCallback(BatchQueryExecution.class)).thenReturn(new BatchQueryExecution(executor, 2, 4));
+      when(factory.createService(any(ODataContext.class))).thenReturn(serviceMock);
+      handler = new BatchHandlerImpl(factory, serviceMock);
+      // each read waits for the other one, so the test only passes if both are executed at the same time
+      overlappingReads = new CountDownLatch(2);
+
+      PathInfoImpl pathInfo = new PathInfoImpl();
+      pathInfo.setServiceRoot(new URI(SERVICE_ROOT));
+      pathInfo.setODataPathSegment(Collections.<PathSegment> singletonList(
+          new ODataPathSegmentImpl("$batch", null)));
+      EntityProviderBatchProperties properties = EntityProviderBatchProperties.init().pathInfo(pathInfo).build();
+      List<BatchResponsePart> responseParts = EntityProvider.parseBatchRequest(CONTENT_TYPE,
+          StringHelper.toStream(QUERIES_BATCH).asStream(), properties, handler);
+
+      assertEquals(2, responseParts.size());
+      assertEquals("Employees", responseParts.get(0).getResponses().get(0).getEntity());
+      assertEquals("2", responseParts.get(1).getResponses().get(0).getEntity());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void failingExecutorReleasesPermits() throws Exception {
+    SERVICE_ROOT = SERVICE_BASE;
+    // fails the first time only; if its permits were not released, the second query would wait forever
+    Executor executor = new Executor() {
+      private boolean failed = false;
+
+      @Override
+      public void execute(final Runnable command) {
+        if (!failed) {
+          failed = true;
+          throw new IllegalStateException("executor is not available");
+        }
+        command.run();
+      }
+    };
+    ODataServiceFactory factory = mock(ODataServiceFactory.class);
+    when(factory.getCallback(BatchQueryExecution.class)).thenReturn(new BatchQueryExecution(executor, 1, 1));
+    when(factory.createService(any(ODataContext.class))).thenReturn(serviceMock);
+    handler = new BatchHandlerImpl(factory, serviceMock);
+
+    PathInfoImpl pathInfo = new PathInfoImpl();
+    pathInfo.setServiceRoot(new URI(SERVICE_ROOT));
+    pathInfo.setODataPathSegment(Collections.<PathSegment> singletonList(
+        new ODataPathSegmentImpl("$batch", null)));
+    EntityProviderBatchProperties properties = EntityProviderBatchProperties.init().pathInfo(pathInfo).build();
+    List<BatchRequestPart> parsedRequest = EntityProvider.parseBatchRequest(CONTENT_TYPE,
+        StringHelper.toStream(QUERIES_BATCH).asStream(), properties);
+    try {
+      handler.handleBatchPart(parsedRequest.get(0));
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    assertEquals("2", handler.handleBatchPart(parsedRequest.get(1)).getResponses().get(0).getEntity());
+  }
+
   private void assertFirst(PathInfo pathInfo) {
     assertEquals(SERVICE_ROOT + "Employees", pathInfo.getRequestUri().toString());
     assertEquals(SERVICE_ROOT, pathInfo.getServiceRoot().toString());
@@ -242,14 +375,27 @@ public class BatchHandlerTest {
 
     @Override
     public ODataResponse readEntitySet(GetEntitySetUriInfo uriInfo, String contentType) throws ODataException {
-      // this method is not needed.
-      return null;
+      readThreads.add(Thread.currentThread());
+      awaitOverlappingRead();
+      return ODataResponse.entity(uriInfo.getTargetEntitySet().getName()).build();
     }
 
     @Override
     public ODataResponse countEntitySet(GetEntitySetCountUriInfo uriInfo, String contentType) throws ODataException {
-      // this method is not needed.
-      return null;
+      readThreads.add(Thread.currentThread());
+      awaitOverlappingRead();
+      return ODataResponse.entity("2").build();
+    }
+
+    private void awaitOverlappingRead() throws ODataException {
+      if (overlappingReads != null) {
+        overlappingReads.countDown();
+        try {
+          assertTrue(overlappingReads.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+          throw new ODataException(e);
+        }
+      }
     }
 
     @Override
@@ -28,14 +28,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.batch.BatchException;
+import org.apache.olingo.odata2.api.batch.BatchHandler;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
+import org.apache.olingo.odata2.api.batch.BatchResponsePart;
 import org.apache.olingo.odata2.api.commons.HttpHeaders;
 import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
 import org.apache.olingo.odata2.api.ep.EntityProviderBatchProperties;
+import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.processor.ODataRequest;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.core.ODataPathSegmentImpl;
 import org.apache.olingo.odata2.core.PathInfoImpl;
 import org.apache.olingo.odata2.core.batch.v2.BatchParser;
@@ -370,6 +375,55 @@ public class BatchRequestParserTest {
     assertEquals(1, parts.size());
   }
 
+  @Test
+  public void testPartsAreHandledWhileReading() throws Exception {
+    final StringBuilder batch = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      batch.append("--").append(BOUNDARY).append(CRLF).append(GET_REQUEST);
+    }
+    batch.append("--").append(BOUNDARY).append("--");
+    final byte[] content = batch.toString().getBytes("UTF-8");
+    final ByteArrayInputStream in = new ByteArrayInputStream(content);
+
+    final List<Integer> remainingBytes = new ArrayList<Integer>();
+    final BatchParser parser = new BatchParser(contentType, batchProperties, true);
+    final List<BatchResponsePart> responseParts = parser.parseBatchRequest(in, new BatchHandler() {
+      @Override
+      public BatchResponsePart handleBatchPart(final BatchRequestPart batchPart) throws ODataException {
+        assertEquals(ODataHttpMethod.GET, batchPart.getRequests().get(0).getMethod());
+        remainingBytes.add(in.available());
+        return BatchResponsePart.responses(new ArrayList<ODataResponse>()).changeSet(false).build();
+      }
+
+      @Override
+      public ODataResponse handleRequest(final ODataRequest request) throws ODataException {
+        throw new UnsupportedOperationException();
+      }
+    });
+
+    assertEquals(200, responseParts.size());
+    assertTrue(remainingBytes.get(0) > 0);
+    assertEquals(0, remainingBytes.get(199).intValue());
+  }
+
+  @Test(expected = BatchException.class)
+  public void testHandledPartsMissingCloseDelimiter() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + GET_REQUEST;
+    final BatchParser parser = new BatchParser(contentType, batchProperties, true);
+    parser.parseBatchRequest(new ByteArrayInputStream(batch.getBytes()), new BatchHandler() {
+      @Override
+      public BatchResponsePart handleBatchPart(final BatchRequestPart batchPart) throws ODataException {
+        return BatchResponsePart.responses(new ArrayList<ODataResponse>()).changeSet(false).build();
+      }
+
+      @Override
+      public ODataResponse handleRequest(final ODataRequest request) throws ODataException {
+        throw new UnsupportedOperationException();
+      }
+    });
+  }
+
   @Test
   public void testContentTypeCharsetWrongBoundaryAtEnd() throws BatchException {
     final String contentType = "multipart/mixed; charset=UTF-8;boundary=" + BOUNDARY + ";boundary=wrong_boundary";
@@ -1213,6 +1267,59 @@ public class BatchRequestParserTest {
     parser.parseBatchRequest(in);
   }
 
+  @Test
+  public void largeBatchAcrossReadBuffers() throws Exception {
+    // several times the size of the read buffer of the line reader, so boundaries and bodies span buffer borders
+    final String changeSetBoundary = "changeset_f980-1cb6-94dd";
+    StringBuilder batch = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      batch.append("--").append(BOUNDARY).append(CRLF)
+          .append(MIME_HEADERS)
+          .append(CRLF)
+          .append("GET Employees('").append(i).append("')/EmployeeName HTTP/1.1").append(CRLF)
+          .append(CRLF)
+          .append(CRLF);
+    }
+    batch.append("--").append(BOUNDARY).append(CRLF)
+        .append("Content-Type: multipart/mixed; boundary=").append(changeSetBoundary).append(CRLF)
+        .append(CRLF);
+    for (int i = 0; i < 200; i++) {
+      final String body = "{\"EmployeeName\":\"Walter Winter " + i + "\",\"Age\":52}";
+      batch.append("--").append(changeSetBoundary).append(CRLF)
+          .append(MIME_HEADERS)
+          .append("Content-ID: ").append(i).append(CRLF)
+          .append(CRLF)
+          .append("POST Employees HTTP/1.1").append(CRLF)
+          .append("Content-Type: application/json").append(CRLF)
+          .append("Content-Length: ").append(body.length()).append(CRLF)
+          .append(CRLF)
+          .append(body).append(CRLF);
+    }
+    batch.append("--").append(changeSetBoundary).append("--").append(CRLF)
+        .append(CRLF)
+        .append("--").append(BOUNDARY).append("--");
+
+    final List<BatchRequestPart> parts = parse(batch.toString());
+
+    assertEquals(201, parts.size());
+    for (int i = 0; i < 200; i++) {
+      final ODataRequest request = parts.get(i).getRequests().get(0);
+      assertEquals(ODataHttpMethod.GET, request.getMethod());
+      assertEquals(SERVICE_ROOT + "Employees('" + i + "')/EmployeeName",
+          request.getPathInfo().getRequestUri().toASCIIString());
+    }
+    final BatchRequestPart changeSet = parts.get(200);
+    assertTrue(changeSet.isChangeSet());
+    assertEquals(200, changeSet.getRequests().size());
+    for (int i = 0; i < 200; i++) {
+      final ODataRequest request = changeSet.getRequests().get(i);
+      assertEquals(ODataHttpMethod.POST, request.getMethod());
+      assertEquals(String.valueOf(i), request.getRequestHeaderValue(BatchHelper.MIME_HEADER_CONTENT_ID));
+      assertEquals("{\"EmployeeName\":\"Walter Winter " + i + "\",\"Age\":52}",
+          inputStreamToString(request.getBody()));
+    }
+  }
+
   @Test
   public void testNonStrictGetRequestWithMissingCRLF() throws BatchException {
     String batch = "--" + BOUNDARY + CRLF
@@ -19,6 +19,7 @@
 package org.apache.olingo.odata2.core.batch;
 
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
 import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
 import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
@@ -29,10 +30,12 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class BatchResponseWriterTest {
@@ -269,4 +272,72 @@ public class BatchResponseWriterTest {
     assertEquals("Wälter Winter" + CRLF, lines.get(index++).toString());
     assertTrue(lines.get(index).toString().startsWith("--batch"));
   }
+
+  @Test
+  public void testStreamedResponse() throws Exception {
+    final List<BatchResponsePart> parts = new ArrayList<BatchResponsePart>();
+    List<ODataResponse> responses = new ArrayList<ODataResponse>(1);
+    responses.add(ODataResponse.entity(StringHelper.toStream("Walter Winter").asStream())
+        .status(HttpStatusCodes.OK)
+        .contentHeader("application/json")
+        .build());
+    parts.add(BatchResponsePart.responses(responses).changeSet(false).build());
+    responses = new ArrayList<ODataResponse>(1);
+    responses.add(ODataResponse.status(HttpStatusCodes.NO_CONTENT).build());
+    parts.add(BatchResponsePart.responses(responses).changeSet(true).build());
+
+    final Iterator<BatchResponsePart> iterator = parts.iterator();
+    final List<BatchResponsePart> requestedParts = new ArrayList<BatchResponsePart>();
+    BatchResponseWriter writer = new BatchResponseWriter();
+    ODataResponse batchResponse = writer.writeResponse(new Iterator<BatchResponsePart>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public BatchResponsePart next() {
+        requestedParts.add(iterator.next());
+        return requestedParts.get(requestedParts.size() - 1);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    });
+
+    assertEquals(202, batchResponse.getStatus().getStatusCode());
+    assertNull(batchResponse.getHeader(HttpHeaders.CONTENT_LENGTH));
+    assertEquals(1, requestedParts.size());
+
+    BatchLineReader reader = new BatchLineReader(batchResponse.getEntityAsStream());
+    List<Line> lines = reader.toLineList();
+    reader.close();
+    assertEquals(2, requestedParts.size());
+    int index = 0;
+
+    assertTrue(lines.get(index++).toString().startsWith("--batch"));
+    assertEquals("Content-Type: application/http" + CRLF, lines.get(index++).toString());
+    assertEquals("Content-Transfer-Encoding: binary" + CRLF, lines.get(index++).toString());
+    assertEquals(CRLF, lines.get(index++).toString());
+    assertEquals("HTTP/1.1 200 OK" + CRLF, lines.get(index++).toString());
+    assertEquals("Content-Type: application/json" + CRLF, lines.get(index++).toString());
+    assertEquals("Content-Length: 13" + CRLF, lines.get(index++).toString());
+    assertEquals(CRLF, lines.get(index++).toString());
+    assertEquals("Walter Winter" + CRLF, lines.get(index++).toString());
+
+    assertTrue(lines.get(index++).toString().startsWith("--batch"));
+    assertTrue(lines.get(index++).toString().startsWith("Content-Type: multipart/mixed; boundary=changeset_"));
+    assertEquals(CRLF, lines.get(index++).toString());
+    assertTrue(lines.get(index++).toString().startsWith("--changeset"));
+    assertEquals("Content-Type: application/http" + CRLF, lines.get(index++).toString());
+    assertEquals("Content-Transfer-Encoding: binary" + CRLF, lines.get(index++).toString());
+    assertEquals(CRLF, lines.get(index++).toString());
+    assertEquals("HTTP/1.1 204 No Content" + CRLF, lines.get(index++).toString());
+    assertEquals(CRLF, lines.get(index++).toString());
+    assertEquals(CRLF, lines.get(index++).toString());
+    assertTrue(lines.get(index++).toString().startsWith("--changeset"));
+    assertTrue(lines.get(index).toString().startsWith("--batch"));
+  }
 }
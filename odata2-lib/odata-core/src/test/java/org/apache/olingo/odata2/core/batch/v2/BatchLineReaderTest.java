@@ -302,6 +302,55 @@ public class BatchLineReaderTest {
     reader.close();
   }
 
+  @Test
+  public void longLinesAcrossBuffers() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      builder.append((char) ('a' + i % 26));
+    }
+    final String longLine = builder.toString();
+    BatchLineReader reader = create(longLine + "\r\n" + longLine + "\r" + "\n" + longLine, 7);
+
+    assertEquals(longLine + "\r\n", reader.readLine());
+    assertEquals(longLine + "\r\n", reader.readLine());
+    assertEquals(longLine, reader.readLine());
+    assertNull(reader.readLine());
+    reader.close();
+  }
+
+  @Test
+  public void largeMessageWithSmallBuffers() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      builder.append("--batch_123\r\n")
+          .append("Content-Type: application/http\r\n")
+          .append("\r\n")
+          .append("POST Employees HTTP/1.1\n")
+          .append("Content-Type: application/json\r\n")
+          .append("\r\n")
+          .append("{\"EmployeeName\":\"W\u00e4lter \u20ac").append(i).append("\"}\r\n");
+    }
+    builder.append("--batch_123--");
+    final String message = builder.toString();
+    BatchLineReader reader = create(message, message.length() * 3);
+    final List<Line> expected = reader.toLineList();
+    reader.close();
+    assertEquals(100 * 7 + 1, expected.size());
+    assertEquals("{\"EmployeeName\":\"W\u00e4lter \u20ac99\"}\r\n", expected.get(expected.size() - 2).toString());
+
+    // lines, line breaks and multi-byte characters are split at every possible position of the buffer
+    for (int bufferSize = 1; bufferSize <= 17; bufferSize++) {
+      reader = create(message, bufferSize);
+      final List<Line> lines = reader.toLineList();
+      reader.close();
+      assertEquals(expected.size(), lines.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(expected.get(i).toString(), lines.get(i).toString());
+        assertEquals(expected.get(i).getLineNumber(), lines.get(i).getLineNumber());
+      }
+    }
+  }
+
   private BatchLineReader create(final String inputString) throws UnsupportedEncodingException {
     return new BatchLineReader(new ByteArrayInputStream(inputString.getBytes("UTF-8")));
   }
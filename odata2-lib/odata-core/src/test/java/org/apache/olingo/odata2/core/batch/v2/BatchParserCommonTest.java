@@ -189,6 +189,18 @@ public class BatchParserCommonTest {
     assertNull(header.getHeader("a,b"));
   }
 
+  @Test
+  public void headerLines() throws Exception {
+    assertEquals(4, BatchParserCommon.getHeaderSeparatorIndex("Name:value" + CRLF));
+    assertEquals(4, BatchParserCommon.getHeaderSeparatorIndex("Name:" + CRLF));
+    assertEquals(4, BatchParserCommon.getHeaderSeparatorIndex("Name:  value  "));
+    assertEquals(-1, BatchParserCommon.getHeaderSeparatorIndex(":value" + CRLF));
+    assertEquals(-1, BatchParserCommon.getHeaderSeparatorIndex("Name value" + CRLF));
+    assertEquals(-1, BatchParserCommon.getHeaderSeparatorIndex("Name :value" + CRLF));
+    assertEquals(-1, BatchParserCommon.getHeaderSeparatorIndex("Name: a\nb" + CRLF));
+    assertEquals(-1, BatchParserCommon.getHeaderSeparatorIndex(CRLF));
+  }
+
   @Test
   public void testRemoveEndingCRLF() {
     String line = "Test\r\n";
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletConfig;
+
+import org.apache.olingo.odata2.api.exception.ODataBadRequestException;
+import org.apache.olingo.odata2.api.exception.ODataUnsupportedMediaTypeException;
+import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.apache.olingo.odata2.testutil.helper.StringHelper;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ */
+public class HttpCompressionTest extends BaseTest {
+
+  private final HttpCompression compression = new HttpCompression(Arrays.asList("gzip", "deflate"),
+      HttpCompression.DEFAULT_LEVEL, 10, Arrays.asList("image/", "application/zip"), 100000);
+
+  @Test
+  public void negotiation() {
+    assertEquals("gzip", compression.getContentEncoding("gzip, deflate", "application/json"));
+    assertEquals("gzip", compression.getContentEncoding("x-gzip", null));
+    assertEquals("deflate", compression.getContentEncoding("deflate", "application/atom+xml;charset=utf-8"));
+    assertEquals("deflate", compression.getContentEncoding("gzip;q=0.5, deflate", "application/xml"));
+    assertEquals("gzip", compression.getContentEncoding("*", "text/plain"));
+    assertEquals("deflate", compression.getContentEncoding("gzip;q=0, *", "text/plain"));
+    assertNull(compression.getContentEncoding("identity", "application/json"));
+    assertNull(compression.getContentEncoding("gzip;q=0", "application/json"));
+    assertNull(compression.getContentEncoding(null, "application/json"));
+    assertNull(compression.getContentEncoding("gzip", "image/png"));
+    assertNull(compression.getContentEncoding("gzip", "Application/Zip"));
+    assertTrue(compression.isCompressible("application/zip-like"));
+
+    assertFalse(HttpCompression.disabled().isEnabled());
+    assertNull(HttpCompression.disabled().getContentEncoding("gzip", "application/json"));
+    assertSame(HttpCompression.disabled(), HttpCompression.fromConfig(null));
+  }
+
+  @Test
+  public void fromConfig() {
+    ServletConfig config = Mockito.mock(ServletConfig.class);
+    assertSame(HttpCompression.disabled(), HttpCompression.fromConfig(config));
+
+    Mockito.when(config.getInitParameter(HttpCompression.REQUEST_MAX_SIZE)).thenReturn("1000");
+    final HttpCompression requestCompression = HttpCompression.fromConfig(config);
+    assertFalse(requestCompression.isEnabled());
+    assertEquals(1000, requestCompression.getMaxRequestSize());
+
+    Mockito.when(config.getInitParameter(HttpCompression.ENCODINGS)).thenReturn("gzip");
+    Mockito.when(config.getInitParameter(HttpCompression.REQUEST_MAX_SIZE)).thenReturn("-1");
+    final HttpCompression responseCompression = HttpCompression.fromConfig(config);
+    assertTrue(responseCompression.isEnabled());
+    assertEquals(0, responseCompression.getMaxRequestSize());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unsupportedEncoding() {
+    new HttpCompression(Arrays.asList("br"), HttpCompression.DEFAULT_LEVEL, 0, Collections.<String> emptyList());
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    final String content = StringHelper.generateData(20000);
+    for (final String encoding : Arrays.asList("gzip", "deflate", "gzip")) {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      OutputStream out = compression.compress(buffer, encoding);
+      out.write(content.getBytes("UTF-8"));
+      out.close();
+      out.close();
+      assertTrue(buffer.size() < content.length());
+
+      final InputStream in = compression.decompress(new ByteArrayInputStream(buffer.toByteArray()), encoding);
+      assertEquals(content, StringHelper.inputStreamToString(in));
+    }
+    // the gzip format is the standard one
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    OutputStream out = compression.compress(buffer, "gzip");
+    out.write("abc".getBytes("UTF-8"));
+    out.close();
+    assertEquals("abc",
+        StringHelper.inputStreamToString(new GZIPInputStream(new ByteArrayInputStream(buffer.toByteArray()))));
+  }
+
+  @Test
+  public void decompressIdentity() throws Exception {
+    final InputStream body = new ByteArrayInputStream(new byte[0]);
+    assertSame(body, compression.decompress(body, null));
+    assertSame(body, compression.decompress(body, "identity"));
+  }
+
+  @Test
+  public void decompressNotConfigured() throws Exception {
+    final InputStream body = new ByteArrayInputStream("abc".getBytes("UTF-8"));
+    assertSame(body, HttpCompression.disabled().decompress(body, "gzip"));
+    assertSame(body, new HttpCompression(Arrays.asList("gzip"), HttpCompression.DEFAULT_LEVEL, 0,
+        Collections.<String> emptyList()).decompress(body, "compress"));
+  }
+
+  @Test
+  public void decompressTooLarge() throws Exception {
+    final HttpCompression limited = new HttpCompression(Collections.<String> emptyList(),
+        HttpCompression.DEFAULT_LEVEL, 0, Collections.<String> emptyList(), 1000);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    OutputStream out = compression.compress(buffer, "gzip");
+    out.write(new byte[1001]);
+    out.close();
+
+    InputStream in = limited.decompress(new ByteArrayInputStream(buffer.toByteArray()), "gzip");
+    try {
+      StringHelper.inputStreamToString(in);
+      fail("Expected exception not thrown.");
+    } catch (final IOException e) {
+      assertTrue(e.getCause() instanceof ODataBadRequestException);
+      assertEquals(ODataBadRequestException.BODY_TOO_LARGE.getKey(),
+          ((ODataBadRequestException) e.getCause()).getMessageReference().getKey());
+    }
+
+    buffer = new ByteArrayOutputStream();
+    out = compression.compress(buffer, "deflate");
+    out.write(new byte[1000]);
+    out.close();
+    in = limited.decompress(new ByteArrayInputStream(buffer.toByteArray()), "deflate");
+    assertEquals(1000, in.skip(2000));
+    assertEquals(-1, in.read());
+  }
+
+  @Test(expected = ODataUnsupportedMediaTypeException.class)
+  public void decompressUnsupported() throws Exception {
+    compression.decompress(new ByteArrayInputStream(new byte[0]), "compress");
+  }
+
+  @Test(expected = ODataBadRequestException.class)
+  public void decompressInvalid() throws Exception {
+    compression.decompress(new ByteArrayInputStream("abc".getBytes("UTF-8")), "gzip");
+  }
+}
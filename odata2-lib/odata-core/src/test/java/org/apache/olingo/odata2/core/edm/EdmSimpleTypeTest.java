@@ -31,9 +31,15 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Random;
 import java.util.TimeZone;
 import java.util.UUID;
 
@@ -1763,6 +1769,93 @@ public class EdmSimpleTypeTest extends BaseTest {
     expectTypeErrorInValueOfString(instance, "PT0S", EdmLiteralKind.DEFAULT);
   }
 
+  @Test
+  public void dateTimeArithmetic() throws Exception {
+    final EdmSimpleType dateTime = EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance();
+    final EdmSimpleType dateTimeOffset = EdmSimpleTypeKind.DateTimeOffset.getEdmSimpleTypeInstance();
+    Calendar expected = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    expected.clear();
+    expected.set(1, 0, 1);
+    final long min = expected.getTimeInMillis();
+    expected.set(9999, 11, 31, 23, 59, 59);
+    final long max = expected.getTimeInMillis();
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      final long millis = i < 8 ?
+          new long[] { min, max, DateTimeFormat.FIRST_GREGORIAN_MILLIS, DateTimeFormat.FIRST_GREGORIAN_MILLIS - 1,
+              -12219292800000L, 951782400000L, -1L, 0L }[i] :
+          min + (long) (random.nextDouble() * (max - min));
+      expected.setTimeInMillis(millis);
+      final String literal = String.format("%04d-%02d-%02dT%02d:%02d:%02d",
+          expected.get(Calendar.YEAR), expected.get(Calendar.MONTH) + 1, expected.get(Calendar.DAY_OF_MONTH),
+          expected.get(Calendar.HOUR_OF_DAY), expected.get(Calendar.MINUTE), expected.get(Calendar.SECOND))
+          + (expected.get(Calendar.MILLISECOND) == 0 ? "" :
+              String.format(".%03d", expected.get(Calendar.MILLISECOND)).replaceAll("0+$", ""));
+      assertEquals(literal, dateTime.valueToString(millis, EdmLiteralKind.DEFAULT, null));
+      assertEquals(literal + "Z", dateTimeOffset.valueToString(millis, EdmLiteralKind.DEFAULT, null));
+      assertEquals(Long.valueOf(millis), dateTime.valueOfString(literal, EdmLiteralKind.DEFAULT, null, Long.class));
+      assertEquals(expected, dateTime.valueOfString(literal, EdmLiteralKind.DEFAULT, null, Calendar.class));
+      assertEquals(Long.valueOf(millis - 90 * 60 * 1000),
+          dateTimeOffset.valueOfString(literal + "+01:30", EdmLiteralKind.DEFAULT, null, Long.class));
+    }
+
+    expectErrorInValueOfString(dateTime, "1582-10-10T00:00:00", EdmLiteralKind.DEFAULT, null,
+        EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+    expectErrorInValueOfString(dateTime, "0-01-01T00:00", EdmLiteralKind.DEFAULT, null,
+        EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+    expectErrorInValueOfString(dateTime, "2100-02-29T00:00", EdmLiteralKind.DEFAULT, null,
+        EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+    expectErrorInValueOfString(dateTime, "2012-02-29T23:60", EdmLiteralKind.DEFAULT, null,
+        EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+    expectErrorInValueOfString(dateTime, "2012-02-29T23:32:002", EdmLiteralKind.DEFAULT, null,
+        EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+  }
+
+  @Test
+  public void javaTime() throws Exception {
+    final EdmSimpleType dateTime = EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance();
+    final LocalDateTime localDateTime = LocalDateTime.of(2012, 2, 29, 23, 32, 3, 7000000);
+    assertEquals("2012-02-29T23:32:03.007", dateTime.valueToString(localDateTime, EdmLiteralKind.DEFAULT, null));
+    assertEquals("/Date(1330558323007)/", dateTime.valueToString(localDateTime, EdmLiteralKind.JSON, null));
+    assertEquals("datetime'2012-02-29T23:32:03.007'",
+        dateTime.valueToString(localDateTime.toInstant(ZoneOffset.UTC), EdmLiteralKind.URI, null));
+    assertEquals("0800-02-29T00:00:00.000000042",
+        dateTime.valueToString(LocalDateTime.of(800, 2, 29, 0, 0, 0, 42), EdmLiteralKind.DEFAULT, null));
+    expectErrorInValueToString(dateTime, localDateTime.withNano(42), EdmLiteralKind.JSON, null,
+        EdmSimpleTypeException.VALUE_ILLEGAL_CONTENT);
+    assertEquals(localDateTime, dateTime.valueOfString("2012-02-29T23:32:03.007", EdmLiteralKind.DEFAULT, null,
+        LocalDateTime.class));
+    assertEquals(localDateTime, dateTime.valueOfString("/Date(1330558323007)/", EdmLiteralKind.JSON, null,
+        LocalDateTime.class));
+    assertEquals(Instant.ofEpochSecond(1330558323, 123456789), dateTime.valueOfString(
+        "datetime'2012-02-29T23:32:03.123456789'", EdmLiteralKind.URI, null, Instant.class));
+
+    final EdmSimpleType dateTimeOffset = EdmSimpleTypeKind.DateTimeOffset.getEdmSimpleTypeInstance();
+    final OffsetDateTime offsetDateTime = OffsetDateTime.of(localDateTime, ZoneOffset.ofHoursMinutes(-1, -30));
+    assertEquals("2012-03-01T01:02:03.007Z",
+        dateTimeOffset.valueToString(offsetDateTime, EdmLiteralKind.DEFAULT, null));
+    assertEquals(offsetDateTime, dateTimeOffset.valueOfString("2012-02-29T23:32:03.007-01:30",
+        EdmLiteralKind.DEFAULT, null, OffsetDateTime.class));
+    assertEquals(offsetDateTime, dateTimeOffset.valueOfString("/Date(1330558323007-0090)/",
+        EdmLiteralKind.JSON, null, OffsetDateTime.class));
+    assertEquals(offsetDateTime.toInstant(), dateTimeOffset.valueOfString(
+        "datetimeoffset'2012-02-29T23:32:03.007-01:30'", EdmLiteralKind.URI, null, Instant.class));
+    expectUnconvertibleErrorInValueOfString(dateTimeOffset, "2012-02-29T23:32:03+19:00", OffsetDateTime.class);
+
+    final EdmSimpleType time = EdmSimpleTypeKind.Time.getEdmSimpleTypeInstance();
+    final LocalTime localTime = LocalTime.of(23, 32, 3, 123456789);
+    assertEquals("PT23H32M3.123456789S", time.valueToString(localTime, EdmLiteralKind.DEFAULT, null));
+    assertEquals("time'PT23H32M3S'", time.valueToString(localTime.withNano(0), EdmLiteralKind.URI, null));
+    expectErrorInValueToString(time, localTime, EdmLiteralKind.DEFAULT, getPrecisionScaleFacets(8, null),
+        EdmSimpleTypeException.VALUE_FACETS_NOT_MATCHED);
+    assertEquals(localTime, time.valueOfString("PT23H32M3.123456789S", EdmLiteralKind.DEFAULT, null,
+        LocalTime.class));
+    assertEquals(localTime.withNano(0), time.valueOfString("PT84723S", EdmLiteralKind.DEFAULT, null,
+        LocalTime.class));
+    expectUnconvertibleErrorInValueOfString(time, "PT24H", LocalTime.class);
+    expectUnconvertibleErrorInValueOfString(time, "P1DT1H", LocalTime.class);
+  }
+
   @Test
   public void validate() throws Exception {
     for (EdmSimpleTypeKind kind : EdmSimpleTypeKind.values()) {
@@ -1788,5 +1881,13 @@ public class EdmSimpleTypeTest extends BaseTest {
         getPrecisionScaleFacets(null, null)));
     assertFalse(EdmSimpleTypeKind.Decimal.getEdmSimpleTypeInstance().validate("1.2", EdmLiteralKind.DEFAULT,
         getPrecisionScaleFacets(null, 0)));
+    assertTrue(EdmSimpleTypeKind.Decimal.getEdmSimpleTypeInstance().validate("-000.100", EdmLiteralKind.DEFAULT,
+        getPrecisionScaleFacets(1, 1)));
+    assertTrue(EdmSimpleTypeKind.Decimal.getEdmSimpleTypeInstance().validate("+0", EdmLiteralKind.DEFAULT,
+        getPrecisionScaleFacets(0, 0)));
+    assertFalse(EdmSimpleTypeKind.Decimal.getEdmSimpleTypeInstance().validate("1.0", EdmLiteralKind.DEFAULT,
+        getPrecisionScaleFacets(null, 0)));
+    assertFalse(EdmSimpleTypeKind.Decimal.getEdmSimpleTypeInstance().validate("1.5m", EdmLiteralKind.JSON, null));
+    assertFalse(EdmSimpleTypeKind.Decimal.getEdmSimpleTypeInstance().validate("+", EdmLiteralKind.DEFAULT, null));
   }
 }
@@ -19,16 +19,27 @@
 package org.apache.olingo.odata2.core.edm.provider;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.olingo.odata2.api.commons.HttpContentType;
 import org.apache.olingo.odata2.api.edm.EdmAssociation;
 import org.apache.olingo.odata2.api.edm.EdmComplexType;
+import org.apache.olingo.odata2.api.edm.EdmEntityContainer;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmNavigationProperty;
 import org.apache.olingo.odata2.api.edm.FullQualifiedName;
 import org.apache.olingo.odata2.api.edm.provider.AliasInfo;
 import org.apache.olingo.odata2.api.edm.provider.Association;
@@ -36,7 +47,11 @@ import org.apache.olingo.odata2.api.edm.provider.ComplexType;
 import org.apache.olingo.odata2.api.edm.provider.EdmProvider;
 import org.apache.olingo.odata2.api.edm.provider.EntityContainerInfo;
 import org.apache.olingo.odata2.api.edm.provider.EntityType;
+import org.apache.olingo.odata2.api.ep.EntityProvider;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.apache.olingo.odata2.testutil.helper.StringHelper;
+import org.apache.olingo.odata2.testutil.mock.EdmTestProvider;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -132,4 +147,64 @@ public class EdmImplProvTest extends BaseTest {
   public void testDefaultEntityContainer() throws EdmException {
     assertEquals(edm.getEntityContainer("Container1"), edm.getDefaultEntityContainer());
   }
+
+  @Test
+  public void frozenEdmDoesNotAskProviderAgain() throws Exception {
+    EdmImplProv frozenEdm = new EdmImplProv(new EdmTestProvider());
+    assertFalse(frozenEdm.isFrozen());
+    frozenEdm.freeze();
+    assertTrue(frozenEdm.isFrozen());
+
+    EdmProvider unusedProvider = mock(EdmProvider.class);
+    frozenEdm.edmProvider = unusedProvider;
+
+    EdmEntityContainer container = frozenEdm.getDefaultEntityContainer();
+    assertSame(container, frozenEdm.getEntityContainer("Container1"));
+    EdmEntitySet employees = container.getEntitySet("Employees");
+    assertSame(employees, container.getEntitySet("Employees"));
+    EdmEntityType employee = employees.getEntityType();
+    assertSame(employee, frozenEdm.getEntityType("RefScenario", "Employee"));
+    assertNotNull(employee.getProperty("Location"));
+    assertNotNull(employee.getKeyProperties());
+    EdmEntitySet managers =
+        employees.getRelatedEntitySet((EdmNavigationProperty) employee.getProperty("ne_Manager"));
+    assertEquals("Managers", managers.getName());
+    assertNotNull(container.getFunctionImport("EmployeeSearch"));
+    assertEquals(container.getEntitySets(), container.getEntitySets());
+    assertNotNull(frozenEdm.getServiceMetadata().getEntitySetInfos());
+
+    assertNull(frozenEdm.getEntityType("RefScenario", "Unknown"));
+    assertNull(container.getEntitySet("Unknown"));
+    assertNull(container.getFunctionImport("Unknown"));
+    verifyZeroInteractions(unusedProvider);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void frozenEdmIsImmutable() throws Exception {
+    EdmImplProv frozenEdm = new EdmImplProv(new EdmTestProvider());
+    frozenEdm.freeze();
+    frozenEdm.getEntitySets().clear();
+  }
+
+  @Test
+  public void frozenEdmServesSerializedDocuments() throws Exception {
+    EdmImplProv frozenEdm = new EdmImplProv(new EdmTestProvider());
+    assertNull(((EdmServiceMetadataImplProv) frozenEdm.getServiceMetadata()).getMetadataETag());
+    frozenEdm.freeze();
+
+    final String eTag = ((EdmServiceMetadataImplProv) frozenEdm.getServiceMetadata()).getMetadataETag();
+    assertNotNull(eTag);
+    assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+    assertEquals(StringHelper.inputStreamToString(frozenEdm.getServiceMetadata().getMetadata()),
+        StringHelper.inputStreamToString(frozenEdm.getServiceMetadata().getMetadata()));
+
+    final ODataResponse response =
+        EntityProvider.writeServiceDocument(HttpContentType.APPLICATION_ATOM_SVC, frozenEdm, "http://host/service/");
+    assertNotNull(response.getETag());
+    final ODataResponse secondResponse =
+        EntityProvider.writeServiceDocument(HttpContentType.APPLICATION_ATOM_SVC, frozenEdm, "http://host/service/");
+    assertEquals(response.getETag(), secondResponse.getETag());
+    assertEquals(StringHelper.inputStreamToString((InputStream) response.getEntity()),
+        StringHelper.inputStreamToString((InputStream) secondResponse.getEntity()));
+  }
 }
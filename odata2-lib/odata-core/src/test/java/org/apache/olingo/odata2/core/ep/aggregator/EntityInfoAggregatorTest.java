@@ -21,13 +21,26 @@ package org.apache.olingo.odata2.core.ep.aggregator;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.olingo.odata2.api.edm.Edm;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
 import org.apache.olingo.odata2.api.edm.EdmTypeKind;
 import org.apache.olingo.odata2.api.uri.ExpandSelectTreeNode;
+import org.apache.olingo.odata2.core.edm.provider.EdmImplProv;
 import org.apache.olingo.odata2.core.ep.AbstractProviderTest;
+import org.apache.olingo.odata2.testutil.mock.EdmTestProvider;
 import org.apache.olingo.odata2.testutil.mock.MockFacade;
 import org.junit.Test;
 
@@ -75,4 +88,53 @@ public class EntityInfoAggregatorTest extends AbstractProviderTest {
     assertFalse(cityInfo.getPropertyInfo("PostalCode").isComplex());
     assertEquals("String", cityInfo.getPropertyInfo("PostalCode").getType().getName());
   }
+
+  @Test
+  public void cachedPerEntitySetAndTree() throws Exception {
+    final Edm edm = new EdmImplProv(new EdmTestProvider());
+    EdmEntitySet entitySet = edm.getDefaultEntityContainer().getEntitySet("Employees");
+    final EntityInfoAggregator eia = EntityInfoAggregator.create(entitySet);
+    assertSame(eia, EntityInfoAggregator.create(entitySet, null));
+
+    EdmProperty age = (EdmProperty) entitySet.getEntityType().getProperty("Age");
+    final EntityInfoAggregator selected = EntityInfoAggregator.create(entitySet, mockTree(age));
+    assertNotSame(eia, selected);
+    assertEquals(Arrays.asList("Age"), selected.getSelectedPropertyNames());
+    assertSame(selected, EntityInfoAggregator.create(entitySet, mockTree(age)));
+
+    // the cache belongs to the entity data model
+    assertNotSame(eia, EntityInfoAggregator.create(
+        new EdmImplProv(new EdmTestProvider()).getDefaultEntityContainer().getEntitySet("Employees")));
+  }
+
+  @Test
+  public void notCachedForOtherEntitySets() throws Exception {
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Employees");
+    assertNotSame(EntityInfoAggregator.create(entitySet), EntityInfoAggregator.create(entitySet));
+  }
+
+  @Test
+  public void linkTemplate() throws Exception {
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Employees");
+    EntityLinkTemplate template = EntityInfoAggregator.create(entitySet).getLinkTemplate();
+    assertEquals("Employees('1')", template.createLink(Collections.<String, Object> singletonMap("EmployeeId", "1"),
+        null));
+    assertEquals("Employees('a%2Fb')/ne_Manager", template.createLink(
+        Collections.<String, Object> singletonMap("EmployeeId", "a/b"), "ne_Manager"));
+
+    entitySet = MockFacade.getMockEdm().getEntityContainer("Container2").getEntitySet("Photos");
+    Map<String, Object> key = new HashMap<String, Object>();
+    key.put("Id", 1);
+    key.put("Type", "image/png");
+    assertEquals("Container2.Photos(Id=1,Type='image%2Fpng')",
+        EntityInfoAggregator.create(entitySet).getLinkTemplate().createLink(key, null));
+  }
+
+  private ExpandSelectTreeNode mockTree(final EdmProperty property) {
+    ExpandSelectTreeNode tree = mock(ExpandSelectTreeNode.class);
+    when(tree.isAll()).thenReturn(false);
+    when(tree.getProperties()).thenReturn(Collections.singletonList(property));
+    when(tree.getLinks()).thenReturn(Collections.<String, ExpandSelectTreeNode> emptyMap());
+    return tree;
+  }
 }
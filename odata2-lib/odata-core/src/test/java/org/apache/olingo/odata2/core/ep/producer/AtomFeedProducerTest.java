@@ -21,6 +21,7 @@ package org.apache.olingo.odata2.core.ep.producer;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathEvaluatesTo;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathExists;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathNotExists;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
@@ -33,6 +34,7 @@ import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -576,4 +578,33 @@ public class AtomFeedProducerTest extends AbstractProviderTest {
 
     return feedData;
   }
+
+  @Test
+  public void feedFromIterator() throws Exception {
+    initializeRoomData(3);
+    AtomEntityProvider ser = createAtomEntityProvider();
+    EntityProviderWriteProperties properties = EntityProviderWriteProperties.serviceRoot(BASE_URI)
+        .inlineCount(Integer.valueOf(3)).inlineCountType(InlineCount.ALLPAGES).nextLink("http://nextLink").build();
+    final Iterator<Map<String, Object>> iterator = roomsData.iterator();
+    ODataResponse response = ser.writeFeed(view.getTargetEntitySet(), iterator, properties);
+    assertTrue(iterator.hasNext());
+    String xmlString = verifyResponse(response);
+    assertFalse(iterator.hasNext());
+
+    assertXpathEvaluatesTo("3", "/a:feed/m:count", xmlString);
+    assertXpathEvaluatesTo("3", "count(/a:feed/a:entry)", xmlString);
+    assertXpathEvaluatesTo("Rooms('3')", "/a:feed/a:entry[3]/a:link[@rel='edit']/@href", xmlString);
+    assertXpathEvaluatesTo("http://nextLink", "/a:feed/a:link[@rel='next']/@href", xmlString);
+  }
+
+  @Test
+  public void emptyFeedFromIterator() throws Exception {
+    AtomEntityProvider ser = createAtomEntityProvider();
+    ODataResponse response = ser.writeFeed(view.getTargetEntitySet(),
+        new ArrayList<Map<String, Object>>().iterator(), DEFAULT_PROPERTIES);
+    String xmlString = verifyResponse(response);
+
+    assertXpathExists("/a:feed/a:link[@rel='self']", xmlString);
+    assertXpathNotExists("/a:feed/a:entry", xmlString);
+  }
 }
@@ -25,10 +25,13 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -48,6 +51,7 @@ import org.apache.olingo.odata2.api.ep.entry.ODataEntry;
 import org.apache.olingo.odata2.api.ep.feed.ODataFeed;
 import org.apache.olingo.odata2.api.exception.ODataApplicationException;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.WriteThroughEntity;
 import org.apache.olingo.odata2.api.uri.ExpandSelectTreeNode;
 import org.apache.olingo.odata2.core.ep.EntityProviderProducerException;
 import org.apache.olingo.odata2.core.ep.JsonEntityProvider;
@@ -495,4 +499,97 @@ public class JsonFeedEntityProducerTest extends BaseTest {
         +BASE_URI+"Employees('1')/$value\",\"edit_media\":\""+BASE_URI+"Employees('1')/$value\"},\"EmployeeId\":\"1\","
         + "\"RoomId\":\"1\"}]}}}", json);
   }
+
+  @Test
+  public void feedFromIterator() throws Exception {
+    final EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    List<Map<String, Object>> teamsData = new ArrayList<Map<String, Object>>();
+    for (int i = 1; i <= 3; i++) {
+      Map<String, Object> teamData = new HashMap<String, Object>();
+      teamData.put("Id", String.valueOf(i));
+      teamData.put("isScrumTeam", i % 2 == 0);
+      teamsData.add(teamData);
+    }
+    final EntityProviderWriteProperties properties = EntityProviderWriteProperties.serviceRoot(URI.create(BASE_URI))
+        .inlineCountType(InlineCount.ALLPAGES).inlineCount(3).nextLink("http://nextLink").build();
+
+    final String expected = StringHelper.inputStreamToString((InputStream)
+        new JsonEntityProvider().writeFeed(entitySet, teamsData, properties).getEntity());
+
+    CountingIterator iterator = new CountingIterator(teamsData.iterator());
+    final ODataResponse response = new JsonEntityProvider().writeFeed(entitySet, iterator, properties);
+    assertEquals(0, iterator.count);
+
+    InputStream content = (InputStream) response.getEntity();
+    final byte[] start = new byte[10];
+    assertEquals(10, content.read(start));
+    assertEquals("{\"d\":{\"__c", new String(start, "UTF-8"));
+    assertEquals(0, iterator.count);
+
+    final String json = new String(start, "UTF-8") + StringHelper.inputStreamToString(content);
+    assertEquals(3, iterator.count);
+    assertTrue(iterator.closed);
+    assertEquals(expected, json);
+  }
+
+  @Test
+  public void feedFromIteratorWrittenThrough() throws Exception {
+    final EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    List<Map<String, Object>> teamsData = new ArrayList<Map<String, Object>>();
+    for (int i = 1; i <= 3; i++) {
+      Map<String, Object> teamData = new HashMap<String, Object>();
+      teamData.put("Id", String.valueOf(i));
+      teamsData.add(teamData);
+    }
+    final String expected = StringHelper.inputStreamToString((InputStream)
+        new JsonEntityProvider().writeFeed(entitySet, teamsData, DEFAULT_PROPERTIES).getEntity());
+
+    CountingIterator iterator = new CountingIterator(teamsData.iterator());
+    final Object entity = new JsonEntityProvider().writeFeed(entitySet, iterator, DEFAULT_PROPERTIES).getEntity();
+    assertTrue(entity instanceof WriteThroughEntity);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((WriteThroughEntity) entity).writeTo(out);
+    assertEquals(expected, out.toString("UTF-8"));
+    assertEquals(3, iterator.count);
+    assertTrue(iterator.closed);
+  }
+
+  @Test
+  public void emptyFeedFromIterator() throws Exception {
+    final EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    final ODataResponse response = new JsonEntityProvider().writeFeed(entitySet,
+        new ArrayList<Map<String, Object>>().iterator(), DEFAULT_PROPERTIES);
+    assertEquals("{\"d\":{\"results\":[]}}", StringHelper.inputStreamToString((InputStream) response.getEntity()));
+  }
+
+  private static class CountingIterator implements Iterator<Map<String, Object>>, Closeable {
+    private final Iterator<Map<String, Object>> iterator;
+    private int count = 0;
+    private boolean closed = false;
+
+    public CountingIterator(final Iterator<Map<String, Object>> iterator) {
+      this.iterator = iterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public Map<String, Object> next() {
+      count++;
+      return iterator.next();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
 }
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.junit.Test;
+
+/**
+ *  
+ */
+public class ByteBufferPoolTest extends BaseTest {
+
+  @Test
+  public void sizeClasses() {
+    ByteBufferPool pool = new ByteBufferPool(1000, 4096, 2, false);
+    assertEquals(1024, pool.acquire(1).capacity());
+    assertEquals(1024, pool.acquire(1024).capacity());
+    assertEquals(2048, pool.acquire(1025).capacity());
+    assertEquals(4096, pool.acquire(4096).capacity());
+    assertEquals(5000, pool.acquire(5000).capacity());
+    assertEquals(5, pool.getInUseCount());
+    assertEquals(0, pool.getHitCount());
+  }
+
+  @Test
+  public void reuse() {
+    ByteBufferPool pool = new ByteBufferPool(1024, 4096, 2, false);
+    ByteBuffer buffer = pool.acquire(2000);
+    buffer.put((byte) 1);
+    pool.release(buffer);
+    assertEquals(1, pool.getFreeCount());
+
+    ByteBuffer second = pool.acquire(1500);
+    assertSame(buffer, second);
+    assertEquals(0, second.position());
+    assertEquals(1, pool.getHitCount());
+    assertEquals(0.5, pool.getHitRate(), 0.0);
+    assertNotSame(second, pool.acquire(1500));
+  }
+
+  @Test
+  public void bounded() {
+    ByteBufferPool pool = new ByteBufferPool(1024, 1024, 2, false);
+    ByteBuffer[] buffers = new ByteBuffer[4];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = pool.acquire(100);
+    }
+    assertEquals(4, pool.getPeakInUseCount());
+    for (ByteBuffer buffer : buffers) {
+      pool.release(buffer);
+    }
+    assertEquals(2, pool.getFreeCount());
+    assertEquals(0, pool.getInUseCount());
+    assertEquals(4, pool.getPeakInUseCount());
+
+    // buffers which have not been taken from the pool are not kept
+    pool.acquire(100);
+    pool.acquire(100);
+    pool.release(ByteBuffer.allocate(1000));
+    pool.release(ByteBuffer.allocateDirect(1024));
+    assertEquals(0, pool.getFreeCount());
+  }
+
+  @Test
+  public void direct() {
+    ByteBufferPool pool = new ByteBufferPool(1024, 1024, 2, true);
+    assertTrue(pool.isDirect());
+    assertTrue(pool.acquire(10).isDirect());
+    assertFalse(ByteBufferPool.getDefault().isDirect());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidConfiguration() {
+    new ByteBufferPool(0, 1024, 2, false);
+  }
+}
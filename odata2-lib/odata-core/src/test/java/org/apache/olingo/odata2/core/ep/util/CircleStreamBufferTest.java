@@ -19,6 +19,7 @@
 package org.apache.olingo.odata2.core.ep.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -291,6 +292,33 @@ public class CircleStreamBufferTest extends BaseTest {
     write.write("Test".getBytes(), 0, 4);
   }
 
+  @Test
+  public void buffersAreGivenBackToPool() throws Exception {
+    ByteBufferPool pool = new ByteBufferPool(1024, 8192, 4, false);
+    CircleStreamBuffer csb = new CircleStreamBuffer(1024, pool);
+    final String testData = createTestString(20000);
+    csb.getOutputStream().write(testData.getBytes(DEFAULT_CHARSET));
+    csb.closeWrite();
+    assertTrue(pool.getInUseCount() > 1);
+
+    assertEquals(testData, readFrom(csb.getInputStream()));
+    assertTrue(pool.getInUseCount() <= 1);
+    csb.getInputStream().close();
+    assertEquals(0, pool.getInUseCount());
+    final int free = pool.getFreeCount();
+    assertTrue(free > 0);
+    // closing twice must not give the buffers back twice
+    csb.close();
+    assertEquals(free, pool.getFreeCount());
+
+    CircleStreamBuffer secondCsb = new CircleStreamBuffer(1024, pool);
+    secondCsb.getOutputStream().write("Test".getBytes(DEFAULT_CHARSET));
+    assertTrue(pool.getHitCount() > 0);
+    secondCsb.getInputStream().close();
+    secondCsb.getOutputStream().write("dropped".getBytes(DEFAULT_CHARSET));
+    assertEquals(0, pool.getInUseCount());
+  }
+
   // ###################################################
   // #
   // # Below here are test helper methods
@@ -20,6 +20,7 @@ package org.apache.olingo.odata2.core.ep.util;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
 
 import org.apache.olingo.odata2.testutil.fit.BaseTest;
@@ -80,4 +81,23 @@ public class JsonStreamWriterTest extends BaseTest {
         + "\"escaped\":\"\\\"\\\\\"}",
         writer.toString());
   }
+
+  @Test
+  public void utf8Writer() throws Exception {
+    final String value = "\b\"\\ \u0001\u001F € " + String.valueOf(Character.toChars(0x1F603));
+    StringWriter expected = new StringWriter();
+    new JsonStreamWriter(expected).beginObject()
+        .name(FormatJson.METADATA).beginObject().namedStringValue(FormatJson.URI, value).endObject().separator()
+        .namedStringValue("name", value)
+        .endObject();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Utf8Writer writer = new Utf8Writer(out);
+    new JsonStreamWriter(writer).beginObject()
+        .name(FormatJson.METADATA).beginObject().namedStringValue(FormatJson.URI, value).endObject().separator()
+        .namedStringValue("name", value)
+        .endObject();
+    writer.flush();
+    assertEquals(expected.toString(), new String(out.toByteArray(), "UTF-8"));
+  }
 }
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.ep.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.junit.Test;
+
+/**
+ *  
+ */
+public class Utf8WriterTest extends BaseTest {
+
+  private static final String TEXT = "abc / ? \u007F äöü € ﷼ "
+      + String.valueOf(Character.toChars(0x1F603)) + " end";
+
+  @Test
+  public void sameBytesAsOutputStreamWriter() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      builder.append(TEXT);
+    }
+    final String text = builder.toString();
+
+    assertArrayEquals(encode(text), write(text));
+  }
+
+  @Test
+  public void surrogatePairAcrossWrites() throws Exception {
+    final String smiley = String.valueOf(Character.toChars(0x1F603));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Utf8Writer writer = new Utf8Writer(out);
+    writer.append(smiley.charAt(0));
+    writer.flush();
+    writer.write(smiley.substring(1));
+    writer.close();
+    assertArrayEquals(smiley.getBytes("UTF-8"), out.toByteArray());
+  }
+
+  @Test
+  public void unpairedSurrogates() throws Exception {
+    final String text = "a\uD83Db\uDE03c\uD83D";
+    assertArrayEquals(encode(text), write(text));
+    assertEquals("a?b?c?", new String(write(text), "UTF-8"));
+  }
+
+  @Test
+  public void encodedBytes() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Utf8Writer writer = new Utf8Writer(out);
+    writer.write("ä");
+    writer.writeEncoded("\"uri\":".getBytes("US-ASCII"));
+    writer.writeEncoded(new byte[10000]);
+    writer.close();
+    assertEquals(2 + 6 + 10000, out.size());
+    assertEquals("ä\"uri\":", new String(out.toByteArray(), 0, 8, "UTF-8"));
+  }
+
+  private byte[] write(final String text) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = new Utf8Writer(out);
+    writer.write(text);
+    writer.close();
+    return out.toByteArray();
+  }
+
+  private byte[] encode(final String text) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = new OutputStreamWriter(out, "UTF-8");
+    writer.write(text);
+    writer.close();
+    return out.toByteArray();
+  }
+}
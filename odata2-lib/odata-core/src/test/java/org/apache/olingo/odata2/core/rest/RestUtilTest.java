@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.core.commons.HttpCompression;
+import org.apache.olingo.odata2.testutil.helper.StringHelper;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class RestUtilTest {
+
+  private final HttpCompression compression = new HttpCompression(Arrays.asList("gzip"),
+      HttpCompression.DEFAULT_LEVEL, 100, Collections.<String> emptyList());
+
+  @Test
+  public void compressedResponse() throws Exception {
+    final String content = StringHelper.generateData(5000);
+    final ODataResponse odataResponse = ODataResponse.status(HttpStatusCodes.OK).contentHeader("application/json")
+        .header(HttpHeaders.CONTENT_LENGTH, "5000").entity(new ByteArrayInputStream(content.getBytes("UTF-8")))
+        .build();
+    final Response response = RestUtil.convertResponse(odataResponse, false, compression, "gzip");
+
+    assertEquals("gzip", response.getMetadata().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getMetadata().getFirst(HttpHeaders.VARY));
+    assertNull(response.getMetadata().getFirst(HttpHeaders.CONTENT_LENGTH));
+    assertTrue(response.getEntity() instanceof StreamingOutput);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(out);
+    assertEquals(content, StringHelper.inputStreamToString(
+        new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))));
+  }
+
+  @Test
+  public void compressedResponseKeepsETag() throws Exception {
+    final ODataResponse odataResponse = ODataResponse.status(HttpStatusCodes.OK).contentHeader("application/xml")
+        .eTag("\"1\"").entity(StringHelper.generateData(5000)).build();
+    final Response response = RestUtil.convertResponse(odataResponse, false, compression, "gzip");
+
+    assertEquals("gzip", response.getMetadata().getFirst(HttpHeaders.CONTENT_ENCODING));
+    // the entity tag must still match the If-Match header of a following update
+    assertEquals("\"1\"", response.getMetadata().getFirst(HttpHeaders.ETAG));
+    assertEquals(1, response.getMetadata().get(HttpHeaders.ETAG).size());
+  }
+
+  @Test
+  public void uncompressedResponseKeepsETag() throws Exception {
+    final ODataResponse odataResponse = ODataResponse.status(HttpStatusCodes.OK).contentHeader("application/xml")
+        .eTag("\"1\"").entity(StringHelper.generateData(5000)).build();
+    final Response response = RestUtil.convertResponse(odataResponse, false, compression, null);
+
+    assertEquals("\"1\"", response.getMetadata().getFirst(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void smallResponseNotCompressed() throws Exception {
+    final ODataResponse odataResponse = ODataResponse.status(HttpStatusCodes.OK).contentHeader("application/json")
+        .entity(new ByteArrayInputStream("{}".getBytes("UTF-8"))).build();
+    final Response response = RestUtil.convertResponse(odataResponse, false, compression, "gzip");
+
+    assertNull(response.getMetadata().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getMetadata().getFirst(HttpHeaders.VARY));
+    assertEquals("{}", StringHelper.inputStreamToString((InputStream) response.getEntity()));
+  }
+
+  @Test
+  public void noCompressionWithoutAcceptEncoding() throws Exception {
+    final String content = StringHelper.generateData(5000);
+    final ODataResponse odataResponse = ODataResponse.status(HttpStatusCodes.OK).contentHeader("application/json")
+        .entity(content).build();
+    final Response response = RestUtil.convertResponse(odataResponse, false, compression, null);
+
+    assertNull(response.getMetadata().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(content, response.getEntity());
+  }
+}
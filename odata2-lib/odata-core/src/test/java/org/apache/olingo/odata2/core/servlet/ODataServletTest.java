@@ -22,12 +22,14 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Random;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.GenericServlet;
 import javax.servlet.ServletConfig;
@@ -44,6 +46,8 @@ import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataProcessor;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.core.ODataResponseImpl;
+import org.apache.olingo.odata2.core.commons.HttpCompression;
+import org.apache.olingo.odata2.core.ep.util.IncrementalInputStream;
 import org.apache.olingo.odata2.core.rest.ODataServiceFactoryImpl;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -123,6 +127,39 @@ public class ODataServletTest {
     Mockito.verify(respMock).setContentLength(content.getBytes("utf-8").length);
   }
 
+  @Test
+  public void writeThroughEntity() throws Exception {
+    final Method createResponse =
+        ODataServlet.class.getDeclaredMethod("createResponse", HttpServletResponse.class, ODataResponse.class);
+    createResponse.setAccessible(true);
+
+    final ODataServlet servlet = new ODataServlet();
+    final String content = "Test\r\n";
+    final IncrementalInputStream entity = new IncrementalInputStream() {
+      private int chunks = 0;
+
+      @Override
+      protected boolean writeNextChunk(final OutputStream out) throws IOException {
+        out.write(content.getBytes("utf-8"));
+        return ++chunks < 3;
+      }
+    }.start();
+    final ODataResponse response = ODataResponseImpl.status(HttpStatusCodes.OK).entity(entity).build();
+    final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    Mockito.when(respMock.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(final int b) throws IOException {
+        written.write(b);
+      }
+    });
+    prepareServlet(servlet);
+
+    createResponse.invoke(servlet, respMock, response);
+    Assert.assertEquals(content + content + content, written.toString("utf-8"));
+    Mockito.verify(respMock, Mockito.never()).setContentLength(Mockito.anyInt());
+    Assert.assertEquals(-1, entity.read());
+  }
+
   @Test
   public void contentLengthCalculatedStream() throws Exception {
     final Method createResponse =
@@ -191,6 +228,177 @@ public class ODataServletTest {
   }
 
 
+  @Test
+  public void copyBufferIsPooled() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    Mockito.when(configMock.getInitParameter(
+        "org.apache.olingo.odata2.core.servlet.buffer.size")).thenReturn("1024");
+    prepareServlet(servlet);
+    prepareResponseMockToWrite(respMock);
+
+    for (int i = 0; i < 3; i++) {
+      ODataResponse response = ODataResponseImpl.status(HttpStatusCodes.OK)
+          .entity(new ByteArrayInputStream(testData(5000).getBytes("utf-8"))).build();
+      servlet.createResponse(respMock, response);
+    }
+    Assert.assertEquals(3, servlet.getBufferPool().getAcquireCount());
+    Assert.assertEquals(2, servlet.getBufferPool().getHitCount());
+    Assert.assertEquals(0, servlet.getBufferPool().getInUseCount());
+    Assert.assertEquals(1, servlet.getBufferPool().getPeakInUseCount());
+  }
+
+  @Test
+  public void compressedResponse() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    prepareCompression("gzip,deflate");
+    prepareServlet(servlet);
+    Mockito.when(reqMock.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip;q=1, deflate;q=0.5");
+    final ByteArrayOutputStream bout = prepareResponseMockToWrite(respMock, new ByteArrayOutputStream());
+
+    final String content = testData(5000);
+    ODataResponse response = ODataResponseImpl.status(HttpStatusCodes.OK).contentHeader("application/json")
+        .header(HttpHeaders.CONTENT_LENGTH, "5000").entity(new ByteArrayInputStream(content.getBytes("utf-8")))
+        .build();
+    createResponse(servlet, response);
+
+    Mockito.verify(respMock).setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    Mockito.verify(respMock).setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    Mockito.verify(respMock, Mockito.never()).setHeader(Mockito.eq(HttpHeaders.CONTENT_LENGTH), Mockito.anyString());
+    Mockito.verify(respMock, Mockito.never()).setContentLength(Mockito.anyInt());
+    Assert.assertTrue(bout.size() < content.length());
+    Assert.assertEquals(content,
+        new String(readAll(new GZIPInputStream(new ByteArrayInputStream(bout.toByteArray()))), "utf-8"));
+  }
+
+  @Test
+  public void smallResponseNotCompressed() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    prepareCompression("gzip");
+    prepareServlet(servlet);
+    Mockito.when(reqMock.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip");
+    final ByteArrayOutputStream bout = prepareResponseMockToWrite(respMock, new ByteArrayOutputStream());
+
+    ODataResponse response = ODataResponseImpl.status(HttpStatusCodes.OK).contentHeader("application/json")
+        .entity(new ByteArrayInputStream("{}".getBytes("utf-8"))).build();
+    createResponse(servlet, response);
+
+    Mockito.verify(respMock, Mockito.never()).setHeader(Mockito.eq(HttpHeaders.CONTENT_ENCODING), Mockito.anyString());
+    Mockito.verify(respMock).setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    Mockito.verify(respMock).setContentLength(2);
+    Assert.assertEquals("{}", new String(bout.toByteArray(), "utf-8"));
+  }
+
+  @Test
+  public void excludedContentTypeNotCompressed() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    prepareCompression("gzip");
+    prepareServlet(servlet);
+    Mockito.when(reqMock.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip");
+    final ByteArrayOutputStream bout = prepareResponseMockToWrite(respMock, new ByteArrayOutputStream());
+
+    final String content = testData(5000);
+    ODataResponse response = ODataResponseImpl.status(HttpStatusCodes.OK).contentHeader("image/png")
+        .entity(content).build();
+    createResponse(servlet, response);
+
+    Mockito.verify(respMock, Mockito.never()).setHeader(Mockito.eq(HttpHeaders.CONTENT_ENCODING), Mockito.anyString());
+    Mockito.verify(respMock, Mockito.never()).setHeader(Mockito.eq(HttpHeaders.VARY), Mockito.anyString());
+    Assert.assertEquals(content, new String(bout.toByteArray(), "utf-8"));
+  }
+
+  @Test
+  public void responseNotCompressedByDefault() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    prepareServlet(servlet);
+    Mockito.when(reqMock.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip");
+    prepareResponseMockToWrite(respMock);
+
+    ODataResponse response = ODataResponseImpl.status(HttpStatusCodes.OK).contentHeader("application/json")
+        .entity(testData(5000)).build();
+    createResponse(servlet, response);
+
+    Mockito.verify(respMock, Mockito.never()).setHeader(Mockito.eq(HttpHeaders.CONTENT_ENCODING), Mockito.anyString());
+    Mockito.verify(respMock).setContentLength(5000);
+  }
+
+  @Test
+  public void responseWithoutRequestNotCompressed() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    prepareCompression("gzip");
+    prepareServlet(servlet);
+    prepareResponseMockToWrite(respMock);
+
+    ODataResponse response = ODataResponseImpl.status(HttpStatusCodes.OK).contentHeader("application/json")
+        .entity(testData(5000)).build();
+    servlet.createResponse(respMock, response, false);
+
+    Mockito.verify(respMock, Mockito.never()).setHeader(Mockito.eq(HttpHeaders.CONTENT_ENCODING), Mockito.anyString());
+    Mockito.verify(respMock).setContentLength(5000);
+  }
+
+  @Test
+  public void compressedResponseKeepsETag() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    prepareCompression("gzip");
+    prepareServlet(servlet);
+    Mockito.when(reqMock.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip");
+    prepareResponseMockToWrite(respMock);
+
+    ODataResponse response = ODataResponseImpl.status(HttpStatusCodes.OK).contentHeader("application/xml")
+        .eTag("\"1\"").entity(testData(5000)).build();
+    createResponse(servlet, response);
+
+    Mockito.verify(respMock).setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    // the entity tag must still match the If-Match header of a following update
+    Mockito.verify(respMock).setHeader(HttpHeaders.ETAG, "\"1\"");
+    Mockito.verify(respMock, Mockito.never()).setHeader(HttpHeaders.ETAG, "W/\"1\"");
+  }
+
+  @Test
+  public void overriddenCreateResponse() throws Exception {
+    final ODataResponse[] written = new ODataResponse[1];
+    ODataServlet servlet = new ODataServlet() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected void createResponse(final HttpServletRequest req, final HttpServletResponse resp,
+          final ODataResponse response, final boolean omitResponseBody) throws IOException {
+        written[0] = response;
+        super.createResponse(req, resp, response, omitResponseBody);
+      }
+    };
+    prepareServlet(servlet);
+    prepareRequest(reqMock, "", "/servlet-path");
+    Mockito.when(reqMock.getPathInfo()).thenReturn("/request-path-info");
+    Mockito.when(reqMock.getRequestURI()).thenReturn("http://localhost:8080/servlet-path/request-path-info");
+    Mockito.when(respMock.getOutputStream()).thenReturn(Mockito.mock(ServletOutputStream.class));
+
+    servlet.service(reqMock, respMock);
+
+    Assert.assertNotNull(written[0]);
+  }
+
+  private void createResponse(final ODataServlet servlet, final ODataResponse response) throws Exception {
+    prepareRequest(reqMock);
+    Mockito.when(reqMock.getPathInfo()).thenReturn("/request-path-info");
+    servlet.createResponse(reqMock, respMock, response, false);
+  }
+
+  private void prepareCompression(final String encodings) {
+    Mockito.when(configMock.getInitParameter(HttpCompression.ENCODINGS)).thenReturn(encodings);
+    Mockito.when(configMock.getInitParameter(HttpCompression.MIN_SIZE)).thenReturn("100");
+  }
+
+  private byte[] readAll(final InputStream in) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      result.write(buffer, 0, read);
+    }
+    return result.toByteArray();
+  }
+
   private void testInputStreamResponse(String content, String encoding, String bufferSize) throws Exception {
     ODataServlet servlet = new ODataServlet();
     Mockito.when(configMock.getInitParameter(
@@ -278,6 +486,17 @@ public class ODataServletTest {
     });
   }
 
+  private ByteArrayOutputStream prepareResponseMockToWrite(final HttpServletResponse response,
+      final ByteArrayOutputStream bout) throws IOException {
+    Mockito.when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        bout.write(b);
+      }
+    });
+    return bout;
+  }
+
   private void prepareRequest(final HttpServletRequest req, final String contextPath, final String servletPath) {
     Mockito.when(req.getMethod()).thenReturn("GET");
     Mockito.when(req.getContextPath()).thenReturn(contextPath);
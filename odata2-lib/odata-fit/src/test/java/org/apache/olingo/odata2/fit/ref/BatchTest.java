@@ -102,6 +102,21 @@ public class BatchTest extends AbstractRefTest {
     assertTrue(responseBody.contains("Frederic Fall MODIFIED"));
   }
 
+  @Test
+  public void changeSetNotExecutedIfCloseDelimiterIsMissing() throws Exception {
+    final String body = StringHelper.inputStreamToStringCRLFLineBreaks(
+        this.getClass().getResourceAsStream("/changeset.batch"));
+    final HttpPost post = new HttpPost(URI.create(getEndpoint().toString() + "$batch"));
+    post.setHeader("Content-Type", "multipart/mixed;boundary=" + BOUNDARY);
+    post.setEntity(new StringEntity(body.substring(0, body.lastIndexOf("--" + BOUNDARY + "--"))));
+    final HttpResponse response = getHttpClient().execute(post);
+    assertEquals(400, response.getStatusLine().getStatusCode());
+    getBody(response);
+
+    // the change set in front of the malformed end of the request must not have been executed
+    assertEquals(EMPLOYEE_2_NAME, getBody(callUri("Employees('2')/EmployeeName/$value")));
+  }
+
   @Test
   public void testContentIdReferencing() throws Exception {
     String responseBody = execute("/batchWithContentId.batch");
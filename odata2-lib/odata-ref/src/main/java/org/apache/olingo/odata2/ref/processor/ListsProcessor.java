@@ -1642,7 +1642,7 @@ public class ListsProcessor extends ODataSingleProcessor {
     for (BatchRequestPart batchPart : batchParts) {
       batchResponseParts.add(handler.handleBatchPart(batchPart));
     }
-    batchResponse = EntityProvider.writeBatchResponse(batchResponseParts);
+    batchResponse = EntityProvider.writeBatchResponse(batchResponseParts.iterator());
     return batchResponse;
   }
 